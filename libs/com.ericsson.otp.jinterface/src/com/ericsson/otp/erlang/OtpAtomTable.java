@@ -0,0 +1,98 @@
+package com.ericsson.otp.erlang;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The canonical atoms of the decoded terms, keyed by their encoded bytes. Looking up an
+ * atom that was decoded before allocates nothing and returns the same object, so
+ * decoded atoms compare by identity. Atoms created from strings aren't canonical.
+ * <p>
+ * Identity holds per encoding: ASCII atoms are shared, but an atom with other
+ * characters, like 'é', has one instance when decoded from ISO-8859-1 and another when
+ * decoded from UTF-8. The two are still equal.
+ * <p>
+ * The table is lock free and never shrinks; when it holds {@link #MAX_SIZE} atoms, new
+ * ones are decoded without being added.
+ */
+final class OtpAtomTable {
+
+    static final int MAX_SIZE = 1 << 16;
+
+    private static final int BUCKETS = 1 << 14;
+
+    private static final AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(
+            OtpAtomTable.BUCKETS);
+    private static final AtomicInteger size = new AtomicInteger();
+
+    private OtpAtomTable() {
+    }
+
+    /**
+     * @return the atom encoded in len bytes of buf, in UTF-8 or ISO-8859-1
+     */
+    static OtpErlangAtom get(final byte[] buf, final int off, final int len,
+            final boolean utf8) {
+        int hash = 0;
+        boolean ascii = true;
+        for (int i = off; i < off + len; i++) {
+            hash = 31 * hash + buf[i];
+            ascii &= buf[i] >= 0;
+        }
+        // ASCII atoms are the same in both encodings
+        final boolean key = utf8 || ascii;
+        final int index = (hash ^ hash >>> 16) & OtpAtomTable.BUCKETS - 1;
+        OtpErlangAtom atom = null;
+        for (;;) {
+            final Entry head = OtpAtomTable.table.get(index);
+            for (Entry e = head; e != null; e = e.next) {
+                if (e.matches(buf, off, len, key)) {
+                    return e.atom;
+                }
+            }
+            if (atom == null) {
+                atom = new OtpErlangAtom(OtpInputStream.decodeAtom(buf, off, len, utf8));
+            }
+            if (OtpAtomTable.size.get() >= OtpAtomTable.MAX_SIZE) {
+                return atom;
+            }
+            final Entry entry = new Entry(Arrays.copyOfRange(buf, off, off + len), key,
+                    atom, head);
+            if (OtpAtomTable.table.compareAndSet(index, head, entry)) {
+                OtpAtomTable.size.incrementAndGet();
+                return atom;
+            }
+            // another thread added to the bucket, it may have been this atom
+        }
+    }
+
+    private static final class Entry {
+        final byte[] bytes;
+        final boolean utf8;
+        final OtpErlangAtom atom;
+        final Entry next;
+
+        Entry(final byte[] bytes, final boolean utf8, final OtpErlangAtom atom,
+                final Entry next) {
+            this.bytes = bytes;
+            this.utf8 = utf8;
+            this.atom = atom;
+            this.next = next;
+        }
+
+        boolean matches(final byte[] buf, final int off, final int len,
+                final boolean key) {
+            if (bytes.length != len || utf8 != key) {
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                if (bytes[i] != buf[off + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
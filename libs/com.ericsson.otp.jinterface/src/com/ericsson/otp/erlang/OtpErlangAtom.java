@@ -115,7 +115,8 @@ public class OtpErlangAtom extends OtpErlangObject {
     }
 
     /**
-     * Determine if two atoms are equal.
+     * Determine if two atoms are equal. Decoded atoms are canonical, so they are only
+     * equal to themselves; atoms created from strings are compared by value.
      *
      * @param o
      *            the other object to compare to.
@@ -124,13 +125,16 @@ public class OtpErlangAtom extends OtpErlangObject {
      */
     @Override
     public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
 
         if (!(o instanceof OtpErlangAtom)) {
             return false;
         }
 
         final OtpErlangAtom other = (OtpErlangAtom) o;
-        return atom.compareTo(other.atom) == 0;
+        return atom.equals(other.atom);
     }
 
     @Override
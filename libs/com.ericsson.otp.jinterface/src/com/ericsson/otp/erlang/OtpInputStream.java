@@ -20,6 +20,7 @@ package com.ericsson.otp.erlang;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
@@ -358,12 +359,25 @@ public class OtpInputStream extends ByteArrayInputStream {
      * @exception OtpErlangDecodeException
      *                if the next term in the stream is not an atom.
      */
-    @SuppressWarnings("fallthrough")
     public String read_atom() throws OtpErlangDecodeException {
+        return read_atom_object().atomValue();
+    }
+
+    /**
+     * Read an Erlang atom from the stream. Atoms are looked up in the {@link OtpAtomTable}
+     * without being decoded, so the same object is returned for all the occurrences of
+     * an atom and nothing is allocated for atoms that were seen before.
+     *
+     * @return the canonical atom.
+     *
+     * @exception OtpErlangDecodeException
+     *                if the next term in the stream is not an atom.
+     */
+    @SuppressWarnings("fallthrough")
+    public OtpErlangAtom read_atom_object() throws OtpErlangDecodeException {
         int tag;
         int len = -1;
-        byte[] strbuf;
-        String atom;
+        boolean utf8 = true;
 
         tag = read1skip_version();
 
@@ -371,20 +385,7 @@ public class OtpInputStream extends ByteArrayInputStream {
 
         case OtpExternal.atomTag:
             len = read2BE();
-            strbuf = new byte[len];
-            this.readN(strbuf);
-            try {
-                atom = new String(strbuf, "ISO-8859-1");
-            } catch (final java.io.UnsupportedEncodingException e) {
-                throw new OtpErlangDecodeException("Failed to decode ISO-8859-1 atom");
-            }
-            if (atom.length() > OtpExternal.maxAtomLength) {
-                /*
-                 * Throwing an exception would be better I think, but truncation seems to
-                 * be the way it has been done in other parts of OTP...
-                 */
-                atom = atom.substring(0, OtpExternal.maxAtomLength);
-            }
+            utf8 = false;
             break;
 
         case OtpExternal.smallAtomUtf8Tag:
@@ -394,13 +395,38 @@ public class OtpInputStream extends ByteArrayInputStream {
             if (len < 0) {
                 len = read2BE();
             }
-            strbuf = new byte[len];
-            this.readN(strbuf);
-            try {
-                atom = new String(strbuf, "UTF-8");
-            } catch (final java.io.UnsupportedEncodingException e) {
-                throw new OtpErlangDecodeException("Failed to decode UTF-8 atom");
+            break;
+
+        default:
+            throw new OtpErlangDecodeException(
+                    "wrong tag encountered, expected " + OtpExternal.atomTag + ", or "
+                            + OtpExternal.atomUtf8Tag + ", got " + tag);
+        }
+
+        if (len <= OtpExternal.maxAtomLength && len <= available()) {
+            final OtpErlangAtom atom = OtpAtomTable.get(super.buf, super.pos, len, utf8);
+            super.pos += len;
+            return atom;
+        }
+        final byte[] strbuf = new byte[len];
+        this.readN(strbuf);
+        return new OtpErlangAtom(decodeAtom(strbuf, 0, len, utf8));
+    }
+
+    static String decodeAtom(final byte[] bytes, final int off, final int len,
+            final boolean utf8) {
+        String atom;
+        if (!utf8) {
+            atom = new String(bytes, off, len, StandardCharsets.ISO_8859_1);
+            if (atom.length() > OtpExternal.maxAtomLength) {
+                /*
+                 * Throwing an exception would be better I think, but truncation seems to
+                 * be the way it has been done in other parts of OTP...
+                 */
+                atom = atom.substring(0, OtpExternal.maxAtomLength);
             }
+        } else {
+            atom = new String(bytes, off, len, StandardCharsets.UTF_8);
             if (atom.codePointCount(0, atom.length()) > OtpExternal.maxAtomLength) {
                 /*
                  * Throwing an exception would be better I think, but truncation seems to
@@ -409,14 +435,7 @@ public class OtpInputStream extends ByteArrayInputStream {
                 final int[] cps = OtpErlangString.stringToCodePoints(atom);
                 atom = new String(cps, 0, OtpExternal.maxAtomLength);
             }
-            break;
-
-        default:
-            throw new OtpErlangDecodeException(
-                    "wrong tag encountered, expected " + OtpExternal.atomTag + ", or "
-                            + OtpExternal.atomUtf8Tag + ", got " + tag);
         }
-
         return atom;
     }
 
@@ -1198,7 +1217,7 @@ public class OtpInputStream extends ByteArrayInputStream {
         case OtpExternal.atomTag:
         case OtpExternal.smallAtomUtf8Tag:
         case OtpExternal.atomUtf8Tag:
-            return new OtpErlangAtom(this);
+            return read_atom_object();
 
         case OtpExternal.floatTag:
         case OtpExternal.newFloatTag:
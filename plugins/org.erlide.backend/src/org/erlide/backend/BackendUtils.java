@@ -73,8 +73,20 @@ public class BackendUtils {
 
     public static boolean isAccessibleDir(final IOtpRpc backend, final String localDir) {
         try {
-            final OtpErlangObject r = backend.call("file", "read_file_info", "s",
-                    localDir);
+            return BackendUtils.isAccessibleDir(
+                    backend.call("file", "read_file_info", "s", localDir));
+        } catch (final RpcException e) {
+            ErlLogger.error(e);
+        }
+        return false;
+    }
+
+    /**
+     * @param r
+     *            the result of file:read_file_info/1
+     */
+    public static boolean isAccessibleDir(final OtpErlangObject r) {
+        try {
             if (Util.isOk(r)) {
                 final OtpErlangTuple result = (OtpErlangTuple) r;
                 final OtpErlangTuple info = (OtpErlangTuple) result.elementAt(1);
@@ -85,8 +97,6 @@ public class BackendUtils {
             }
         } catch (final OtpErlangRangeException e) {
             ErlLogger.error(e);
-        } catch (final RpcException e) {
-            ErlLogger.error(e);
         }
         return false;
     }
@@ -11,11 +11,15 @@ package org.erlide.backend.console;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.erlide.backend.api.IBackend;
 import org.erlide.runtime.events.ErlangEventHandler;
 import org.erlide.runtime.shell.BackendShellEvent;
 import org.erlide.runtime.shell.BackendShellListener;
+import org.erlide.runtime.shell.ConsoleHistory;
 import org.erlide.runtime.shell.IBackendShell;
 import org.erlide.runtime.shell.IoRequest;
 import org.erlide.runtime.shell.IoRequest.IoRequestKind;
@@ -28,6 +32,7 @@ import com.ericsson.otp.erlang.OtpErlangPid;
 import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class BackendShell implements IBackendShell {
 
@@ -42,7 +47,8 @@ public class BackendShell implements IBackendShell {
         this.backend = backend;
         fId = id;
         this.server = server;
-        requests = new ArrayList<>(1000);
+        history = new ConsoleHistory(BackendShell.MAX_REQUESTS,
+                BackendShell.DELTA_REQUESTS);
         listeners = new ArrayList<>();
     }
 
@@ -81,10 +87,20 @@ public class BackendShell implements IBackendShell {
 
     private static final int MAX_REQUESTS = 5000;
     private static final int DELTA_REQUESTS = 500;
+    /** Output is sent to the listeners at most this often (ms). */
+    private static final int NOTIFY_DELAY = 20;
 
-    private final List<IoRequest> requests;
+    private static final ScheduledExecutorService notifier = Executors
+            .newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
+                    .setNameFormat("erlide-console-%d").build());
+
+    private final ConsoleHistory history;
     private final List<BackendShellListener> listeners;
-    private int length;
+    /** Changes not yet sent to the listeners, guarded by history. */
+    private final List<BackendShellEvent> pending = Lists.newArrayList();
+    private boolean flushScheduled;
+    /** Keeps the listeners getting the changes in order. */
+    private final Object notifyLock = new Object();
 
     @Override
     public void input(final String s0) {
@@ -92,28 +108,15 @@ public class BackendShell implements IBackendShell {
         if (!s.endsWith("\n")) {
             s += "\n";
         }
-        final IoRequest request = new IoRequest(s, IoRequestKind.INPUT);
-        request.setStart(length);
-        final int prevLength = length;
-        addRequest(request);
-        notifyListeners(makeEvent(prevLength, request));
-    }
-
-    private void addRequest(final IoRequest req) {
-        final int reqLength = req.getLength();
-        length += reqLength;
-        synchronized (requests) {
-            requests.add(req);
-        }
+        addRequest(new IoRequest(s, IoRequestKind.INPUT));
+        flush();
     }
 
     @Override
     public void add(final OtpErlangObject msg) {
-        deleteOldItems();
-        final int prevLength = length;
-        final IoRequest request = addRequestFromTuple(msg);
-        if (request != null) {
-            notifyListeners(makeEvent(prevLength, request));
+        if (msg instanceof OtpErlangTuple) {
+            addRequest(new IoRequest((OtpErlangTuple) msg));
+            scheduleFlush();
         }
     }
 
@@ -122,112 +125,117 @@ public class BackendShell implements IBackendShell {
         if (IoRequest.RE_PROMPT.matcher(text).matches()) {
             return;
         }
-        final IoRequest request = new IoRequest(text, kind);
-        request.setStart(length);
-        final int prevLength = length;
-        addRequest(request);
-        notifyListeners(makeEvent(prevLength, request));
+        addRequest(new IoRequest(text, kind));
+        scheduleFlush();
     }
 
-    private BackendShellEvent makeEvent(final int prevLength, final IoRequest request) {
-        return new BackendShellEvent(prevLength, 0, request.getMessage());
+    @Override
+    public void add(final List<OtpErlangObject> msgs) {
+        for (final OtpErlangObject msg : msgs) {
+            if (msg instanceof OtpErlangTuple) {
+                addRequest(new IoRequest((OtpErlangTuple) msg));
+            }
+        }
+        scheduleFlush();
     }
 
-    private IoRequest addRequestFromTuple(final OtpErlangObject msg) {
-        if (!(msg instanceof OtpErlangTuple)) {
-            return null;
+    private void addRequest(final IoRequest request) {
+        synchronized (history) {
+            final int dropped = history.add(request);
+            if (dropped > 0) {
+                pending.add(new BackendShellEvent(0, dropped, ""));
+            }
+            append(request.getStart(), request.getMessage());
         }
-        final IoRequest request = new IoRequest((OtpErlangTuple) msg);
-        request.setStart(length);
-        addRequest(request);
-        return request;
     }
 
-    private void deleteOldItems() {
-        final int prevLength = length;
-        synchronized (requests) {
-            if (requests.size() > BackendShell.MAX_REQUESTS) {
-                requests.subList(0, BackendShell.DELTA_REQUESTS).clear();
-                final IoRequest first = requests.get(0);
-                final int start = first.getStart();
-                length = 0;
-                for (final IoRequest request : requests) {
-                    request.setStart(request.getStart() - start);
-                    length += request.getLength();
-                }
+    /**
+     * Consecutive output is merged in a single change.
+     */
+    private void append(final int offset, final String text) {
+        final int last = pending.size() - 1;
+        if (last >= 0) {
+            final BackendShellEvent prev = pending.get(last);
+            if (prev.getRemovedLength() == 0
+                    && prev.getOffset() + prev.getText().length() == offset) {
+                pending.set(last, new BackendShellEvent(prev.getOffset(), 0,
+                        prev.getText() + text));
+                return;
             }
         }
-        if (length != prevLength) {
-            notifyListeners(new BackendShellEvent(0, length - prevLength, ""));
-        }
+        pending.add(new BackendShellEvent(offset, 0, text));
     }
 
-    @Override
-    public IoRequest findAtPos(final int thePos) {
-        synchronized (requests) {
-            for (final IoRequest req : requests) {
-                if (req.getStart() <= thePos
-                        && req.getStart() + req.getLength() > thePos) {
-                    return req;
-                }
+    private void scheduleFlush() {
+        synchronized (history) {
+            if (flushScheduled || pending.isEmpty()) {
+                return;
             }
-            return null;
+            flushScheduled = true;
         }
+        BackendShell.notifier.schedule(this::flush, BackendShell.NOTIFY_DELAY,
+                TimeUnit.MILLISECONDS);
     }
 
-    @Override
-    public List<IoRequest> getAllFrom(final OtpErlangPid sender) {
-        final List<IoRequest> result = new ArrayList<>();
-        synchronized (requests) {
-            for (final IoRequest element : requests) {
-                if (element.getSender().equals(sender)) {
-                    result.add(element);
-                }
+    private void flush() {
+        synchronized (notifyLock) {
+            final List<BackendShellEvent> events;
+            synchronized (history) {
+                events = takePending();
+            }
+            for (final BackendShellEvent event : events) {
+                notifyListeners(event);
             }
         }
-        return result;
+    }
+
+    private List<BackendShellEvent> takePending() {
+        flushScheduled = false;
+        final List<BackendShellEvent> events = Lists.newArrayList(pending);
+        pending.clear();
+        return events;
     }
 
     @Override
-    public void add(final List<OtpErlangObject> msgs) {
-        final int prevLength = length;
-        final StringBuilder text = new StringBuilder();
-        synchronized (requests) {
-            deleteOldItems();
-            for (final OtpErlangObject element : msgs) {
-                final IoRequest request = addRequestFromTuple(element);
-                if (request != null) {
-                    requests.add(request);
-                    text.append(request.getMessage());
-                }
-            }
-        }
-        if (!requests.isEmpty()) {
-            notifyListeners(new BackendShellEvent(prevLength, 0, text.toString()));
+    public IoRequest findAtPos(final int thePos) {
+        synchronized (history) {
+            return history.findAtPos(thePos);
         }
     }
 
     @Override
-    public void dispose() {
-        listeners.clear();
+    public List<IoRequest> getAllFrom(final OtpErlangPid sender) {
+        synchronized (history) {
+            return history.getAllFrom(sender);
+        }
     }
 
     @Override
-    public synchronized void addListener(final BackendShellListener listener) {
-        sendEarlierRequests(listener);
+    public void dispose() {
         synchronized (listeners) {
-            if (!listeners.contains(listener)) {
-                listeners.add(listener);
-            }
+            listeners.clear();
         }
     }
 
-    private void sendEarlierRequests(final BackendShellListener listener) {
-        int alength = 0;
-        synchronized (requests) {
-            for (final IoRequest request : requests) {
-                listener.changed(makeEvent(alength, request));
-                alength += request.getLength();
+    @Override
+    public void addListener(final BackendShellListener listener) {
+        synchronized (notifyLock) {
+            final List<BackendShellEvent> events;
+            final String text;
+            synchronized (history) {
+                events = takePending();
+                text = getText();
+            }
+            for (final BackendShellEvent event : events) {
+                notifyListeners(event);
+            }
+            if (!text.isEmpty()) {
+                listener.changed(new BackendShellEvent(0, 0, text));
+            }
+            synchronized (listeners) {
+                if (!listeners.contains(listener)) {
+                    listeners.add(listener);
+                }
             }
         }
     }
@@ -251,28 +259,30 @@ public class BackendShell implements IBackendShell {
 
     @Override
     public int getTextLength() {
-        return length;
+        synchronized (history) {
+            return history.getLength();
+        }
     }
 
     @Override
     public String getText() {
-        final StringBuilder result = new StringBuilder();
-        synchronized (requests) {
-            for (final IoRequest request : requests) {
-                result.append(request.getMessage());
+        synchronized (history) {
+            final StringBuilder result = new StringBuilder(history.getLength());
+            for (int i = 0; i < history.size(); i++) {
+                result.append(history.get(i).getMessage());
             }
+            return result.toString();
         }
-        return result.toString();
     }
 
     @Override
     public String[] getLastMessages(final int nMessages) {
         final List<String> result = Lists.newArrayListWithCapacity(nMessages);
-        synchronized (requests) {
-            final int size = requests.size();
+        synchronized (history) {
+            final int size = history.size();
             final int n = Math.min(nMessages, size);
             for (int i = size - n; i < size; ++i) {
-                result.add(requests.get(i).getMessage());
+                result.add(history.get(i).getMessage());
             }
         }
         return result.toArray(new String[nMessages]);
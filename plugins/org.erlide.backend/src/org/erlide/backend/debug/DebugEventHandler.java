@@ -1,14 +1,21 @@
 package org.erlide.backend.debug;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
-import org.eclipse.debug.core.DebugException;
 import org.erlide.backend.debug.events.DebuggerEvent;
 import org.erlide.backend.debug.events.DebuggerEventFactory;
+import org.erlide.backend.debug.events.NewStatusEvent;
+import org.erlide.backend.debug.model.DebugEventBatch;
 import org.erlide.backend.debug.model.ErlangDebugTarget;
 import org.erlide.util.ErlLogger;
 
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 class DebugEventHandler {
 
@@ -19,17 +26,47 @@ class DebugEventHandler {
     }
 
     public void handleMessages(final Collection<OtpErlangObject> messages) {
+        final List<DebuggerEvent> events = Lists
+                .newArrayListWithCapacity(messages.size());
         for (final OtpErlangObject message : messages) {
             try {
-                handleMessage(message);
+                events.add(DebuggerEventFactory.parse(message));
             } catch (final Exception e) {
                 ErlLogger.info(e);
             }
         }
+        DebugEventBatch.begin();
+        try {
+            for (final DebuggerEvent event : coalesce(events)) {
+                try {
+                    event.execute(debugTarget);
+                } catch (final Exception e) {
+                    ErlLogger.info(e);
+                }
+            }
+        } finally {
+            DebugEventBatch.end();
+        }
     }
 
-    private void handleMessage(final OtpErlangObject message) throws DebugException {
-        final DebuggerEvent event = DebuggerEventFactory.parse(message);
-        event.execute(debugTarget);
+    /**
+     * Drops the status changes of a process that are superseded by a later one in the
+     * same batch, only the last one would be visible anyway.
+     */
+    static List<DebuggerEvent> coalesce(final List<DebuggerEvent> events) {
+        final Set<OtpErlangPid> seen = Sets.newHashSet();
+        final List<DebuggerEvent> result = Lists.newArrayListWithCapacity(events.size());
+        for (int i = events.size() - 1; i >= 0; i--) {
+            final DebuggerEvent event = events.get(i);
+            if (event instanceof NewStatusEvent) {
+                final NewStatusEvent status = (NewStatusEvent) event;
+                if (!seen.add(status.getPid()) && !status.isExit()) {
+                    continue;
+                }
+            }
+            result.add(event);
+        }
+        Collections.reverse(result);
+        return result;
     }
 }
@@ -30,8 +30,16 @@ public class DebuggerEventDaemon implements IBackendListener {
     static final boolean DEBUG = Boolean
             .parseBoolean(System.getProperty("erlide.event.daemon"));
 
+    private static final int MAX_BATCH = 100;
+    /**
+     * The minimum time between two batches, and so between two refreshes of the debug
+     * views. Messages arriving meanwhile wait in the mailbox and join the next batch.
+     */
+    static final long MIN_BATCH_INTERVAL = 100;
+
     private final class HandlerJob implements Runnable {
         private final IBackend myBackend;
+        private long lastBatch;
 
         public HandlerJob(final IBackend backend) {
             myBackend = backend;
@@ -68,8 +76,9 @@ public class DebuggerEventDaemon implements IBackendListener {
             OtpErlangObject msg = box.receive(200);
             if (msg != null) {
                 messages.add(msg);
+                waitForNextBatch();
                 // if there are more queued events, retrieve not
-                // more than 10 of them
+                // more than MAX_BATCH of them; they are handled together
                 int count = 0;
                 do {
                     msg = box.receive(0);
@@ -77,10 +86,33 @@ public class DebuggerEventDaemon implements IBackendListener {
                         messages.add(msg);
                         count++;
                     }
-                } while (count < 10 && msg != null && !stopped);
+                } while (count < MAX_BATCH && msg != null && !stopped);
             }
             return messages;
         }
+
+        private void waitForNextBatch() {
+            final long delay = DebuggerEventDaemon.getBatchDelay(lastBatch,
+                    System.currentTimeMillis());
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            lastBatch = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @return how long to wait before handling the next batch, the previous one was
+     *         started at lastBatch
+     */
+    static long getBatchDelay(final long lastBatch, final long now) {
+        final long delay = lastBatch + DebuggerEventDaemon.MIN_BATCH_INTERVAL - now;
+        // the clock may have been set back
+        return Math.max(0, Math.min(delay, DebuggerEventDaemon.MIN_BATCH_INTERVAL));
     }
 
     public DebuggerEventDaemon(final IBackend b, final ErlangDebugTarget target) {
@@ -14,12 +14,23 @@ public class NewStatusEvent extends IntEvent {
         super(cmds);
     }
 
+    public OtpErlangPid getPid() {
+        return (OtpErlangPid) cmds[1];
+    }
+
+    public String getStatus() {
+        return ((OtpErlangAtom) cmds[2]).atomValue();
+    }
+
+    public boolean isExit() {
+        return "exit".equals(getStatus());
+    }
+
     @Override
     public void execute(final ErlangDebugTarget debugTarget) {
-        final OtpErlangPid pid = (OtpErlangPid) cmds[1];
+        final OtpErlangPid pid = getPid();
         final ErlangProcess erlangProcess = debugTarget.getOrCreateErlangProcess(pid);
-        final OtpErlangAtom sa = (OtpErlangAtom) cmds[2];
-        final String status = sa.atomValue();
+        final String status = getStatus();
         if ("break".equals(status)) {
             handleBreakStatus(erlangProcess, status);
         } else if ("exit".equals(status)) {
@@ -0,0 +1,57 @@
+package org.erlide.backend.debug.model;
+
+import java.util.List;
+
+import org.eclipse.debug.core.DebugEvent;
+import org.eclipse.debug.core.DebugPlugin;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Collects the debug events that the model fires while a batch of debugger messages is
+ * handled, so that they reach the UI as one event set instead of one set per event.
+ * Repeated events (same source, kind and detail) are only sent once.
+ */
+public final class DebugEventBatch {
+
+    private static final ThreadLocal<List<DebugEvent>> current = new ThreadLocal<>();
+
+    private DebugEventBatch() {
+    }
+
+    public static void begin() {
+        DebugEventBatch.current.set(Lists.newArrayList());
+    }
+
+    /**
+     * @return false if no batch is open on this thread, the event has to be fired as
+     *         usual
+     */
+    static boolean add(final DebugEvent event) {
+        final List<DebugEvent> events = DebugEventBatch.current.get();
+        if (events == null) {
+            return false;
+        }
+        for (final DebugEvent e : events) {
+            if (e.getSource() == event.getSource() && e.getKind() == event.getKind()
+                    && e.getDetail() == event.getDetail()) {
+                return true;
+            }
+        }
+        events.add(event);
+        return true;
+    }
+
+    public static void end() {
+        final List<DebugEvent> events = DebugEventBatch.current.get();
+        DebugEventBatch.current.remove();
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        final DebugPlugin manager = DebugPlugin.getDefault();
+        if (manager != null) {
+            manager.fireDebugEventSet(events.toArray(new DebugEvent[events.size()]));
+        }
+    }
+
+}
@@ -8,6 +8,7 @@
  *******************************************************************************/
 package org.erlide.backend.debug.model;
 
+import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.model.DebugElement;
 import org.eclipse.debug.core.model.IDebugTarget;
 import org.erlide.backend.debug.ErlDebugConstants;
@@ -24,6 +25,13 @@ public class ErlangDebugElement extends DebugElement {
         return ErlDebugConstants.ID_ERLANG_DEBUG_MODEL;
     }
 
+    @Override
+    public void fireEvent(final DebugEvent event) {
+        if (!DebugEventBatch.add(event)) {
+            super.fireEvent(event);
+        }
+    }
+
     public ErlangDebugTarget getErlangDebugTarget() {
         final IErlangDebugNode edn = (IErlangDebugNode) getDebugTarget();
         return edn.getErlangDebugTarget();
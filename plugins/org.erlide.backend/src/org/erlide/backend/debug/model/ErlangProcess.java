@@ -254,11 +254,17 @@ public class ErlangProcess extends ErlangDebugElement implements IThread {
         stackFrames = new ArrayList<>();
     }
 
+    /**
+     * Replaces the stack frames with the ones described by the given terms. Frames that
+     * didn't change are kept, so that their (lazily decoded) variables and the Debug
+     * view's state for them are not lost.
+     */
     public void setStackFrames(final String module, final int line,
             final OtpErlangList erlStackFrames, final OtpErlangList bs) {
-        stackFrames = new ArrayList<>();
+        final List<IStackFrame> oldFrames = stackFrames;
+        stackFrames = new ArrayList<>(erlStackFrames.arity() + 1);
         final IDebugTarget target = getDebugTarget();
-        stackFrames.add(new ErlangStackFrame(module, this, target, line, null, bs,
+        stackFrames.add(getStackFrame(oldFrames, module, target, line, bs,
                 erlStackFrames.arity() + 2));
         for (final OtpErlangObject o : erlStackFrames) {
             final OtpErlangTuple t = (OtpErlangTuple) o;
@@ -293,11 +299,24 @@ public class ErlangProcess extends ErlangDebugElement implements IThread {
             } catch (final OtpErlangRangeException e) {
                 stackFrameNo = -1;
             }
-            stackFrames.add(new ErlangStackFrame(mod, this, target, lin, null, bindings,
+            stackFrames.add(getStackFrame(oldFrames, mod, target, lin, bindings,
                     stackFrameNo));
         }
     }
 
+    private IStackFrame getStackFrame(final List<IStackFrame> oldFrames,
+            final String module, final IDebugTarget target, final int line,
+            final OtpErlangList bindings, final int stackFrameNo) {
+        for (final IStackFrame old : oldFrames) {
+            if (old instanceof ErlangStackFrame && ((ErlangStackFrame) old)
+                    .isSameAs(module, line, bindings, stackFrameNo)) {
+                return old;
+            }
+        }
+        return new ErlangStackFrame(module, this, target, line, null, bindings,
+                stackFrameNo);
+    }
+
     public OtpErlangObject getLastCalls() {
         final OtpErlangObject res = ErlideDebug.getProcessInfo(fBackend.getOtpRpc(), fPid,
                 "last_calls");
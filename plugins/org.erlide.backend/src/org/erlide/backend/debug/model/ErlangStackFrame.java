@@ -37,9 +37,14 @@ public class ErlangStackFrame extends ErlangDebugElement
 
     private final String fModuleName;
     private final ErlangProcess fParent;
-    private final int fLineNumber;
+    private final int fLineNumber0;
+    private final ErlangFunction fFunction;
+    private final OtpErlangList fBindings;
+    /** Decoded from fBindings when first asked for. */
     List<ErlangVariable> bindings;
     int stackFrameNo;
+    private boolean sourceResolved;
+    private int fLineNumber;
     private String clauseHead;
 
     public ErlangStackFrame(final String moduleName, final ErlangProcess parent,
@@ -50,30 +55,63 @@ public class ErlangStackFrame extends ErlangDebugElement
         fParent = parent;
         fModuleName = moduleName;
         this.stackFrameNo = stackFrameNo;
-        final List<ErlangVariable> framesReversed = new ArrayList<>(bindings.arity());
-        for (final OtpErlangObject o : bindings) {
-            if (o instanceof OtpErlangTuple) {
-                final OtpErlangTuple t = (OtpErlangTuple) o;
-                final OtpErlangAtom nameA = (OtpErlangAtom) t.elementAt(0);
-                final OtpErlangObject value = t.elementAt(1);
-                framesReversed.add(new ErlangVariable(target, nameA.atomValue(), false,
-                        value, parent, moduleName, stackFrameNo));
+        fLineNumber0 = lineNumber0;
+        fFunction = function;
+        fBindings = bindings;
+    }
+
+    /**
+     * @return true if this frame shows the same state as the given data, so that it can
+     *         be kept instead of creating a new one
+     */
+    public boolean isSameAs(final String moduleName, final int lineNumber0,
+            final OtpErlangList bindings0, final int stackFrameNo0) {
+        return fModuleName.equals(moduleName) && fLineNumber0 == lineNumber0
+                && stackFrameNo == stackFrameNo0 && fFunction == null
+                && fBindings.equals(bindings0);
+    }
+
+    private synchronized List<ErlangVariable> getBindings() {
+        if (bindings == null) {
+            final IDebugTarget target = getDebugTarget();
+            final List<ErlangVariable> framesReversed = new ArrayList<>(
+                    fBindings.arity());
+            for (final OtpErlangObject o : fBindings) {
+                if (o instanceof OtpErlangTuple) {
+                    final OtpErlangTuple t = (OtpErlangTuple) o;
+                    final OtpErlangAtom nameA = (OtpErlangAtom) t.elementAt(0);
+                    final OtpErlangObject value = t.elementAt(1);
+                    framesReversed.add(new ErlangVariable(target, nameA.atomValue(),
+                            false, value, fParent, fModuleName, stackFrameNo));
+                }
+            }
+            final List<ErlangVariable> frames = new ArrayList<>(framesReversed.size());
+            for (int i = framesReversed.size() - 1; i >= 0; --i) {
+                frames.add(framesReversed.get(i));
             }
+            bindings = frames;
         }
-        final List<ErlangVariable> frames = new ArrayList<>(framesReversed.size());
-        for (int i = framesReversed.size() - 1; i >= 0; --i) {
-            frames.add(framesReversed.get(i));
+        return bindings;
+    }
+
+    /**
+     * Looks up the clause head and the line (if not known) in the model. Done lazily,
+     * as it needs to open the module.
+     */
+    private synchronized void resolveSource() {
+        if (sourceResolved) {
+            return;
         }
-        this.bindings = frames;
+        sourceResolved = true;
         IErlModule module;
         try {
-            module = ErlangEngine.getInstance().getModel().findModule(moduleName);
+            module = ErlangEngine.getInstance().getModel().findModule(fModuleName);
         } catch (final ErlModelException e) {
             ErlLogger.error(e);
             module = null;
         }
         clauseHead = null;
-        int lineNumber = lineNumber0;
+        int lineNumber = fLineNumber0;
         if (module != null) {
             try {
                 module.open(null);
@@ -83,8 +121,8 @@ public class ErlangStackFrame extends ErlangDebugElement
                         final IErlFunctionClause clause = (IErlFunctionClause) e;
                         clauseHead = clause.getFunctionName() + clause.getHead();
                     }
-                } else if (function != null) {
-                    final IErlFunction f = module.findFunction(function);
+                } else if (fFunction != null) {
+                    final IErlFunction f = module.findFunction(fFunction);
                     if (f != null) {
                         lineNumber = f.getLineStart() + 1;
                         clauseHead = f.getFunctionName() + f.getHead();
@@ -108,7 +146,8 @@ public class ErlangStackFrame extends ErlangDebugElement
 
     @Override
     public IVariable[] getVariables() throws DebugException {
-        return bindings.toArray(new IVariable[bindings.size()]);
+        final List<ErlangVariable> vars = getBindings();
+        return vars.toArray(new IVariable[vars.size()]);
     }
 
     @Override
@@ -118,6 +157,7 @@ public class ErlangStackFrame extends ErlangDebugElement
 
     @Override
     public int getLineNumber() throws DebugException {
+        resolveSource();
         return fLineNumber;
     }
 
@@ -222,6 +262,7 @@ public class ErlangStackFrame extends ErlangDebugElement
     }
 
     public String getClauseHead() {
+        resolveSource();
         return clauseHead;
     }
 
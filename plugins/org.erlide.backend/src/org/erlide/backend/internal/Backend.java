@@ -11,6 +11,10 @@ package org.erlide.backend.internal;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.Path;
@@ -37,7 +41,10 @@ import org.erlide.backend.debug.model.ErlangDebugTarget;
 import org.erlide.engine.model.root.IErlProject;
 import org.erlide.runtime.api.BeamLoader;
 import org.erlide.runtime.api.IOtpNodeProxy;
+import org.erlide.runtime.api.StartupMetrics;
 import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.RpcFuture;
+import org.erlide.runtime.rpc.RpcTimeoutException;
 import org.erlide.runtime.shell.IBackendShell;
 import org.erlide.runtime.shell.IoRequest.IoRequestKind;
 import org.erlide.util.ErlLogger;
@@ -54,6 +61,8 @@ import com.google.common.util.concurrent.Service.State;
 
 public class Backend implements IStreamListener, IBackend {
 
+    private static final long INIT_TIMEOUT = 30000;
+
     private final IOtpNodeProxy runtime;
     private BackendShellManager shellManager;
     private CodeManager codeManager;
@@ -62,6 +71,7 @@ public class Backend implements IStreamListener, IBackend {
     private ErlangDebugTarget debugTarget;
     protected final IBackendManager backendManager;
     private boolean disposed;
+    private final CountDownLatch initialized = new CountDownLatch(1);
 
     public Backend(final BackendData data, @NonNull final IOtpNodeProxy runtime,
             final IBackendManager backendManager) {
@@ -99,20 +109,32 @@ public class Backend implements IStreamListener, IBackend {
             site.call("erlide_common_app", "init", "poii", jRex, watch,
                     sysconf.getWarnProcessSizeLimitMB(),
                     sysconf.getKillProcessSizeLimitMB());
-            site.call("erlide_tools_app", "init", "");
+            // the other apps don't depend on each other, start them together
+            final Map<String, RpcFuture> inits = new LinkedHashMap<>();
+            inits.put("erlide_tools_app",
+                    site.async_call("erlide_tools_app", "init", ""));
             // TODO should use extension point!
             switch (data.getContext()) {
             case BUILDER:
-                site.call("erlide_builder_app", "init", "i",
-                        sysconf.getMaxParallelBuilds());
+                inits.put("erlide_builder_app", site.async_call("erlide_builder_app",
+                        "init", "i", sysconf.getMaxParallelBuilds()));
                 break;
             case IDE:
-                site.call("erlide_builder_app", "init", "i",
-                        sysconf.getMaxParallelBuilds());
+                inits.put("erlide_builder_app", site.async_call("erlide_builder_app",
+                        "init", "i", sysconf.getMaxParallelBuilds()));
                 // site.call("erlide_ide_app", "init", "");
                 break;
             default:
             }
+            for (final Map.Entry<String, RpcFuture> init : inits.entrySet()) {
+                try {
+                    init.getValue().checkedGetWithDefaultTimeout();
+                } catch (final RpcTimeoutException e) {
+                    ErlLogger.error("%s didn't start in time on %s", init.getKey(),
+                            getName());
+                    return false;
+                }
+            }
             return true;
         } catch (final Exception e) {
             ErlLogger.error(e);
@@ -313,29 +335,42 @@ public class Backend implements IStreamListener, IBackend {
     public void initialize(final CodeContext context,
             final Collection<ICodeBundle> bundles) {
         shellManager = new BackendShellManager(this);
+        if (data.isManaged()) {
+            // the node finds our code while it boots, we don't have to wait for that
+            data.setBootCodePath(CodeManager.getBootCodePath(context, bundles,
+                    data.getRuntimeInfo().getVersion()));
+        }
         runtime.addRuntimeListener(new Listener() {
             @Override
             public void terminated(final Service.State from) {
+                initialized.countDown();
                 dispose();
                 getData().setLaunch(null);
             }
 
             @Override
             public void failed(final State from, final Throwable failure) {
+                initialized.countDown();
                 dispose();
                 getData().setLaunch(null);
             }
 
             @Override
             public void running() {
-                codeManager = new CodeManager(getOtpRpc(),
-                        data.getRuntimeInfo().getName(),
-                        data.getRuntimeInfo().getVersion());
-
-                for (final ICodeBundle bb : bundles) {
-                    registerCodeBundle(context, bb);
+                try {
+                    final StartupMetrics metrics = runtime.getStartupMetrics();
+                    codeManager = new CodeManager(getOtpRpc(),
+                            data.getRuntimeInfo().getName(),
+                            data.getRuntimeInfo().getVersion(),
+                            data.getBootCodePath());
+                    codeManager.registerAll(context, bundles);
+                    metrics.done("code");
+                    initErlang(data.isManaged());
+                    metrics.done("init");
+                    metrics.log();
+                } finally {
+                    initialized.countDown();
                 }
-                initErlang(data.isManaged());
 
                 try {
                     postLaunch();
@@ -348,6 +383,21 @@ public class Backend implements IStreamListener, IBackend {
 
     }
 
+    /**
+     * Waits until the code is loaded and the erlide applications are started, or the
+     * runtime is down.
+     */
+    public void awaitInitialized() {
+        try {
+            if (!initialized.await(Backend.INIT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                ErlLogger.warn("Backend %s not initialized after %d ms", getName(),
+                        Backend.INIT_TIMEOUT);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     // /////
 
     @Override
@@ -363,25 +413,23 @@ public class Backend implements IStreamListener, IBackend {
     private void loadBeamsFromDir(final String outDir) {
         final File dir = new File(outDir);
         if (dir.isDirectory()) {
+            final Map<String, OtpErlangBinary> beams = new LinkedHashMap<>();
             for (final File f : dir.listFiles()) {
                 final Path path = new Path(f.getPath());
                 if (path.getFileExtension() != null
                         && "beam".compareTo(path.getFileExtension()) == 0) {
                     final String m = path.removeFileExtension().lastSegment();
-                    try {
-                        boolean ok = false;
-                        final OtpErlangBinary bin = BeamUtil.getBeamBinary(m, path);
-                        if (bin != null) {
-                            ok = BeamLoader.loadBeam(getOtpRpc(), m, bin);
-                        }
-                        if (!ok) {
-                            ErlLogger.error("Could not load %s", m);
-                        }
-                    } catch (final Exception ex) {
-                        ErlLogger.warn(ex);
+                    final OtpErlangBinary bin = BeamUtil.getBeamBinary(m, path);
+                    if (bin != null) {
+                        beams.put(m, bin);
+                    } else {
+                        ErlLogger.error("Could not load %s", m);
                     }
                 }
             }
+            for (final String m : BeamLoader.loadBeams(getOtpRpc(), beams)) {
+                ErlLogger.error("Could not load %s", m);
+            }
         }
     }
 
@@ -43,17 +43,24 @@ public class BackendFactory implements IBackendFactory {
     }
 
     @Override
-    public synchronized IBackend createBuildBackend(final RuntimeInfo info) {
+    public IBackend createBuildBackend(final RuntimeInfo info) {
         ErlLogger.debug("Create build backend " + info.getVersion().asMajor().toString());
         final IBackend backend = createBackend(getBuildBackendData(info));
         return backend;
     }
 
     @Override
-    public synchronized IBackend createBackend(final BackendData data) {
+    public IBackend createBackend(final BackendData data) {
+        final Backend b = startBackend(data);
+        // not under the lock, other backends can be started meanwhile
+        b.awaitInitialized();
+        return b;
+    }
+
+    private synchronized Backend startBackend(final BackendData data) {
         ErlLogger.debug("Create backend " + data.getNodeName());
 
-        final IBackend b;
+        final Backend b;
         final IOtpNodeProxy runtime = createNodeProxy(data);
 
         final IBackendManager backendManager = BackendCore.getBackendManager();
@@ -66,9 +66,11 @@ public final class BackendManager implements IBackendManager {
     private final Set<@NonNull IBackend> allBackends;
     private final BackendManagerLaunchListener launchListener;
     private final IBackendFactory factory;
+    private final BackendPool pool;
 
     public BackendManager(final IBackendFactory factory) {
         this.factory = factory;
+        pool = new BackendPool(factory);
 
         ideBackend = null;
         executionBackends = Maps.newHashMap();
@@ -110,7 +112,10 @@ public final class BackendManager implements IBackendManager {
         final String version = info.getVersion().asMajor().toString();
         IBackend b = buildBackends.get(version);
         if (b == null) {
-            b = factory.createBuildBackend(info);
+            b = pool.claim(info);
+            if (b == null) {
+                b = factory.createBuildBackend(info);
+            }
             buildBackends.put(version, b);
             addBackend(b);
             notifyBackendChange(b, BackendEvent.ADDED, null, null);
@@ -126,6 +131,12 @@ public final class BackendManager implements IBackendManager {
             addBackend(result);
             notifyBackendChange(result, BackendEvent.ADDED, null, null);
             ideBackend = result;
+            // builds will most likely need it
+            final RuntimeInfo info = BackendCore.getRuntimeInfoCatalog()
+                    .getDefaultRuntime();
+            if (info != null) {
+                pool.fill(info);
+            }
         }
         return ideBackend;
     }
@@ -163,6 +174,7 @@ public final class BackendManager implements IBackendManager {
             final String name = b + "@" + host;
             // ErlLogger.debug("(epmd) stopped: '%s'", name);
             remoteNodeStatus(name, false, null);
+            pool.nodeStopped(name);
         }
     }
 
@@ -352,6 +364,7 @@ public final class BackendManager implements IBackendManager {
 
     @Override
     public void dispose() {
+        pool.dispose();
         synchronized (this) {
             final Collection<IBackend> bb = Lists.newArrayList(buildBackends.values());
             buildBackends.clear();
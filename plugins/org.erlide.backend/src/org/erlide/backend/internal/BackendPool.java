@@ -0,0 +1,221 @@
+package org.erlide.backend.internal;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNull;
+import org.erlide.backend.api.IBackend;
+import org.erlide.backend.api.IBackendFactory;
+import org.erlide.runtime.runtimeinfo.RuntimeInfo;
+import org.erlide.util.ErlLogger;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Build backends that are started and initialized in the background, per major
+ * runtime version, so that a build doesn't have to wait for a runtime to boot. A
+ * claimed backend is replaced by a new one.
+ * <p>
+ * The pool is off by default, as each spare is an extra node. Its size is set with
+ * the <code>erlide.backend.pool.size</code> property and spares that aren't claimed
+ * within <code>erlide.backend.pool.idle</code> minutes are shut down.
+ * </p>
+ */
+public class BackendPool {
+
+    private static final int SIZE = Integer.getInteger("erlide.backend.pool.size", 0);
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES
+            .toMillis(Long.getLong("erlide.backend.pool.idle", 30));
+
+    private final IBackendFactory factory;
+    private final int size;
+    private final long idleMillis;
+    // major version -> spares, oldest first
+    private final Map<String, Deque<Spare>> spares = Maps.newHashMap();
+    // major version -> spares being started, in start order
+    private final Map<String, Deque<CompletableFuture<IBackend>>> starting = Maps
+            .newHashMap();
+    private final ScheduledExecutorService executor;
+    private boolean disposed;
+
+    public BackendPool(final IBackendFactory factory) {
+        this(factory, BackendPool.SIZE, BackendPool.IDLE_MILLIS);
+    }
+
+    BackendPool(final IBackendFactory factory, final int size, final long idleMillis) {
+        this.factory = factory;
+        this.size = size;
+        this.idleMillis = idleMillis;
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("backend-pool-%d").build());
+        executor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return a running spare backend for this runtime's version, or null if there is
+     *         none. If a spare is still starting, it is waited for instead of starting
+     *         another node. The spare is replaced in the background.
+     */
+    public IBackend claim(@NonNull final RuntimeInfo info) {
+        if (size <= 0) {
+            return null;
+        }
+        final String key = BackendPool.key(info);
+        IBackend result = null;
+        CompletableFuture<IBackend> pending = null;
+        final List<IBackend> dead = Lists.newArrayList();
+        synchronized (this) {
+            final Deque<Spare> list = spares.get(key);
+            while (result == null && list != null && !list.isEmpty()) {
+                final IBackend b = list.poll().backend;
+                if (b.isRunning()) {
+                    result = b;
+                } else {
+                    dead.add(b);
+                }
+            }
+            if (result == null) {
+                final Deque<CompletableFuture<IBackend>> futures = starting.get(key);
+                pending = futures == null ? null : futures.poll();
+            }
+        }
+        for (final IBackend b : dead) {
+            b.dispose();
+        }
+        if (pending != null) {
+            result = pending.join();
+            if (result != null && !result.isRunning()) {
+                result.dispose();
+                result = null;
+            }
+        }
+        fill(info);
+        return result;
+    }
+
+    /**
+     * Starts spares for this runtime's version in the background, up to the pool size.
+     */
+    public synchronized void fill(@NonNull final RuntimeInfo info) {
+        final String key = BackendPool.key(info);
+        final Deque<Spare> list = spares.get(key);
+        final Deque<CompletableFuture<IBackend>> futures = starting.computeIfAbsent(key,
+                k -> Lists.newLinkedList());
+        final int present = (list == null ? 0 : list.size()) + futures.size();
+        for (int i = present; i < size && !disposed; i++) {
+            final CompletableFuture<IBackend> future = new CompletableFuture<>();
+            futures.add(future);
+            executor.execute(() -> start(info, future));
+        }
+    }
+
+    private void start(final RuntimeInfo info, final CompletableFuture<IBackend> future) {
+        final String key = BackendPool.key(info);
+        IBackend b = null;
+        try {
+            b = factory.createBuildBackend(info);
+        } catch (final Exception e) {
+            ErlLogger.warn("Could not start spare backend for %s: %s", key, e);
+        }
+        final boolean claimed;
+        final boolean keep;
+        synchronized (this) {
+            // a claimer that took the future gets the backend
+            claimed = !starting.get(key).remove(future);
+            keep = !claimed && b != null && b.isRunning() && !disposed;
+            if (keep) {
+                spares.computeIfAbsent(key, k -> Lists.newLinkedList())
+                        .add(new Spare(b));
+            }
+        }
+        if (claimed && future.complete(b)) {
+            return;
+        }
+        future.complete(null);
+        if (keep) {
+            ErlLogger.debug("Spare backend %s ready", b.getName());
+        } else if (b != null) {
+            b.dispose();
+        }
+    }
+
+    /**
+     * @return the number of running spares for this runtime's version
+     */
+    synchronized int getReadyCount(@NonNull final RuntimeInfo info) {
+        final Deque<Spare> list = spares.get(BackendPool.key(info));
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Drops the spares whose node is gone, called with the nodes that epmd doesn't
+     * know anymore.
+     */
+    public void nodeStopped(final String node) {
+        for (final IBackend b : remove(s -> s.backend.getName().startsWith(node))) {
+            ErlLogger.debug("Spare backend %s is down", b.getName());
+            b.dispose();
+        }
+    }
+
+    void evictIdle() {
+        final long now = System.currentTimeMillis();
+        for (final IBackend b : remove(s -> now - s.since > idleMillis)) {
+            ErlLogger.debug("Stopping idle spare backend %s", b.getName());
+            b.dispose();
+        }
+    }
+
+    public void dispose() {
+        final List<CompletableFuture<IBackend>> pending = Lists.newArrayList();
+        synchronized (this) {
+            disposed = true;
+            starting.values().forEach(pending::addAll);
+        }
+        executor.shutdownNow();
+        // the starts that were queued won't run
+        for (final CompletableFuture<IBackend> future : pending) {
+            future.complete(null);
+        }
+        for (final IBackend b : remove(s -> true)) {
+            b.dispose();
+        }
+    }
+
+    private synchronized List<IBackend> remove(final Predicate<Spare> which) {
+        final List<IBackend> result = Lists.newArrayList();
+        for (final Deque<Spare> list : spares.values()) {
+            for (final Iterator<Spare> it = list.iterator(); it.hasNext();) {
+                final Spare s = it.next();
+                if (which.test(s)) {
+                    it.remove();
+                    result.add(s.backend);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String key(final RuntimeInfo info) {
+        return info.getVersion().asMajor().toString();
+    }
+
+    private static class Spare {
+        final IBackend backend;
+        final long since = System.currentTimeMillis();
+
+        Spare(final IBackend backend) {
+            this.backend = backend;
+        }
+    }
+
+}
@@ -8,10 +8,17 @@
  *******************************************************************************/
 package org.erlide.backend.internal;
 
+import java.io.File;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.erlide.backend.BackendUtils;
@@ -20,25 +27,42 @@ import org.erlide.backend.api.ICodeBundle.CodeContext;
 import org.erlide.backend.debug.BeamUtil;
 import org.erlide.runtime.api.BeamLoader;
 import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.RpcException;
+import org.erlide.runtime.rpc.RpcFuture;
 import org.erlide.runtime.runtimeinfo.RuntimeVersion;
 import org.erlide.util.ErlLogger;
+import org.erlide.util.erlang.BeamChunks;
 
 import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 public class CodeManager {
 
+    // beams from the bundles, read once and kept across backend restarts
+    private static final Cache<String, Beam> BEAMS = CacheBuilder.newBuilder()
+            .softValues().build();
+
+    // the chunks that make up a module's MD5, in this order
+    private static final String[] MD5_CHUNKS = { "Atom", "AtU8", "Code", "StrT",
+            "ImpT", "ExpT", "FunT", "LitT" };
+
     private final IOtpRpc site;
     private final String backendName;
     private final List<PathItem> pathA;
     private final List<PathItem> pathZ;
     private final RuntimeVersion version;
+    private final Collection<String> bootCodePath;
+    private Boolean embedded;
 
     // only to be called by Backend
     CodeManager(final IOtpRpc site, final String backendName,
-            final RuntimeVersion version) {
+            final RuntimeVersion version, final Collection<String> bootCodePath) {
         this.site = site;
         this.backendName = backendName;
         this.version = version;
+        this.bootCodePath = bootCodePath;
         pathA = new ArrayList<>();
         pathZ = new ArrayList<>();
     }
@@ -60,28 +84,105 @@ public class CodeManager {
     }
 
     public void register(final CodeContext context, final ICodeBundle bundle) {
-        if (bundle.getVersion() != RuntimeVersion.NO_VERSION
-                && bundle.getVersion().getMajor() != version.getMajor()) {
-            return;
+        registerAll(context, Collections.singleton(bundle));
+    }
+
+    /**
+     * Registers several bundles at once. The backend is asked about all the ebin
+     * directories before waiting for any answer. The accessible ones are added to the
+     * code path with one call; the others' modules are loaded in bulk, except those
+     * that the node has already loaded from the same beam. Directories that were put on
+     * the code path when the node booted are not asked about.
+     */
+    public void registerAll(final CodeContext context,
+            final Collection<ICodeBundle> bundles) {
+        final boolean embedded = isEmbedded();
+        final List<EbinDir> dirs = new ArrayList<>();
+        for (final EbinDir dir : CodeManager.getEbinDirs(context, bundles, version)) {
+            if (embedded || !bootCodePath.contains(dir.localDir)) {
+                dirs.add(dir);
+            }
         }
-        final Collection<String> ebinDirs = bundle.getEbinDirs(context);
-        if (ebinDirs == null) {
-            ErlLogger.warn("Could not find 'ebin' in bundle %s.", bundle.getBundle());
-            return;
+        if (!embedded) {
+            for (final EbinDir dir : dirs) {
+                try {
+                    dir.info = site.async_call("file", "read_file_info", "s",
+                            dir.localDir);
+                } catch (final RpcException e) {
+                    ErlLogger.error(e);
+                }
+            }
         }
-        for (final String ebinDir : ebinDirs) {
-            final String localDir = ebinDir.replaceAll("\\\\", "/");
-            final boolean accessible = BackendUtils.isAccessibleDir(site, localDir);
-            final boolean embedded = ErlangCode.isEmbedded(site);
-            if (accessible && !embedded) {
-                ErlangCode.addPathA(site, localDir);
+        final List<String> paths = new ArrayList<>();
+        final Map<String, Beam> beams = new LinkedHashMap<>();
+        for (final EbinDir dir : dirs) {
+            if (dir.isAccessible()) {
+                paths.add(dir.localDir);
             } else {
-                ErlLogger.debug("loading %s for %s", bundle.getBundle(), backendName);
-                loadCodeForBundle(context, bundle, ebinDir);
+                ErlLogger.debug("loading %s for %s", dir.bundle.getBundle(), backendName);
+                collectCodeForBundle(context, dir.bundle, beams);
+            }
+        }
+        RpcFuture added = null;
+        if (!paths.isEmpty()) {
+            try {
+                added = site.async_call("code", "add_pathsa", "ls", paths);
+            } catch (final RpcException e) {
+                ErlLogger.error(e);
+            }
+        }
+        loadBeams(getChangedBeams(beams));
+        if (added != null) {
+            try {
+                added.checkedGet();
+            } catch (final RpcException e) {
+                ErlLogger.error(e);
             }
         }
     }
 
+    /**
+     * @return the bundles' ebin directories that exist on this machine, to be put on
+     *         the code path of a node that we start here
+     */
+    public static List<String> getBootCodePath(final CodeContext context,
+            final Collection<ICodeBundle> bundles, final RuntimeVersion version) {
+        final List<String> result = new ArrayList<>();
+        for (final EbinDir dir : CodeManager.getEbinDirs(context, bundles, version)) {
+            if (new File(dir.localDir).isDirectory()) {
+                result.add(dir.localDir);
+            }
+        }
+        return result;
+    }
+
+    private static List<EbinDir> getEbinDirs(final CodeContext context,
+            final Collection<ICodeBundle> bundles, final RuntimeVersion version) {
+        final List<EbinDir> dirs = new ArrayList<>();
+        for (final ICodeBundle bundle : bundles) {
+            if (bundle.getVersion() != RuntimeVersion.NO_VERSION
+                    && bundle.getVersion().getMajor() != version.getMajor()) {
+                continue;
+            }
+            final Collection<String> ebinDirs = bundle.getEbinDirs(context);
+            if (ebinDirs == null) {
+                ErlLogger.warn("Could not find 'ebin' in bundle %s.", bundle.getBundle());
+                continue;
+            }
+            for (final String ebinDir : ebinDirs) {
+                dirs.add(new EbinDir(bundle, ebinDir));
+            }
+        }
+        return dirs;
+    }
+
+    private synchronized boolean isEmbedded() {
+        if (embedded == null) {
+            embedded = ErlangCode.isEmbedded(site);
+        }
+        return embedded;
+    }
+
     public void unregister(final CodeContext context, final ICodeBundle bundle) {
         if (bundle == null) {
             return;
@@ -90,16 +191,11 @@ public class CodeManager {
         unloadCodeForBundle(context, bundle);
     }
 
-    private boolean loadBeam(final String moduleName, final URL beamPath) {
-        final OtpErlangBinary bin = BeamUtil.getBeamBinary(moduleName, beamPath);
-        if (bin == null) {
-            return false;
-        }
-        return BeamLoader.loadBeam(site, moduleName, bin);
-    }
-
-    private void loadCodeForBundle(final CodeContext context, final ICodeBundle bundle,
-            final String ebinDir2) {
+    /**
+     * Adds the bundle's modules.
+     */
+    private void collectCodeForBundle(final CodeContext context,
+            final ICodeBundle bundle, final Map<String, Beam> result) {
         final Collection<URL> beams = bundle.getEbinBeamURLs(context);
         if (beams == null) {
             return;
@@ -107,12 +203,101 @@ public class CodeManager {
         for (final URL beam : beams) {
             final String beamModuleName = BackendUtils.getBeamModuleName(beam.getPath());
             if (beamModuleName != null) {
-                // ErlLogger.debug(" load " + beamModuleName);
-                if (!loadBeam(beamModuleName, beam)) {
+                final Beam b = CodeManager.getBeam(beamModuleName, beam);
+                if (b == null) {
                     ErlLogger.error("Could not load %s", beamModuleName);
+                } else {
+                    result.put(beamModuleName, b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Asks the node for the MD5 of all the modules before waiting for any answer.
+     *
+     * @return the beams that the node hasn't loaded, or has loaded in another version
+     */
+    private Map<String, Beam> getChangedBeams(final Map<String, Beam> beams) {
+        final Map<String, RpcFuture> md5s = new LinkedHashMap<>();
+        for (final String module : beams.keySet()) {
+            try {
+                // fails with badarg if the module isn't loaded, it isn't auto loaded
+                md5s.put(module, site.async_call("erlang", "get_module_info", "aa",
+                        module, "md5"));
+            } catch (final RpcException e) {
+                ErlLogger.error(e);
+            }
+        }
+        final Map<String, Beam> result = new LinkedHashMap<>(beams);
+        for (final Map.Entry<String, RpcFuture> md5 : md5s.entrySet()) {
+            try {
+                if (beams.get(md5.getKey()).isLoaded(md5.getValue().checkedGet())) {
+                    result.remove(md5.getKey());
                 }
+            } catch (final RpcException e) {
+                ErlLogger.error(e);
             }
         }
+        return result;
+    }
+
+    private void loadBeams(final Map<String, Beam> beams) {
+        final Map<String, OtpErlangBinary> binaries = new LinkedHashMap<>();
+        for (final Map.Entry<String, Beam> beam : beams.entrySet()) {
+            binaries.put(beam.getKey(), beam.getValue().binary);
+        }
+        for (final String module : BeamLoader.loadBeams(site, binaries)) {
+            ErlLogger.error("Could not load %s", module);
+        }
+    }
+
+    private static Beam getBeam(final String moduleName, final URL beamPath) {
+        final Beam cached = CodeManager.BEAMS.getIfPresent(beamPath.toString());
+        if (cached != null) {
+            return cached;
+        }
+        final OtpErlangBinary bin = BeamUtil.getBeamBinary(moduleName, beamPath);
+        if (bin == null) {
+            return null;
+        }
+        final Beam result = new Beam(bin);
+        CodeManager.BEAMS.put(beamPath.toString(), result);
+        return result;
+    }
+
+    /**
+     * @return the MD5 that a node reports for the module in this beam (as
+     *         <code>beam_lib:md5/1</code> computes it), or null if the beam can't be
+     *         parsed
+     */
+    static byte[] getModuleMd5(final byte[] beam) {
+        final Map<String, byte[]> chunks = BeamChunks.read(beam);
+        if (chunks == null) {
+            return null;
+        }
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            // always available
+            throw new IllegalStateException(e);
+        }
+        for (final String id : CodeManager.MD5_CHUNKS) {
+            final byte[] chunk = chunks.get(id);
+            if (chunk == null) {
+                continue;
+            }
+            if ("FunT".equals(id)) {
+                // the old unique value of each fun (the last of its six words) is
+                // ignored
+                for (int i = 4 + 20; i + 4 <= chunk.length; i += 24) {
+                    Arrays.fill(chunk, i, i + 4, (byte) 0);
+                }
+            }
+            md5.update(chunk);
+        }
+        return md5.digest();
     }
 
     private void unloadCodeForBundle(final CodeContext context,
@@ -165,6 +350,48 @@ public class CodeManager {
         ErlangCode.delete(site, moduleName);
     }
 
+    private static class Beam {
+        final OtpErlangBinary binary;
+        final byte[] md5;
+
+        Beam(final OtpErlangBinary binary) {
+            this.binary = binary;
+            md5 = CodeManager.getModuleMd5(binary.binaryValue());
+        }
+
+        /**
+         * @param loadedMd5
+         *            what the node answered when asked for the module's MD5
+         */
+        boolean isLoaded(final OtpErlangObject loadedMd5) {
+            return md5 != null && loadedMd5 instanceof OtpErlangBinary
+                    && Arrays.equals(md5, ((OtpErlangBinary) loadedMd5).binaryValue());
+        }
+    }
+
+    private static class EbinDir {
+        final ICodeBundle bundle;
+        final String localDir;
+        RpcFuture info;
+
+        EbinDir(final ICodeBundle bundle, final String ebinDir) {
+            this.bundle = bundle;
+            localDir = ebinDir.replaceAll("\\\\", "/");
+        }
+
+        boolean isAccessible() {
+            if (info == null) {
+                return false;
+            }
+            try {
+                return BackendUtils.isAccessibleDir(info.checkedGet());
+            } catch (final RpcException e) {
+                ErlLogger.error(e);
+                return false;
+            }
+        }
+    }
+
     private static class PathItem {
 
         public PathItem(final String p) {
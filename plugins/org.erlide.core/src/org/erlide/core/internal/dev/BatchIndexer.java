@@ -0,0 +1,175 @@
+package org.erlide.core.internal.dev;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.erlide.engine.ErlangEngine;
+import org.erlide.engine.model.ErlModelException;
+import org.erlide.engine.model.root.IErlModel;
+import org.erlide.engine.model.root.IErlModule;
+import org.erlide.engine.model.root.IErlProject;
+import org.erlide.util.ErlLogger;
+import org.erlide.util.FileUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Headless application that parses all the Erlang code of a workspace, or of some
+ * directories, so that the parser caches and cross-reference data in the model's state
+ * directory are built before the IDE needs them. CI can then ship the result; an IDE
+ * started with <code>-Derlide.index.seed=&lt;dir&gt;</code> picks it up.
+ *
+ * <pre>
+ * eclipse -nosplash -application org.erlide.core.indexer -data &lt;workspace&gt;
+ *     [-threads N] [-external] [-output &lt;dir&gt;] [&lt;source dir&gt;...]
+ * </pre>
+ *
+ * Without source directories, the modules and includes of all the workspace's Erlang
+ * projects are indexed (and their external modules with <code>-external</code>).
+ * Parsing happens on the IDE backend; the calls are made from several threads and run
+ * in parallel on the node.
+ * <p>
+ * The exit status is 0 on success, 1 for bad arguments and 2 if some modules couldn't
+ * be parsed. The completion proposals for OTP modules are not part of the output; the
+ * IDE fetches them into memory when it starts.
+ */
+public class BatchIndexer implements IApplication {
+
+    private static final Integer EXIT_USAGE = 1;
+    private static final Integer EXIT_FAILED = 2;
+
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private boolean external;
+    private File output;
+    private final List<File> dirs = Lists.newArrayList();
+
+    @Override
+    public Object start(final IApplicationContext context) throws Exception {
+        final String[] args = (String[]) context.getArguments()
+                .get(IApplicationContext.APPLICATION_ARGS);
+        if (!parseArgs(args == null ? new String[0] : args)) {
+            ErlLogger.error("usage: -application org.erlide.core.indexer "
+                    + "[-threads N] [-external] [-output <dir>] [<source dir>...]");
+            return BatchIndexer.EXIT_USAGE;
+        }
+        final IErlModel model = ErlangEngine.getInstance().getModel();
+        final Collection<IErlModule> modules = dirs.isEmpty() ? getWorkspaceModules(model)
+                : getModules(model, dirs);
+        final int failed = index(modules);
+        if (output != null) {
+            FileUtils.copyTree(new File(ErlangEngine.getInstance().getStateDir()),
+                    output, true);
+        }
+        ResourcesPlugin.getWorkspace().save(true, null);
+        return failed == 0 ? IApplication.EXIT_OK : BatchIndexer.EXIT_FAILED;
+    }
+
+    @Override
+    public void stop() {
+        // nothing to do, the indexing is not interruptible
+    }
+
+    private boolean parseArgs(final String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if ("-threads".equals(arg) && i + 1 < args.length) {
+                try {
+                    threads = Math.max(1, Integer.parseInt(args[++i]));
+                } catch (final NumberFormatException e) {
+                    return false;
+                }
+            } else if ("-external".equals(arg)) {
+                external = true;
+            } else if ("-output".equals(arg) && i + 1 < args.length) {
+                output = new File(args[++i]);
+            } else if (arg.startsWith("-")) {
+                return false;
+            } else {
+                dirs.add(new File(arg));
+            }
+        }
+        return true;
+    }
+
+    private Collection<IErlModule> getWorkspaceModules(final IErlModel model)
+            throws ErlModelException {
+        final List<IErlModule> result = Lists.newArrayList();
+        for (final IErlProject project : model.getErlangProjects()) {
+            result.addAll(project.getModulesAndIncludes());
+            if (external) {
+                result.addAll(project.getExternalModules());
+            }
+        }
+        return result;
+    }
+
+    private static Collection<IErlModule> getModules(final IErlModel model,
+            final List<File> roots) throws IOException {
+        final List<IErlModule> result = Lists.newArrayList();
+        for (final File root : roots) {
+            try (Stream<Path> files = Files.walk(root.toPath())) {
+                for (final Path file : files.filter(BatchIndexer::isSource)
+                        .collect(Collectors.toList())) {
+                    result.add(model.getModuleFromFile(null,
+                            file.getFileName().toString(),
+                            new org.eclipse.core.runtime.Path(file.toString()),
+                            StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isSource(final Path file) {
+        final String name = file.getFileName().toString();
+        return Files.isRegularFile(file)
+                && (name.endsWith(".erl") || name.endsWith(".hrl"));
+    }
+
+    /**
+     * @return the number of modules that couldn't be parsed
+     */
+    private int index(final Collection<IErlModule> modules) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("indexer-%d").build());
+        for (final IErlModule module : modules) {
+            executor.execute(() -> {
+                try {
+                    module.open(null);
+                    module.close();
+                } catch (final Exception e) {
+                    failed.incrementAndGet();
+                    ErlLogger.warn("Could not index %s: %s", module.getFilePath(), e);
+                }
+                final int n = done.incrementAndGet();
+                if (n % 500 == 0) {
+                    ErlLogger.info("indexed %d/%d", n, modules.size());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        ErlLogger.info("indexed %d modules in %d s, %d failed", modules.size(),
+                (System.currentTimeMillis() - start) / 1000, failed.get());
+        return failed.get();
+    }
+
+}
@@ -0,0 +1,319 @@
+package org.erlide.dialyzer.builder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.erlide.core.ErlangPlugin;
+import org.erlide.util.ErlLogger;
+import org.erlide.util.SystemConfiguration;
+import org.erlide.util.erlang.BeamChunks;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Remembers the beams that were dialyzed and the modules they call, so that an
+ * incremental run only has to analyze the modules that changed and those that call
+ * them. The cache is kept in the state location of the core plugin and is invalidated
+ * when the set of PLTs changes.
+ */
+public final class DialyzerModuleCache {
+
+    private static final String CACHE_FILE = "dialyzer_modules.cache";
+    private static final int FORMAT = 1;
+    private static DialyzerModuleCache instance;
+
+    private final File file;
+    private String pltKey = "";
+    // beam path -> last dialyzed content
+    private final Map<String, Entry> entries = Maps.newHashMap();
+
+    public static synchronized DialyzerModuleCache getInstance() {
+        if (DialyzerModuleCache.instance == null) {
+            final File file = ErlangPlugin.getDefault().getStateLocation()
+                    .append(DialyzerModuleCache.CACHE_FILE).toFile();
+            DialyzerModuleCache.instance = new DialyzerModuleCache(file);
+        }
+        return DialyzerModuleCache.instance;
+    }
+
+    DialyzerModuleCache(final File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Reads current state of given beams.
+     *
+     * @param beams
+     *            paths of beam files
+     * @return beam path to current content, beams that can't be read are left out
+     */
+    public Map<String, Entry> scan(final Collection<String> beams) {
+        final Map<String, Entry> result = Maps.newHashMap();
+        for (final String beam : beams) {
+            try {
+                result.put(beam, DialyzerModuleCache.read(new File(beam)));
+            } catch (final IOException e) {
+                ErlLogger.warn("Could not read %s: %s", beam, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds beams that have to be dialyzed: the ones that changed since they were last
+     * dialyzed and the ones that call those, directly or indirectly.
+     *
+     * @param current
+     *            current state of the beams, see {@link #scan(Collection)}
+     * @param pltPaths
+     *            PLTs used for the analysis
+     * @return paths of beams to dialyze
+     */
+    public synchronized Set<String> getChanged(final Map<String, Entry> current,
+            final Collection<String> pltPaths) {
+        if (!DialyzerModuleCache.getPltKey(pltPaths).equals(pltKey)) {
+            return Sets.newHashSet(current.keySet());
+        }
+        final Set<String> changedModules = Sets.newHashSet();
+        final Set<String> result = Sets.newHashSet();
+        for (final Map.Entry<String, Entry> e : current.entrySet()) {
+            final Entry old = entries.get(e.getKey());
+            if (old == null || !old.md5.equals(e.getValue().md5)) {
+                result.add(e.getKey());
+                changedModules.add(DialyzerModuleCache.moduleName(e.getKey()));
+            }
+        }
+        // callers of changed modules may get new warnings too
+        final Map<String, List<String>> callers = Maps.newHashMap();
+        for (final Map.Entry<String, Entry> e : current.entrySet()) {
+            if (e.getValue().calls == null) {
+                // unknown calls, assume it depends on everything
+                if (!changedModules.isEmpty()) {
+                    result.add(e.getKey());
+                }
+                continue;
+            }
+            for (final String callee : e.getValue().calls) {
+                List<String> list = callers.get(callee);
+                if (list == null) {
+                    list = Lists.newArrayList();
+                    callers.put(callee, list);
+                }
+                list.add(e.getKey());
+            }
+        }
+        final Deque<String> queue = new ArrayDeque<>(changedModules);
+        final Set<String> seen = Sets.newHashSet(changedModules);
+        while (!queue.isEmpty()) {
+            final List<String> list = callers.get(queue.poll());
+            if (list == null) {
+                continue;
+            }
+            for (final String beam : list) {
+                result.add(beam);
+                final String module = DialyzerModuleCache.moduleName(beam);
+                if (seen.add(module)) {
+                    queue.add(module);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records beams as dialyzed.
+     *
+     * @param dialyzed
+     *            state of the dialyzed beams, see {@link #scan(Collection)}
+     * @param pltPaths
+     *            PLTs used for the analysis
+     */
+    public synchronized void update(final Map<String, Entry> dialyzed,
+            final Collection<String> pltPaths) {
+        final String key = DialyzerModuleCache.getPltKey(pltPaths);
+        if (!key.equals(pltKey)) {
+            entries.clear();
+            pltKey = key;
+        }
+        entries.putAll(dialyzed);
+        save();
+    }
+
+    /**
+     * Forgets beams in given directory (e.g. when a project is cleaned).
+     *
+     * @param dir
+     *            directory path, with '/' or the platform's separator
+     */
+    public synchronized void remove(final String dir) {
+        final String normalized = DialyzerModuleCache.normalize(dir);
+        final String prefix = normalized.endsWith("/") ? normalized : normalized + "/";
+        if (entries.keySet().removeIf(
+                path -> DialyzerModuleCache.normalize(path).startsWith(prefix))) {
+            save();
+        }
+    }
+
+    /**
+     * The beam paths are OS paths, while the callers of {@link #remove(String)} may use
+     * portable ones.
+     */
+    static String normalize(final String path) {
+        return path.replace('\\', '/');
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            final List<String> lines = Files.readLines(file, Charsets.UTF_8);
+            if (lines.size() < 2
+                    || !String.valueOf(DialyzerModuleCache.FORMAT).equals(lines.get(0))) {
+                return;
+            }
+            pltKey = lines.get(1);
+            for (final String line : lines.subList(2, lines.size())) {
+                // path \t md5 \t called modules
+                final List<String> parts = Splitter.on('\t').splitToList(line);
+                if (parts.size() != 3) {
+                    continue;
+                }
+                final Set<String> calls = "?".equals(parts.get(2)) ? null
+                        : Sets.newHashSet(
+                                Splitter.on(',').omitEmptyStrings().split(parts.get(2)));
+                entries.put(parts.get(0), new Entry(parts.get(1), calls));
+            }
+        } catch (final IOException e) {
+            ErlLogger.warn(e);
+        }
+    }
+
+    private void save() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(DialyzerModuleCache.FORMAT).append('\n').append(pltKey).append('\n');
+        for (final Map.Entry<String, Entry> e : entries.entrySet()) {
+            final Entry entry = e.getValue();
+            sb.append(e.getKey()).append('\t').append(entry.md5).append('\t')
+                    .append(entry.calls == null ? "?" : Joiner.on(',').join(entry.calls))
+                    .append('\n');
+        }
+        try {
+            Files.createParentDirs(file);
+            Files.write(sb.toString(), file, Charsets.UTF_8);
+        } catch (final IOException e) {
+            ErlLogger.warn(e);
+        }
+    }
+
+    private static String getPltKey(final Collection<String> pltPaths) {
+        final StringBuilder sb = new StringBuilder();
+        for (final String plt : Sets.newTreeSet(pltPaths)) {
+            sb.append(plt).append(':').append(new File(plt).lastModified()).append(';');
+        }
+        return sb.toString();
+    }
+
+    static String moduleName(final String beamPath) {
+        return SystemConfiguration.withoutExtension(new File(beamPath).getName());
+    }
+
+    static Entry read(final File beam) throws IOException {
+        final byte[] bytes = Files.toByteArray(beam);
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        final StringBuilder md5 = new StringBuilder();
+        for (final byte b : digest.digest(bytes)) {
+            md5.append(String.format("%02x", b));
+        }
+        return new Entry(md5.toString(), DialyzerModuleCache.readImports(bytes));
+    }
+
+    /**
+     * Reads modules called by a beam from its import table.
+     *
+     * @return called module names or <code>null</code> if the beam format is not
+     *         understood
+     */
+    static Set<String> readImports(final byte[] bytes) {
+        final Map<String, byte[]> chunks = BeamChunks.read(bytes);
+        if (chunks == null) {
+            return null;
+        }
+        byte[] atomChunk = chunks.get("AtU8");
+        if (atomChunk == null) {
+            atomChunk = chunks.get("Atom");
+        }
+        final byte[] importChunk = chunks.get("ImpT");
+        if (atomChunk == null || importChunk == null) {
+            return null;
+        }
+        final Set<String> result = Sets.newHashSet();
+        try {
+            final ByteBuffer atomData = ByteBuffer.wrap(atomChunk);
+            final int count = atomData.getInt();
+            if (count < 0) {
+                // compact encoding of atom lengths, not supported
+                return null;
+            }
+            final List<String> atoms = Lists.newArrayListWithCapacity(count);
+            for (int i = 0; i < count; i++) {
+                final byte[] name = new byte[atomData.get() & 0xff];
+                atomData.get(name);
+                atoms.add(new String(name, StandardCharsets.UTF_8));
+            }
+            final ByteBuffer importData = ByteBuffer.wrap(importChunk);
+            final int imports = importData.getInt();
+            for (int i = 0; i < imports; i++) {
+                // module, function, arity
+                final int atom = importData.getInt();
+                importData.getInt();
+                importData.getInt();
+                // atom indexes are 1-based, the first atom is the module itself
+                if (atom > 1 && atom <= atoms.size()) {
+                    result.add(atoms.get(atom - 1));
+                }
+            }
+        } catch (final BufferUnderflowException e) {
+            return null;
+        }
+        result.remove("erlang");
+        return result;
+    }
+
+    /**
+     * Content of a dialyzed beam.
+     */
+    public static final class Entry {
+        final String md5;
+        final Set<String> calls;
+
+        Entry(final String md5, final Set<String> calls) {
+            this.md5 = md5;
+            this.calls = calls;
+        }
+    }
+
+}
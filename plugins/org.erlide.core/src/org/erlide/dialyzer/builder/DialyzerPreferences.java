@@ -35,6 +35,7 @@ public final class DialyzerPreferences {
     private boolean dialyzeOnCompile;
     private boolean noCheckPLT;
     private boolean removeWarningsOnClean;
+    private boolean incremental;
 
     public static DialyzerPreferences get(final IProject project) {
         final DialyzerPreferences prefs = new DialyzerPreferences();
@@ -69,6 +70,7 @@ public final class DialyzerPreferences {
         helper.putBoolean(DialyzerPreferencesConstants.NO_CHECK_PLT, noCheckPLT);
         helper.putBoolean(DialyzerPreferencesConstants.REMOVE_WARNINGS_ON_CLEAN,
                 removeWarningsOnClean);
+        helper.putBoolean(DialyzerPreferencesConstants.INCREMENTAL, incremental);
         helper.flush();
     }
 
@@ -98,6 +100,7 @@ public final class DialyzerPreferences {
         noCheckPLT = helper.getBoolean(DialyzerPreferencesConstants.NO_CHECK_PLT, true);
         removeWarningsOnClean = helper
                 .getBoolean(DialyzerPreferencesConstants.REMOVE_WARNINGS_ON_CLEAN, true);
+        incremental = helper.getBoolean(DialyzerPreferencesConstants.INCREMENTAL, false);
     }
 
     @Override
@@ -169,6 +172,14 @@ public final class DialyzerPreferences {
         return removeWarningsOnClean;
     }
 
+    public void setIncremental(final boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean getIncremental() {
+        return incremental;
+    }
+
     private static Collection<String> getPltFiles(final String pltFilesString) {
         final Iterable<String> files = Splitter.on(",").split(pltFilesString);
         return DialyzerPreferences.getPltFiles(files);
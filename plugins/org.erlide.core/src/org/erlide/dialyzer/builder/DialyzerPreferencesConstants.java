@@ -8,5 +8,6 @@ public class DialyzerPreferencesConstants {
     public static final String ENABLED_PLT_PATHS = "enabledpltpaths"; //$NON-NLS-1$
     public static final String NO_CHECK_PLT = "nocheckplt"; //$NON-NLS-1$
     public static final String REMOVE_WARNINGS_ON_CLEAN = "removeWarningsOnClean"; //$NON-NLS-1$
+    public static final String INCREMENTAL = "incremental"; //$NON-NLS-1$
 
 }
@@ -1,8 +1,10 @@
 package org.erlide.dialyzer.builder;
 
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -38,6 +40,7 @@ import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangRangeException;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 public class DialyzerUtils {
@@ -67,12 +70,11 @@ public class DialyzerUtils {
             return;
         }
         try {
-            for (final IErlModule module : modules) {
-                DialyzerMarkerUtils.removeDialyzerMarkersFor(module.getResource());
-            }
-
             // TODO handle preferences from multiple projects
-            final DialyzerPreferences prefs = DialyzerPreferences.get(null);
+            final DialyzerPreferences prefs = DialyzerPreferences
+                    .get(projects.size() == 1
+                            ? projects.iterator().next().getWorkspaceProject()
+                            : null);
             final Collection<String> pltPaths = prefs.getPltPaths();
             final boolean fromSource = false; // prefs.getFromSource();
             final boolean noCheckPLT = true; // prefs.getNoCheckPLT();
@@ -83,6 +85,41 @@ public class DialyzerUtils {
             DialyzerUtils.collectFilesAndIncludeDirs(modules, projects, files, names,
                     includeDirs, fromSource);
 
+            final DialyzerModuleCache cache = DialyzerModuleCache.getInstance();
+            // the beams are only read when the cache is used
+            Map<String, DialyzerModuleCache.Entry> analyzed = null;
+            if (prefs.getIncremental()) {
+                final Map<String, DialyzerModuleCache.Entry> beams = cache.scan(files);
+                analyzed = Maps.newHashMap(beams);
+                analyzed.keySet().retainAll(cache.getChanged(beams, pltPaths));
+                // unchanged modules called by the analyzed ones are added for their
+                // types, their warnings are not reported again
+                final Set<String> called = Sets.newHashSet();
+                for (final DialyzerModuleCache.Entry entry : analyzed.values()) {
+                    if (entry.calls != null) {
+                        called.addAll(entry.calls);
+                    }
+                }
+                files.clear();
+                for (final String beam : beams.keySet()) {
+                    if (analyzed.containsKey(beam)
+                            || called.contains(DialyzerModuleCache.moduleName(beam))) {
+                        files.add(beam);
+                    }
+                }
+                names.clear();
+                for (final String beam : analyzed.keySet()) {
+                    names.add(DialyzerModuleCache.moduleName(beam));
+                }
+            }
+
+            if (!prefs.getIncremental()) {
+                // a failed run must not leave the markers of the previous one
+                for (final IErlModule module : modules) {
+                    DialyzerMarkerUtils.removeDialyzerMarkersFor(module.getResource());
+                }
+            }
+
             if (names.isEmpty()) {
                 return;
             }
@@ -95,7 +132,8 @@ public class DialyzerUtils {
             final RpcFuture future = ErlideDialyze.dialyze(b, files, pltPaths,
                     includeDirs, fromSource, noCheckPLT);
 
-            while (!future.isDone()) {
+            OtpErlangObject r = null;
+            while (r == null) {
                 // check cancellation
                 if (monitor.isCanceled()) {
                     throw new OperationCanceledException();
@@ -106,14 +144,16 @@ public class DialyzerUtils {
                             "Dialyzer: backend " + backend.getName() + " is down");
                 }
 
-                OtpErlangObject r = null;
                 try {
                     r = future.checkedGet(500, TimeUnit.MILLISECONDS);
                 } catch (final RpcTimeoutException e) {
                 }
-                if (r != null) {
-                    DialyzerUtils.processResult(b, r);
-                }
+            }
+            final boolean warnings = DialyzerUtils.processResult(b, r,
+                    DialyzerUtils.getModules(modules, names));
+            // only modules whose warnings were reported are up to date
+            if (warnings && analyzed != null) {
+                cache.update(analyzed, pltPaths);
             }
         } catch (final RpcException e) {
             throw new InvocationTargetException(e);
@@ -122,8 +162,26 @@ public class DialyzerUtils {
         }
     }
 
-    private static void processResult(final IOtpRpc backend, final OtpErlangObject o)
-            throws DialyzerErrorException {
+    private static Map<String, IErlModule> getModules(final Set<IErlModule> modules,
+            final List<String> names) {
+        final Map<String, IErlModule> result = Maps.newHashMap();
+        for (final IErlModule module : modules) {
+            final String name = module.getModuleName();
+            if (names.contains(name)) {
+                result.put(name, module);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces warning markers of the analyzed modules, module by module. Warnings of
+     * modules that were not analyzed (only added for their types) are skipped.
+     *
+     * @return true if the result was the warnings of a finished analysis
+     */
+    private static boolean processResult(final IOtpRpc backend, final OtpErlangObject o,
+            final Map<String, IErlModule> analyzed) throws DialyzerErrorException {
         if (o instanceof OtpErlangTuple) {
             final OtpErlangTuple t = (OtpErlangTuple) o;
             final OtpErlangAtom whatA = (OtpErlangAtom) t.elementAt(0);
@@ -131,8 +189,27 @@ public class DialyzerUtils {
             final OtpErlangObject result = t.elementAt(1);
 
             if ("warnings".equals(what)) {
-                DialyzerMarkerUtils.addDialyzerWarningMarkersFromResultList(backend,
-                        (OtpErlangList) result);
+                final Map<String, List<OtpErlangObject>> byModule = Maps.newHashMap();
+                for (final OtpErlangObject warning : (OtpErlangList) result) {
+                    final String module = DialyzerUtils.getWarningModule(warning);
+                    if (module != null && !analyzed.containsKey(module)) {
+                        continue;
+                    }
+                    List<OtpErlangObject> list = byModule.get(module);
+                    if (list == null) {
+                        list = Lists.newArrayList();
+                        byModule.put(module, list);
+                    }
+                    list.add(warning);
+                }
+                // warnings in include files
+                DialyzerUtils.addWarnings(backend, byModule.get(null));
+                for (final Map.Entry<String, IErlModule> e : analyzed.entrySet()) {
+                    DialyzerMarkerUtils
+                            .removeDialyzerMarkersFor(e.getValue().getResource());
+                    DialyzerUtils.addWarnings(backend, byModule.get(e.getKey()));
+                }
+                return true;
             } else if ("dialyzer_error".equals(what) || "badrpc".equals(what)) {
                 final String s = Util.ioListToString(result, DialyzerUtils.MAX_MSG_LEN);
                 throw new DialyzerErrorException(s);
@@ -141,6 +218,29 @@ public class DialyzerUtils {
             throw new DialyzerErrorException("Unknown Dialyzer message: "
                     + Util.ioListToString(o, DialyzerUtils.MAX_MSG_LEN));
         }
+        return false;
+    }
+
+    private static void addWarnings(final IOtpRpc backend,
+            final List<OtpErlangObject> warnings) {
+        if (warnings != null) {
+            DialyzerMarkerUtils.addDialyzerWarningMarkersFromResultList(backend,
+                    new OtpErlangList(warnings.toArray(new OtpErlangObject[0])));
+        }
+    }
+
+    /**
+     * @return name of the module a warning <code>{Tag, {File, Line}, Msg}</code> is
+     *         in, <code>null</code> if it is not in a module
+     */
+    private static String getWarningModule(final OtpErlangObject warning) {
+        final OtpErlangTuple fileLine = (OtpErlangTuple) ((OtpErlangTuple) warning)
+                .elementAt(1);
+        final String path = Util.stringValue(fileLine.elementAt(0));
+        if (!SourceKind.hasErlExtension(path)) {
+            return null;
+        }
+        return SystemConfiguration.withoutExtension(new File(path).getName());
     }
 
     private static String getFileNames(final List<String> names) {
@@ -11,6 +11,7 @@ import org.erlide.backend.BackendCore;
 import org.erlide.backend.api.IBackend;
 import org.erlide.core.builder.BuildNotifier;
 import org.erlide.dialyzer.builder.DialyzerMarkerUtils;
+import org.erlide.dialyzer.builder.DialyzerModuleCache;
 import org.erlide.dialyzer.builder.DialyzerPreferences;
 import org.erlide.dialyzer.builder.DialyzerUtils;
 import org.erlide.dialyzer.builder.DialyzerUtils.DialyzerErrorException;
@@ -44,7 +45,9 @@ public class DialyzerBuilder {
                 project);
         final Set<IErlProject> projects = Sets.newHashSet();
         projects.add(model.findProject(project));
-        DialyzerMarkerUtils.removeDialyzerMarkersFor(project);
+        if (!prefs.getIncremental()) {
+            DialyzerMarkerUtils.removeDialyzerMarkersFor(project);
+        }
         if (!modules.isEmpty()) {
             try {
                 final IErlProject eproject = model.findProject(project);
@@ -71,6 +74,7 @@ public class DialyzerBuilder {
             return;
         }
         DialyzerMarkerUtils.removeDialyzerMarkersFor(project);
+        DialyzerModuleCache.getInstance().remove(project.getLocation().toPortableString());
     }
 
 }
@@ -1,11 +1,12 @@
 package org.erlide.cover.core;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.erlide.cover.api.IConfiguration;
 import org.erlide.cover.views.model.FunctionStats;
 import org.erlide.cover.views.model.ICoverageObject;
-import org.erlide.cover.views.model.LineResult;
+import org.erlide.cover.views.model.LineCoverage;
 import org.erlide.cover.views.model.ModuleSet;
 import org.erlide.cover.views.model.ModuleStats;
 import org.erlide.cover.views.model.ObjectType;
@@ -18,6 +19,7 @@ import org.erlide.util.ErlLogger;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 import com.google.common.eventbus.Subscribe;
@@ -37,6 +39,8 @@ public class CoverEventHandler extends ErlangEventHandler {
 
     private final Logger log; // log
     private final CoverBackend coverBackend; // cover backend
+    // analyse calls that haven't sent their cover_fin yet
+    private final AtomicInteger pendingAnalyses = new AtomicInteger();
 
     public CoverEventHandler(final CoverBackend coverBackend) {
         super(CoverEventHandler.EVENT_NAME);
@@ -66,12 +70,32 @@ public class CoverEventHandler extends ErlangEventHandler {
                         String.format("Error at %s while %s: %s\n", place, type, info)));
             }
         } else if (data.toString().equals(CoverEventHandler.COVER_FIN)
-                && coverBackend.getAnnotationMaker() != null) {
+                && analysisFinished() && coverBackend.getAnnotationMaker() != null) {
             coverBackend.getAnnotationMaker().addAnnotations();
         }
 
     }
 
+    /**
+     * The analysis is split in several calls, each ending with its own
+     * <code>cover_fin</code>; annotating is done only after the last one.
+     *
+     * @param count
+     *            number of analyse calls made, 0 if the analysis was aborted
+     */
+    public void expectAnalyses(final int count) {
+        pendingAnalyses.set(count);
+    }
+
+    /**
+     * Called for each <code>cover_fin</code>.
+     *
+     * @return true if it ends the last pending analyse call
+     */
+    boolean analysisFinished() {
+        return pendingAnalyses.updateAndGet(n -> n > 0 ? n - 1 : 0) == 0;
+    }
+
     /**
      * When coverage results came
      *
@@ -89,9 +113,8 @@ public class CoverEventHandler extends ErlangEventHandler {
 
                 String htmlPath = resTuple.elementAt(2).toString();
                 htmlPath = htmlPath.substring(1, htmlPath.length() - 1);
-                final int allLines = Integer.parseInt(resTuple.elementAt(3).toString());
-                final int coveredLines = Integer
-                        .parseInt(resTuple.elementAt(4).toString());
+                final int allLines = CoverEventHandler.toInt(resTuple.elementAt(3));
+                final int coveredLines = CoverEventHandler.toInt(resTuple.elementAt(4));
                 final double percent = Double
                         .parseDouble(resTuple.elementAt(5).toString());
 
@@ -176,9 +199,9 @@ public class CoverEventHandler extends ErlangEventHandler {
             final FunctionStats func = new FunctionStats();
 
             final String name = res.elementAt(1).toString();
-            final int arity = Integer.parseInt(res.elementAt(2).toString());
-            final int allLines = Integer.parseInt(res.elementAt(3).toString());
-            final int coveredLines = Integer.parseInt(res.elementAt(4).toString());
+            final int arity = CoverEventHandler.toInt(res.elementAt(2));
+            final int allLines = CoverEventHandler.toInt(res.elementAt(3));
+            final int coveredLines = CoverEventHandler.toInt(res.elementAt(4));
 
             func.setLabel(name);
             func.setLiniesCount(allLines);
@@ -192,16 +215,25 @@ public class CoverEventHandler extends ErlangEventHandler {
 
     private void prepLineResults(final OtpErlangList lineList, final ModuleStats stats) {
 
+        final LineCoverage lines = new LineCoverage(lineList.arity());
         for (final OtpErlangObject aLineList : lineList) {
             final OtpErlangTuple res = (OtpErlangTuple) aLineList;
-            final int num = Integer.parseInt(res.elementAt(1).toString());
-            final int calls = Integer.parseInt(res.elementAt(2).toString());
-            final LineResult lineRes = new LineResult(num, calls);
+            lines.add(CoverEventHandler.toInt(res.elementAt(1)),
+                    CoverEventHandler.toInt(res.elementAt(2)));
+        }
+        stats.setLineCoverage(lines);
 
-            stats.addLine(lineRes);
+    }
 
+    // numbers come as integers, avoid going through their string form
+    private static int toInt(final OtpErlangObject number) {
+        if (number instanceof OtpErlangLong) {
+            final OtpErlangLong l = (OtpErlangLong) number;
+            // call counts can exceed int range
+            return l.isLong() ? (int) Math.min(l.longValue(), Integer.MAX_VALUE)
+                    : Integer.MAX_VALUE;
         }
-
+        return Integer.parseInt(number.toString());
     }
 
     private OtpErlangTuple getErrorReason(final OtpErlangObject message) {
@@ -1,9 +1,19 @@
 package org.erlide.cover.core;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.IPath;
 import org.erlide.cover.api.CoverException;
@@ -18,6 +28,8 @@ import org.erlide.util.ErlLogger;
 import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Implementation of coverage analysis operations
@@ -29,8 +41,16 @@ public class CoveragePerformer implements ICoveragePerformer {
 
     private static CoveragePerformer performer;
 
+    private static final int BATCH_SIZE = 8;
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cover-%d")
+                    .build());
+
     private Collection<String> coverNodes;
     private IConfiguration config;
+    // md5 of sources as they were cover compiled
+    private final Map<String, String> compiledSources = new ConcurrentHashMap<>();
 
     private final Logger log; // logger
 
@@ -74,6 +94,8 @@ public class CoveragePerformer implements ICoveragePerformer {
         if (coverNodes.isEmpty() || different) {
 
             coverNodes = nodes;
+            // cover is restarted, nothing is cover compiled
+            compiledSources.clear();
             log.info(CoverBackend.getInstance().getBackend().getName());
             coverNodes.add(CoverBackend.getInstance().getBackend().getName());
 
@@ -135,26 +157,84 @@ public class CoveragePerformer implements ICoveragePerformer {
 
     // cover compilation of chosen modules
     private void recompileModules() throws CoverException {
-        final List<OtpErlangObject> paths = new ArrayList<>(config.getModules().size());
         for (final IErlModule module : config.getModules()) {
             if (module == null) {
                 final String msg = "No such module at given project. Check your configuration";
                 CoverBackend.getInstance().handleError(msg);
                 throw new CoverException(msg);
             }
-            log.info(module.getFilePath());
-            paths.add(new OtpErlangList(module.getFilePath()));
         }
 
+        final Set<String> compiled = getCoverCompiledModules();
+        final List<Future<?>> jobs = new ArrayList<>();
+        final List<IErlModule> modules = new ArrayList<>(config.getModules());
+        for (final List<IErlModule> batch : Lists.partition(modules,
+                CoveragePerformer.BATCH_SIZE)) {
+            jobs.add(CoveragePerformer.executor.submit(() -> {
+                prepare(batch, compiled);
+                return null;
+            }));
+        }
+        waitFor(jobs);
+    }
+
+    /**
+     * Cover compiles a batch of modules, skipping the ones which did not change since
+     * they were compiled and are still cover compiled.
+     */
+    private void prepare(final List<IErlModule> batch, final Set<String> compiled)
+            throws RpcException {
+        final List<OtpErlangObject> paths = new ArrayList<>(batch.size());
+        final Map<String, String> hashes = new HashMap<>();
+        for (final IErlModule module : batch) {
+            final String path = module.getFilePath();
+            final String md5 = getSourceHash(path);
+            if (md5 != null && md5.equals(compiledSources.get(path))
+                    && compiled.contains(module.getModuleName())) {
+                log.info("unchanged " + path);
+                continue;
+            }
+            log.info(path);
+            paths.add(new OtpErlangList(path));
+            if (md5 != null) {
+                hashes.put(path, md5);
+            }
+        }
+        if (paths.isEmpty()) {
+            return;
+        }
+
+        CoverBackend.getInstance().getBackend().getOtpRpc().call(
+                CoverConstants.COVER_ERL_BACKEND, CoverConstants.FUN_PREP, "x", paths);
+        compiledSources.putAll(hashes);
+    }
+
+    private String getSourceHash(final String path) {
         try {
-            CoverBackend.getInstance().getBackend().getOtpRpc().call(
-                    CoverConstants.COVER_ERL_BACKEND, CoverConstants.FUN_PREP, "x",
-                    paths);
+            return MD5Checksum.getMD5(new File(path));
+        } catch (final Exception e) {
+            ErlLogger.warn(e);
+            return null;
+        }
+    }
 
+    // names of modules that are cover compiled now
+    private Set<String> getCoverCompiledModules() {
+        final Set<String> result = new HashSet<>();
+        try {
+            final OtpErlangObject modules = CoverBackend.getInstance().getBackend()
+                    .getOtpRpc().call("cover", "modules", "");
+            if (modules instanceof OtpErlangList) {
+                for (final OtpErlangObject module : (OtpErlangList) modules) {
+                    if (module instanceof OtpErlangAtom) {
+                        result.add(((OtpErlangAtom) module).atomValue());
+                    }
+                }
+            }
         } catch (final RpcException e) {
-            ErlLogger.error(e);
-            throw new CoverException(e.getMessage());
+            ErlLogger.warn(e);
         }
+        return result;
     }
 
     /**
@@ -169,14 +249,47 @@ public class CoveragePerformer implements ICoveragePerformer {
             modules.add(new OtpErlangList(module.getModuleName()));
         }
 
+        // results of each module are reported by a separate event as soon as they are
+        // ready, so batches can be analysed concurrently; the annotations are added
+        // once, when all of them are finished
+        final List<List<OtpErlangObject>> batches = Lists.partition(modules,
+                CoveragePerformer.BATCH_SIZE);
+        final CoverEventHandler handler = CoverBackend.getInstance().getHandler();
+        handler.expectAnalyses(batches.size());
+        final List<Future<?>> jobs = new ArrayList<>();
+        for (final List<OtpErlangObject> batch : batches) {
+            jobs.add(CoveragePerformer.executor.submit(() -> {
+                CoverBackend.getInstance().getBackend().getOtpRpc().call(
+                        CoverConstants.COVER_ERL_BACKEND, CoverConstants.FUN_ANALYSE,
+                        "x", batch);
+                return null;
+            }));
+        }
         try {
-            CoverBackend.getInstance().getBackend().getOtpRpc().call(
-                    CoverConstants.COVER_ERL_BACKEND, CoverConstants.FUN_ANALYSE, "x",
-                    modules);
+            waitFor(jobs);
+        } catch (final CoverException e) {
+            handler.expectAnalyses(0);
+            throw e;
+        }
+    }
 
-        } catch (final RpcException e) {
-            ErlLogger.error(e);
-            throw new CoverException(e.getMessage());
+    private void waitFor(final List<Future<?>> jobs) throws CoverException {
+        CoverException error = null;
+        for (final Future<?> job : jobs) {
+            try {
+                job.get();
+            } catch (final ExecutionException e) {
+                ErlLogger.error(e.getCause());
+                if (error == null) {
+                    error = new CoverException(e.getCause().getMessage());
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CoverException(e);
+            }
+        }
+        if (error != null) {
+            throw error;
         }
     }
 
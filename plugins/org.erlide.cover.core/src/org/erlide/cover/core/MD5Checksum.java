@@ -3,6 +3,8 @@ package org.erlide.cover.core;
 import java.io.File;
 import java.io.FileInputStream;
 import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides a way to calculate md5 checksum to a file
@@ -12,20 +14,63 @@ import java.security.MessageDigest;
  */
 public class MD5Checksum {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // checksums of files, recomputed only when size or modification time change
+    private static final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
     private MD5Checksum() {
     }
 
+    /**
+     * Calculates md5 checksum of a file
+     *
+     * @param file
+     * @return checksum as hex string
+     * @throws Exception
+     */
     public static String getMD5(final File file) throws Exception {
+        final String path = file.getAbsolutePath();
+        final long length = file.length();
+        final long modified = file.lastModified();
+        final Entry entry = MD5Checksum.cache.get(path);
+        if (entry != null && entry.length == length && entry.modified == modified) {
+            return entry.md5;
+        }
 
         try (final FileInputStream f = new FileInputStream(file)) {
-            final byte[] buffer = new byte[1024];
+            final byte[] buffer = new byte[MD5Checksum.BUFFER_SIZE];
             final MessageDigest digest = MessageDigest.getInstance("MD5");
 
             int numRead;
             while ((numRead = f.read(buffer)) != -1) {
                 digest.update(buffer, 0, numRead);
             }
-            return new String(digest.digest());
+            final String md5 = MD5Checksum.toHex(digest.digest());
+            MD5Checksum.cache.put(path, new Entry(length, modified, md5));
+            return md5;
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[2 * i] = MD5Checksum.HEX[bytes[i] >> 4 & 0xf];
+            result[2 * i + 1] = MD5Checksum.HEX[bytes[i] & 0xf];
+        }
+        return new String(result);
+    }
+
+    private static class Entry {
+        final long length;
+        final long modified;
+        final String md5;
+
+        Entry(final long length, final long modified, final String md5) {
+            this.length = length;
+            this.modified = modified;
+            this.md5 = md5;
         }
     }
 
@@ -0,0 +1,117 @@
+package org.erlide.cover.views.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Line coverage results of a module. Line numbers and call counts are kept in sorted
+ * arrays, covered lines in a bit set; {@link LineResult} objects are created only when
+ * asked for a range of lines.
+ */
+public class LineCoverage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int size;
+    private int[] lines;
+    private int[] calls;
+    private final BitSet covered = new BitSet();
+    private boolean sorted = true;
+
+    public LineCoverage(final int capacity) {
+        lines = new int[Math.max(capacity, 1)];
+        calls = new int[lines.length];
+    }
+
+    /**
+     * Adds the result of a line, lines can be added in any order.
+     */
+    public synchronized void add(final int lineNum, final int lineCalls) {
+        if (size == lines.length) {
+            lines = Arrays.copyOf(lines, size * 2);
+            calls = Arrays.copyOf(calls, size * 2);
+        }
+        if (size > 0 && lines[size - 1] > lineNum) {
+            sorted = false;
+        }
+        lines[size] = lineNum;
+        calls[size] = lineCalls;
+        if (lineCalls != 0) {
+            covered.set(lineNum);
+        }
+        size++;
+    }
+
+    /**
+     * @return the number of line results
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of lines that were called at least once
+     */
+    public int getCoveredCount() {
+        return covered.cardinality();
+    }
+
+    public boolean isCovered(final int lineNum) {
+        return covered.get(lineNum);
+    }
+
+    /**
+     * @return how many times the line was called, -1 if there is no result for it
+     */
+    public synchronized int getLineCalls(final int lineNum) {
+        sort();
+        final int i = Arrays.binarySearch(lines, 0, size, lineNum);
+        return i < 0 ? -1 : calls[i];
+    }
+
+    /**
+     * @return the results of the lines between start and end (inclusive), sorted by
+     *         line; end -1 means to the end of the file
+     */
+    public synchronized List<LineResult> getResults(final int start, final int end) {
+        sort();
+        int i = Arrays.binarySearch(lines, 0, size, start);
+        if (i < 0) {
+            i = -i - 1;
+        } else {
+            // lines can be reported more than once
+            while (i > 0 && lines[i - 1] == start) {
+                i--;
+            }
+        }
+        final List<LineResult> result = new ArrayList<>();
+        for (; i < size && (end == -1 || lines[i] <= end); i++) {
+            result.add(new LineResult(lines[i], calls[i]));
+        }
+        return result;
+    }
+
+    public List<LineResult> getResults() {
+        return getResults(Integer.MIN_VALUE, -1);
+    }
+
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        final long[] pairs = new long[size];
+        for (int i = 0; i < size; i++) {
+            pairs[i] = (long) lines[i] << 32 | calls[i] & 0xffffffffL;
+        }
+        Arrays.sort(pairs);
+        for (int i = 0; i < size; i++) {
+            lines[i] = (int) (pairs[i] >> 32);
+            calls[i] = (int) pairs[i];
+        }
+        sorted = true;
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.erlide.cover.views.model;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.List;
 
 /**
@@ -15,9 +16,7 @@ public class ModuleStats extends StatsTreeObject {
 
     private String md5; // file hash (in order to check if
     // marking annotations in editor makes sense)
-    private final List<LineResult> lineResults = new LinkedList<>(); // results
-    // per
-    // line
+    private LineCoverage lineCoverage = new LineCoverage(0); // results per line
     public boolean couldBeMarked = true; // if annotation could be marked for
 
     // that file (if it has not changed)
@@ -32,11 +31,15 @@ public class ModuleStats extends StatsTreeObject {
      * @return
      */
     public List<LineResult> getLineResults() {
-        return lineResults;
+        return lineCoverage.getResults();
     }
 
-    public void addLine(final LineResult lr) {
-        lineResults.add(lr);
+    public LineCoverage getLineCoverage() {
+        return lineCoverage;
+    }
+
+    public void setLineCoverage(final LineCoverage lineCoverage) {
+        this.lineCoverage = lineCoverage;
     }
 
     @Override
@@ -53,4 +56,36 @@ public class ModuleStats extends StatsTreeObject {
         return md5;
     }
 
+    /**
+     * Results saved before they were kept in a {@link LineCoverage} have a list of
+     * {@link LineResult}s instead.
+     */
+    private void readObject(final ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        final ObjectInputStream.GetField fields = in.readFields();
+        md5 = (String) fields.get("md5", null);
+        couldBeMarked = fields.get("couldBeMarked", true);
+        lineCoverage = (LineCoverage) fields.get("lineCoverage", null);
+        if (lineCoverage == null) {
+            final boolean saved = fields.getObjectStreamClass()
+                    .getField("lineResults") != null;
+            @SuppressWarnings("unchecked")
+            final List<LineResult> old = saved
+                    ? (List<LineResult>) fields.get("lineResults", null)
+                    : null;
+            lineCoverage = ModuleStats.toLineCoverage(old);
+        }
+    }
+
+    private static LineCoverage toLineCoverage(final List<LineResult> results) {
+        if (results == null) {
+            return new LineCoverage(0);
+        }
+        final LineCoverage result = new LineCoverage(results.size());
+        for (final LineResult r : results) {
+            result.add(r.getLineNum(), r.getLineCalls());
+        }
+        return result;
+    }
+
 }
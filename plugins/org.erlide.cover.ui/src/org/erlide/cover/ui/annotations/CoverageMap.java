@@ -38,6 +38,17 @@ public class CoverageMap {
         coverage.get(name).put(lr, ann);
     }
 
+    /**
+     * Registers file for coverage annotations.
+     *
+     * @param name
+     */
+    public void addFile(final String name) {
+        if (!coverage.containsKey(name)) {
+            coverage.put(name, new HashMap<LineResult, Annotation>());
+        }
+    }
+
     /**
      * Gets annotation from specified file in specified line
      *
@@ -99,7 +110,7 @@ public class CoverageMap {
      * @param name
      */
     public void removeAll(final String name) {
-        coverage.get(name).clear();
+        coverage.remove(name);
     }
 
     public void removeAll() {
@@ -107,6 +118,9 @@ public class CoverageMap {
     }
 
     public Set<LineResult> getLineSet(final String name) {
+        if (!coverage.containsKey(name)) {
+            return new HashSet<>();
+        }
         return new HashSet<>(coverage.get(name).keySet());
     }
 
@@ -1,12 +1,16 @@
 package org.erlide.cover.ui.annotations;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextOperationTarget;
+import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
@@ -40,6 +44,8 @@ public class EditorTracker implements ICoverAnnotationMarker {
 
     private final IWorkbench workbench;
     private final CoverageMap coverage;
+    private final Set<ITextViewer> trackedViewers = Collections
+            .newSetFromMap(new WeakHashMap<ITextViewer, Boolean>());
 
     private final Logger log;
 
@@ -106,14 +112,8 @@ public class EditorTracker implements ICoverAnnotationMarker {
                 continue;
             }
 
-            final List<LineResult> list = module.getLineResults();
-            final String modName = module.getLabel() + ".erl";
-
-            for (final LineResult lr : list) {
-
-                coverage.addAnnotation(modName, lr, null);
-
-            }
+            // annotations are created when lines become visible
+            coverage.addFile(module.getLabel() + ".erl");
         }
     }
 
@@ -135,11 +135,7 @@ public class EditorTracker implements ICoverAnnotationMarker {
                 return;
             }
 
-            final List<LineResult> list = module.getLineResults();
-
-            for (final LineResult lr : list) {
-                coverage.addAnnotation(fileName, lr, null);
-            }
+            coverage.addFile(fileName);
 
             annotateEditor(currentEditor);
         }
@@ -179,7 +175,8 @@ public class EditorTracker implements ICoverAnnotationMarker {
                 return;
             }
 
-            final List<LineResult> list = module.getLineResults();
+            final List<LineResult> list = module.getLineCoverage().getResults(start,
+                    end);
 
             final ITextEditor editor = (ITextEditor) currentEditor;
 
@@ -187,10 +184,6 @@ public class EditorTracker implements ICoverAnnotationMarker {
 
             for (final LineResult lr : list) {
 
-                if (lr.getLineNum() < start || end != -1 && lr.getLineNum() > end) {
-                    continue;
-                }
-
                 if (!coverage.containsAnnotation(fileName, lr)) {
                     coverage.addAnnotation(fileName, lr, null);
                 }
@@ -255,11 +248,43 @@ public class EditorTracker implements ICoverAnnotationMarker {
             return;
         }
 
-        log.info(coverage);
+        final ModuleStats module = ModuleSet.get(editor.getTitle().replace(".erl", ""));
+
+        if (module == null || !module.couldBeMarked) {
+            return;
+        }
+
+        final ITextOperationTarget target = editor.getAdapter(ITextOperationTarget.class);
+        if (!(target instanceof ITextViewer)) {
+            markLines(editor, module, 0, -1);
+            return;
+        }
+        final ITextViewer viewer = (ITextViewer) target;
+        if (trackedViewers.add(viewer)) {
+            viewer.addViewportListener(verticalOffset -> {
+                if (!editor.isDirty() && coverage.containsFile(editor.getTitle())) {
+                    markVisibleLines(editor, viewer);
+                }
+            });
+        }
+        markVisibleLines(editor, viewer);
+
+    }
 
-        final Set<LineResult> list = coverage.getLineSet(editor.getTitle());
+    /**
+     * Only lines shown in the editor are annotated, the rest is done while scrolling.
+     */
+    private void markVisibleLines(final ITextEditor editor, final ITextViewer viewer) {
+        final ModuleStats module = ModuleSet.get(editor.getTitle().replace(".erl", ""));
+        if (module == null || !module.couldBeMarked) {
+            return;
+        }
+        markLines(editor, module, viewer.getTopIndex() + 1, viewer.getBottomIndex() + 1);
+    }
 
-        for (final LineResult lr : list) {
+    private void markLines(final ITextEditor editor, final ModuleStats module,
+            final int start, final int end) {
+        for (final LineResult lr : module.getLineCoverage().getResults(start, end)) {
 
             if (lr.getLineNum() == 0) {
                 continue;
@@ -268,7 +293,6 @@ public class EditorTracker implements ICoverAnnotationMarker {
             markLine(editor, lr);
 
         }
-
     }
 
     private void markLine(final ITextEditor editor, final LineResult lr) {
@@ -1,6 +1,7 @@
 package org.erlide.engine;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 
 import org.eclipse.core.runtime.CoreException;
@@ -12,6 +13,7 @@ import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.ObjectExtensions;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 import org.erlide.util.ErlLogger;
+import org.erlide.util.FileUtils;
 import org.erlide.util.services.ExtensionUtils;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleActivator;
@@ -48,6 +50,7 @@ public class ModelApiActivator implements BundleActivator {
         final ErlangInitializeParamsImpl params = ObjectExtensions
                 .<ErlangInitializeParamsImpl> operator_doubleArrow(
                         _erlangInitializeParamsImpl, _function);
+        ModelApiActivator.seedStateDir(params.getStateDir());
         ModelApiActivator.engine.initialize(params);
         ErlLogger.debug("Started model api");
     }
@@ -77,6 +80,23 @@ public class ModelApiActivator implements BundleActivator {
         }
     }
 
+    /**
+     * Copies prebuilt parser caches (see the org.erlide.core.indexer application) from
+     * the directory given by the <code>erlide.index.seed</code> property, without
+     * replacing the ones we already have.
+     */
+    private static void seedStateDir(final String stateDir) {
+        final String seed = System.getProperty("erlide.index.seed");
+        if (seed == null) {
+            return;
+        }
+        try {
+            FileUtils.copyTree(new File(seed), new File(stateDir), false);
+        } catch (final IOException e) {
+            ErlLogger.warn("Could not use prebuilt index from %s: %s", seed, e);
+        }
+    }
+
     private static int getProcessId(final int fallback) {
         final String jvmName = ManagementFactory.getRuntimeMXBean().getName();
         final int index = jvmName.indexOf("@");
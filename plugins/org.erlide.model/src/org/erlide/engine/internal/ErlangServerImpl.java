@@ -1,6 +1,13 @@
 package org.erlide.engine.internal;
 
+import java.util.function.Function;
+
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.erlide.engine.ErlangInitializeParams;
 import org.erlide.engine.IErlangEngine;
@@ -18,6 +25,7 @@ import org.erlide.engine.internal.services.search.ErlideDoc;
 import org.erlide.engine.internal.services.search.ErlideOpen;
 import org.erlide.engine.internal.services.search.ErlideSearchServer;
 import org.erlide.engine.internal.services.text.ErlideIndent;
+import org.erlide.engine.model.ErlModelException;
 import org.erlide.engine.model.OtpRpcFactory;
 import org.erlide.engine.model.root.IErlModel;
 import org.erlide.engine.services.SystemInfoService;
@@ -39,6 +47,7 @@ import org.erlide.engine.services.text.IndentService;
 import org.erlide.runtime.rpc.IOtpRpc;
 import org.erlide.runtime.rpc.RpcException;
 import org.erlide.util.ErlLogger;
+import org.erlide.util.SystemConfiguration;
 
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangString;
@@ -59,6 +68,7 @@ public class ErlangServerImpl implements IErlangEngine {
 
     @Override
     public void shutdown() {
+        ServiceRegistry.getDefault().clear();
     }
 
     @Override
@@ -66,6 +76,7 @@ public class ErlangServerImpl implements IErlangEngine {
         if (erlangModel == null) {
             final ErlModel _erlModel = new ErlModel();
             erlangModel = _erlModel;
+            openProjectsInBackground(_erlModel);
         }
         final boolean _isOpen = erlangModel.isOpen();
         final boolean _not = !_isOpen;
@@ -84,24 +95,58 @@ public class ErlangServerImpl implements IErlangEngine {
         return erlangModel;
     }
 
+    /**
+     * Builds the workspace's project structures before they are needed, the UI opens
+     * them lazily otherwise. Not done in tests, that create their own projects.
+     */
+    private void openProjectsInBackground(final ErlModel model) {
+        if (backend == null || SystemConfiguration.getInstance().isTest()) {
+            return;
+        }
+        final Job job = new Job("Open Erlang projects") {
+            @Override
+            protected IStatus run(final IProgressMonitor monitor) {
+                try {
+                    model.openProjects(monitor);
+                } catch (final OperationCanceledException e) {
+                    return Status.CANCEL_STATUS;
+                } catch (final ErlModelException e) {
+                    ErlLogger.warn(e);
+                }
+                return Status.OK_STATUS;
+            }
+        };
+        job.setPriority(Job.LONG);
+        job.schedule();
+    }
+
     @Override
     public String getStateDir() {
         return stateDir;
     }
 
+    /**
+     * Services are kept per backend, see {@link ServiceRegistry}. The completion service
+     * is the exception, it has per call state.
+     */
+    private <T> T service(final Class<T> type,
+            final Function<IOtpRpc, ? extends T> factory) {
+        return ServiceRegistry.getDefault().get(backend, type, factory);
+    }
+
     @Override
     public SearchServerService getSearchServerService() {
-        return new ErlideSearchServer(backend);
+        return service(SearchServerService.class, ErlideSearchServer::new);
     }
 
     @Override
     public ModelUtilService getModelUtilService() {
-        return new ModelInternalUtils(backend);
+        return service(ModelUtilService.class, ModelInternalUtils::new);
     }
 
     @Override
     public ModelFindService getModelFindService() {
-        return new ModelFindUtil(backend);
+        return service(ModelFindService.class, ModelFindUtil::new);
     }
 
     /**
@@ -111,17 +156,17 @@ public class ErlangServerImpl implements IErlangEngine {
      */
     @Override
     public CleanupProvider getCleanupProvider() {
-        return new ErlTidyCleanupProvider(backend);
+        return service(CleanupProvider.class, ErlTidyCleanupProvider::new);
     }
 
     @Override
     public ScannerProviderService getScannerProviderService() {
-        return new ScannerProvider(backend);
+        return service(ScannerProviderService.class, ScannerProvider::new);
     }
 
     @Override
     public EdocExportService getEdocExportService() {
-        return new ErlideEdocExport(backend);
+        return service(EdocExportService.class, ErlideEdocExport::new);
     }
 
     @Override
@@ -134,12 +179,12 @@ public class ErlangServerImpl implements IErlangEngine {
         if (backend == null) {
             return new NullScannerService();
         }
-        return new ErlideScanner(backend);
+        return service(SimpleScannerService.class, ErlideScanner::new);
     }
 
     @Override
     public SimpleParserService getSimpleParserService() {
-        return new ErlideParser(backend);
+        return service(SimpleParserService.class, ErlideParser::new);
     }
 
     @Override
@@ -174,23 +219,21 @@ public class ErlangServerImpl implements IErlangEngine {
 
     @Override
     public IndentService getIndentService() {
-        return new ErlideIndent(backend);
+        return service(IndentService.class, ErlideIndent::new);
     }
 
     @Override
     public OpenService getOpenService() {
-        final String _stateDir = getStateDir();
-        return new ErlideOpen(backend, _stateDir);
+        return service(OpenService.class, b -> new ErlideOpen(b, getStateDir()));
     }
 
     @Override
     public OtpDocService getOtpDocService() {
-        final String _stateDir = getStateDir();
-        return new ErlideDoc(backend, _stateDir);
+        return service(OtpDocService.class, b -> new ErlideDoc(b, getStateDir()));
     }
 
     @Override
     public SystemInfoService getSystemInfoService() {
-        return new SystemInfo(backend);
+        return service(SystemInfoService.class, SystemInfo::new);
     }
 }
@@ -0,0 +1,131 @@
+package org.erlide.engine.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.erlide.runtime.events.RuntimeDownEvent;
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.util.ErlLogger;
+import org.erlide.util.ErlideEventBus;
+import org.erlide.util.IDisposable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * The service objects of each backend. A service is created the first time it is asked
+ * for and is then shared, so it can keep state (caches, encoded terms) between calls;
+ * services must therefore be thread safe. All the services of a backend are dropped
+ * when it goes down, and those that are {@link IDisposable} are disposed.
+ * <p>
+ * The services keep a reference to their backend, so an entry is only released by
+ * {@link #remove(IOtpRpc)}: a backend that stops without a {@link RuntimeDownEvent} is
+ * kept until {@link #clear()}. A removed backend gets a new service at every call, as
+ * if there were no backend, so that threads still running when it goes down don't
+ * register it again.
+ */
+public class ServiceRegistry {
+
+    private static volatile ServiceRegistry fgInstance;
+
+    private final ConcurrentMap<IOtpRpc, ConcurrentMap<Class<?>, Object>> services = Maps
+            .newConcurrentMap();
+    /** backends that went down, kept only as long as something else refers to them */
+    private final Set<IOtpRpc> removed = Collections
+            .newSetFromMap(new MapMaker().weakKeys().<IOtpRpc, Boolean> makeMap());
+
+    public static ServiceRegistry getDefault() {
+        if (ServiceRegistry.fgInstance == null) {
+            synchronized (ServiceRegistry.class) {
+                if (ServiceRegistry.fgInstance == null) {
+                    final ServiceRegistry registry = new ServiceRegistry();
+                    ErlideEventBus.register(registry);
+                    ServiceRegistry.fgInstance = registry;
+                }
+            }
+        }
+        return ServiceRegistry.fgInstance;
+    }
+
+    /**
+     * @return the backend's service of the given type, created with the factory if
+     *         there is none yet. Without a backend, or if it was removed, a new
+     *         service is returned every time.
+     */
+    public <T> T get(final IOtpRpc backend, final Class<T> type,
+            final Function<IOtpRpc, ? extends T> factory) {
+        if (backend == null) {
+            return factory.apply(null);
+        }
+        // remove() marks the backend before dropping its entry, so either the entry
+        // isn't created or it is dropped afterwards
+        final ConcurrentMap<Class<?>, Object> map = services.computeIfAbsent(backend,
+                b -> removed.contains(b) ? null : Maps.newConcurrentMap());
+        if (map == null) {
+            return factory.apply(backend);
+        }
+        final Object service = map.get(type);
+        if (service != null) {
+            return type.cast(service);
+        }
+        // not computeIfAbsent, factories may ask for other services
+        final T created = factory.apply(backend);
+        final Object previous = map.putIfAbsent(type, created);
+        if (previous != null) {
+            ServiceRegistry.dispose(created);
+            return type.cast(previous);
+        }
+        return created;
+    }
+
+    @Subscribe
+    public void runtimeDown(final RuntimeDownEvent event) {
+        remove(event.getOtpRpc());
+    }
+
+    /**
+     * Drops the services of a backend, which won't get shared services anymore.
+     */
+    public void remove(final IOtpRpc backend) {
+        removed.add(backend);
+        final Map<Class<?>, Object> map = services.remove(backend);
+        if (map != null) {
+            ServiceRegistry.disposeAll(map.values());
+        }
+    }
+
+    public void clear() {
+        final List<Object> all = Lists.newArrayList();
+        for (final IOtpRpc backend : Lists.newArrayList(services.keySet())) {
+            final Map<Class<?>, Object> map = services.remove(backend);
+            if (map != null) {
+                all.addAll(map.values());
+            }
+        }
+        ServiceRegistry.disposeAll(all);
+    }
+
+    private static void disposeAll(final Collection<Object> all) {
+        for (final Object service : all) {
+            ServiceRegistry.dispose(service);
+        }
+    }
+
+    private static void dispose(final Object service) {
+        if (service instanceof IDisposable) {
+            try {
+                ((IDisposable) service).dispose();
+            } catch (final Exception e) {
+                ErlLogger.warn(e);
+            }
+        }
+    }
+
+}
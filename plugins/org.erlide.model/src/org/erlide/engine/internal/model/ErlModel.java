@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.resources.IContainer;
@@ -35,7 +36,13 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
 import org.erlide.engine.ErlangEngine;
 import org.erlide.engine.ModelPlugin;
@@ -70,6 +77,7 @@ import org.erlide.engine.model.root.ProjectConfigurationChangeListener;
 import org.erlide.engine.util.CommonUtils;
 import org.erlide.engine.util.NatureUtil;
 import org.erlide.engine.util.ResourceUtil;
+import org.erlide.runtime.api.StartupMetrics;
 import org.erlide.runtime.runtimeinfo.RuntimeVersion;
 import org.erlide.util.ErlLogger;
 import org.erlide.util.SystemConfiguration;
@@ -101,6 +109,10 @@ public class ErlModel extends Openable implements IErlModel {
     private final Map<IPath, IErlModule> moduleMap = Maps.newHashMap();
     private final Map<IErlModule, IPath> mapModule = Maps.newHashMap();
 
+    private static final int OPEN_THREADS = Math.max(1,
+            Integer.getInteger("erlide.model.open.threads",
+                    Runtime.getRuntime().availableProcessors()));
+
     /**
      * Constructs a new Erlang Model on the given workspace. Note that only one instance
      * of ErlModel handle should ever be created.
@@ -138,6 +150,98 @@ public class ErlModel extends Openable implements IErlModel {
         return true;
     }
 
+    /**
+     * Builds the structure of all the Erlang projects in a group of at most
+     * erlide.model.open.threads jobs, then fetches their external trees (RPCs) and lists
+     * their modules (folder walks), all in parallel. Modules are only created here, they
+     * are read and parsed when opened.
+     * <p>
+     * Must not be called while opening the model, the projects need it open.
+     * </p>
+     *
+     * @return the duration of each phase
+     * @throws OperationCanceledException
+     *             if the monitor is canceled
+     */
+    public StartupMetrics openProjects(final IProgressMonitor monitor)
+            throws ErlModelException {
+        final SubMonitor progress = SubMonitor.convert(monitor, "Open Erlang projects",
+                2);
+        final StartupMetrics metrics = new StartupMetrics("model");
+        open(null);
+        final Collection<IErlProject> projects = getErlangProjects();
+        metrics.done("model");
+        try {
+            final List<Callable<Void>> opens = Lists.newArrayList();
+            for (final IErlProject project : projects) {
+                opens.add(ErlModel.openTask(project));
+            }
+            ErlModel.runAll("Open Erlang projects", opens, progress.split(1));
+            metrics.done("projects");
+
+            final List<Callable<Void>> fetches = Lists.newArrayList();
+            for (final IErlProject project : projects) {
+                for (final IErlElement e : project
+                        .getChildrenOfKind(ErlElementKind.EXTERNAL_ROOT)) {
+                    fetches.add(ErlModel.openTask((IOpenable) e));
+                }
+                fetches.add(() -> {
+                    project.getModulesAndIncludes();
+                    return null;
+                });
+            }
+            ErlModel.runAll("Open external modules", fetches, progress.split(1));
+            metrics.done("externals and modules");
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ErlLogger.debug("Opened %d projects in %d ms %s", projects.size(),
+                metrics.getTotal(), metrics.getPhases());
+        return metrics;
+    }
+
+    private static Callable<Void> openTask(final IOpenable openable) {
+        return () -> {
+            openable.open(null);
+            return null;
+        };
+    }
+
+    /**
+     * Runs the tasks as jobs of one group, so they share the platform's workers instead
+     * of a pool of their own. Canceling the monitor cancels the jobs not yet run.
+     */
+    private static void runAll(final String name, final List<Callable<Void>> tasks,
+            final IProgressMonitor monitor) throws InterruptedException {
+        final JobGroup group = new JobGroup(name, ErlModel.OPEN_THREADS, tasks.size());
+        for (final Callable<Void> task : tasks) {
+            final Job job = new Job(name) {
+                @Override
+                protected IStatus run(final IProgressMonitor jobMonitor) {
+                    if (jobMonitor.isCanceled()) {
+                        return Status.CANCEL_STATUS;
+                    }
+                    try {
+                        task.call();
+                    } catch (final Exception e) {
+                        ErlLogger.warn(e);
+                    }
+                    return Status.OK_STATUS;
+                }
+            };
+            job.setJobGroup(group);
+            job.setSystem(true);
+            job.setPriority(Job.LONG);
+            job.schedule();
+        }
+        try {
+            group.join(0, monitor);
+        } catch (final OperationCanceledException e) {
+            group.cancel();
+            throw e;
+        }
+    }
+
     /**
      * @see IErlElement
      */
@@ -497,27 +601,31 @@ public class ErlModel extends Openable implements IErlModel {
 
     private IErlModule getModuleWithoutResource(final IParent parent, final String name,
             final IPath path, final Charset encoding, final String initialText) {
-        IErlModule m = moduleMap.get(path);
-        if (m == null) {
-            final IParent parent2 = parent == null ? this : parent;
-            if (path != null) {
+        final IParent parent2 = parent == null ? this : parent;
+        if (path == null) {
+            return new ErlModule(parent2, name, null, encoding, initialText);
+        }
+        // external trees are opened in parallel
+        synchronized (moduleMap) {
+            IErlModule m = moduleMap.get(path);
+            if (m == null) {
                 m = new ErlModule(parent2, name, path.toPortableString(), encoding,
                         initialText);
                 moduleMap.put(path, m);
                 mapModule.put(m, path);
-            } else {
-                m = new ErlModule(parent2, name, null, encoding, initialText);
             }
+            return m;
         }
-        return m;
     }
 
     @Override
     public void removeModule(final IErlModule module) {
-        final Object key = mapModule.get(module);
-        if (key != null) {
-            mapModule.remove(module);
-            moduleMap.remove(key);
+        synchronized (moduleMap) {
+            final Object key = mapModule.get(module);
+            if (key != null) {
+                mapModule.remove(module);
+                moduleMap.remove(key);
+            }
         }
         ErlModelCache.getDefault().removeModule(module);
     }
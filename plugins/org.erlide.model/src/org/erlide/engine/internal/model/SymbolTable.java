@@ -0,0 +1,22 @@
+package org.erlide.engine.internal.model;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Shared copies of the names used by model elements. A workspace has many functions
+ * called <code>init</code> or variables called <code>State</code>; each name is kept
+ * once. Weak, names that no element uses anymore are collected.
+ */
+public final class SymbolTable {
+
+    private static final Interner<String> NAMES = Interners.newWeakInterner();
+
+    private SymbolTable() {
+    }
+
+    public static String intern(final String name) {
+        return name == null ? null : SymbolTable.NAMES.intern(name);
+    }
+
+}
@@ -10,6 +10,7 @@ import java.util.concurrent.TimeUnit;
 import org.eclipse.xtext.xbase.lib.Pair;
 import org.erlide.engine.ErlangEngine;
 import org.erlide.engine.model.IErlElement;
+import org.erlide.engine.model.root.IErlModel;
 import org.erlide.engine.model.root.IErlModelChangeListener;
 import org.erlide.engine.model.root.IErlModule;
 import org.erlide.engine.model.root.IErlProject;
@@ -37,6 +38,7 @@ public class ErlModelCache implements IDisposable {
     private final Map<String, IErlModule> editedModulesMap;
     // private final Cache<String, Set<IErlModule>> nameToModuleCache;
     private final ModelChangeListener modelChangeListener;
+    private final IErlModel model;
     private final Cache<IErlProject, List<IErlModule>> projectModuleCache;
     private final Cache<IErlProject, List<IErlModule>> projectIncludeCache;
 
@@ -80,7 +82,8 @@ public class ErlModelCache implements IDisposable {
         projectIncludeCache = ErlModelCache.newCache();
 
         modelChangeListener = new ModelChangeListener();
-        ErlangEngine.getInstance().getModel().addModelChangeListener(modelChangeListener);
+        model = ErlangEngine.getInstance().getModel();
+        model.addModelChangeListener(modelChangeListener);
     }
 
     public void putModule(final IErlModule module) {
@@ -154,8 +157,7 @@ public class ErlModelCache implements IDisposable {
 
     @Override
     public void dispose() {
-        ErlangEngine.getInstance().getModel()
-                .removeModelChangeListener(modelChangeListener);
+        model.removeModelChangeListener(modelChangeListener);
     }
 
     public void putExternalTree(final String externalPath, final IErlProject project,
@@ -247,6 +249,10 @@ public class ErlModelCache implements IDisposable {
         for (final String keyToRemove : keysToRemove) {
             externalTreeCache.invalidate(keyToRemove);
         }
+        // the modules of the project may have changed
+        if (project != null) {
+            model.notifyChange(project);
+        }
     }
 
     public void pathVarsChanged() {
@@ -0,0 +1,208 @@
+package org.erlide.engine.internal.model.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.erlide.engine.ErlangEngine;
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.runtimeinfo.RuntimeInfo;
+import org.erlide.util.ErlLogger;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpInputStream;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+
+/**
+ * The structure of the OTP libraries (applications, their directories and files) for
+ * each runtime. It depends only on the OTP installation, so it is computed once by a
+ * backend and then shared by all projects using that runtime. It is also stored in the
+ * state directory, so that later sessions don't have to ask a backend again.
+ * <p>
+ * Stored entries are checked against the OTP home and the modification time of its
+ * lib directory, so an updated installation is indexed again. A structure that is
+ * neither in memory nor on disk is fetched in the background.
+ * </p>
+ * <p>
+ * Only the structure is kept here: exported functions and their docs for completion
+ * are in {@link org.erlide.engine.internal.services.codeassist.CompletionIndex}, and
+ * specs, hover and open declaration still ask the backend.
+ * </p>
+ */
+public class OtpLibraryIndex {
+
+    private static final OtpErlangAtom TAG = new OtpErlangAtom("otp_lib_index");
+    private static final int FORMAT = 1;
+    private static final String DIR = "otp_index";
+
+    private static volatile OtpLibraryIndex fgInstance;
+
+    private final File dir;
+    private final Function<IOtpRpc, OtpErlangList> fetcher;
+    private final Map<String, OtpErlangList> structures = Maps.newConcurrentMap();
+    private final Set<String> fetching = Sets.newConcurrentHashSet();
+
+    public static OtpLibraryIndex getDefault() {
+        if (OtpLibraryIndex.fgInstance == null) {
+            final String stateDir = ErlangEngine.getInstance().getStateDir();
+            OtpLibraryIndex.fgInstance = new OtpLibraryIndex(
+                    stateDir == null ? null : new File(stateDir, OtpLibraryIndex.DIR),
+                    b -> ErlangEngine.getInstance().getOpenService()
+                            .getOtpLibStructure(b));
+        }
+        return OtpLibraryIndex.fgInstance;
+    }
+
+    OtpLibraryIndex(final File dir, final Function<IOtpRpc, OtpErlangList> fetcher) {
+        this.dir = dir;
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * @return the OTP library structure for the runtime, as returned by
+     *         {@link org.erlide.engine.services.search.OpenService#getOtpLibStructure(IOtpRpc)},
+     *         or <code>null</code> if it isn't known yet. Then it is fetched from the
+     *         backend in the background and <code>whenFetched</code> is run when it is
+     *         available. Without a runtime (or its OTP home) there is nothing to key
+     *         the structure by, so it is fetched right away and not kept.
+     */
+    public OtpErlangList getOtpLibStructure(final RuntimeInfo runtime,
+            final IOtpRpc backend, final Runnable whenFetched) {
+        final String key = OtpLibraryIndex.getKey(runtime);
+        if (key == null) {
+            return fetcher.apply(backend);
+        }
+        OtpErlangList structure = structures.get(key);
+        if (structure != null) {
+            return structure;
+        }
+        structure = load(getFile(runtime), runtime);
+        if (structure != null) {
+            structures.put(key, structure);
+            return structure;
+        }
+        if (fetching.add(key)) {
+            final Job job = new Job("Index OTP libraries") {
+                @Override
+                protected IStatus run(final IProgressMonitor monitor) {
+                    final boolean fetched;
+                    try {
+                        fetched = fetch(runtime, backend);
+                    } finally {
+                        fetching.remove(key);
+                    }
+                    if (fetched) {
+                        whenFetched.run();
+                    }
+                    return Status.OK_STATUS;
+                }
+            };
+            job.setPriority(Job.DECORATE);
+            job.setSystem(true);
+            job.schedule();
+        }
+        return null;
+    }
+
+    public void clear() {
+        structures.clear();
+    }
+
+    private boolean fetch(final RuntimeInfo runtime, final IOtpRpc backend) {
+        final OtpErlangList structure = fetcher.apply(backend);
+        if (structure == null) {
+            return false;
+        }
+        store(getFile(runtime), runtime, structure);
+        structures.put(OtpLibraryIndex.getKey(runtime), structure);
+        return true;
+    }
+
+    private static String getKey(final RuntimeInfo runtime) {
+        if (runtime == null || runtime.getOtpHome() == null) {
+            return null;
+        }
+        return runtime.getVersion() + "@" + runtime.getOtpHome();
+    }
+
+    private static long getStamp(final RuntimeInfo runtime) {
+        return new File(runtime.getOtpHome(), "lib").lastModified();
+    }
+
+    private File getFile(final RuntimeInfo runtime) {
+        if (dir == null) {
+            return null;
+        }
+        final String name = Hashing.murmur3_128()
+                .hashUnencodedChars(OtpLibraryIndex.getKey(runtime)).toString();
+        return new File(dir, name + ".idx");
+    }
+
+    private OtpErlangList load(final File file, final RuntimeInfo runtime) {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        final String otpHome = runtime.getOtpHome();
+        final long stamp = OtpLibraryIndex.getStamp(runtime);
+        try {
+            final byte[] bytes = Files.readAllBytes(file.toPath());
+            final OtpErlangObject term = new OtpInputStream(bytes).read_any();
+            // {otp_lib_index, Format, OtpHome, Stamp, Structure}
+            if (term instanceof OtpErlangTuple) {
+                final OtpErlangTuple t = (OtpErlangTuple) term;
+                if (t.arity() == 5 && TAG.equals(t.elementAt(0))
+                        && new OtpErlangLong(FORMAT).equals(t.elementAt(1))
+                        && new OtpErlangString(otpHome).equals(t.elementAt(2))
+                        && new OtpErlangLong(stamp).equals(t.elementAt(3))
+                        && t.elementAt(4) instanceof OtpErlangList) {
+                    return (OtpErlangList) t.elementAt(4);
+                }
+            }
+        } catch (final IOException | OtpErlangDecodeException e) {
+            ErlLogger.warn("Could not read OTP index %s: %s", file, e.getMessage());
+        }
+        return null;
+    }
+
+    private void store(final File file, final RuntimeInfo runtime,
+            final OtpErlangList structure) {
+        if (file == null) {
+            return;
+        }
+        final String otpHome = runtime.getOtpHome();
+        final long stamp = OtpLibraryIndex.getStamp(runtime);
+        final OtpErlangTuple term = new OtpErlangTuple(
+                new OtpErlangObject[] { TAG, new OtpErlangLong(FORMAT),
+                        new OtpErlangString(otpHome), new OtpErlangLong(stamp),
+                        structure });
+        final OtpOutputStream out = new OtpOutputStream();
+        out.write_compressed(term);
+        try {
+            file.getParentFile().mkdirs();
+            final File tmp = new File(file.getPath() + ".tmp");
+            Files.write(tmp.toPath(), out.toByteArray());
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            ErlLogger.warn("Could not write OTP index %s: %s", file, e.getMessage());
+        }
+    }
+
+}
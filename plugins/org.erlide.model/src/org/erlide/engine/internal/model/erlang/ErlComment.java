@@ -16,10 +16,38 @@ import org.erlide.engine.model.erlang.ISourceRange;
 public class ErlComment extends ErlMember implements IErlComment {
 
     private final boolean fIsHeader;
+    // when not null, the text is taken from the module's source on demand
+    private final String source;
+    private final int textOffset;
+    private final int textLength;
 
     public ErlComment(final IParent parent, final String name, final boolean isHeader) {
         super(parent, name);
         fIsHeader = isHeader;
+        source = null;
+        textOffset = 0;
+        textLength = 0;
+    }
+
+    /**
+     * A comment that doesn't keep a copy of its text, but the source it was parsed from
+     * (which its module holds anyway) and where the text is.
+     */
+    public ErlComment(final IParent parent, final String source, final int textOffset,
+            final int textLength, final boolean isHeader) {
+        super(parent, "");
+        fIsHeader = isHeader;
+        this.source = source;
+        this.textOffset = textOffset;
+        this.textLength = textLength;
+    }
+
+    @Override
+    public String getName() {
+        if (source == null) {
+            return super.getName();
+        }
+        return source.substring(textOffset, textOffset + textLength);
     }
 
     @Override
@@ -8,9 +8,11 @@
  *******************************************************************************/
 package org.erlide.engine.internal.model.erlang;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import org.erlide.engine.internal.model.SymbolTable;
 import org.erlide.engine.model.ErlElementKind;
 import org.erlide.engine.model.IErlElement;
 import org.erlide.engine.model.IParent;
@@ -19,7 +21,6 @@ import org.erlide.engine.model.erlang.IErlFunctionClause;
 import org.erlide.util.Util;
 
 import com.ericsson.otp.erlang.OtpErlangList;
-import com.ericsson.otp.erlang.OtpErlangObject;
 
 public class ErlFunctionClause extends ErlMember implements IErlFunctionClause {
 
@@ -34,11 +35,12 @@ public class ErlFunctionClause extends ErlMember implements IErlFunctionClause {
     }
 
     public static List<String> getParameters(final OtpErlangList parameters) {
-        final List<String> pars = new ArrayList<>(parameters.arity());
-        for (final OtpErlangObject i : parameters) {
-            pars.add(Util.stringValue(i));
+        final String[] pars = new String[parameters.arity()];
+        for (int i = 0; i < pars.length; i++) {
+            pars[i] = SymbolTable.intern(Util.stringValue(parameters.elementAt(i)));
         }
-        return pars;
+        // values may be null
+        return pars.length == 0 ? Collections.emptyList() : Arrays.asList(pars);
     }
 
     @Override
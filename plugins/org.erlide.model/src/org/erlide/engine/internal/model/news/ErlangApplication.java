@@ -0,0 +1,69 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.ErlangApplicationProperties;
+import org.erlide.engine.model.news.IErlangApplication;
+import org.erlide.engine.model.news.IErlangEbinFolder;
+import org.erlide.engine.model.news.IErlangLibrary;
+import org.erlide.engine.model.news.IErlangSourceFolder;
+
+/**
+ * An application of a library. Its binary folder and dependencies are always there,
+ * see {@link Node#application}.
+ */
+public class ErlangApplication extends ErlangElement implements IErlangApplication {
+
+    ErlangApplication(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    /**
+     * The version is empty if the application has no .app file.
+     */
+    @Override
+    public ErlangApplicationProperties getProperties() {
+        return new ErlangApplicationProperties(
+                ((ErlangElement) getBinaryFolder()).getNode().getValue());
+    }
+
+    @Override
+    public Iterable<IErlangSourceFolder> getSourceFolders() {
+        return getChildren(IErlangSourceFolder.class, Kind.SOURCE_FOLDER);
+    }
+
+    @Override
+    public IErlangSourceFolder getSourceFolder(final String path) {
+        return getChild(IErlangSourceFolder.class, path, Kind.SOURCE_FOLDER);
+    }
+
+    @Override
+    public Iterable<IErlangSourceFolder> getIncludeFolders() {
+        return getChildren(IErlangSourceFolder.class, Kind.INCLUDE_FOLDER);
+    }
+
+    @Override
+    public IErlangSourceFolder getIncludeFolder(final String path) {
+        return getChild(IErlangSourceFolder.class, path, Kind.INCLUDE_FOLDER);
+    }
+
+    @Override
+    public IErlangEbinFolder getBinaryFolder() {
+        return getFirstChild(IErlangEbinFolder.class, Kind.EBIN_FOLDER);
+    }
+
+    @Override
+    public Iterable<IErlangSourceFolder> getTestFolders() {
+        return getChildren(IErlangSourceFolder.class, Kind.TEST_FOLDER);
+    }
+
+    @Override
+    public IErlangSourceFolder getTestFolder(final String path) {
+        return getChild(IErlangSourceFolder.class, path, Kind.TEST_FOLDER);
+    }
+
+    @Override
+    public IErlangLibrary getDependencies() {
+        return getChild(IErlangLibrary.class, Node.DEPENDENCIES, Kind.LIBRARY);
+    }
+
+}
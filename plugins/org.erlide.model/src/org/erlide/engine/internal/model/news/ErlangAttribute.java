@@ -0,0 +1,19 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.model.news.IErlangAttribute;
+
+/**
+ * Any attribute, the value is the attribute's text.
+ */
+public class ErlangAttribute extends ErlangConstruct implements IErlangAttribute {
+
+    ErlangAttribute(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public String getTag() {
+        return getNode().getName();
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.erlide.engine.internal.model.news;
+
+import java.util.Collections;
+
+import org.erlide.engine.model.news.ErlangBeamProperties;
+import org.erlide.engine.model.news.IErlangBeam;
+import org.erlide.engine.model.news.IErlangForm;
+
+import com.google.common.io.Files;
+
+/**
+ * A compiled module. Beams aren't parsed, they have no forms.
+ */
+public class ErlangBeam extends ErlangElement implements IErlangBeam {
+
+    ErlangBeam(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public String getFileExtension() {
+        return Files.getFileExtension(getName());
+    }
+
+    @Override
+    public Iterable<IErlangForm> getForms() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public ErlangBeamProperties getProperties() {
+        return new ErlangBeamProperties();
+    }
+
+}
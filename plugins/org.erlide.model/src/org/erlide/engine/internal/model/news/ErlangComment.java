@@ -0,0 +1,23 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.model.news.IErlangComment;
+
+import com.google.common.base.Splitter;
+
+public class ErlangComment extends ErlangConstruct implements IErlangComment {
+
+    ErlangComment(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public Iterable<String> getText() {
+        return Splitter.on('\n').split(getNode().getValue());
+    }
+
+    @Override
+    public int getLevel() {
+        return getNode().getArity();
+    }
+
+}
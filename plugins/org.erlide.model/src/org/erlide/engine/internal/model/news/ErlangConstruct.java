@@ -0,0 +1,27 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.model.news.ISourceConstruct;
+import org.erlide.engine.model.news.TextRange;
+
+/**
+ * An element that has a place in a source file.
+ */
+public abstract class ErlangConstruct extends ErlangElement implements ISourceConstruct {
+
+    protected ErlangConstruct(final ErlangElement parent, final Node node,
+            final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public TextRange getFullRange() {
+        return new TextRange(getAbsoluteOffset(), getNode().getLength());
+    }
+
+    @Override
+    public TextRange getIdentifyingRange() {
+        return new TextRange(getAbsoluteOffset() + getNode().getIdOffset(),
+                getNode().getIdLength());
+    }
+
+}
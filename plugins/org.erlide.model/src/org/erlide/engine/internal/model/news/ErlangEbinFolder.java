@@ -0,0 +1,37 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangBeam;
+import org.erlide.engine.model.news.IErlangEbinFolder;
+import org.erlide.engine.model.news.IErlangUnit;
+
+/**
+ * The binary folder of an application, the node's value is the application's version.
+ */
+public class ErlangEbinFolder extends ErlangElement implements IErlangEbinFolder {
+
+    ErlangEbinFolder(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public Iterable<? extends IErlangUnit> getUnits() {
+        return getBeams();
+    }
+
+    @Override
+    public IErlangUnit getUnit(final String name) {
+        return getBeam(name);
+    }
+
+    @Override
+    public Iterable<? extends IErlangBeam> getBeams() {
+        return getChildren(IErlangBeam.class, Kind.BEAM);
+    }
+
+    @Override
+    public IErlangBeam getBeam(final String name) {
+        return getChild(IErlangBeam.class, name, Kind.BEAM);
+    }
+
+}
@@ -0,0 +1,192 @@
+package org.erlide.engine.internal.model.news;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangElement;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+/**
+ * An element of a model snapshot: a {@link Node} seen from its parent. Elements are
+ * created when they are navigated to, they are cheap and immutable.
+ */
+public abstract class ErlangElement implements IErlangElement {
+
+    private final ErlangElement parent;
+    private final Node node;
+    // position in the parent's node
+    private final int index;
+    // absolute, the node's offset is relative to the parent's
+    private final int offset;
+    // benign race, all threads compute the same value
+    private volatile ImmutableList<IErlangElement> children;
+
+    protected ErlangElement(final ErlangElement parent, final Node node,
+            final int index) {
+        this.parent = parent;
+        this.node = node;
+        this.index = index;
+        offset = (parent == null ? 0 : parent.offset) + node.getOffset();
+    }
+
+    @Override
+    public IErlangElement getParent() {
+        return parent;
+    }
+
+    ErlangElement parent() {
+        return parent;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    int getAbsoluteOffset() {
+        return offset;
+    }
+
+    public String getName() {
+        return node.getName();
+    }
+
+    @Override
+    public Iterable<IErlangElement> getChildren() {
+        ImmutableList<IErlangElement> result = children;
+        if (result == null) {
+            final ImmutableList.Builder<IErlangElement> builder = ImmutableList.builder();
+            final List<Node> nodes = node.getChildren();
+            for (int i = 0; i < nodes.size(); i++) {
+                builder.add(ErlangElement.wrap(this, nodes.get(i), i));
+            }
+            result = builder.build();
+            children = result;
+        }
+        return result;
+    }
+
+    @Override
+    public IErlangElement getChild(final String id) {
+        for (final IErlangElement child : getChildren()) {
+            if (((ErlangElement) child).getName().equals(id)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the children with one of the given kinds, as elements of a given type
+     */
+    protected <T> Iterable<T> getChildren(final Class<T> type, final Kind... kinds) {
+        return Iterables.filter(Iterables.filter(getChildren(),
+                e -> ErlangElement.hasKind((ErlangElement) e, kinds)), type);
+    }
+
+    protected <T> T getChild(final Class<T> type, final String id, final Kind... kinds) {
+        for (final T child : getChildren(type, kinds)) {
+            if (((ErlangElement) child).getName().equals(id)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    protected <T> T getFirstChild(final Class<T> type, final Kind... kinds) {
+        return Iterables.getFirst(getChildren(type, kinds), null);
+    }
+
+    public ErlangModel getModel() {
+        ErlangElement e = this;
+        while (e.parent != null) {
+            e = e.parent;
+        }
+        return (ErlangModel) e;
+    }
+
+    private static boolean hasKind(final ErlangElement e, final Kind[] kinds) {
+        for (final Kind kind : kinds) {
+            if (e.node.getKind() == kind) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static ErlangElement wrap(final ErlangElement parent, final Node node,
+            final int index) {
+        switch (node.getKind()) {
+        case MODEL:
+            return new ErlangModel(node);
+        case PROJECT:
+            return new ErlangProject(parent, node, index);
+        case APPLICATION:
+            return new ErlangApplication(parent, node, index);
+        case LIBRARY:
+            return new ErlangLibrary(parent, node, index);
+        case SOURCE_FOLDER:
+        case INCLUDE_FOLDER:
+        case TEST_FOLDER:
+            return new ErlangSourceFolder(parent, node, index);
+        case EBIN_FOLDER:
+            return new ErlangEbinFolder(parent, node, index);
+        case MODULE:
+            return new ErlangModule(parent, node, index);
+        case HEADER:
+            return new ErlangHeader(parent, node, index);
+        case BEAM:
+            return new ErlangBeam(parent, node, index);
+        case FUNCTION:
+            return new ErlangFunction(parent, node, index);
+        case CLAUSE:
+            return new ErlangFunctionClause(parent, node, index);
+        case ATTRIBUTE:
+            return new ErlangAttribute(parent, node, index);
+        case COMMENT:
+            return new ErlangComment(parent, node, index);
+        case ERROR:
+            return new ErlangError(parent, node, index);
+        case GUARD:
+            return new ErlangGuard(parent, node, index);
+        case PARAMETER:
+        case BODY:
+        case EXPRESSION:
+        default:
+            return new ErlangExpression(parent, node, index);
+        }
+    }
+
+    /**
+     * Elements are equal if they wrap the same node at the same place of the same model.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ErlangElement other = (ErlangElement) obj;
+        return node == other.node && offset == other.offset
+                && Objects.equals(parent, other.parent);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(node) * 31 + offset;
+    }
+
+    @Override
+    public String toString() {
+        return node.toString();
+    }
+
+}
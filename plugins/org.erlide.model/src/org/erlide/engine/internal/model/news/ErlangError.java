@@ -0,0 +1,21 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.model.news.IErlangError;
+
+public class ErlangError extends ErlangConstruct implements IErlangError {
+
+    ErlangError(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public String getMessage() {
+        return getNode().getValue();
+    }
+
+    @Override
+    public String getContent() {
+        return getNode().getValue();
+    }
+
+}
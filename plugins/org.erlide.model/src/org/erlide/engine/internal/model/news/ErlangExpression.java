@@ -0,0 +1,16 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.model.news.IErlangExpression;
+
+public class ErlangExpression extends ErlangConstruct implements IErlangExpression {
+
+    ErlangExpression(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public String getContent() {
+        return getNode().getValue();
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangComment;
+import org.erlide.engine.model.news.IErlangFunction;
+import org.erlide.engine.model.news.IErlangFunctionClause;
+
+public class ErlangFunction extends ErlangConstruct implements IErlangFunction {
+
+    ErlangFunction(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public int getArity() {
+        return getNode().getArity();
+    }
+
+    @Override
+    public Iterable<IErlangFunctionClause> getClauses() {
+        return getChildren(IErlangFunctionClause.class, Kind.CLAUSE);
+    }
+
+    @Override
+    public IErlangComment getComment() {
+        return getFirstChild(IErlangComment.class, Kind.COMMENT);
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangExpression;
+import org.erlide.engine.model.news.IErlangFunctionClause;
+import org.erlide.engine.model.news.IErlangGuard;
+
+public class ErlangFunctionClause extends ErlangConstruct
+        implements IErlangFunctionClause {
+
+    ErlangFunctionClause(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public Iterable<IErlangExpression> getFormalParameters() {
+        return getChildren(IErlangExpression.class, Kind.PARAMETER);
+    }
+
+    @Override
+    public IErlangGuard getGuard() {
+        return getFirstChild(IErlangGuard.class, Kind.GUARD);
+    }
+
+    @Override
+    public IErlangExpression getBody() {
+        return getFirstChild(IErlangExpression.class, Kind.BODY);
+    }
+
+}
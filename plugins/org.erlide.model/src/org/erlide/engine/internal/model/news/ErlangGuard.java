@@ -0,0 +1,11 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.model.news.IErlangGuard;
+
+public class ErlangGuard extends ErlangExpression implements IErlangGuard {
+
+    ErlangGuard(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+}
@@ -0,0 +1,11 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.model.news.IErlangHeader;
+
+public class ErlangHeader extends ErlangSource implements IErlangHeader {
+
+    ErlangHeader(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+}
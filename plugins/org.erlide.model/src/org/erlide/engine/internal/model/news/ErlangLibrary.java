@@ -0,0 +1,21 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangApplication;
+import org.erlide.engine.model.news.IErlangLibrary;
+
+/**
+ * The dependencies of an application, or the applications of a project's runtime.
+ */
+public class ErlangLibrary extends ErlangElement implements IErlangLibrary {
+
+    ErlangLibrary(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public Iterable<IErlangApplication> getApplications() {
+        return getChildren(IErlangApplication.class, Kind.APPLICATION);
+    }
+
+}
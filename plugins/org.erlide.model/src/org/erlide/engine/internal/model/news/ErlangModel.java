@@ -0,0 +1,94 @@
+package org.erlide.engine.internal.model.news;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangElement;
+import org.erlide.engine.model.news.IErlangModel;
+import org.erlide.engine.model.news.IErlangProject;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An immutable snapshot of the model. Changes create a new snapshot that shares all
+ * the nodes that didn't change with this one, so they only cost the path from the
+ * changed node to the root; readers can keep using the old snapshot without locking.
+ *
+ * @see ErlangModelRef
+ */
+public class ErlangModel extends ErlangElement implements IErlangModel {
+
+    ErlangModel(final Node node) {
+        super(null, node, 0);
+        Preconditions.checkArgument(node.getKind() == Kind.MODEL);
+    }
+
+    public static ErlangModel create(final List<Node> projects) {
+        return new ErlangModel(Node.container(Kind.MODEL, "", projects));
+    }
+
+    @Override
+    public Iterable<IErlangProject> getProjects() {
+        return getChildren(IErlangProject.class, Kind.PROJECT);
+    }
+
+    @Override
+    public IErlangProject getProject(final String name) {
+        return getChild(IErlangProject.class, name, Kind.PROJECT);
+    }
+
+    /**
+     * @return a snapshot where the element's node is replaced
+     */
+    public ErlangModel replace(final IErlangElement element, final Node node) {
+        ErlangElement e = check(element);
+        Node result = node;
+        while (e.parent() != null) {
+            result = e.parent().getNode().withChild(e.getIndex(), result);
+            e = e.parent();
+        }
+        return new ErlangModel(result);
+    }
+
+    /**
+     * @return a snapshot where the element's children are the given ones; the children
+     *         that didn't change are shared with this snapshot
+     */
+    public ErlangModel update(final IErlangElement element, final List<Node> children) {
+        final Node node = check(element).getNode();
+        return replace(element,
+                node.withChildren(Node.reuse(node.getChildren(), children)));
+    }
+
+    /**
+     * @return the element at the same place in this snapshot, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends IErlangElement> T locate(final T element) {
+        final Deque<Integer> path = new ArrayDeque<>();
+        ErlangElement e = (ErlangElement) element;
+        while (e.parent() != null) {
+            path.push(e.getIndex());
+            e = e.parent();
+        }
+        ErlangElement result = this;
+        for (final int index : path) {
+            final List<Node> children = result.getNode().getChildren();
+            if (index >= children.size()) {
+                return null;
+            }
+            result = ErlangElement.wrap(result, children.get(index), index);
+        }
+        return element.getClass().isInstance(result) ? (T) result : null;
+    }
+
+    private ErlangElement check(final IErlangElement element) {
+        final ErlangElement e = (ErlangElement) element;
+        Preconditions.checkArgument(e.getModel() == this,
+                "%s is not part of this snapshot", element);
+        return e;
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.erlide.engine.internal.model.news;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * The current model snapshot. Readers get it without locking and keep a consistent
+ * view for as long as they need; writers replace it atomically.
+ */
+public class ErlangModelRef {
+
+    private final AtomicReference<ErlangModel> current = new AtomicReference<>(
+            ErlangModel.create(Collections.emptyList()));
+
+    public ErlangModel get() {
+        return current.get();
+    }
+
+    /**
+     * Applies a change to the current snapshot. The change may be run more than once if
+     * other changes happen concurrently, so it must not have side effects.
+     *
+     * @return the new snapshot
+     */
+    public ErlangModel update(final UnaryOperator<ErlangModel> change) {
+        return current.updateAndGet(change);
+    }
+
+}
@@ -0,0 +1,11 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.model.news.IErlangModule;
+
+public class ErlangModule extends ErlangSource implements IErlangModule {
+
+    ErlangModule(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+}
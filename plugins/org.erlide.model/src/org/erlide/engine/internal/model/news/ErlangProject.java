@@ -0,0 +1,26 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangLibrary;
+import org.erlide.engine.model.news.IErlangProject;
+
+/**
+ * A project, the node's value is the OTP version.
+ */
+public class ErlangProject extends ErlangApplication implements IErlangProject {
+
+    ErlangProject(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public String getOtpVersion() {
+        return getNode().getValue();
+    }
+
+    @Override
+    public IErlangLibrary getOtpLibrary() {
+        return getChild(IErlangLibrary.class, Node.OTP, Kind.LIBRARY);
+    }
+
+}
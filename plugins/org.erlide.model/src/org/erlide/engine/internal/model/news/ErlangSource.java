@@ -0,0 +1,43 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangComment;
+import org.erlide.engine.model.news.IErlangError;
+import org.erlide.engine.model.news.IErlangForm;
+import org.erlide.engine.model.news.IErlangSource;
+
+import com.google.common.io.Files;
+
+/**
+ * A source file, its children are the forms.
+ */
+public abstract class ErlangSource extends ErlangElement implements IErlangSource {
+
+    protected ErlangSource(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public String getFileExtension() {
+        return Files.getFileExtension(getName());
+    }
+
+    @Override
+    public Iterable<IErlangForm> getForms() {
+        return getChildren(IErlangForm.class, Kind.FUNCTION, Kind.ATTRIBUTE,
+                Kind.COMMENT, Kind.ERROR);
+    }
+
+    @Override
+    public IErlangComment getHeaderComment() {
+        final IErlangForm first = getFirstChild(IErlangForm.class, Kind.FUNCTION,
+                Kind.ATTRIBUTE, Kind.COMMENT, Kind.ERROR);
+        return first instanceof IErlangComment ? (IErlangComment) first : null;
+    }
+
+    @Override
+    public Iterable<IErlangError> getErrors() {
+        return getChildren(IErlangError.class, Kind.ERROR);
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.erlide.engine.internal.model.news;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangFolder;
+import org.erlide.engine.model.news.IErlangSource;
+import org.erlide.engine.model.news.IErlangSourceFolder;
+import org.erlide.engine.model.news.IErlangUnit;
+
+/**
+ * A source, include or test folder. Sub-folders have the same kind as their parent.
+ */
+public class ErlangSourceFolder extends ErlangElement implements IErlangSourceFolder {
+
+    ErlangSourceFolder(final ErlangElement parent, final Node node, final int index) {
+        super(parent, node, index);
+    }
+
+    @Override
+    public Iterable<? extends IErlangUnit> getUnits() {
+        return getSources();
+    }
+
+    @Override
+    public IErlangUnit getUnit(final String name) {
+        return getSource(name);
+    }
+
+    @Override
+    public Iterable<? extends IErlangFolder> getFolders() {
+        return getChildren(IErlangFolder.class, getNode().getKind());
+    }
+
+    @Override
+    public IErlangFolder getFolder(final String name) {
+        return getChild(IErlangFolder.class, name, getNode().getKind());
+    }
+
+    @Override
+    public Iterable<? extends IErlangSource> getSources() {
+        return getChildren(IErlangSource.class, Kind.MODULE, Kind.HEADER);
+    }
+
+    @Override
+    public IErlangSource getSource(final String name) {
+        return getChild(IErlangSource.class, name, Kind.MODULE, Kind.HEADER);
+    }
+
+}
@@ -0,0 +1,272 @@
+package org.erlide.engine.internal.model.news;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * The immutable data of a model element. Nodes don't know their parent, so a node can be
+ * shared by several versions of the model; the elements seen by clients wrap them and
+ * add the parent (see {@link ErlangModel}).
+ * <p>
+ * Offsets are relative to the parent node's offset, so that a form that only moved
+ * because the text above it changed differs from its previous version only by its own
+ * offset, and all its children can be reused.
+ * </p>
+ */
+public final class Node {
+
+    public enum Kind {
+        MODEL, PROJECT, APPLICATION, LIBRARY, SOURCE_FOLDER, INCLUDE_FOLDER, TEST_FOLDER,
+        EBIN_FOLDER, MODULE, HEADER, BEAM, FUNCTION, CLAUSE, ATTRIBUTE, COMMENT, ERROR,
+        PARAMETER, GUARD, BODY, EXPRESSION
+    }
+
+    // names of the children that every project and application has
+    static final String EBIN = "ebin";
+    static final String DEPENDENCIES = "dependencies";
+    static final String OTP = "otp";
+
+    private final Kind kind;
+    // the element's id: project, folder or file name, function name, attribute tag
+    private final String name;
+    // expression or comment text, error message, project OTP version, application
+    // version (of the ebin folder)
+    private final String value;
+    // function arity, comment level
+    private final int arity;
+    private final int offset;
+    private final int length;
+    // relative to offset
+    private final int idOffset;
+    private final int idLength;
+    private final ImmutableList<Node> children;
+    // ignores offset, which is the only thing that changes when a form moves
+    private final int shapeHash;
+
+    private Node(final Kind kind, final String name, final String value, final int arity,
+            final int offset, final int length, final int idOffset, final int idLength,
+            final ImmutableList<Node> children) {
+        this.kind = Preconditions.checkNotNull(kind);
+        this.name = name == null ? "" : name;
+        this.value = value == null ? "" : value;
+        this.arity = arity;
+        this.offset = offset;
+        this.length = length;
+        this.idOffset = idOffset;
+        this.idLength = idLength;
+        this.children = children;
+        shapeHash = Objects.hash(kind, this.name, this.value, arity, length, idOffset,
+                idLength, children);
+    }
+
+    public static Node container(final Kind kind, final String name, final String value,
+            final List<Node> children) {
+        Preconditions.checkArgument(kind != Kind.PROJECT && kind != Kind.APPLICATION,
+                "use Node.project or Node.application");
+        return new Node(kind, name, value, 0, 0, 0, 0, 0, ImmutableList.copyOf(children));
+    }
+
+    /**
+     * A project: its folders, followed by its binary folder and its libraries, which are
+     * always there (if only empty).
+     *
+     * @param appVersion
+     *            the version in the project's .app file, null if there is none
+     * @param beams
+     *            the beams in the binary folder
+     * @param dependencies
+     *            the applications that the project depends on
+     * @param otpApplications
+     *            the applications of the project's runtime
+     */
+    public static Node project(final String name, final String otpVersion,
+            final String appVersion, final List<Node> folders, final List<Node> beams,
+            final List<Node> dependencies, final List<Node> otpApplications) {
+        final ImmutableList<Node> children = ImmutableList.<Node> builder()
+                .addAll(Node.applicationChildren(appVersion, folders, beams,
+                        dependencies))
+                .add(Node.container(Kind.LIBRARY, Node.OTP, otpApplications)).build();
+        return new Node(Kind.PROJECT, name, otpVersion, 0, 0, 0, 0, 0, children);
+    }
+
+    /**
+     * An application of a library, see {@link #project}.
+     */
+    public static Node application(final String name, final String appVersion,
+            final List<Node> folders, final List<Node> beams,
+            final List<Node> dependencies) {
+        return new Node(Kind.APPLICATION, name, null, 0, 0, 0, 0, 0,
+                Node.applicationChildren(appVersion, folders, beams, dependencies));
+    }
+
+    private static ImmutableList<Node> applicationChildren(final String appVersion,
+            final List<Node> folders, final List<Node> beams,
+            final List<Node> dependencies) {
+        return ImmutableList.<Node> builder().addAll(folders)
+                .add(Node.container(Kind.EBIN_FOLDER, Node.EBIN, appVersion, beams))
+                .add(Node.container(Kind.LIBRARY, Node.DEPENDENCIES, dependencies))
+                .build();
+    }
+
+    public static Node container(final Kind kind, final String name,
+            final List<Node> children) {
+        return Node.container(kind, name, null, children);
+    }
+
+    /**
+     * A source construct. The identifying range is relative to the offset and the
+     * children's offsets are relative to it too.
+     */
+    public static Node construct(final Kind kind, final String name, final String value,
+            final int arity, final int offset, final int length, final int idOffset,
+            final int idLength, final List<Node> children) {
+        return new Node(kind, name, value, arity, offset, length, idOffset, idLength,
+                ImmutableList.copyOf(children));
+    }
+
+    public static Node expression(final Kind kind, final String content, final int offset,
+            final int length) {
+        return new Node(kind, null, content, 0, offset, length, 0, length,
+                ImmutableList.of());
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getIdOffset() {
+        return idOffset;
+    }
+
+    public int getIdLength() {
+        return idLength;
+    }
+
+    public ImmutableList<Node> getChildren() {
+        return children;
+    }
+
+    public Node withChildren(final List<Node> newChildren) {
+        return new Node(kind, name, value, arity, offset, length, idOffset, idLength,
+                ImmutableList.copyOf(newChildren));
+    }
+
+    public Node withChild(final int index, final Node child) {
+        final Node[] array = children.toArray(new Node[children.size()]);
+        array[index] = child;
+        return new Node(kind, name, value, arity, offset, length, idOffset, idLength,
+                ImmutableList.copyOf(array));
+    }
+
+    public Node at(final int newOffset) {
+        if (newOffset == offset) {
+            return this;
+        }
+        return new Node(kind, name, value, arity, newOffset, length, idOffset, idLength,
+                children);
+    }
+
+    /**
+     * @return true if the nodes are equal except for their offset
+     */
+    public boolean sameShape(final Node other) {
+        if (this == other) {
+            return true;
+        }
+        return shapeHash == other.shapeHash && kind == other.kind
+                && arity == other.arity && length == other.length
+                && idOffset == other.idOffset && idLength == other.idLength
+                && name.equals(other.name) && value.equals(other.value)
+                && children.equals(other.children);
+    }
+
+    /**
+     * Replaces the parts of a new version of a node that didn't change with the old
+     * ones, so that both versions share them.
+     */
+    public static Node reuse(final Node old, final Node fresh) {
+        if (old.sameShape(fresh)) {
+            return old.at(fresh.offset);
+        }
+        if (old.kind != fresh.kind || !old.name.equals(fresh.name)) {
+            return fresh;
+        }
+        final List<Node> reused = Node.reuse(old.children, fresh.children);
+        for (int i = 0; i < reused.size(); i++) {
+            if (reused.get(i) != fresh.children.get(i)) {
+                return fresh.withChildren(reused);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Like {@link #reuse(Node, Node)}, for the children of a node. Children are paired
+     * by shape first, then by kind and name.
+     */
+    public static List<Node> reuse(final List<Node> old, final List<Node> fresh) {
+        final Map<Integer, Node> byShape = Maps.newHashMap();
+        final Map<String, Node> byName = Maps.newHashMap();
+        for (final Node n : old) {
+            byShape.putIfAbsent(n.shapeHash, n);
+            byName.putIfAbsent(n.kind + ":" + n.name, n);
+        }
+        final ImmutableList.Builder<Node> result = ImmutableList.builder();
+        for (final Node n : fresh) {
+            Node match = byShape.get(n.shapeHash);
+            if (match == null || !match.sameShape(n)) {
+                match = byName.get(n.kind + ":" + n.name);
+            }
+            result.add(match == null ? n : Node.reuse(match, n));
+        }
+        return result.build();
+    }
+
+    @Override
+    public int hashCode() {
+        return shapeHash * 31 + offset;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Node)) {
+            return false;
+        }
+        final Node other = (Node) obj;
+        return offset == other.offset && sameShape(other);
+    }
+
+    @Override
+    public String toString() {
+        return kind + "(" + name + ")@" + offset + "+" + length;
+    }
+
+}
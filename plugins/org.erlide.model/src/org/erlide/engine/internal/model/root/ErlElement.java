@@ -20,6 +20,7 @@ import org.eclipse.core.runtime.PlatformObject;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.jdt.annotation.NonNull;
 import org.erlide.engine.ErlangEngine;
+import org.erlide.engine.internal.model.SymbolTable;
 import org.erlide.engine.internal.model.cache.ErlModelCache;
 import org.erlide.engine.model.ErlElementKind;
 import org.erlide.engine.model.ErlModelException;
@@ -44,7 +45,8 @@ public abstract class ErlElement extends PlatformObject
      */
     private final IParent fParent;
 
-    private final List<IErlElement> fChildren = Lists.newArrayList();
+    // null until a child is added, most elements are leaves
+    private List<IErlElement> fChildren;
 
     /**
      * This element's name, or an empty <code>String</code> if this element does not have
@@ -68,7 +70,7 @@ public abstract class ErlElement extends PlatformObject
      */
     protected ErlElement(final IParent parent, final String name) {
         fParent = parent;
-        fName = name;
+        fName = SymbolTable.intern(name);
     }
 
     /**
@@ -379,7 +381,8 @@ public abstract class ErlElement extends PlatformObject
     }
 
     public List<IErlElement> internalGetChildren() {
-        return fChildren;
+        final List<IErlElement> children = fChildren;
+        return children == null ? Collections.emptyList() : children;
     }
 
     @Override
@@ -433,7 +436,9 @@ public abstract class ErlElement extends PlatformObject
     public void removeChild(final IErlElement child) {
         synchronized (getModelLock()) {
             clearCaches();
-            fChildren.remove(child);
+            if (fChildren != null) {
+                fChildren.remove(child);
+            }
         }
     }
 
@@ -441,6 +446,9 @@ public abstract class ErlElement extends PlatformObject
     public void addChild(final IErlElement child) {
         synchronized (getModelLock()) {
             clearCaches();
+            if (fChildren == null) {
+                fChildren = Lists.newArrayList();
+            }
             fChildren.add(child);
         }
     }
@@ -449,13 +457,18 @@ public abstract class ErlElement extends PlatformObject
     public void setChildren(final Collection<? extends IErlElement> children) {
         synchronized (getModelLock()) {
             clearCaches();
-            fChildren.clear();
-            if (children != null) {
-                fChildren.addAll(children);
-            }
+            fChildren = children == null || children.isEmpty() ? null
+                    : Lists.newArrayList(children);
         }
     }
 
+    /**
+     * Forgets the children, without clearing the caches.
+     */
+    protected void clearChildren() {
+        fChildren = null;
+    }
+
     public void setStructureKnown(final boolean newStructureKnown) {
         structureKnown = newStructureKnown;
     }
@@ -27,6 +27,7 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.erlide.engine.ErlangEngine;
+import org.erlide.engine.internal.ServiceRegistry;
 import org.erlide.engine.internal.model.SourceRange;
 import org.erlide.engine.internal.services.parsing.ErlParser;
 import org.erlide.engine.internal.util.ModelConfig;
@@ -114,7 +115,8 @@ public class ErlModule extends Openable implements IErlModule {
         setChildren(null);
         final String text = getInitialText();
         if (text != null) {
-            final ErlParser parser = new ErlParser(OtpRpcFactory.getOtpRpc());
+            final ErlParser parser = ServiceRegistry.getDefault()
+                    .get(OtpRpcFactory.getOtpRpc(), ErlParser.class, ErlParser::new);
             parsed = parser.parse(this, scannerName, !parsed, getFilePath(), text, true);
             return parsed;
         }
@@ -601,6 +603,9 @@ public class ErlModule extends Openable implements IErlModule {
             // different anonymous modules get the same scanner name (which
             // causes problems in erlang compare)
             hash = initialText.hashCode();
+        } else if (path != null) {
+            // the same on every machine, so that prebuilt parser caches can be used
+            hash = ErlModule.getLibraryRelativePath(path).hashCode();
         } else {
             hash = hashCode();
         }
@@ -611,6 +616,19 @@ public class ErlModule extends Openable implements IErlModule {
         return String.format("%s_%08x", name, hash);
     }
 
+    /**
+     * @return the path below the library that contains the file, like
+     *         <code>stdlib-3.4/src/lists.erl</code>, whatever the library's location
+     */
+    static String getLibraryRelativePath(final String filePath) {
+        final String portable = filePath.replace('\\', '/');
+        int start = portable.length();
+        for (int i = 0; i < 3 && start > 0; i++) {
+            start = portable.lastIndexOf('/', start - 1);
+        }
+        return portable.substring(start + 1);
+    }
+
     @Override
     public String getScannerName() {
         return scannerName;
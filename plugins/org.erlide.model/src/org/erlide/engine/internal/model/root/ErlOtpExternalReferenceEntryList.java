@@ -7,12 +7,14 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.erlide.engine.ErlangEngine;
+import org.erlide.engine.internal.model.cache.OtpLibraryIndex;
 import org.erlide.engine.model.ErlElementKind;
 import org.erlide.engine.model.ErlModelException;
 import org.erlide.engine.model.IErlElement;
 import org.erlide.engine.model.IParent;
 import org.erlide.engine.model.OtpRpcFactory;
 import org.erlide.engine.model.root.IErlExternalRoot;
+import org.erlide.engine.model.root.IErlModel;
 import org.erlide.engine.model.root.IErlModule;
 import org.erlide.engine.model.root.IErlProject;
 import org.erlide.runtime.rpc.IOtpRpc;
@@ -42,15 +44,29 @@ public class ErlOtpExternalReferenceEntryList extends Openable
                 .getProject(this);
         final IOtpRpc backend = OtpRpcFactory.getOtpRpcForProject(erlProject);
         if (backend != null) {
-            addExternalEntries(pm, backend);
+            return addExternalEntries(pm, erlProject, backend);
         }
         return true;
     }
 
-    private void addExternalEntries(final IProgressMonitor pm, final IOtpRpc backend) {
-        final OtpErlangList structure = ErlangEngine.getInstance().getOpenService()
-                .getOtpLibStructure(backend);
+    /**
+     * @return false if the structure is being fetched, we're built again when it's
+     *         there
+     */
+    private boolean addExternalEntries(final IProgressMonitor pm,
+            final IErlProject erlProject, final IOtpRpc backend) {
+        final OtpErlangList structure = OtpLibraryIndex.getDefault().getOtpLibStructure(
+                erlProject.getRuntimeInfo(), backend, () -> {
+                    final IErlModel model = ErlangEngine.getInstance().getModel();
+                    if (model != null) {
+                        model.notifyChange(this);
+                    }
+                });
+        if (structure == null) {
+            return false;
+        }
         mkOtpStructureMap(structure);
+        return true;
     }
 
     @Override
@@ -214,7 +214,7 @@ public abstract class Openable extends ErlElement implements IOpenable {
                 }
             }
         }
-        internalGetChildren().clear();
+        clearChildren();
         setStructureKnown(false);
     }
 }
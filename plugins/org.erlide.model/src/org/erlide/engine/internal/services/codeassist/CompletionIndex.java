@@ -0,0 +1,216 @@
+package org.erlide.engine.internal.services.codeassist;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.erlide.engine.ErlangEngine;
+import org.erlide.engine.internal.ServiceRegistry;
+import org.erlide.engine.services.search.OtpDocService;
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.util.ErlLogger;
+
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangRangeException;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps what a backend knows about OTP modules (exported functions with their docs and
+ * the module names), so that content assist doesn't ask for the same data on every
+ * invocation. This data only depends on the runtime, so each module is fetched once per
+ * backend (with an empty prefix) and then filtered locally. Lookups by prefix are done
+ * on sorted maps.
+ * <p>
+ * Only the modules that the backend lists as its own (OTP) modules are kept; the
+ * functions of other modules can change while the IDE runs, so they are always asked
+ * for. The project side is kept by {@link ProjectCompletionIndex}.
+ */
+public class CompletionIndex {
+
+    public static final String AUTO_IMPORTED = "<auto_imported>";
+
+    /** module name -> function name/arity -> proposal tuple */
+    private final Map<String, NavigableMap<String, OtpErlangTuple>> proposals = Maps
+            .newConcurrentMap();
+    private volatile NavigableSet<String> otpModules;
+    private final AtomicBoolean prefetched = new AtomicBoolean();
+    private final OtpDocService docService;
+
+    CompletionIndex(final OtpDocService docService) {
+        this.docService = docService;
+    }
+
+    public static CompletionIndex get(final IOtpRpc backend) {
+        return ServiceRegistry.getDefault().get(backend, CompletionIndex.class,
+                b -> new CompletionIndex(ErlangEngine.getInstance().getOtpDocService()));
+    }
+
+    /**
+     * Starts fetching the data that most completions need, so that the first content
+     * assist doesn't have to wait for it. Only done once per index.
+     */
+    public void prefetch(final IOtpRpc backend) {
+        if (!prefetched.compareAndSet(false, true)) {
+            return;
+        }
+        final Job job = new Job("Fetch completion data") {
+            @Override
+            protected IStatus run(final IProgressMonitor monitor) {
+                getModules(backend, "", Lists.newArrayList());
+                getProposalsWithDoc(backend, CompletionIndex.AUTO_IMPORTED, "");
+                return Status.OK_STATUS;
+            }
+        };
+        job.setPriority(Job.DECORATE);
+        job.setSystem(true);
+        job.schedule();
+    }
+
+    /**
+     * Same result as {@link OtpDocService#getProposalsWithDoc(IOtpRpc, String, String)}
+     * (i.e. a list of
+     * <code>{FunWithArity, FunWithParameters, [{Offset, Length}], Doc}</code>), but
+     * served from the index for OTP modules.
+     */
+    public OtpErlangObject getProposalsWithDoc(final IOtpRpc backend, final String module,
+            final String prefix) {
+        if (!isIndexed(backend, module)) {
+            return docService.getProposalsWithDoc(backend, module, prefix);
+        }
+        NavigableMap<String, OtpErlangTuple> all = proposals.get(module);
+        if (all == null) {
+            all = fetchProposals(backend, module);
+            if (all == null) {
+                return null;
+            }
+            proposals.put(module, all);
+        }
+        final SortedMap<String, OtpErlangTuple> matching = prefixMap(all, prefix);
+        final OtpErlangObject[] result = new OtpErlangObject[matching.size()];
+        int i = 0;
+        for (final OtpErlangTuple t : matching.values()) {
+            result[i++] = prefix.isEmpty() ? t : shiftOffsets(t, prefix.length());
+        }
+        return new OtpErlangList(result);
+    }
+
+    /**
+     * @return the sorted names of the given project modules and of the OTP modules that
+     *         start with the prefix
+     */
+    public List<String> getModules(final IOtpRpc backend, final String prefix,
+            final Collection<String> projectModules) {
+        final NavigableSet<String> otp = getOtpModules(backend);
+        if (otp == null) {
+            return null;
+        }
+        final SortedSet<String> result = new TreeSet<>(projectModules);
+        result.addAll(prefix.isEmpty() ? otp
+                : otp.subSet(prefix, true, prefix + Character.MAX_VALUE, false));
+        return Lists.newArrayList(result);
+    }
+
+    private boolean isIndexed(final IOtpRpc backend, final String module) {
+        if (CompletionIndex.AUTO_IMPORTED.equals(module)) {
+            return true;
+        }
+        final NavigableSet<String> otp = getOtpModules(backend);
+        return otp != null && otp.contains(module);
+    }
+
+    private NavigableSet<String> getOtpModules(final IOtpRpc backend) {
+        NavigableSet<String> otp = otpModules;
+        if (otp == null) {
+            otp = fetchModules(backend);
+            otpModules = otp;
+        }
+        return otp;
+    }
+
+    public void clear() {
+        proposals.clear();
+        otpModules = null;
+    }
+
+    private static <V> SortedMap<String, V> prefixMap(final NavigableMap<String, V> map,
+            final String prefix) {
+        if (prefix.isEmpty()) {
+            return map;
+        }
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private NavigableMap<String, OtpErlangTuple> fetchProposals(final IOtpRpc backend,
+            final String module) {
+        final OtpErlangObject res = docService.getProposalsWithDoc(backend, module, "");
+        if (!(res instanceof OtpErlangList)) {
+            return null;
+        }
+        final NavigableMap<String, OtpErlangTuple> result = new TreeMap<>();
+        for (final OtpErlangObject o : (OtpErlangList) res) {
+            if (o instanceof OtpErlangTuple) {
+                final OtpErlangTuple t = (OtpErlangTuple) o;
+                result.put(((OtpErlangString) t.elementAt(0)).stringValue(), t);
+            }
+        }
+        return result;
+    }
+
+    private NavigableSet<String> fetchModules(final IOtpRpc backend) {
+        final OtpErlangObject res = docService.getModules(backend, "",
+                Lists.newArrayList(), false);
+        if (!(res instanceof OtpErlangList)) {
+            return null;
+        }
+        final NavigableSet<String> result = new TreeSet<>();
+        for (final OtpErlangObject o : (OtpErlangList) res) {
+            if (o instanceof OtpErlangString) {
+                result.add(((OtpErlangString) o).stringValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The parameter offsets are relative to the end of the prefix, the cached ones were
+     * fetched for an empty prefix.
+     */
+    private static OtpErlangTuple shiftOffsets(final OtpErlangTuple t, final int delta) {
+        if (t.arity() < 3 || !(t.elementAt(2) instanceof OtpErlangList)) {
+            return t;
+        }
+        final OtpErlangList offsets = (OtpErlangList) t.elementAt(2);
+        final OtpErlangObject[] shifted = new OtpErlangObject[offsets.arity()];
+        try {
+            for (int i = 0; i < shifted.length; i++) {
+                final OtpErlangTuple ol = (OtpErlangTuple) offsets.elementAt(i);
+                final long offset = ((OtpErlangLong) ol.elementAt(0)).intValue();
+                shifted[i] = new OtpErlangTuple(new OtpErlangObject[] {
+                        new OtpErlangLong(offset - delta), ol.elementAt(1) });
+            }
+        } catch (final OtpErlangRangeException e) {
+            ErlLogger.warn(e);
+            return t;
+        }
+        final OtpErlangObject[] elements = t.elements();
+        elements[2] = new OtpErlangList(shifted);
+        return new OtpErlangTuple(elements);
+    }
+
+}
@@ -18,8 +18,6 @@ import org.erlide.engine.model.erlang.IErlFunction;
 import org.erlide.engine.model.erlang.IErlFunctionClause;
 import org.erlide.engine.model.erlang.IErlImport;
 import org.erlide.engine.model.erlang.IErlPreprocessorDef;
-import org.erlide.engine.model.erlang.IErlRecordDef;
-import org.erlide.engine.model.erlang.IErlRecordField;
 import org.erlide.engine.model.root.IErlElementLocator;
 import org.erlide.engine.model.root.IErlModule;
 import org.erlide.engine.model.root.IErlProject;
@@ -50,11 +48,16 @@ public class ErlangCompletionService implements CompletionService {
     private IErlModule module;
     private String elementBefore;
     private final ErlideContextAssist contextAssistService;
+    private final CompletionIndex index;
+    private final ProjectCompletionIndex projectIndex;
 
     private static final List<CompletionData> EMPTY_COMPLETIONS = new ArrayList<>();
 
     public ErlangCompletionService(final IOtpRpc backend) {
         contextAssistService = new ErlideContextAssist(backend);
+        index = CompletionIndex.get(backend);
+        index.prefetch(backend);
+        projectIndex = ProjectCompletionIndex.getDefault();
     }
 
     @Override
@@ -212,9 +215,16 @@ public class ErlangCompletionService implements CompletionService {
         final List<String> result = Lists.newArrayList();
         final boolean includes = kind == CompletionFlag.INCLUDES
                 || kind == CompletionFlag.INCLUDE_LIBS;
-        final List<String> names = ErlangEngine.getInstance().getModelUtilService()
-                .findUnitsWithPrefix(prefix, project, kind != CompletionFlag.INCLUDES,
-                        includes);
+        final List<String> names = includes
+                ? ErlangEngine.getInstance().getModelUtilService().findUnitsWithPrefix(
+                        prefix, project, kind != CompletionFlag.INCLUDES, includes)
+                : projectIndex.getModules(project, prefix);
+        if (!includes) {
+            final List<String> modules = index.getModules(backend, prefix, names);
+            if (modules != null) {
+                return modules;
+            }
+        }
         final OtpErlangObject res = ErlangEngine.getInstance().getOtpDocService()
                 .getModules(backend, prefix, names, includes);
         if (res instanceof OtpErlangList) {
@@ -256,14 +266,11 @@ public class ErlangCompletionService implements CompletionService {
             final boolean unexportedOnly, final boolean arityOnly)
             throws ErlModelException {
         final List<CompletionData> result = new ArrayList<>();
-        for (final IErlElement e : module.getChildren()) {
-            if (e instanceof IErlFunction) {
-                final IErlFunction f = (IErlFunction) e;
-                if (unexportedOnly && f.isExported()) {
-                    continue;
-                }
-                addFunctionCompletion(offset, prefix, result, f, arityOnly);
+        for (final IErlFunction f : projectIndex.getFunctions(module, prefix)) {
+            if (unexportedOnly && f.isExported()) {
+                continue;
             }
+            addFunctionCompletion(offset, prefix, result, f, arityOnly);
         }
         return result;
     }
@@ -287,10 +294,8 @@ public class ErlangCompletionService implements CompletionService {
         }
         final List<CompletionData> result = new ArrayList<>();
         try {
-            final List<IErlPreprocessorDef> defs = ErlangCompletionService
-                    .getAllPreprocessorDefs(module, kind);
-            for (final IErlPreprocessorDef pd : defs) {
-                final String name = pd.getDefinedName();
+            for (final String name : projectIndex.getPreprocessorDefs(module, kind,
+                    prefix)) {
                 addIfMatches(name, prefix, offset, result);
             }
         } catch (final CoreException e) {
@@ -332,8 +337,8 @@ public class ErlangCompletionService implements CompletionService {
         // FIXME or IErlElementLocator.Scope.REFERENCED_PROJECTS
         if (theModule != null) {
             if (ErlangEngine.getInstance().getModelUtilService().isOtpModule(theModule)) {
-                final OtpErlangObject res = ErlangEngine.getInstance().getOtpDocService()
-                        .getProposalsWithDoc(b, moduleName, prefix);
+                final OtpErlangObject res = index.getProposalsWithDoc(b, moduleName,
+                        prefix);
                 addFunctionProposalsWithDoc(offset, prefix, result, res, null, arityOnly);
             } else {
                 addFunctionsFromModule(offset, prefix, arityOnly, result, theModule);
@@ -348,28 +353,22 @@ public class ErlangCompletionService implements CompletionService {
         if (module == null) {
             return ErlangCompletionService.EMPTY_COMPLETIONS;
         }
-        IErlPreprocessorDef pd;
+        final List<String> fields;
         try {
-            pd = ErlangEngine.getInstance().getModelFindService()
-                    .findPreprocessorDef(module, recordName, ErlElementKind.RECORD_DEF);
+            fields = projectIndex.getRecordFields(module, recordName);
         } catch (final CoreException e) {
             return ErlangCompletionService.EMPTY_COMPLETIONS;
         }
-        if (pd instanceof IErlRecordDef) {
-            final List<CompletionData> result = new ArrayList<>();
-            try {
-                for (final IErlElement i : pd.getChildren()) {
-                    final IErlRecordField field = (IErlRecordField) i;
-                    final String fieldName = field.getFieldName();
-                    if (!fieldsSoFar.contains(fieldName)) {
-                        addIfMatches(fieldName, prefix, offset, result);
-                    }
-                }
-            } catch (final ErlModelException e) {
+        if (fields == null) {
+            return ErlangCompletionService.EMPTY_COMPLETIONS;
+        }
+        final List<CompletionData> result = new ArrayList<>();
+        for (final String fieldName : fields) {
+            if (!fieldsSoFar.contains(fieldName)) {
+                addIfMatches(fieldName, prefix, offset, result);
             }
-            return result;
         }
-        return ErlangCompletionService.EMPTY_COMPLETIONS;
+        return result;
     }
 
     List<CompletionData> addCompletions(final IOtpRpc backend,
@@ -651,8 +650,8 @@ public class ErlangCompletionService implements CompletionService {
 
     List<CompletionData> getAutoImportedFunctions(final IOtpRpc backend, final int offset,
             final String prefix) {
-        final OtpErlangObject res = ErlangEngine.getInstance().getOtpDocService()
-                .getProposalsWithDoc(backend, "<auto_imported>", prefix);
+        final OtpErlangObject res = index.getProposalsWithDoc(backend,
+                CompletionIndex.AUTO_IMPORTED, prefix);
         final List<CompletionData> result = new ArrayList<>();
         addFunctionProposalsWithDoc(offset, prefix, result, res, null, false);
         return result;
@@ -662,8 +661,8 @@ public class ErlangCompletionService implements CompletionService {
             final String prefix) {
         final List<CompletionData> result = new ArrayList<>();
         for (final IErlImport imp : module.getImports()) {
-            final OtpErlangObject res = ErlangEngine.getInstance().getOtpDocService()
-                    .getProposalsWithDoc(backend, imp.getImportModule(), prefix);
+            final OtpErlangObject res = index.getProposalsWithDoc(backend,
+                    imp.getImportModule(), prefix);
             addFunctionProposalsWithDoc(offset, prefix, result, res, imp, false);
         }
         return result;
@@ -675,13 +674,10 @@ public class ErlangCompletionService implements CompletionService {
         boolean result = false;
         try {
             m.open(null);
-            for (final IErlElement e : m.getChildren()) {
-                if (e instanceof IErlFunction) {
-                    final IErlFunction f = (IErlFunction) e;
-                    if (f.isExported()) {
-                        addFunctionCompletion(offset, prefix, proposals, f, arityOnly);
-                        result = true;
-                    }
+            for (final IErlFunction f : projectIndex.getFunctions(m, prefix)) {
+                if (f.isExported()) {
+                    addFunctionCompletion(offset, prefix, proposals, f, arityOnly);
+                    result = true;
                 }
             }
         } catch (final ErlModelException e) {
@@ -0,0 +1,326 @@
+package org.erlide.engine.internal.services.codeassist;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+import org.erlide.engine.ErlangEngine;
+import org.erlide.engine.IErlangEngine;
+import org.erlide.engine.model.ErlElementKind;
+import org.erlide.engine.model.ErlModelException;
+import org.erlide.engine.model.IErlElement;
+import org.erlide.engine.model.erlang.IErlFunction;
+import org.erlide.engine.model.erlang.IErlPreprocessorDef;
+import org.erlide.engine.model.erlang.IErlRecordDef;
+import org.erlide.engine.model.erlang.IErlRecordField;
+import org.erlide.engine.model.root.IErlModelChangeListener;
+import org.erlide.engine.model.root.IErlModule;
+import org.erlide.engine.model.root.IErlProject;
+import org.erlide.engine.services.search.ModelFindService;
+import org.erlide.engine.services.search.ModelUtilService;
+import org.erlide.util.StringUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * The project side of content assist: the module names that each project sees, and the
+ * functions, macros, records and record fields of each module. The definitions that a
+ * module sees through its include files are merged once, so that completing a macro
+ * doesn't walk hundreds of includes. Like {@link CompletionIndex}, lookups by prefix
+ * are done on sorted maps.
+ * <p>
+ * Nothing is fetched before content assist asks for it. The data of a module is dropped
+ * when the model reports that the module, or a file it includes, was rebuilt; the
+ * module names are dropped when a project's modules or external modules change.
+ */
+public class ProjectCompletionIndex implements IErlModelChangeListener {
+
+    private static final int CACHE_SIZE = 500;
+    private static final int CACHE_TIME_MINUTES = 15;
+
+    private static volatile ProjectCompletionIndex instance;
+
+    private final ModelFindService findService;
+    private final ModelUtilService utilService;
+
+    /** project -> module name -> the name as an atom */
+    private final Map<IErlProject, NavigableMap<String, String>> modules = Maps
+            .newConcurrentMap();
+    /** what is defined in each module or include file */
+    private final Cache<IErlModule, Definitions> own = ProjectCompletionIndex
+            .newCache();
+    /** what is defined in each module and the files it includes */
+    private final Cache<IErlModule, Visible> visible = ProjectCompletionIndex.newCache();
+    /** changed on every model change, data built before it is not stored */
+    private long generation;
+
+    ProjectCompletionIndex(final ModelFindService findService,
+            final ModelUtilService utilService) {
+        this.findService = findService;
+        this.utilService = utilService;
+    }
+
+    public static ProjectCompletionIndex getDefault() {
+        if (ProjectCompletionIndex.instance == null) {
+            synchronized (ProjectCompletionIndex.class) {
+                if (ProjectCompletionIndex.instance == null) {
+                    final IErlangEngine engine = ErlangEngine.getInstance();
+                    final ProjectCompletionIndex index = new ProjectCompletionIndex(
+                            engine.getModelFindService(), engine.getModelUtilService());
+                    engine.getModel().addModelChangeListener(index);
+                    ProjectCompletionIndex.instance = index;
+                }
+            }
+        }
+        return ProjectCompletionIndex.instance;
+    }
+
+    private static <K, V> Cache<K, V> newCache() {
+        return CacheBuilder.newBuilder().maximumSize(ProjectCompletionIndex.CACHE_SIZE)
+                .expireAfterAccess(ProjectCompletionIndex.CACHE_TIME_MINUTES,
+                        TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * @return the sorted names (as atoms) of the modules of the project, of the projects
+     *         it references and of its external modules, that start with the prefix
+     */
+    public List<String> getModules(final IErlProject project, final String prefix)
+            throws ErlModelException {
+        NavigableMap<String, String> names = modules.get(project);
+        if (names == null) {
+            final long g = getGeneration();
+            names = new TreeMap<>();
+            for (final String name : utilService.findUnitsWithPrefix("", project, true,
+                    false)) {
+                names.put(StringUtils.unquote(name), name);
+            }
+            synchronized (this) {
+                if (g == generation) {
+                    modules.put(project, names);
+                }
+            }
+        }
+        final Set<String> result = Sets.newTreeSet(
+                ProjectCompletionIndex.prefixMap(names, prefix).values());
+        if (prefix.startsWith("'")) {
+            result.addAll(ProjectCompletionIndex.prefixMap(names, prefix.substring(1))
+                    .values());
+        }
+        return Lists.newArrayList(result);
+    }
+
+    /**
+     * @return the functions of the module whose name starts with the prefix, sorted by
+     *         name
+     */
+    public List<IErlFunction> getFunctions(final IErlModule module, final String prefix)
+            throws ErlModelException {
+        final List<IErlFunction> result = Lists.newArrayList();
+        for (final List<IErlFunction> fs : ProjectCompletionIndex
+                .prefixMap(getDefinitions(module).functions, prefix).values()) {
+            result.addAll(fs);
+        }
+        return result;
+    }
+
+    /**
+     * @return the sorted names of the macros or records that the module and its include
+     *         files define, that start with the prefix (ignoring case)
+     */
+    public List<String> getPreprocessorDefs(final IErlModule module,
+            final ErlElementKind kind, final String prefix) throws CoreException {
+        final Visible v = getVisible(module);
+        final NavigableMap<String, Set<String>> defs = kind == ErlElementKind.MACRO_DEF
+                ? v.macros
+                : v.records;
+        final List<String> result = Lists.newArrayList();
+        for (final Set<String> names : ProjectCompletionIndex.prefixMap(defs, prefix)
+                .values()) {
+            result.addAll(names);
+        }
+        return result;
+    }
+
+    /**
+     * @return the fields of the record, as defined in the module or its include files,
+     *         or null if it isn't defined there
+     */
+    public List<String> getRecordFields(final IErlModule module, final String record)
+            throws CoreException {
+        final Map<String, List<String>> fields = getVisible(module).fields;
+        String unquoted = StringUtils.unquote(record);
+        final Set<String> names = Sets.newLinkedHashSet();
+        while (names.add(unquoted)) {
+            unquoted = findService.resolveMacroValue(unquoted, module);
+        }
+        names.add(StringUtils.quote(record));
+        names.add(record);
+        for (final String name : names) {
+            final List<String> result = fields.get(name);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void elementChanged(final IErlElement element) {
+        generation++;
+        if (!(element instanceof IErlModule)) {
+            // projects and external modules
+            modules.clear();
+            return;
+        }
+        final IErlModule module = (IErlModule) element;
+        own.invalidate(module);
+        for (final Map.Entry<IErlModule, Visible> e : visible.asMap().entrySet()) {
+            if (e.getValue().files.contains(module)) {
+                visible.invalidate(e.getKey());
+            }
+        }
+        final IErlProject project = utilService.getProject(module);
+        final NavigableMap<String, String> names = project == null ? null
+                : modules.get(project);
+        if (names != null && !module.getName().endsWith(".hrl")
+                && !names.containsKey(module.getModuleName())) {
+            // a new module, other projects may reference it
+            modules.clear();
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        modules.clear();
+        own.invalidateAll();
+        visible.invalidateAll();
+    }
+
+    private synchronized long getGeneration() {
+        return generation;
+    }
+
+    private Definitions getDefinitions(final IErlModule module)
+            throws ErlModelException {
+        Definitions result = own.getIfPresent(module);
+        if (result == null) {
+            final long g = getGeneration();
+            result = new Definitions(module);
+            synchronized (this) {
+                if (g == generation) {
+                    own.put(module, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Visible getVisible(final IErlModule module) throws CoreException {
+        Visible result = visible.getIfPresent(module);
+        if (result == null) {
+            final long g = getGeneration();
+            final List<IErlModule> files = Lists.newArrayList(module);
+            for (final IErlModule include : findService.findAllIncludedFiles(module)) {
+                include.open(null);
+                files.add(include);
+            }
+            result = new Visible(files);
+            for (final IErlModule file : files) {
+                result.add(getDefinitions(file));
+            }
+            synchronized (this) {
+                if (g == generation) {
+                    visible.put(module, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <V> NavigableMap<String, V> prefixMap(
+            final NavigableMap<String, V> map, final String prefix) {
+        if (prefix.isEmpty()) {
+            return map;
+        }
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static final class Definitions {
+        /** function name -> functions with that name, in source order */
+        final NavigableMap<String, List<IErlFunction>> functions = new TreeMap<>();
+        final List<String> macros = Lists.newArrayList();
+        /** record name -> field names */
+        final Map<String, List<String>> records = Maps.newLinkedHashMap();
+
+        Definitions(final IErlModule module) throws ErlModelException {
+            for (final IErlElement e : module.getChildren()) {
+                if (e instanceof IErlFunction) {
+                    final IErlFunction f = (IErlFunction) e;
+                    functions.computeIfAbsent(f.getFunction().name,
+                            n -> Lists.newArrayList()).add(f);
+                } else if (e instanceof IErlPreprocessorDef) {
+                    final IErlPreprocessorDef pd = (IErlPreprocessorDef) e;
+                    if (pd.getKind() == ErlElementKind.MACRO_DEF) {
+                        macros.add(pd.getDefinedName());
+                    } else if (pd.getKind() == ErlElementKind.RECORD_DEF) {
+                        records.putIfAbsent(pd.getDefinedName(),
+                                Definitions.getFields(pd));
+                    }
+                }
+            }
+        }
+
+        private static List<String> getFields(final IErlPreprocessorDef pd)
+                throws ErlModelException {
+            final List<String> result = Lists.newArrayList();
+            if (pd instanceof IErlRecordDef) {
+                for (final IErlElement i : pd.getChildren()) {
+                    result.add(((IErlRecordField) i).getFieldName());
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Visible {
+        final Collection<IErlModule> files;
+        /** macro name -> its spellings, keys ignore case */
+        final NavigableMap<String, Set<String>> macros = new TreeMap<>(
+                String.CASE_INSENSITIVE_ORDER);
+        /** record name -> its spellings, keys ignore case */
+        final NavigableMap<String, Set<String>> records = new TreeMap<>(
+                String.CASE_INSENSITIVE_ORDER);
+        /** record name -> field names, from the first file that defines it */
+        final Map<String, List<String>> fields = Maps.newHashMap();
+
+        Visible(final List<IErlModule> files) {
+            this.files = Sets.newHashSet(files);
+        }
+
+        void add(final Definitions defs) {
+            for (final String name : defs.macros) {
+                Visible.add(macros, name);
+            }
+            for (final Map.Entry<String, List<String>> e : defs.records.entrySet()) {
+                Visible.add(records, e.getKey());
+                fields.putIfAbsent(e.getKey(), e.getValue());
+            }
+        }
+
+        private static void add(final Map<String, Set<String>> map, final String name) {
+            map.computeIfAbsent(name, n -> Sets.newTreeSet()).add(name);
+        }
+    }
+
+}
@@ -81,7 +81,8 @@ public final class ErlParser {
     private final IOtpRpc backend;
 
     public ErlParser(final IOtpRpc backend) {
-        // XXX XXX don't keep ref to otprpc!
+        // the parser is shared through the ServiceRegistry, that releases this
+        // reference to the backend when it goes down
         this.backend = backend;
         helper = new RuntimeHelper(backend);
     }
@@ -119,7 +120,8 @@ public final class ErlParser {
         if (comments == null) {
             module.setComments(null);
         } else {
-            final List<IErlComment> moduleComments = createComments(module, comments);
+            final List<IErlComment> moduleComments = createComments(module, comments,
+                    initialText);
             module.setComments(moduleComments);
         }
         attachFunctionComments(module);
@@ -140,11 +142,11 @@ public final class ErlParser {
     }
 
     private List<IErlComment> createComments(final IErlModule module,
-            final OtpErlangList comments) {
+            final OtpErlangList comments, final String text) {
         final List<IErlComment> moduleComments = Lists
                 .newArrayListWithCapacity(comments.arity());
         for (final OtpErlangObject comment : comments) {
-            final IErlComment c = createComment(module, (OtpErlangTuple) comment);
+            final IErlComment c = createComment(module, (OtpErlangTuple) comment, text);
             if (c != null) {
                 moduleComments.add(c);
             }
@@ -257,11 +259,14 @@ public final class ErlParser {
      *            module containing comment
      * @param OtpErlangTuple
      *            token record from noparse
+     * @param text
+     *            the parsed source, if known
      * @return IErlComment
      */
-    private IErlComment createComment(final IErlModule module, final OtpErlangTuple c) {
+    private IErlComment createComment(final IErlModule module, final OtpErlangTuple c,
+            final String text) {
         final OtpErlangLong lineL = (OtpErlangLong) c.elementAt(ErlParser.LINE);
-        final OtpErlangObject s = c.elementAt(ErlParser.TEXT);
+        final String s = Util.stringValue(c.elementAt(ErlParser.TEXT));
 
         int line;
         int lastLine;
@@ -280,16 +285,35 @@ public final class ErlParser {
         } catch (final OtpErlangRangeException e1) {
             lastLine = line;
         }
-        final ErlComment comment = new ErlComment(module, Util.stringValue(s),
-                line <= ErlParser.MODULE_HEADER_COMMENT_THRESHOLD);
+        final boolean header = line <= ErlParser.MODULE_HEADER_COMMENT_THRESHOLD;
         try {
             final int ofs = ((OtpErlangLong) c.elementAt(ErlParser.OFFSET)).intValue();
             final int len = ((OtpErlangLong) c.elementAt(ErlParser.LENGTH)).intValue();
+            final int at = ErlParser.findInSource(text, s, ofs);
+            // when the text is in the source we don't need a copy of it
+            final ErlComment comment = at < 0 ? new ErlComment(module, s, header)
+                    : new ErlComment(module, text, at, s.length(), header);
             setPos(comment, line, lastLine, ofs + 1, len);
+            return comment;
         } catch (final OtpErlangRangeException e) {
             return null;
         }
-        return comment;
+    }
+
+    /**
+     * @return where the token text is in the source, near the token's offset, or -1
+     */
+    private static int findInSource(final String source, final String token,
+            final int offset) {
+        if (source == null || token == null) {
+            return -1;
+        }
+        for (int at = Math.max(0, offset - 1); at <= offset + 1; at++) {
+            if (source.startsWith(token, at)) {
+                return at;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -10,6 +10,7 @@ import org.erlide.engine.services.parsing.ScannerException;
 import org.erlide.engine.services.parsing.SimpleScannerService;
 import org.erlide.runtime.rpc.IOtpRpc;
 import org.erlide.runtime.rpc.RpcException;
+import org.erlide.runtime.rpc.RpcStub;
 import org.erlide.runtime.rpc.RpcTimeoutException;
 import org.erlide.util.ErlLogger;
 import org.erlide.util.Util;
@@ -23,6 +24,8 @@ public class ErlideScanner implements SimpleScannerService, InternalScanner {
     private static final Object ENCODING = System.getProperty("erlide.encoding.__test__",
             "latin1");
     private static final boolean USE_CACHE = true;
+    private static final RpcStub REPLACE_TEXT = new RpcStub(ErlideScanner.ERLIDE_SCANNER,
+            "replace_text", "aiis");
 
     private final IOtpRpc backend;
 
@@ -102,8 +105,8 @@ public class ErlideScanner implements SimpleScannerService, InternalScanner {
     public void replaceText(final String module, final int offset, final int removeLength,
             final String newText) {
         try {
-            final OtpErlangObject r = backend.call(ErlideScanner.ERLIDE_SCANNER,
-                    "replace_text", "aiis", module, offset, removeLength, newText);
+            final OtpErlangObject r = ErlideScanner.REPLACE_TEXT.call(backend, module,
+                    offset, removeLength, newText);
             if (r instanceof OtpErlangTuple) {
                 ErlLogger.error("replace_text %s @ %d GOT:: %s", module, offset,
                         r.toString());
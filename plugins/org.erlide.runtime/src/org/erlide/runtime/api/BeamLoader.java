@@ -2,14 +2,17 @@ package org.erlide.runtime.api;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.erlide.runtime.rpc.IOtpRpc;
 import org.erlide.util.ErlLogger;
+import org.erlide.util.Util;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangBinary;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
 public class BeamLoader {
@@ -41,11 +44,41 @@ public class BeamLoader {
         return false;
     }
 
+    /**
+     * Loads several modules with a single code:atomic_load/1 call. If that isn't
+     * possible (older runtimes, sticky modules, old code still in use), the modules are
+     * loaded one by one.
+     *
+     * @return the modules that couldn't be loaded
+     */
+    public static List<String> loadBeams(final IOtpRpc backend,
+            final Map<String, OtpErlangBinary> beams) {
+        final List<String> failed = new ArrayList<>();
+        if (beams.isEmpty()) {
+            return failed;
+        }
+        final List<OtpErlangObject> mods = new ArrayList<>(beams.size());
+        for (final Map.Entry<String, OtpErlangBinary> beam : beams.entrySet()) {
+            mods.add(new OtpErlangTuple(new OtpErlangObject[] {
+                    new OtpErlangAtom(beam.getKey()),
+                    new OtpErlangString(beam.getKey() + ".erl"), beam.getValue() }));
+        }
+        if (BeamLoader.atomicLoad(backend, mods)) {
+            return failed;
+        }
+        for (final Map.Entry<String, OtpErlangBinary> beam : beams.entrySet()) {
+            if (!BeamLoader.loadBeam(backend, beam.getKey(), beam.getValue())) {
+                failed.add(beam.getKey());
+            }
+        }
+        return failed;
+    }
+
     public static void reloadAllCode(final IOtpRpc backend) {
         try {
             final OtpErlangList loaded = (OtpErlangList) backend.call("code",
                     "all_loaded", "");
-            final List<OtpErlangAtom> mine = new ArrayList<>();
+            final List<OtpErlangObject> mine = new ArrayList<>();
             for (final OtpErlangObject elem : loaded) {
                 final OtpErlangTuple t = (OtpErlangTuple) elem;
                 final OtpErlangAtom mod = (OtpErlangAtom) t.elementAt(0);
@@ -55,7 +88,10 @@ public class BeamLoader {
                     mine.add(mod);
                 }
             }
-            for (final OtpErlangAtom mod : mine) {
+            if (BeamLoader.atomicLoad(backend, mine)) {
+                return;
+            }
+            for (final OtpErlangObject mod : mine) {
                 // ErlLogger.debug(">>> reload " + mod);
                 backend.call("c", "l", "x", mod);
             }
@@ -64,4 +100,19 @@ public class BeamLoader {
         }
     }
 
+    private static boolean atomicLoad(final IOtpRpc backend,
+            final List<OtpErlangObject> mods) {
+        try {
+            final OtpErlangObject r = backend.call("code", "atomic_load", "x",
+                    new OtpErlangList(mods.toArray(new OtpErlangObject[mods.size()])));
+            if (Util.isOk(r)) {
+                return true;
+            }
+            ErlLogger.debug("Could not load modules atomically: %s", r);
+        } catch (final Exception e) {
+            ErlLogger.debug("Could not load modules atomically: %s", e);
+        }
+        return false;
+    }
+
 }
@@ -44,4 +44,9 @@ public interface IOtpNodeProxy extends IDisposable {
 
     void addRuntimeListener(Listener listener, Executor executor);
 
+    /**
+     * @return durations of the startup phases, users of the runtime can add their own
+     */
+    StartupMetrics getStartupMetrics();
+
 }
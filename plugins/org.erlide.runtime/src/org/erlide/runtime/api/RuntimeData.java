@@ -2,6 +2,7 @@ package org.erlide.runtime.api;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,7 @@ public class RuntimeData {
     protected String extraArgs;
     protected String workingDir;
     protected Map<String, String> env;
+    protected List<String> bootCodePath;
 
     protected ErlangFunctionCall initialCall;
 
@@ -55,6 +57,7 @@ public class RuntimeData {
         extraArgs = "";
         workingDir = ".";
         env = Maps.newHashMap();
+        bootCodePath = Collections.emptyList();
         initialCall = null;
         debugFlags = ErlDebugFlags.DEFAULT_DEBUG_FLAGS;
         loadOnAllNodes = false;
@@ -170,6 +173,19 @@ public class RuntimeData {
         extraArgs = xtra;
     }
 
+    public List<String> getBootCodePath() {
+        return bootCodePath;
+    }
+
+    /**
+     * @param path
+     *            directories added to the code path when the runtime boots, so that
+     *            their modules don't have to be made available after it is up
+     */
+    public void setBootCodePath(final List<String> path) {
+        bootCodePath = path;
+    }
+
     public String getWorkingDir() {
         return workingDir;
     }
@@ -212,6 +228,15 @@ public class RuntimeData {
     }
 
     public String[] getCmdLine() {
+        return getCmdLine(Collections.<String> emptyList());
+    }
+
+    /**
+     * @param bootArgs
+     *            emulator flags added before the user's arguments, so that they are not
+     *            affected by <code>-extra</code>
+     */
+    public String[] getCmdLine(final List<String> bootArgs) {
         final RuntimeInfo r = getRuntimeInfo();
         final List<String> result = new ArrayList<>();
 
@@ -238,6 +263,10 @@ public class RuntimeData {
                 result.add(path);
             }
         }
+        for (final String path : bootCodePath) {
+            result.add("-pa");
+            result.add(path);
+        }
         if (!useStartShell()) {
             result.add("-noshell");
         }
@@ -257,6 +286,7 @@ public class RuntimeData {
                 result.add(cky);
             }
         }
+        result.addAll(bootArgs);
         final String gotArgs = r.getArgs();
         if (!Strings.isNullOrEmpty(gotArgs)) {
             result.addAll(splitQuoted(gotArgs));
@@ -264,7 +294,7 @@ public class RuntimeData {
         return result.toArray(new String[result.size()]);
     }
 
-    private boolean hasDetachedConsole() {
+    public boolean hasDetachedConsole() {
         // TODO add GUI for "detached console"
         return "true".equals(System.getProperty("erlide.backend.detached"));
     }
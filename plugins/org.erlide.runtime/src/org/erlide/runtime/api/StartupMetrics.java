@@ -0,0 +1,72 @@
+package org.erlide.runtime.api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.erlide.util.ErlLogger;
+
+/**
+ * Durations of the phases of a runtime's startup, in the order they happened. Each
+ * phase lasts from the end of the previous one (or from {@link #start()}) until it is
+ * marked as done.
+ */
+public class StartupMetrics {
+
+    private final String name;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long start;
+    private long last;
+
+    public StartupMetrics(final String name) {
+        this.name = name;
+        start();
+    }
+
+    /**
+     * Forgets previous phases, for restarts.
+     */
+    public synchronized void start() {
+        phases.clear();
+        start = System.nanoTime();
+        last = start;
+    }
+
+    /**
+     * Marks the end of a phase.
+     *
+     * @return the phase's duration in milliseconds
+     */
+    public synchronized long done(final String phase) {
+        final long now = System.nanoTime();
+        final long millis = TimeUnit.NANOSECONDS.toMillis(now - last);
+        last = now;
+        phases.put(phase, millis);
+        return millis;
+    }
+
+    /**
+     * @return phase name -> duration in milliseconds
+     */
+    public synchronized Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+    }
+
+    /**
+     * @return milliseconds since the start until the end of the last phase
+     */
+    public synchronized long getTotal() {
+        return TimeUnit.NANOSECONDS.toMillis(last - start);
+    }
+
+    public void log() {
+        ErlLogger.debug("Runtime %s started in %d ms %s", name, getTotal(), getPhases());
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + getPhases();
+    }
+
+}
@@ -3,6 +3,7 @@ package org.erlide.runtime.events;
 import org.erlide.util.ErlLogger;
 import org.erlide.util.erlang.OtpBindings;
 import org.erlide.util.erlang.OtpErlang;
+import org.erlide.util.erlang.OtpPattern;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangObject;
@@ -10,6 +11,8 @@ import com.google.common.eventbus.Subscribe;
 
 public class LogEventHandler extends ErlangEventHandler {
 
+    private static final OtpPattern LOG = OtpPattern.of("{K:a,M}");
+
     public LogEventHandler() {
         super("log");
     }
@@ -21,7 +24,7 @@ public class LogEventHandler extends ErlangEventHandler {
         }
         final OtpErlangObject data = event.getEvent();
         try {
-            final OtpBindings b = OtpErlang.match("{K:a,M}", data);
+            final OtpBindings b = LogEventHandler.LOG.match(data);
             final String kind = ((OtpErlangAtom) b.get("K")).atomValue();
             final OtpErlangObject amsg = b.get("M");
             ErlLogger.debug("%s: %s", kind, OtpErlang.asString(amsg));
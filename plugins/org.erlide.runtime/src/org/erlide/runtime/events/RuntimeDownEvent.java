@@ -0,0 +1,26 @@
+package org.erlide.runtime.events;
+
+import org.erlide.runtime.rpc.IOtpRpc;
+
+/**
+ * Posted on the {@link org.erlide.util.ErlideEventBus} when a runtime stops or
+ * crashes, so that whatever was kept for its {@link IOtpRpc} can be released.
+ */
+public class RuntimeDownEvent {
+
+    private final String nodeName;
+    private final IOtpRpc otpRpc;
+
+    public RuntimeDownEvent(final String nodeName, final IOtpRpc otpRpc) {
+        this.nodeName = nodeName;
+        this.otpRpc = otpRpc;
+    }
+
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    public IOtpRpc getOtpRpc() {
+        return otpRpc;
+    }
+}
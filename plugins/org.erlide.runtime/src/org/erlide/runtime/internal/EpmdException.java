@@ -1,11 +0,0 @@
-package org.erlide.runtime.internal;
-
-public class EpmdException extends RuntimeException {
-
-    private static final long serialVersionUID = 1L;
-
-    public EpmdException(final String msg) {
-        super(msg);
-    }
-
-}
@@ -13,7 +13,8 @@ import java.util.Collection;
 import org.erlide.util.ErlLogger;
 import org.erlide.util.erlang.OtpBindings;
 import org.erlide.util.erlang.OtpErlang;
-import org.erlide.util.erlang.OtpParserException;
+import org.erlide.util.erlang.OtpPattern;
+import org.erlide.util.erlang.OtpPatternSet;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangException;
@@ -91,112 +92,44 @@ public class IOServer implements Runnable {
     private final OtpErlangObject error = OtpErlang.mkTuple(new OtpErlangAtom("error"),
             new OtpErlangAtom("request"));
 
+    private static final OtpPattern PUT_CHARS = OtpPattern.of("{put_chars, Chars}");
+    private static final OtpPattern PUT_CHARS_ENC = OtpPattern
+            .of("{put_chars, Enc:a, Chars}");
+    private static final OtpPattern PUT_CHARS_MFA = OtpPattern
+            .of("{put_chars, M:a, F:a, A}");
+    private static final OtpPattern PUT_CHARS_ENC_MFA = OtpPattern
+            .of("{put_chars, Enc:a, M:a, F:a, A}");
+    private static final OtpPattern GET_UNTIL = OtpPattern.of("{get_until, Prompt}");
+    private static final OtpPattern GET_UNTIL_N = OtpPattern
+            .of("{get_until, Prompt, N:i}");
+    private static final OtpPattern GET_UNTIL_ENC = OtpPattern
+            .of("{get_until, Enc:a, Prompt}");
+    private static final OtpPattern GET_UNTIL_ENC_N = OtpPattern
+            .of("{get_until, Enc:a, Prompt, N:i}");
+    private static final OtpPattern GET_UNTIL_MFA = OtpPattern
+            .of("{get_until, Prompt, M:a, F:a, A}");
+    private static final OtpPattern GET_UNTIL_ENC_MFA = OtpPattern
+            .of("{get_until, Enc:a, Prompt, M:a, F:a, A}");
+    private static final OtpPattern REQUESTS = OtpPattern.of("{requests, Reqs:lx}");
+    private static final OtpPattern SETOPTS = OtpPattern.of("{setopts, Opts:lx}");
+    private static final OtpPattern GET_GEOMETRY = OtpPattern.of("{get_geometry, _}");
+
+    private static final OtpPatternSet IO_REQUESTS = new OtpPatternSet(
+            IOServer.PUT_CHARS, IOServer.PUT_CHARS_ENC, IOServer.PUT_CHARS_MFA,
+            IOServer.PUT_CHARS_ENC_MFA, IOServer.GET_UNTIL, IOServer.GET_UNTIL_N,
+            IOServer.GET_UNTIL_ENC, IOServer.GET_UNTIL_ENC_N, IOServer.GET_UNTIL_MFA,
+            IOServer.GET_UNTIL_ENC_MFA, IOServer.REQUESTS, IOServer.SETOPTS,
+            IOServer.GET_GEOMETRY);
+
     private OtpErlangObject processRequest(final OtpErlangPid from,
             final OtpErlangObject arequest) {
         if (callback == null) {
             return error;
         }
-        OtpBindings b;
         try {
             if (arequest instanceof OtpErlangTuple) {
-                final OtpErlangTuple request = (OtpErlangTuple) arequest;
-                final String tag = ((OtpErlangAtom) request.elementAt(0)).atomValue();
-                if ("put_chars".equals(tag)) {
-                    b = OtpErlang.match("{put_chars, Chars}", request);
-                    if (b != null) {
-                        return callback.putChars(from, IOEncoding.latin1, b.get("Chars"));
-                    }
-
-                    b = OtpErlang.match("{put_chars, Enc:a, Chars}", request);
-                    if (b != null) {
-                        final String enc = b.getAtom("Enc");
-                        return callback.putChars(from, IOEncoding.valueOf(enc),
-                                b.get("Chars"));
-                    }
-
-                    b = OtpErlang.match("{put_chars, M:a, F:a, A}", request);
-                    if (b != null) {
-                        final String m = b.getAtom("M");
-                        final String f = b.getAtom("F");
-                        final Collection<OtpErlangObject> a = b.getList("A");
-                        return callback.putChars(from, IOEncoding.latin1, m, f, a);
-                    }
-
-                    b = OtpErlang.match("{put_chars, Enc:a, M:a, F:a, A}", request);
-                    if (b != null) {
-                        final String enc = b.getAtom("Enc");
-                        final String m = b.getAtom("M");
-                        final String f = b.getAtom("F");
-                        final Collection<OtpErlangObject> a = b.getList("A");
-                        return callback.putChars(from, IOEncoding.valueOf(enc), m, f, a);
-                    }
-                    return error;
-                } else if ("get_until".equals(tag)) {
-                    b = OtpErlang.match("{get_until, Prompt}", request);
-                    if (b != null) {
-                        return callback.getUntil(IOEncoding.latin1, b.get("Prompt"));
-                    }
-                    b = OtpErlang.match("{get_until, Prompt, N:i}", request);
-                    if (b != null) {
-                        final long n = b.getLong("N");
-                        return callback.getUntil(IOEncoding.latin1, b.get("Prompt"), n);
-                    }
-                    b = OtpErlang.match("{get_until, Enc:a, Prompt}", request);
-                    if (b != null) {
-                        final String enc = b.getAtom("Enc");
-                        return callback.getUntil(IOEncoding.valueOf(enc),
-                                b.get("Prompt"));
-                    }
-                    b = OtpErlang.match("{get_until, Enc:a, Prompt, N:i}", request);
-                    if (b != null) {
-                        final String enc = b.getAtom("Enc");
-                        final long n = b.getLong("N");
-                        return callback.getUntil(IOEncoding.valueOf(enc), b.get("Prompt"),
-                                n);
-                    }
-                    b = OtpErlang.match("{get_until, Prompt, M:a, F:a, A}", request);
-                    if (b != null) {
-                        final String m = b.getAtom("M");
-                        final String f = b.getAtom("F");
-                        final Collection<OtpErlangObject> a = b.getList("A");
-                        return callback.getUntil(IOEncoding.latin1, b.get("Prompt"), m, f,
-                                a);
-                    }
-                    b = OtpErlang.match("{get_until, Enc: a, Prompt, M:a, F:a, A}",
-                            request);
-                    if (b != null) {
-                        final String enc = b.getAtom("Enc");
-                        final String m = b.getAtom("M");
-                        final String f = b.getAtom("F");
-                        final Collection<OtpErlangObject> a = b.getList("A");
-                        return callback.getUntil(IOEncoding.valueOf(enc), b.get("Prompt"),
-                                m, f, a);
-                    }
-                } else if ("requests".equals(tag)) {
-                    b = OtpErlang.match("{requests, Reqs:lx}", request);
-                    if (b != null) {
-                        final Collection<OtpErlangObject> reqs = b.getList("Reqs");
-                        OtpErlangObject val = null;
-                        for (final OtpErlangObject r : reqs) {
-                            val = processRequest(from, r);
-                            if (val.equals(error)) {
-                                return error;
-                            }
-                        }
-                        return val == null ? error : val;
-                    }
-                } else if ("setopts".equals(tag)) {
-                    b = OtpErlang.match("{setopts, Opts:lx}", request);
-                    if (b != null) {
-                        final Collection<OtpErlangObject> opts = b.getList("Opts");
-                        return callback.setOpts(opts);
-                    }
-                } else if ("get_geometry".equals(tag)) {
-                    return OtpErlang.mkTuple(new OtpErlangAtom("error"),
-                            new OtpErlangAtom("enotsup"));
-                } else {
-                    return error;
-                }
+                final OtpBindings b = IOServer.IO_REQUESTS.match(arequest);
+                return b == null ? error : processRequest(from, b);
             } else if (arequest instanceof OtpErlangAtom) {
                 final OtpErlangAtom tag = (OtpErlangAtom) arequest;
                 if ("getopts".equals(tag.atomValue())) {
@@ -206,11 +139,71 @@ public class IOServer implements Runnable {
             } else {
                 return error;
             }
-        } catch (final OtpParserException e) {
-            ErlLogger.error(e);
         } catch (final OtpErlangException e) {
             ErlLogger.error(e);
         }
         return error;
     }
+
+    private OtpErlangObject processRequest(final OtpErlangPid from, final OtpBindings b)
+            throws OtpErlangException {
+        final OtpPattern request = b.getPattern();
+        if (request == IOServer.PUT_CHARS) {
+            return callback.putChars(from, IOEncoding.latin1, b.get("Chars"));
+        } else if (request == IOServer.PUT_CHARS_ENC) {
+            final String enc = b.getAtom("Enc");
+            return callback.putChars(from, IOEncoding.valueOf(enc), b.get("Chars"));
+        } else if (request == IOServer.PUT_CHARS_MFA) {
+            final String m = b.getAtom("M");
+            final String f = b.getAtom("F");
+            final Collection<OtpErlangObject> a = b.getList("A");
+            return callback.putChars(from, IOEncoding.latin1, m, f, a);
+        } else if (request == IOServer.PUT_CHARS_ENC_MFA) {
+            final String enc = b.getAtom("Enc");
+            final String m = b.getAtom("M");
+            final String f = b.getAtom("F");
+            final Collection<OtpErlangObject> a = b.getList("A");
+            return callback.putChars(from, IOEncoding.valueOf(enc), m, f, a);
+        } else if (request == IOServer.GET_UNTIL) {
+            return callback.getUntil(IOEncoding.latin1, b.get("Prompt"));
+        } else if (request == IOServer.GET_UNTIL_N) {
+            final long n = b.getLong("N");
+            return callback.getUntil(IOEncoding.latin1, b.get("Prompt"), n);
+        } else if (request == IOServer.GET_UNTIL_ENC) {
+            final String enc = b.getAtom("Enc");
+            return callback.getUntil(IOEncoding.valueOf(enc), b.get("Prompt"));
+        } else if (request == IOServer.GET_UNTIL_ENC_N) {
+            final String enc = b.getAtom("Enc");
+            final long n = b.getLong("N");
+            return callback.getUntil(IOEncoding.valueOf(enc), b.get("Prompt"), n);
+        } else if (request == IOServer.GET_UNTIL_MFA) {
+            final String m = b.getAtom("M");
+            final String f = b.getAtom("F");
+            final Collection<OtpErlangObject> a = b.getList("A");
+            return callback.getUntil(IOEncoding.latin1, b.get("Prompt"), m, f, a);
+        } else if (request == IOServer.GET_UNTIL_ENC_MFA) {
+            final String enc = b.getAtom("Enc");
+            final String m = b.getAtom("M");
+            final String f = b.getAtom("F");
+            final Collection<OtpErlangObject> a = b.getList("A");
+            return callback.getUntil(IOEncoding.valueOf(enc), b.get("Prompt"), m, f, a);
+        } else if (request == IOServer.REQUESTS) {
+            final Collection<OtpErlangObject> reqs = b.getList("Reqs");
+            OtpErlangObject val = null;
+            for (final OtpErlangObject r : reqs) {
+                val = processRequest(from, r);
+                if (val.equals(error)) {
+                    return error;
+                }
+            }
+            return val == null ? error : val;
+        } else if (request == IOServer.SETOPTS) {
+            final Collection<OtpErlangObject> opts = b.getList("Opts");
+            return callback.setOpts(opts);
+        } else if (request == IOServer.GET_GEOMETRY) {
+            return OtpErlang.mkTuple(new OtpErlangAtom("error"),
+                    new OtpErlangAtom("enotsup"));
+        }
+        return error;
+    }
 }
@@ -8,9 +8,12 @@
  *******************************************************************************/
 package org.erlide.runtime.internal;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -18,18 +21,23 @@ import java.util.concurrent.TimeoutException;
 
 import org.erlide.runtime.api.IOtpNodeProxy;
 import org.erlide.runtime.api.RuntimeData;
+import org.erlide.runtime.api.StartupMetrics;
 import org.erlide.runtime.events.ErlEvent;
 import org.erlide.runtime.events.ErlangLogEventHandler;
 import org.erlide.runtime.events.LogEventHandler;
+import org.erlide.runtime.events.RuntimeDownEvent;
 import org.erlide.runtime.internal.rpc.OtpRpc;
 import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.RecordingOtpRpc;
 import org.erlide.runtime.runtimeinfo.RuntimeVersion;
 import org.erlide.runtime.service.CooldownRestartPolicy;
 import org.erlide.runtime.service.NeverRestartPolicy;
 import org.erlide.runtime.service.RestartableService;
 import org.erlide.runtime.service.ServiceRestartPolicy;
 import org.erlide.util.ErlLogger;
+import org.erlide.util.ErlideEventBus;
 import org.erlide.util.SystemConfiguration;
+import org.erlide.util.erlang.OtpPattern;
 import org.erlide.util.services.Provider;
 
 import com.ericsson.otp.erlang.OtpErlangDecodeException;
@@ -38,6 +46,7 @@ import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangPid;
 import com.ericsson.otp.erlang.OtpMbox;
 import com.ericsson.otp.erlang.OtpNode;
+import com.google.common.collect.Lists;
 import com.google.common.eventbus.DeadEvent;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
@@ -54,20 +63,31 @@ public class OtpNodeProxy implements IOtpNodeProxy {
     private static final int MAX_RETRIES = 15;
     public static final int RETRY_DELAY = Integer
             .parseInt(System.getProperty("erlide.connect.delay", "400"));
+    // the runtime sends {erlide_ready, Node} to this mailbox when it has booted
+    private static final String READY_MBOX = "erlide_ready";
+    private static final OtpPattern READY = OtpPattern.of("{erlide_ready, Node:a}");
+    private static final long READY_TIMEOUT = Long
+            .parseLong(System.getProperty("erlide.connect.timeout", "10000"));
+    private static final int READY_POLL_MILLIS = 10;
+    private static final int EPMD_RETRIES = 250;
 
     private final Service service;
     protected final RuntimeData data;
     private OtpNode localNode;
     final ErlRuntimeReporter reporter;
     private OtpMbox eventMBox;
+    private OtpMbox readyMBox;
     private IOtpRpc otpRpc;
     private final EventBus eventBus;
     private final EventParser eventHelper;
+    private final StartupMetrics metrics;
     private Process process;
     private volatile int exitCode = -1;
 
     static final boolean DEBUG = Boolean
             .parseBoolean(System.getProperty("erlide.event.daemon"));
+    // directory where RPCs are recorded, see RecordingOtpRpc
+    private static final String RECORD_DIR = System.getProperty("erlide.rpc.record");
     public static final long POLL_INTERVAL = 100;
 
     public OtpNodeProxy(final RuntimeData data) {
@@ -76,6 +96,7 @@ public class OtpNodeProxy implements IOtpNodeProxy {
 
         eventHelper = new EventParser();
         final String nodeName = getNodeName();
+        metrics = new StartupMetrics(nodeName);
         eventBus = new EventBus(nodeName);
         eventBus.register(this);
         registerEventListener(new LogEventHandler());
@@ -134,6 +155,11 @@ public class OtpNodeProxy implements IOtpNodeProxy {
         return eventMBox.self();
     }
 
+    @Override
+    public StartupMetrics getStartupMetrics() {
+        return metrics;
+    }
+
     @Override
     public RuntimeVersion getVersion() {
         return data.getRuntimeInfo().getVersion();
@@ -147,6 +173,13 @@ public class OtpNodeProxy implements IOtpNodeProxy {
     @Override
     public void dispose() {
         otpRpc.setConnected(false);
+        if (otpRpc instanceof Closeable) {
+            try {
+                ((Closeable) otpRpc).close();
+            } catch (final IOException e) {
+                ErlLogger.warn(e);
+            }
+        }
         localNode.close();
         service.stopAsync();
     }
@@ -253,6 +286,79 @@ public class OtpNodeProxy implements IOtpNodeProxy {
         }
     }
 
+    private OtpNode startLocalNode(final String name) {
+        int tries = OtpNodeProxy.EPMD_RETRIES;
+        while (true) {
+            try {
+                return LocalNodeCreator.startLocalNode(this, name, data.getCookie());
+            } catch (final IOException e) {
+                if (--tries <= 0 || !data.isManaged()) {
+                    throw new IllegalStateException("Could not start local node " + name,
+                            e);
+                }
+                if (tries == OtpNodeProxy.EPMD_RETRIES - 1) {
+                    // the runtime isn't started yet, so nothing has started epmd
+                    startEpmd();
+                }
+                try {
+                    Thread.sleep(OtpNodeProxy.READY_POLL_MILLIS);
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(ie);
+                }
+            }
+        }
+    }
+
+    private void startEpmd() {
+        final File bin = new File(data.getRuntimeInfo().getOtpHome(), "bin");
+        final String epmd = new File(bin, "epmd").exists()
+                || new File(bin, "epmd.exe").exists() ? new File(bin, "epmd").getPath()
+                        : "epmd";
+        try {
+            new ProcessBuilder(epmd, "-daemon").start()
+                    .waitFor(OtpNodeProxy.READY_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (final IOException e) {
+            ErlLogger.warn("Could not start epmd: %s", e.getMessage());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Boot arguments that make the runtime connect to us and announce itself when it
+     * has booted, which is also when its code server is running.
+     */
+    private static List<String> readyArgs(final String localName) {
+        final String eval = String.format("spawn(fun()->J='%s',"
+                + "W=fun(_,0)->ok;(F,N)->case net_kernel:connect_node(J) of "
+                + "true->{%s,J}!{%s,node()};_->timer:sleep(%d),F(F,N-1) end end,"
+                + "W(W,%d) end)", localName, OtpNodeProxy.READY_MBOX,
+                OtpNodeProxy.READY_MBOX, OtpNodeProxy.READY_POLL_MILLIS,
+                OtpNodeProxy.READY_TIMEOUT / OtpNodeProxy.READY_POLL_MILLIS);
+        return Lists.newArrayList("-eval", eval);
+    }
+
+    private boolean awaitReady() {
+        if (readyMBox == null) {
+            return false;
+        }
+        try {
+            final OtpErlangObject msg = readyMBox.receive(OtpNodeProxy.READY_TIMEOUT);
+            if (msg != null && OtpNodeProxy.READY.match(msg) != null) {
+                return true;
+            }
+            ErlLogger.warn("Runtime %s did not announce itself, got %s", getNodeName(),
+                    msg);
+        } catch (final OtpErlangExit | OtpErlangDecodeException e) {
+            ErlLogger.warn(e);
+        } finally {
+            readyMBox.close();
+            readyMBox = null;
+        }
+        return false;
+    }
+
     @Subscribe
     public void deadEventHandler(final DeadEvent dead) {
         ErlLogger.warn("Dead event: " + dead + " in runtime " + getNodeName());
@@ -264,6 +370,7 @@ public class OtpNodeProxy implements IOtpNodeProxy {
         public void terminated(final State from) {
             ErlLogger.debug(String.format("Runtime %s terminated", getNodeName()));
             dispose();
+            postDown();
             if (from != State.STOPPING) {
                 reportDown();
             }
@@ -276,6 +383,7 @@ public class OtpNodeProxy implements IOtpNodeProxy {
             ErlLogger.warn(String.format("Runtime %s crashed, exit code: %d.", nodeName,
                     myExitCode));
             dispose();
+            postDown();
             if (from != State.STOPPING) {
                 reportDown();
                 try {
@@ -288,6 +396,12 @@ public class OtpNodeProxy implements IOtpNodeProxy {
             }
         }
 
+        private void postDown() {
+            if (otpRpc != null) {
+                ErlideEventBus.post(new RuntimeDownEvent(getNodeName(), otpRpc));
+            }
+        }
+
         private void reportDown() {
             if (data.isReportErrors() && getExitCode() > 0) {
                 reporter.reportRuntimeDown(getNodeName());
@@ -317,12 +431,6 @@ public class OtpNodeProxy implements IOtpNodeProxy {
     @Override
     public void ensureRunning() {
         service.startAsync().awaitRunning();
-        // we want to make sure backend was initialized!
-        try {
-            Thread.sleep(500);
-        } catch (final InterruptedException e) {
-        }
-
     }
 
     @Override
@@ -347,22 +455,37 @@ public class OtpNodeProxy implements IOtpNodeProxy {
 
         @Override
         protected void startUp() throws Exception {
+            metrics.start();
+            // our node and its ready mailbox must exist before the runtime can
+            // announce itself
+            initialize(localNode != null ? localNode.node()
+                    : LocalNodeCreator.createNodeName(data.hasLongName()));
+            metrics.done("local node");
+            final boolean announced = managed && !data.hasDetachedConsole();
             if (managed) {
                 exitCode = -1;
-                process = startRuntimeProcess(data);
+                process = startRuntimeProcess(data,
+                        announced ? OtpNodeProxy.readyArgs(localNode.node())
+                                : Collections.<String> emptyList());
                 if (process == null) {
                     throw new Exception("no runtime");
                 }
+                metrics.done("spawn");
             }
-            initialize();
-
-            connect();
-            otpRpc.setConnected(true);
 
-            if (!waitForCodeServer()) {
-                // crash?
-                triggerShutdown();
-                ErlLogger.error(OtpNodeProxy.COULD_NOT_CONNECT, getNodeName());
+            if (announced && awaitReady()) {
+                otpRpc.setConnected(true);
+                metrics.done("ready");
+            } else {
+                connect();
+                otpRpc.setConnected(true);
+                metrics.done("connect");
+                if (!waitForCodeServer()) {
+                    // crash?
+                    triggerShutdown();
+                    ErlLogger.error(OtpNodeProxy.COULD_NOT_CONNECT, getNodeName());
+                }
+                metrics.done("code server");
             }
             stopped = false;
             crashed = false;
@@ -411,8 +534,9 @@ public class OtpNodeProxy implements IOtpNodeProxy {
             return "OtpNodeProxy " + getNodeName();
         }
 
-        private Process startRuntimeProcess(final RuntimeData rtData) {
-            final String[] cmds = rtData.getCmdLine();
+        private Process startRuntimeProcess(final RuntimeData rtData,
+                final List<String> bootArgs) {
+            final String[] cmds = rtData.getCmdLine(bootArgs);
             final File workingDirectory = new File(rtData.getWorkingDir());
 
             try {
@@ -454,11 +578,27 @@ public class OtpNodeProxy implements IOtpNodeProxy {
     }
 
     public void initialize() {
+        initialize(LocalNodeCreator.createNodeName(data.hasLongName()));
+    }
+
+    private void initialize(final String localName) {
         if (localNode == null) {
-            localNode = LocalNodeCreator.startLocalNode(OtpNodeProxy.this,
-                    data.getCookie(), data.hasLongName());
+            localNode = startLocalNode(localName);
+            // created first, the runtime may announce itself as soon as we're up
+            readyMBox = createMbox(OtpNodeProxy.READY_MBOX);
             eventMBox = createMbox("rex");
             otpRpc = new OtpRpc(localNode, getNodeName());
+            if (OtpNodeProxy.RECORD_DIR != null) {
+                final File file = new File(OtpNodeProxy.RECORD_DIR,
+                        getNodeName() + ".rpc");
+                try {
+                    otpRpc = new RecordingOtpRpc(otpRpc, file);
+                    ErlLogger.info("Recording RPCs to %s", file);
+                } catch (final IOException e) {
+                    ErlLogger.warn("Could not record RPCs to %s: %s", file,
+                            e.getMessage());
+                }
+            }
         }
     }
 
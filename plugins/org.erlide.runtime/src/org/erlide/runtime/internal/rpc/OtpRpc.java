@@ -308,8 +308,10 @@ public class OtpRpc implements IOtpRpc {
             ErlLogger.debug("call -> %s:%s(%s)", args01);
         }
         //
+        // computing the size encodes the whole call once more, only do it if needed
+        final long size = RpcMonitor.isEnabled() ? OtpErlang.sizeOf(res) : 0;
         final OtpErlangRef ref = RpcMonitor.recordRequest(node, peer, module, fun, args,
-                OtpErlang.sizeOf(res));
+                size);
         //
         mbox.send("rex", peer, res);
         if (OtpRpc.CHECK_RPC) {
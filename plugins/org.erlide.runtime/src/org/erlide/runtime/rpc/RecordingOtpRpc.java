@@ -0,0 +1,355 @@
+package org.erlide.runtime.rpc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.erlide.runtime.rpc.RpcRecording.Entry;
+import org.erlide.runtime.rpc.RpcRecording.Kind;
+import org.erlide.util.ErlLogger;
+import org.erlide.util.erlang.OtpErlang;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpMbox;
+import com.google.common.collect.Lists;
+
+/**
+ * {@link IOtpRpc} that forwards to another one and records the calls and their results
+ * to a file, to be served back later by {@link ReplayingOtpRpc}.
+ * <p>
+ * Sent messages are not recorded, they don't have results.
+ * </p>
+ */
+public class RecordingOtpRpc implements IOtpRpc, Closeable {
+
+    private final IOtpRpc delegate;
+    private final RpcRecording.Writer writer;
+
+    public RecordingOtpRpc(final IOtpRpc delegate, final File file) throws IOException {
+        this.delegate = delegate;
+        writer = RpcRecording.create(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    @Override
+    public RpcResult call_noexception(final String m, final String f,
+            final String signature, final Object... a) {
+        final long start = System.nanoTime();
+        return toResult(m, f, signature, a, start,
+                delegate.call_noexception(m, f, signature, a));
+    }
+
+    @Override
+    public RpcResult call_noexception(final long timeout, final String m, final String f,
+            final String signature, final Object... args) {
+        final long start = System.nanoTime();
+        return toResult(m, f, signature, args, start,
+                delegate.call_noexception(timeout, m, f, signature, args));
+    }
+
+    @Override
+    public RpcFuture async_call(final String m, final String f, final String signature,
+            final Object... args) throws RpcException {
+        return new RecordedFuture(m, f, signature, args,
+                delegate.async_call(m, f, signature, args));
+    }
+
+    @Override
+    public RpcFuture async_call(final OtpErlangObject gleader, final String m,
+            final String f, final String signature, final Object... args)
+            throws RpcException {
+        return new RecordedFuture(m, f, signature, args,
+                delegate.async_call(gleader, m, f, signature, args));
+    }
+
+    @Override
+    public void async_call_cb(final IRpcCallback cb, final String m, final String f,
+            final String signature, final Object... args) throws RpcException {
+        delegate.async_call_cb(new RecordingCallback(cb, m, f, signature, args), m, f,
+                signature, args);
+    }
+
+    @Override
+    public void async_call_cb(final IRpcCallback cb, final long timeout, final String m,
+            final String f, final String signature, final Object... args)
+            throws RpcException {
+        delegate.async_call_cb(new RecordingCallback(cb, m, f, signature, args), timeout,
+                m, f, signature, args);
+    }
+
+    @Override
+    public void async_call_cb(final IRpcCallback cb, final long timeout,
+            final OtpErlangObject gleader, final String m, final String f,
+            final String signature, final Object... args) throws RpcException {
+        delegate.async_call_cb(new RecordingCallback(cb, m, f, signature, args), timeout,
+                gleader, m, f, signature, args);
+    }
+
+    @Override
+    public void cast(final String m, final String f, final String signature,
+            final Object... args) throws RpcException {
+        delegate.cast(m, f, signature, args);
+        record(Kind.CAST, m, f, signature, args, null, 0);
+    }
+
+    @Override
+    public void cast(final OtpErlangObject gleader, final String m, final String f,
+            final String signature, final Object... args) throws RpcException {
+        delegate.cast(gleader, m, f, signature, args);
+        record(Kind.CAST, m, f, signature, args, null, 0);
+    }
+
+    @Override
+    public OtpErlangObject call(final String m, final String f, final String signature,
+            final Object... a) throws RpcException {
+        final long start = System.nanoTime();
+        try {
+            final OtpErlangObject result = delegate.call(m, f, signature, a);
+            record(Kind.CALL, m, f, signature, a, result, start);
+            return result;
+        } catch (final RpcException e) {
+            recordFailure(e, m, f, signature, a, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public OtpErlangObject call(final long timeout, final String m, final String f,
+            final String signature, final Object... a) throws RpcException {
+        final long start = System.nanoTime();
+        try {
+            final OtpErlangObject result = delegate.call(timeout, m, f, signature, a);
+            record(Kind.CALL, m, f, signature, a, result, start);
+            return result;
+        } catch (final RpcException e) {
+            recordFailure(e, m, f, signature, a, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public OtpErlangObject call(final long timeout, final OtpErlangObject gleader,
+            final String m, final String f, final String signature, final Object... a)
+            throws RpcException {
+        final long start = System.nanoTime();
+        try {
+            final OtpErlangObject result = delegate.call(timeout, gleader, m, f,
+                    signature, a);
+            record(Kind.CALL, m, f, signature, a, result, start);
+            return result;
+        } catch (final RpcException e) {
+            recordFailure(e, m, f, signature, a, start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void async_call_result(final IRpcResultCallback cb, final String m,
+            final String f, final String signature, final Object... args)
+            throws RpcException {
+        final IRpcResultCallback recording = new RecordingResultCallback(cb, m, f,
+                signature, RpcRecording.withPid(args));
+        delegate.async_call_result(recording, m, f, signature, args);
+    }
+
+    @Override
+    public void send(final OtpErlangPid pid, final Object msg) {
+        delegate.send(pid, msg);
+    }
+
+    @Override
+    public void send(final String name, final Object msg) {
+        delegate.send(name, msg);
+    }
+
+    @Override
+    public void send(final String fullNodeName, final String name, final Object msg) {
+        delegate.send(fullNodeName, name, msg);
+    }
+
+    @Override
+    public OtpErlangObject getRpcResult(final OtpMbox mbox, final long timeout,
+            final String env) throws RpcException {
+        return delegate.getRpcResult(mbox, timeout, env);
+    }
+
+    @Override
+    public void setConnected(final boolean b) {
+        delegate.setConnected(b);
+    }
+
+    private RpcResult toResult(final String m, final String f, final String signature,
+            final Object[] args, final long start, final RpcResult result) {
+        if (result.isOk()) {
+            record(Kind.CALL, m, f, signature, args, result.getValue(), start);
+        } else {
+            // call_noexception can't tell failed calls from calls returning badrpc
+            record(Kind.CALL, m, f, signature, args,
+                    OtpErlang.mkTuple(new OtpErlangAtom("badrpc"), result.getValue()),
+                    start);
+        }
+        return result;
+    }
+
+    private void recordFailure(final RpcException e, final String m, final String f,
+            final String signature, final Object[] args, final long start) {
+        final String message = e.getMessage() == null ? "" : e.getMessage();
+        record(e instanceof RpcTimeoutException ? Kind.TIMEOUT : Kind.ERROR, m, f,
+                signature, args, new OtpErlangString(message), start);
+    }
+
+    void record(final Kind kind, final String m, final String f, final String signature,
+            final Object[] args, final OtpErlangObject result, final long start) {
+        final long micros = start == 0 ? 0
+                : TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        try {
+            final OtpErlangList erlArgs = RpcRecording.convertArgs(signature, args);
+            writer.write(new Entry(kind, m, f, erlArgs, result, micros));
+        } catch (final RpcException | IOException e) {
+            ErlLogger.warn("Could not record call %s:%s: %s", m, f, e.getMessage());
+        }
+    }
+
+    private class RecordedFuture extends RpcFuture {
+        private final RpcFuture future;
+        private final String m;
+        private final String f;
+        private final String signature;
+        private final Object[] args;
+        private final long start = System.nanoTime();
+        private boolean recorded;
+
+        RecordedFuture(final String m, final String f, final String signature,
+                final Object[] args, final RpcFuture future) {
+            super(null, null, null, false, null);
+            this.m = m;
+            this.f = f;
+            this.signature = signature;
+            this.args = args;
+            this.future = future;
+        }
+
+        @Override
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        @Override
+        public OtpErlangObject checkedGet(final long timeout, final TimeUnit unit)
+                throws RpcException {
+            try {
+                final OtpErlangObject result = future.checkedGet(timeout, unit);
+                if (result != null) {
+                    recordOnce(Kind.CALL, result);
+                }
+                return result;
+            } catch (final RpcTimeoutException e) {
+                // may still be waited for again
+                throw e;
+            } catch (final RpcException e) {
+                recordOnce(Kind.ERROR,
+                        new OtpErlangString(String.valueOf(e.getMessage())));
+                throw e;
+            }
+        }
+
+        private synchronized void recordOnce(final Kind kind,
+                final OtpErlangObject result) {
+            if (!recorded) {
+                recorded = true;
+                record(kind, m, f, signature, args, result, start);
+            }
+        }
+    }
+
+    private class RecordingCallback implements IRpcCallback {
+        private final IRpcCallback cb;
+        private final String m;
+        private final String f;
+        private final String signature;
+        private final Object[] args;
+        private final long start = System.nanoTime();
+
+        RecordingCallback(final IRpcCallback cb, final String m, final String f,
+                final String signature, final Object[] args) {
+            this.cb = cb;
+            this.m = m;
+            this.f = f;
+            this.signature = signature;
+            this.args = args;
+        }
+
+        @Override
+        public void onSuccess(final OtpErlangObject result) {
+            record(Kind.CALL, m, f, signature, args, result, start);
+            cb.onSuccess(result);
+        }
+
+        @Override
+        public void onFailure(final Throwable t) {
+            record(t instanceof RpcTimeoutException ? Kind.TIMEOUT : Kind.ERROR, m, f,
+                    signature, args, new OtpErlangString(String.valueOf(t.getMessage())),
+                    start);
+            cb.onFailure(t);
+        }
+    }
+
+    private class RecordingResultCallback implements IRpcResultCallback {
+        private final IRpcResultCallback cb;
+        private final String m;
+        private final String f;
+        private final String signature;
+        private final Object[] args;
+        private final long start = System.nanoTime();
+        private final List<OtpErlangObject> reports = Lists.newArrayList();
+
+        RecordingResultCallback(final IRpcResultCallback cb, final String m,
+                final String f, final String signature, final Object[] args) {
+            this.cb = cb;
+            this.m = m;
+            this.f = f;
+            this.signature = signature;
+            this.args = args;
+        }
+
+        @Override
+        public void start(final OtpErlangObject msg) {
+            report("start", msg);
+            cb.start(msg);
+        }
+
+        @Override
+        public void progress(final OtpErlangObject msg) {
+            report("progress", msg);
+            cb.progress(msg);
+        }
+
+        @Override
+        public void stop(final OtpErlangObject msg) {
+            report("stop", msg);
+            final OtpErlangList result;
+            synchronized (reports) {
+                result = new OtpErlangList(reports.toArray(new OtpErlangObject[0]));
+            }
+            record(Kind.RESULTS, m, f, signature, args, result, start);
+            cb.stop(msg);
+        }
+
+        private void report(final String tag, final OtpErlangObject msg) {
+            synchronized (reports) {
+                reports.add(OtpErlang.mkTuple(new OtpErlangAtom(tag), msg));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,349 @@
+package org.erlide.runtime.rpc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.erlide.runtime.internal.rpc.OtpRpc;
+import org.erlide.runtime.rpc.RpcRecording.Entry;
+import org.erlide.runtime.rpc.RpcRecording.Kind;
+import org.erlide.util.erlang.OtpErlang;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpMbox;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * {@link IOtpRpc} that serves results recorded by {@link RecordingOtpRpc}, without an
+ * Erlang runtime.
+ * <p>
+ * Calls are matched by module, function and arguments. Repeated calls get the recorded
+ * results in the order they were recorded, the last one is repeated when there are no
+ * more. Calls that were not recorded fail with an {@link RpcException}. Casts and sent
+ * messages are ignored.
+ * </p>
+ * <p>
+ * By default results are returned immediately. A fixed latency can be added to every
+ * call and the recorded durations can be reproduced (scaled by a factor); a simulated
+ * latency longer than the call's timeout makes the call time out.
+ * </p>
+ */
+public class ReplayingOtpRpc implements IOtpRpc {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("rpc-replay-%d")
+                    .build());
+
+    // {Module, Function, Args} -> recorded results, not modified after construction
+    private final Map<OtpErlangObject, Results> results = Maps.newHashMap();
+    private volatile long latency;
+    private volatile double recordedLatencyFactor;
+    private volatile boolean connected = true;
+
+    public ReplayingOtpRpc(final File file) throws IOException {
+        this(RpcRecording.read(file));
+    }
+
+    public ReplayingOtpRpc(final Collection<Entry> entries) {
+        for (final Entry entry : entries) {
+            if (entry.getKind() == Kind.CAST) {
+                continue;
+            }
+            final OtpErlangObject key = ReplayingOtpRpc.key(entry.getModule(),
+                    entry.getFunction(), entry.getArgs());
+            Results list = results.get(key);
+            if (list == null) {
+                list = new Results();
+                results.put(key, list);
+            }
+            list.entries.add(entry);
+        }
+    }
+
+    /**
+     * Sets latency added to every call.
+     *
+     * @param millis
+     *            latency in milliseconds, 0 for none
+     */
+    public void setLatency(final long millis) {
+        latency = millis;
+    }
+
+    /**
+     * Makes calls take as long as they did when recorded.
+     *
+     * @param factor
+     *            multiplies the recorded durations, 0 to not reproduce them
+     */
+    public void setRecordedLatency(final double factor) {
+        recordedLatencyFactor = factor;
+    }
+
+    @Override
+    public RpcResult call_noexception(final String m, final String f,
+            final String signature, final Object... a) {
+        return call_noexception(OtpRpc.DEFAULT_TIMEOUT, m, f, signature, a);
+    }
+
+    @Override
+    public RpcResult call_noexception(final long timeout, final String m, final String f,
+            final String signature, final Object... args) {
+        try {
+            return new RpcResult(replay(timeout, m, f, signature, args));
+        } catch (final RpcException e) {
+            return RpcResult.error(e.getMessage());
+        }
+    }
+
+    @Override
+    public RpcFuture async_call(final String m, final String f, final String signature,
+            final Object... args) throws RpcException {
+        return new ReplayedFuture(m, f, signature, args);
+    }
+
+    @Override
+    public RpcFuture async_call(final OtpErlangObject gleader, final String m,
+            final String f, final String signature, final Object... args)
+            throws RpcException {
+        return new ReplayedFuture(m, f, signature, args);
+    }
+
+    @Override
+    public void async_call_cb(final IRpcCallback cb, final String m, final String f,
+            final String signature, final Object... args) throws RpcException {
+        async_call_cb(cb, OtpRpc.DEFAULT_TIMEOUT, m, f, signature, args);
+    }
+
+    @Override
+    public void async_call_cb(final IRpcCallback cb, final long timeout, final String m,
+            final String f, final String signature, final Object... args)
+            throws RpcException {
+        checkConnected();
+        ReplayingOtpRpc.executor.execute(() -> {
+            try {
+                cb.onSuccess(replay(timeout, m, f, signature, args));
+            } catch (final RpcException e) {
+                cb.onFailure(e);
+            }
+        });
+    }
+
+    @Override
+    public void async_call_cb(final IRpcCallback cb, final long timeout,
+            final OtpErlangObject gleader, final String m, final String f,
+            final String signature, final Object... args) throws RpcException {
+        async_call_cb(cb, timeout, m, f, signature, args);
+    }
+
+    @Override
+    public void cast(final String m, final String f, final String signature,
+            final Object... args) throws RpcException {
+        checkConnected();
+    }
+
+    @Override
+    public void cast(final OtpErlangObject gleader, final String m, final String f,
+            final String signature, final Object... args) throws RpcException {
+        checkConnected();
+    }
+
+    @Override
+    public OtpErlangObject call(final String m, final String f, final String signature,
+            final Object... a) throws RpcException {
+        return call(OtpRpc.DEFAULT_TIMEOUT, m, f, signature, a);
+    }
+
+    @Override
+    public OtpErlangObject call(final long timeout, final String m, final String f,
+            final String signature, final Object... a) throws RpcException {
+        final OtpErlangObject result = replay(timeout, m, f, signature, a);
+        if (ReplayingOtpRpc.isBadRpc(result)) {
+            throw new RpcException("Bad RPC: " + result);
+        }
+        return result;
+    }
+
+    @Override
+    public OtpErlangObject call(final long timeout, final OtpErlangObject gleader,
+            final String m, final String f, final String signature, final Object... a)
+            throws RpcException {
+        return call(timeout, m, f, signature, a);
+    }
+
+    @Override
+    public void async_call_result(final IRpcResultCallback cb, final String m,
+            final String f, final String signature, final Object... args)
+            throws RpcException {
+        final Entry entry = next(m, f,
+                RpcRecording.convertArgs(signature, RpcRecording.withPid(args)));
+        if (entry.getKind() != Kind.RESULTS) {
+            throw new RpcException(
+                    String.format("%s:%s was not recorded with progress reports", m, f));
+        }
+        ReplayingOtpRpc.executor.execute(() -> {
+            try {
+                delay(entry, OtpRpc.INFINITY, m, f);
+            } catch (final RpcTimeoutException e) {
+                // not reached, the timeout is infinite
+            }
+            for (final OtpErlangObject o : (OtpErlangList) entry.getResult()) {
+                final OtpErlangTuple report = (OtpErlangTuple) o;
+                final OtpErlangObject msg = report.elementAt(1);
+                switch (((OtpErlangAtom) report.elementAt(0)).atomValue()) {
+                case "start":
+                    cb.start(msg);
+                    break;
+                case "progress":
+                    cb.progress(msg);
+                    break;
+                default:
+                    cb.stop(msg);
+                    break;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void send(final OtpErlangPid pid, final Object msg) {
+    }
+
+    @Override
+    public void send(final String name, final Object msg) {
+    }
+
+    @Override
+    public void send(final String fullNodeName, final String name, final Object msg) {
+    }
+
+    @Override
+    public OtpErlangObject getRpcResult(final OtpMbox mbox, final long timeout,
+            final String env) throws RpcException {
+        throw new RpcException("Replayed calls have no mailbox");
+    }
+
+    @Override
+    public void setConnected(final boolean b) {
+        connected = b;
+    }
+
+    private OtpErlangObject replay(final long timeout, final String m, final String f,
+            final String signature, final Object... args) throws RpcException {
+        checkConnected();
+        final Entry entry = next(m, f, RpcRecording.convertArgs(signature, args));
+        delay(entry, timeout, m, f);
+        switch (entry.getKind()) {
+        case ERROR:
+            throw new RpcException(((OtpErlangString) entry.getResult()).stringValue());
+        case TIMEOUT:
+            throw new RpcTimeoutException(m + ":" + f + "/" + entry.getArgs().arity());
+        default:
+            return entry.getResult();
+        }
+    }
+
+    private Entry next(final String m, final String f, final OtpErlangList args)
+            throws RpcException {
+        final Results list = results.get(ReplayingOtpRpc.key(m, f, args));
+        if (list == null) {
+            throw new RpcException(String.format("No recorded result for %s:%s(%s)", m,
+                    f, args));
+        }
+        return list.next();
+    }
+
+    private void delay(final Entry entry, final long timeout, final String m,
+            final String f) throws RpcTimeoutException {
+        final long millis = latency
+                + (long) (entry.getMicros() * recordedLatencyFactor / 1000);
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Math.min(millis, timeout));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (millis > timeout) {
+            throw new RpcTimeoutException(m + ":" + f + "/" + entry.getArgs().arity());
+        }
+    }
+
+    private void checkConnected() throws RpcException {
+        if (!connected) {
+            throw new RpcException("backend down");
+        }
+    }
+
+    private static OtpErlangObject key(final String m, final String f,
+            final OtpErlangList args) {
+        return OtpErlang.mkTuple(new OtpErlangAtom(m), new OtpErlangAtom(f), args);
+    }
+
+    private static boolean isBadRpc(final OtpErlangObject result) {
+        if (!(result instanceof OtpErlangTuple)
+                || ((OtpErlangTuple) result).arity() == 0) {
+            return false;
+        }
+        return new OtpErlangAtom("badrpc").equals(((OtpErlangTuple) result).elementAt(0));
+    }
+
+    private static class Results {
+        final List<Entry> entries = Lists.newArrayList();
+        private int index;
+
+        synchronized Entry next() {
+            final Entry result = entries.get(index);
+            if (index < entries.size() - 1) {
+                index++;
+            }
+            return result;
+        }
+    }
+
+    private class ReplayedFuture extends RpcFuture {
+        private final String m;
+        private final String f;
+        private final String signature;
+        private final Object[] args;
+        private OtpErlangObject result;
+
+        ReplayedFuture(final String m, final String f, final String signature,
+                final Object[] args) {
+            super(null, null, null, false, null);
+            this.m = m;
+            this.f = f;
+            this.signature = signature;
+            this.args = args;
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return result != null;
+        }
+
+        @Override
+        public synchronized OtpErlangObject checkedGet(final long timeout,
+                final TimeUnit unit) throws RpcException {
+            if (result == null) {
+                result = replay(TimeUnit.MILLISECONDS.convert(timeout, unit), m, f,
+                        signature, args);
+            }
+            return result;
+        }
+    }
+
+}
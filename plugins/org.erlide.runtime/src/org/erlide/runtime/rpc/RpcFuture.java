@@ -84,6 +84,13 @@ public class RpcFuture implements ListenableFuture<OtpErlangObject> {
         }
     }
 
+    /**
+     * Waits for the result as long as a call with the default timeout would.
+     */
+    public OtpErlangObject checkedGetWithDefaultTimeout() throws RpcException {
+        return checkedGet(OtpRpc.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
     public OtpErlangObject checkedGet(final long timeout, final TimeUnit unit)
             throws RpcException {
         result = rpc.getRpcResult(mbox, TimeUnit.MILLISECONDS.convert(timeout, unit),
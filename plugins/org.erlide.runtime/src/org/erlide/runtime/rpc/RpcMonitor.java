@@ -131,6 +131,13 @@ public class RpcMonitor {
         }
     }
 
+    /**
+     * @return true if calls are monitored, i.e. their size is worth computing
+     */
+    public static boolean isEnabled() {
+        return !RpcMonitor.DISABLED;
+    }
+
     public static OtpErlangRef recordRequest(final OtpNode node, final String peer,
             final String module, final String fun, final OtpErlangObject[] args,
             final long callSize) {
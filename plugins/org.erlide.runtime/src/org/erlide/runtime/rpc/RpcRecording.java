@@ -0,0 +1,269 @@
+package org.erlide.runtime.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.erlide.util.erlang.OtpErlang;
+import org.erlide.util.erlang.Signature;
+import org.erlide.util.erlang.SignatureException;
+import org.erlide.util.erlang.TypeConverter;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpInputStream;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import com.google.common.collect.Lists;
+
+/**
+ * File of recorded RPCs, written by {@link RecordingOtpRpc} and served back by
+ * {@link ReplayingOtpRpc}.
+ * <p>
+ * The file starts with a header (magic and format version), followed by one record per
+ * call: its length and the term
+ * <code>{Kind, Module, Function, Args, Result, Microseconds}</code> in external term
+ * format.
+ * </p>
+ */
+public final class RpcRecording {
+
+    private static final int MAGIC = 0x45525043; // ERPC
+    private static final int FORMAT = 1;
+
+    /**
+     * Kind of a recorded call.
+     */
+    public enum Kind {
+        /** call that returned a result */
+        CALL,
+        /** call that failed with an {@link RpcException}, the result is the message */
+        ERROR,
+        /** call that timed out */
+        TIMEOUT,
+        /** cast, there is no result */
+        CAST,
+        /** call with progress reports, the result is the list of reports */
+        RESULTS
+    }
+
+    /**
+     * A recorded call.
+     */
+    public static final class Entry {
+        private final Kind kind;
+        private final String module;
+        private final String function;
+        private final OtpErlangList args;
+        private final OtpErlangObject result;
+        private final long micros;
+
+        public Entry(final Kind kind, final String module, final String function,
+                final OtpErlangList args, final OtpErlangObject result,
+                final long micros) {
+            this.kind = kind;
+            this.module = module;
+            this.function = function;
+            this.args = args;
+            this.result = result;
+            this.micros = micros;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getModule() {
+            return module;
+        }
+
+        public String getFunction() {
+            return function;
+        }
+
+        public OtpErlangList getArgs() {
+            return args;
+        }
+
+        public OtpErlangObject getResult() {
+            return result;
+        }
+
+        /**
+         * @return how long the call took when it was recorded
+         */
+        public long getMicros() {
+            return micros;
+        }
+
+        OtpErlangObject toTerm() {
+            return OtpErlang.mkTuple(new OtpErlangAtom(kind.name().toLowerCase()),
+                    new OtpErlangAtom(module), new OtpErlangAtom(function), args,
+                    result == null ? RpcRecording.NONE : result,
+                    new OtpErlangLong(micros));
+        }
+
+        static Entry fromTerm(final OtpErlangObject term) throws IOException {
+            try {
+                final OtpErlangTuple t = (OtpErlangTuple) term;
+                final OtpErlangObject result = t.elementAt(4);
+                return new Entry(
+                        Kind.valueOf(((OtpErlangAtom) t.elementAt(0)).atomValue()
+                                .toUpperCase()),
+                        ((OtpErlangAtom) t.elementAt(1)).atomValue(),
+                        ((OtpErlangAtom) t.elementAt(2)).atomValue(),
+                        (OtpErlangList) t.elementAt(3),
+                        RpcRecording.NONE.equals(result) ? null : result,
+                        ((OtpErlangLong) t.elementAt(5)).longValue());
+            } catch (final ClassCastException | IllegalArgumentException
+                    | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Bad record: " + term, e);
+            }
+        }
+    }
+
+    private static final OtpErlangAtom NONE = new OtpErlangAtom("$none");
+    private static final OtpErlangAtom PID = new OtpErlangAtom("$pid");
+
+    private RpcRecording() {
+    }
+
+    /**
+     * Reads all records of a file.
+     *
+     * @param file
+     *            recording
+     * @return recorded calls, in the order they were made
+     * @throws IOException
+     *             if the file can't be read or is not a recording
+     */
+    public static List<Entry> read(final File file) throws IOException {
+        final List<Entry> result = Lists.newArrayList();
+        try (final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != RpcRecording.MAGIC
+                    || in.readInt() != RpcRecording.FORMAT) {
+                throw new IOException("Not a RPC recording: " + file);
+            }
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (final EOFException e) {
+                    break;
+                }
+                final byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                try {
+                    result.add(Entry.fromTerm(new OtpInputStream(bytes).read_any()));
+                } catch (final OtpErlangDecodeException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Opens a recording for writing. An existing file is overwritten.
+     *
+     * @param file
+     *            recording
+     * @return writer, to be closed when done
+     * @throws IOException
+     *             if the file can't be created
+     */
+    public static Writer create(final File file) throws IOException {
+        return new Writer(file);
+    }
+
+    /**
+     * Appends records to a recording. Records are flushed when written, so that a
+     * recording of a session that doesn't end cleanly is still usable.
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+
+        Writer(final File file) throws IOException {
+            out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(RpcRecording.MAGIC);
+            out.writeInt(RpcRecording.FORMAT);
+            out.flush();
+        }
+
+        public synchronized void write(final Entry entry) throws IOException {
+            final OtpOutputStream term = new OtpOutputStream();
+            term.write_any(entry.toTerm());
+            out.writeInt(term.size());
+            term.writeTo(out);
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Converts call arguments like {@link IOtpRpc} implementations do, so that recorded
+     * and replayed arguments compare equal.
+     *
+     * @param signature
+     *            signature of the arguments, <code>null</code> means all are terms
+     * @param args
+     *            Java arguments
+     * @return arguments as Erlang list
+     * @throws RpcException
+     *             if the arguments don't match the signature
+     */
+    public static OtpErlangList convertArgs(final String signature, final Object... args)
+            throws RpcException {
+        final Object[] args0 = args == null ? new Object[] {} : args;
+        try {
+            Signature[] type = Signature.parse(signature);
+            if (type == null) {
+                type = new Signature[args0.length];
+                for (int i = 0; i < args0.length; i++) {
+                    type[i] = new Signature('x');
+                }
+            }
+            if (type.length != args0.length) {
+                throw new SignatureException("Signature doesn't match parameter number: "
+                        + type.length + "/" + args0.length);
+            }
+            final OtpErlangObject[] result = new OtpErlangObject[args0.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = TypeConverter.java2erlang(args0[i], type[i]);
+            }
+            return new OtpErlangList(result);
+        } catch (final SignatureException e) {
+            throw new RpcException(e);
+        }
+    }
+
+
+    /**
+     * Arguments of {@link IOtpRpc#async_call_result}, the implicit pid is replaced by a
+     * placeholder because it is different in every session.
+     */
+    static Object[] withPid(final Object... args) {
+        final Object[] result = new Object[args.length + 1];
+        result[0] = RpcRecording.PID;
+        System.arraycopy(args, 0, result, 1, args.length);
+        return result;
+    }
+
+}
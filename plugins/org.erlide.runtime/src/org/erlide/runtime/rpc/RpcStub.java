@@ -0,0 +1,131 @@
+package org.erlide.runtime.rpc;
+
+import java.util.Arrays;
+
+import org.erlide.util.erlang.OtpEncodedTerm;
+import org.erlide.util.erlang.Signature;
+import org.erlide.util.erlang.SignatureException;
+import org.erlide.util.erlang.TypeConverter;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpOutputStream;
+
+/**
+ * A remote function with a fixed signature, for calls made often. The signature is
+ * parsed once and the arguments are written straight to one buffer, so no
+ * intermediate terms are created for them.
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * private static final RpcStub REPLACE_TEXT = new RpcStub(&quot;erlide_scanner&quot;,
+ *         &quot;replace_text&quot;, &quot;aiis&quot;);
+ * ...
+ * REPLACE_TEXT.call(backend, module, offset, length, text);
+ * </pre>
+ */
+public class RpcStub {
+
+    private final String module;
+    private final String function;
+    private final Signature[] signatures;
+    // every argument is already encoded when the call is made
+    private final String encodedSignature;
+
+    public RpcStub(final String module, final String function, final String signature) {
+        this.module = module;
+        this.function = function;
+        try {
+            final Signature[] parsed = Signature.parse(signature);
+            signatures = parsed == null ? new Signature[0] : parsed;
+        } catch (final SignatureException e) {
+            throw new IllegalArgumentException(
+                    String.format("Bad signature for %s:%s: %s", module, function,
+                            signature),
+                    e);
+        }
+        final char[] xs = new char[signatures.length];
+        Arrays.fill(xs, 'x');
+        encodedSignature = new String(xs);
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public int getArity() {
+        return signatures.length;
+    }
+
+    public OtpErlangObject call(final IOtpRpc rpc, final Object... args)
+            throws RpcException {
+        return rpc.call(module, function, encodedSignature, (Object[]) encode(args));
+    }
+
+    public OtpErlangObject call(final IOtpRpc rpc, final long timeout,
+            final Object... args) throws RpcException {
+        return rpc.call(timeout, module, function, encodedSignature,
+                (Object[]) encode(args));
+    }
+
+    public RpcResult call_noexception(final IOtpRpc rpc, final Object... args) {
+        try {
+            return rpc.call_noexception(module, function, encodedSignature,
+                    (Object[]) encode(args));
+        } catch (final RpcException e) {
+            return RpcResult.error(e.getMessage());
+        }
+    }
+
+    public RpcFuture async_call(final IOtpRpc rpc, final Object... args)
+            throws RpcException {
+        return rpc.async_call(module, function, encodedSignature,
+                (Object[]) encode(args));
+    }
+
+    public void cast(final IOtpRpc rpc, final Object... args) throws RpcException {
+        rpc.cast(module, function, encodedSignature, (Object[]) encode(args));
+    }
+
+    /**
+     * Converts the arguments according to the signature.
+     *
+     * @return the encoded arguments, sharing one buffer
+     */
+    public OtpEncodedTerm[] encode(final Object... args) throws RpcException {
+        final int n = args == null ? 0 : args.length;
+        if (n != signatures.length) {
+            throw new RpcException(String.format("%s:%s/%d called with %d arguments",
+                    module, function, signatures.length, n));
+        }
+        final OtpOutputStream out = new OtpOutputStream();
+        final int[] ends = new int[n];
+        try {
+            for (int i = 0; i < n; i++) {
+                TypeConverter.java2erlang(args[i], signatures[i], out);
+                ends[i] = out.getPos();
+            }
+        } catch (final SignatureException e) {
+            throw new RpcException(e);
+        }
+        final byte[] bytes = out.toByteArray();
+        final OtpEncodedTerm[] result = new OtpEncodedTerm[n];
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            result[i] = new OtpEncodedTerm(bytes, start, ends[i] - start);
+            start = ends[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return module + ":" + function + "/" + signatures.length;
+    }
+
+}
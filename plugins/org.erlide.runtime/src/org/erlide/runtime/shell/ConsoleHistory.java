@@ -0,0 +1,146 @@
+package org.erlide.runtime.shell;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * The requests shown in a console, kept in a ring buffer with fixed capacity. When it is
+ * full, the oldest requests are dropped in chunks, so appending doesn't depend on the
+ * size of the history. Requests are also indexed by sender.
+ * <p>
+ * Each request remembers its position counted from the start of the session; its start
+ * is made relative to the oldest kept request when it is handed out.
+ * </p>
+ * <p>
+ * Not thread safe, callers have to synchronize.
+ * </p>
+ */
+public class ConsoleHistory {
+
+    private final IoRequest[] requests;
+    private final int dropCount;
+    private int first;
+    private int size;
+    private long base;
+    private long end;
+    private final Map<OtpErlangPid, Deque<IoRequest>> bySender = Maps.newHashMap();
+
+    /**
+     * @param capacity
+     *            the maximum number of requests that are kept
+     * @param dropCount
+     *            how many requests to drop when the history is full
+     */
+    public ConsoleHistory(final int capacity, final int dropCount) {
+        if (capacity <= 0 || dropCount <= 0 || dropCount > capacity) {
+            throw new IllegalArgumentException(
+                    "bad console history size " + capacity + "/" + dropCount);
+        }
+        requests = new IoRequest[capacity];
+        this.dropCount = dropCount;
+    }
+
+    /**
+     * Appends a request at the end of the text.
+     *
+     * @return the length of the text that was dropped from the beginning to make room
+     */
+    public int add(final IoRequest request) {
+        int dropped = 0;
+        if (size == requests.length) {
+            dropped = drop(dropCount);
+        }
+        final int i = index(size);
+        requests[i] = request;
+        request.setPosition(end);
+        request.setStart((int) (end - base));
+        end += request.getLength();
+        size++;
+        bySender.computeIfAbsent(request.getSender(), k -> new ArrayDeque<>())
+                .addLast(request);
+        return dropped;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getLength() {
+        return (int) (end - base);
+    }
+
+    public IoRequest get(final int n) {
+        final IoRequest request = requests[index(n)];
+        request.setStart((int) (request.getPosition() - base));
+        return request;
+    }
+
+    /**
+     * @return the request containing the given position, or null
+     */
+    public IoRequest findAtPos(final int pos) {
+        final long abs = base + pos;
+        int lo = 0;
+        int hi = size - 1;
+        int found = -1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (requests[index(mid)].getPosition() <= abs) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+        final IoRequest request = requests[index(found)];
+        if (abs >= request.getPosition() + request.getLength()) {
+            return null;
+        }
+        return get(found);
+    }
+
+    public List<IoRequest> getAllFrom(final OtpErlangPid sender) {
+        final Deque<IoRequest> same = bySender.get(sender);
+        if (same == null) {
+            return Lists.newArrayList();
+        }
+        final List<IoRequest> result = Lists.newArrayList(same);
+        for (final IoRequest request : result) {
+            request.setStart((int) (request.getPosition() - base));
+        }
+        return result;
+    }
+
+    private int drop(final int n) {
+        final int count = Math.min(n, size);
+        for (int k = 0; k < count; k++) {
+            final IoRequest request = requests[first];
+            requests[first] = null;
+            final Deque<IoRequest> same = bySender.get(request.getSender());
+            same.pollFirst();
+            if (same.isEmpty()) {
+                bySender.remove(request.getSender());
+            }
+            first = (first + 1) % requests.length;
+            size--;
+        }
+        final long newBase = size == 0 ? end : requests[first].getPosition();
+        final int dropped = (int) (newBase - base);
+        base = newBase;
+        return dropped;
+    }
+
+    private int index(final int n) {
+        return (first + n) % requests.length;
+    }
+
+}
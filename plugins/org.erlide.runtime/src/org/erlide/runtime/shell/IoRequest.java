@@ -13,7 +13,7 @@ import java.util.regex.Pattern;
 
 import org.erlide.util.ErlLogger;
 import org.erlide.util.erlang.OtpBindings;
-import org.erlide.util.erlang.OtpErlang;
+import org.erlide.util.erlang.OtpPattern;
 
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
@@ -29,22 +29,34 @@ public class IoRequest {
     public static final Pattern RE_HEADER = Pattern
             .compile("Eshell V[0-9]+\\.[0-9]+\\.[0-9]+");
 
+    private static final OtpPattern REQUEST = OtpPattern
+            .of("{Payload, Leader, From, Tstamp}");
+    private static final OtpPattern REQUEST_ENC = OtpPattern
+            .of("{Payload, Encoding, Leader, From, Tstamp}");
+
     public enum IoRequestKind {
         HEADER, PROMPT, INPUT, OUTPUT, STDOUT, STDERR
     }
 
     private OtpErlangPid leader;
     private OtpErlangPid sender;
-    private String message;
+    /**
+     * The text as UTF-8, it takes less space than a String for most output. The console
+     * reads it once, when the request is added, and then only uses its position.
+     */
+    private byte[] text;
+    private int length;
     private int start;
+    private long position;
     private final IoRequestKind kind;
     private Charset encoding;
 
     public IoRequest(final OtpErlangTuple obj) {
+        String message;
         try {
-            OtpBindings b = OtpErlang.match("{Payload, Leader, From, Tstamp}", obj);
+            OtpBindings b = IoRequest.REQUEST.match(obj);
             if (b == null) {
-                b = OtpErlang.match("{Payload, Encoding, Leader, From, Tstamp}", obj);
+                b = IoRequest.REQUEST_ENC.match(obj);
                 encoding = getEncoding(b.getAtom("Encoding"));
             } else {
                 encoding = Charsets.ISO_8859_1;
@@ -80,6 +92,7 @@ public class IoRequest {
             ErlLogger.warn(e);
             message = "";
         }
+        setMessage(message);
         if (IoRequest.RE_PROMPT.matcher(message).matches()) {
             kind = IoRequestKind.PROMPT;
         } else if (IoRequest.RE_HEADER.matcher(message).matches()) {
@@ -101,25 +114,33 @@ public class IoRequest {
     }
 
     public IoRequest(final String msg, final IoRequestKind kind) {
-        message = msg;
+        setMessage(msg);
         encoding = Charsets.ISO_8859_1;
         leader = new OtpErlangPid("s", 0, 0, 0);
         sender = new OtpErlangPid("s", 0, 0, 0);
         this.kind = kind;
     }
 
+    private void setMessage(final String msg) {
+        text = msg.getBytes(Charsets.UTF_8);
+        length = msg.length();
+    }
+
     @Override
     public String toString() {
-        return "{" + kind.toString() + ":: '" + message + "'@" + encoding + ", " + start
-                + "/" + message.length() + ", " + leader + ", " + sender + "}";
+        return "{" + kind.toString() + ":: '" + getMessage() + "'@" + encoding + ", "
+                + start + "/" + length + ", " + leader + ", " + sender + "}";
     }
 
     public OtpErlangPid getLeader() {
         return leader;
     }
 
+    /**
+     * Decodes the text, the result isn't kept.
+     */
     public String getMessage() {
-        return message;
+        return new String(text, Charsets.UTF_8);
     }
 
     public OtpErlangPid getSender() {
@@ -131,7 +152,7 @@ public class IoRequest {
     }
 
     public int getLength() {
-        return message.length();
+        return length;
     }
 
     public IoRequestKind getKind() {
@@ -141,4 +162,16 @@ public class IoRequest {
     public void setStart(final int pos) {
         start = pos;
     }
+
+    /**
+     * @return the position in the whole output of the console, see
+     *         {@link ConsoleHistory}
+     */
+    long getPosition() {
+        return position;
+    }
+
+    void setPosition(final long position) {
+        this.position = position;
+    }
 }
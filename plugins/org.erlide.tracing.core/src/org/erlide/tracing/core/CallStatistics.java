@@ -0,0 +1,280 @@
+package org.erlide.tracing.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.RpcException;
+import org.erlide.runtime.rpc.RpcFuture;
+import org.erlide.tracing.core.mvc.model.TracePattern;
+import org.erlide.util.ErlLogger;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangRangeException;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.google.common.collect.Lists;
+
+/**
+ * Call-count aggregation on traced nodes. Instead of sending a message for every call,
+ * the runtime of each traced node counts calls and call times of the functions matching
+ * the trace patterns (<code>call_count</code> and <code>call_time</code> trace pattern
+ * flags). Only the totals are transferred when tracing stops.
+ * <p>
+ * Every call is counted: there is no sampling and no rate limit, and only the total
+ * time is known, not its distribution.
+ * <p>
+ * The totals are returned as messages
+ * <code>{call_stats, Node, {Module, Function, Arity}, Count, Microseconds, [{Pid, Count, Microseconds}]}</code>.
+ * </p>
+ */
+public class CallStatistics {
+
+    public static final String ATOM_CALL_STATS = "call_stats";
+
+    private static final OtpErlangAtom ANY = new OtpErlangAtom("_");
+    private static final OtpErlangAtom BADRPC = new OtpErlangAtom("badrpc");
+    private static final OtpErlangAtom CALL_COUNT = new OtpErlangAtom("call_count");
+    private static final OtpErlangAtom CALL_TIME = new OtpErlangAtom("call_time");
+    private static final OtpErlangList FLAGS = new OtpErlangList(
+            new OtpErlangObject[] { CallStatistics.CALL_COUNT, CallStatistics.CALL_TIME });
+
+    private final IOtpRpc rpc;
+    private final List<String> nodes;
+    private final List<TracePattern> patterns = Lists.newArrayList();
+
+    /**
+     * @param rpc
+     *            connection to tracer node
+     * @param nodes
+     *            names of traced nodes
+     * @param tracePatterns
+     *            trace patterns (only enabled ones are used)
+     */
+    public CallStatistics(final IOtpRpc rpc, final List<String> nodes,
+            final Collection<TracePattern> tracePatterns) {
+        this.rpc = rpc;
+        this.nodes = nodes;
+        for (final TracePattern pattern : tracePatterns) {
+            if (pattern.isEnabled()) {
+                patterns.add(pattern);
+            }
+        }
+    }
+
+    /**
+     * Starts counting calls on all nodes.
+     */
+    public void start() {
+        final List<Call> calls = Lists.newArrayList();
+        for (final String node : nodes) {
+            for (final TracePattern pattern : patterns) {
+                calls.add(new Call(node, "erlang", "trace_pattern", toMfa(pattern),
+                        new OtpErlangAtom("true"), CallStatistics.FLAGS));
+            }
+        }
+        getResults(calls);
+    }
+
+    /**
+     * Reads totals and stops counting calls. The nodes are asked in parallel: each step
+     * sends all its calls before waiting for any answer.
+     *
+     * @return call statistics messages
+     */
+    public List<OtpErlangObject> stop() {
+        final List<Call> functions = Lists.newArrayList();
+        for (final String node : nodes) {
+            for (final TracePattern pattern : patterns) {
+                functions.add(new Call(node, pattern.getModuleName(), "module_info",
+                        new OtpErlangAtom("functions")));
+            }
+        }
+        getResults(functions);
+
+        // count and time of each function
+        final List<Call> infos = Lists.newArrayList();
+        final Iterator<Call> function = functions.iterator();
+        for (final String node : nodes) {
+            for (final TracePattern pattern : patterns) {
+                for (final OtpErlangTuple mfa : expand(pattern, function.next().result)) {
+                    infos.add(new Call(node, "erlang", "trace_info", mfa,
+                            CallStatistics.CALL_COUNT));
+                    infos.add(new Call(node, "erlang", "trace_info", mfa,
+                            CallStatistics.CALL_TIME));
+                }
+            }
+        }
+        getResults(infos);
+
+        final List<OtpErlangObject> result = Lists.newArrayList();
+        for (int i = 0; i < infos.size(); i += 2) {
+            final OtpErlangObject stats = CallStatistics.toStats(infos.get(i),
+                    infos.get(i + 1).result);
+            if (stats != null) {
+                result.add(stats);
+            }
+        }
+
+        final List<Call> stops = Lists.newArrayList();
+        for (final String node : nodes) {
+            for (final TracePattern pattern : patterns) {
+                stops.add(new Call(node, "erlang", "trace_pattern", toMfa(pattern),
+                        new OtpErlangAtom("false"), CallStatistics.FLAGS));
+            }
+        }
+        getResults(stops);
+        return result;
+    }
+
+    /**
+     * Trace info can be read only for single functions, so patterns are expanded to
+     * all matching functions of the module.
+     *
+     * @param functions
+     *            the module's <code>module_info(functions)</code>
+     */
+    private List<OtpErlangTuple> expand(final TracePattern pattern,
+            final OtpErlangObject functions) {
+        final List<OtpErlangTuple> result = Lists.newArrayList();
+        if (!(functions instanceof OtpErlangList)) {
+            return result;
+        }
+        final OtpErlangAtom module = new OtpErlangAtom(pattern.getModuleName());
+        final OtpErlangObject name = toName(pattern.getFunctionName());
+        for (final OtpErlangObject o : (OtpErlangList) functions) {
+            final OtpErlangTuple fa = (OtpErlangTuple) o;
+            try {
+                if ((CallStatistics.ANY.equals(name) || name.equals(fa.elementAt(0)))
+                        && (pattern.getArity() < 0 || pattern.getArity() == ((OtpErlangLong) fa
+                                .elementAt(1)).intValue())) {
+                    result.add(new OtpErlangTuple(new OtpErlangObject[] { module,
+                            fa.elementAt(0), fa.elementAt(1) }));
+                }
+            } catch (final OtpErlangRangeException e) {
+                ErlLogger.warn(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param count
+     *            the <code>trace_info(MFA, call_count)</code> call
+     * @param time
+     *            result of <code>trace_info(MFA, call_time)</code>
+     */
+    private static OtpErlangObject toStats(final Call count, final OtpErlangObject time) {
+        if (!(count.result instanceof OtpErlangTuple)
+                || !(((OtpErlangTuple) count.result)
+                        .elementAt(1) instanceof OtpErlangLong)) {
+            return null;
+        }
+        final OtpErlangLong calls = (OtpErlangLong) ((OtpErlangTuple) count.result)
+                .elementAt(1);
+        if (calls.longValue() == 0) {
+            return null;
+        }
+        long total = 0;
+        final List<OtpErlangObject> perProcess = Lists.newArrayList();
+        if (time instanceof OtpErlangTuple
+                && ((OtpErlangTuple) time).elementAt(1) instanceof OtpErlangList) {
+            // [{Pid, Count, S, Us}]
+            for (final OtpErlangObject o : (OtpErlangList) ((OtpErlangTuple) time)
+                    .elementAt(1)) {
+                final OtpErlangTuple t = (OtpErlangTuple) o;
+                final long us = ((OtpErlangLong) t.elementAt(2)).longValue() * 1000000
+                        + ((OtpErlangLong) t.elementAt(3)).longValue();
+                total += us;
+                perProcess.add(new OtpErlangTuple(new OtpErlangObject[] { t.elementAt(0),
+                        t.elementAt(1), new OtpErlangLong(us) }));
+            }
+        }
+        return new OtpErlangTuple(new OtpErlangObject[] {
+                new OtpErlangAtom(CallStatistics.ATOM_CALL_STATS),
+                new OtpErlangAtom(count.node), count.args[0], calls,
+                new OtpErlangLong(total),
+                new OtpErlangList(perProcess.toArray(new OtpErlangObject[0])) });
+    }
+
+    private OtpErlangTuple toMfa(final TracePattern pattern) {
+        return new OtpErlangTuple(new OtpErlangObject[] {
+                new OtpErlangAtom(pattern.getModuleName()),
+                toName(pattern.getFunctionName()), pattern.getArity() < 0
+                        ? CallStatistics.ANY : new OtpErlangLong(pattern.getArity()) });
+    }
+
+    private OtpErlangObject toName(final String functionName) {
+        if (functionName == null || functionName.isEmpty()) {
+            return CallStatistics.ANY;
+        }
+        return new OtpErlangAtom(functionName);
+    }
+
+    /**
+     * Sends all calls, then waits for their results.
+     */
+    private void getResults(final List<Call> calls) {
+        for (final Call call : calls) {
+            call.send(rpc);
+        }
+        for (final Call call : calls) {
+            call.receive();
+        }
+    }
+
+    /**
+     * A call of a function on a traced node (through the tracer node). Its result is
+     * <code>null</code> if it failed.
+     */
+    private static class Call {
+        final String node;
+        final String module;
+        final String function;
+        final OtpErlangObject[] args;
+        RpcFuture future;
+        OtpErlangObject result;
+
+        Call(final String node, final String module, final String function,
+                final OtpErlangObject... args) {
+            this.node = node;
+            this.module = module;
+            this.function = function;
+            this.args = args;
+        }
+
+        void send(final IOtpRpc rpc) {
+            try {
+                future = rpc.async_call("rpc", "call", "aaax", node, module, function,
+                        new OtpErlangList(args));
+            } catch (final RpcException e) {
+                ErlLogger.warn("Call %s:%s on %s failed: %s", module, function, node,
+                        e.getMessage());
+            }
+        }
+
+        void receive() {
+            if (future == null) {
+                return;
+            }
+            try {
+                result = future.checkedGet();
+            } catch (final RpcException e) {
+                ErlLogger.warn("Call %s:%s on %s failed: %s", module, function, node,
+                        e.getMessage());
+                return;
+            }
+            if (result instanceof OtpErlangTuple && ((OtpErlangTuple) result).arity() == 2
+                    && CallStatistics.BADRPC
+                            .equals(((OtpErlangTuple) result).elementAt(0))) {
+                ErlLogger.warn("Call %s:%s on %s failed: %s", module, function, node,
+                        result);
+                result = null;
+            }
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package org.erlide.tracing.core;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -7,6 +9,7 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.erlide.backend.BackendCore;
@@ -18,12 +21,14 @@ import org.erlide.runtime.rpc.RpcException;
 import org.erlide.runtime.runtimeinfo.RuntimeInfo;
 import org.erlide.tracing.core.mvc.model.TraceCollections;
 import org.erlide.tracing.core.mvc.model.TracePattern;
+import org.erlide.tracing.core.mvc.model.TraceStore;
 import org.erlide.tracing.core.mvc.model.TracedNode;
 import org.erlide.tracing.core.mvc.model.TracedProcess;
 import org.erlide.tracing.core.mvc.model.treenodes.ITreeNode;
 import org.erlide.tracing.core.mvc.model.treenodes.TracingResultsNode;
 import org.erlide.tracing.core.preferences.PreferenceNames;
 import org.erlide.tracing.core.utils.TraceDataHandler;
+import org.erlide.tracing.core.utils.TraceFileIndex;
 import org.erlide.util.ErlLogger;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
@@ -51,6 +56,7 @@ public class TraceBackend {
     private static final String FUN_TPL = "tpl";
     private static final String FUN_START = "start";
     private static final String FUN_FILE_INFO = "get_file_info";
+    private static final String INDEX_DIR = "trace_index";
     private static final String FUN_LOAD = "load";
 
     private final Set<TracePattern> tracePatterns = new LinkedHashSet<>();
@@ -74,6 +80,12 @@ public class TraceBackend {
     private Object errorObject;
     private long startIndex;
     private TracingResultsNode activeResultSet;
+    private TraceFileIndex fileIndex;
+    private String fileIndexPath;
+    /** indexes of the shown traces when they are filtered, <code>null</code> if not */
+    private long[] filteredTraces;
+    private boolean callStatisticsMode;
+    private CallStatistics callStatistics;
 
     private TraceBackend() {
     }
@@ -97,24 +109,33 @@ public class TraceBackend {
                 return;
             }
             final OtpErlangObject message = event.getEvent();
-            if (message != null) {
-                OtpErlangObject errorReason = null;
-                // System.out.println("data: " + data);
-                if (dataHandler.isTracingFinished(message)) {
-                    finishLoading(firstTrace ? TracingStatus.EMPTY : TracingStatus.OK);
-                } else if ((errorReason = dataHandler.getErrorReson(message)) != null) {
-                    errorObject = errorReason;
-                    finishLoading(TracingStatus.ERROR);
-                } else {
-                    final ITreeNode newNode = dataHandler.getData(message);
-                    if (newNode != null) {
-                        firstTrace = false;
-                        if (!loadingFileInfo) {
-                            TraceCollections.getTracesList().add(newNode);
-                        } else {
-                            TraceCollections.getFilesList().add(newNode);
-                        }
-                    }
+            if (message instanceof OtpErlangList) {
+                // tracer node sends queued messages in one event
+                for (final OtpErlangObject element : (OtpErlangList) message) {
+                    handleMessage(element);
+                }
+            } else if (message != null) {
+                handleMessage(message);
+            }
+        }
+
+        private void handleMessage(final OtpErlangObject message) {
+            OtpErlangObject errorReason = null;
+            if (dataHandler.isTracingFinished(message)) {
+                finishLoading(firstTrace ? TracingStatus.EMPTY : TracingStatus.OK);
+            } else if ((errorReason = dataHandler.getErrorReson(message)) != null) {
+                errorObject = errorReason;
+                finishLoading(TracingStatus.ERROR);
+            } else if (!loadingFileInfo) {
+                // trace events are only stored, tree nodes are created when displayed
+                if (TraceCollections.getTraces().add(message)) {
+                    firstTrace = false;
+                }
+            } else {
+                final ITreeNode newNode = dataHandler.getData(message);
+                if (newNode != null) {
+                    firstTrace = false;
+                    TraceCollections.getFilesList().add(newNode);
                 }
             }
         }
@@ -186,7 +207,14 @@ public class TraceBackend {
                         if (TracingStatus.OK.equals(status)
                                 || TracingStatus.NOT_ALL_NODES_ACTIVATED.equals(status)) {
                             setProcessFlags();
-                            setFunctionTracePatterns();
+                            if (callStatisticsMode) {
+                                callStatistics = new CallStatistics(
+                                        tracerBackend.getOtpRpc(), activatedNodes,
+                                        tracePatterns);
+                                callStatistics.start();
+                            } else {
+                                setFunctionTracePatterns();
+                            }
                             for (final ITraceNodeObserver listener : listeners) {
                                 try {
                                     listener.startTracing();
@@ -288,6 +316,9 @@ public class TraceBackend {
                 if (tracing && !loading) {
                     try {
                         loading = true;
+                        if (callStatistics != null) {
+                            loadCallStatistics();
+                        }
                         tracerBackend.getOtpRpc().call(Constants.ERLANG_HELPER_MODULE,
                                 TraceBackend.FUN_STOP, "");
                     } catch (final RpcException e) {
@@ -300,6 +331,29 @@ public class TraceBackend {
         }
     }
 
+    /**
+     * Replaces displayed traces with call statistics gathered on traced nodes.
+     */
+    private void loadCallStatistics() {
+        final List<OtpErlangObject> stats = callStatistics.stop();
+        callStatistics = null;
+        activeResultSet = null;
+        closeFileIndex();
+        final TraceStore traces = TraceCollections.getTraces();
+        traces.clear();
+        for (final OtpErlangObject message : stats) {
+            traces.add(message);
+        }
+        for (final ITraceNodeObserver listener : listeners) {
+            try {
+                listener.finishLoadingTraces(
+                        traces.isEmpty() ? TracingStatus.EMPTY : TracingStatus.OK);
+            } catch (final Exception e) {
+                ErlLogger.error(e);
+            }
+        }
+    }
+
     /**
      * Loads information about given file.
      *
@@ -347,9 +401,14 @@ public class TraceBackend {
                         loading = true;
                         loadingFileInfo = false;
                         startIndex = theStartIndex;
+                        final TraceFileIndex index = getFileIndex(activeResultSet);
+                        if (index != null) {
+                            loadDataFromIndex(index, theStartIndex, endIndex);
+                            return;
+                        }
                         handler = new TraceEventHandler();
                         getBackend(true);
-                        TraceCollections.getTracesList().clear();
+                        TraceCollections.getTraces().clear();
                         tracerBackend.getRuntime().registerEventListener(handler);
                         final OtpErlangLong start = new OtpErlangLong(theStartIndex);
                         final OtpErlangLong stop = new OtpErlangLong(endIndex);
@@ -367,13 +426,129 @@ public class TraceBackend {
         }
     }
 
+    /**
+     * Shows only the traces of active result set that are accepted by filter and loads
+     * the first of them. The trace log is scanned in parallel, so only result sets with a
+     * single trace log can be filtered.
+     *
+     * @param filter
+     *            filter for trace messages, <code>null</code> to show all traces
+     * @param endIndex
+     *            number of last trace to load
+     */
+    public void filterDataFromFile(final Predicate<OtpErlangObject> filter,
+            final long endIndex) {
+        if (!tracing && !loading) {
+            synchronized (this) {
+                if (!tracing && !loading) {
+                    loading = true;
+                    loadingFileInfo = false;
+                    final TraceFileIndex index = getFileIndex(activeResultSet);
+                    filteredTraces = null;
+                    if (filter != null) {
+                        if (index == null) {
+                            errorObject = "only results with a single trace log"
+                                    + " can be filtered";
+                            finishLoading(TracingStatus.ERROR);
+                            return;
+                        }
+                        try {
+                            filteredTraces = index.scan(filter);
+                        } catch (final IOException e) {
+                            ErlLogger.error(e);
+                            errorObject = e;
+                            finishLoading(TracingStatus.EXCEPTION_THROWN);
+                            return;
+                        }
+                    }
+                    loading = false;
+                    loadDataFromFile(1, endIndex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns number of traces in active result set that are shown, i.e. the ones
+     * accepted by the filter when traces are filtered.
+     *
+     * @return number of traces
+     */
+    public long getTraceCount() {
+        if (filteredTraces != null) {
+            return filteredTraces.length;
+        }
+        return activeResultSet == null ? 0 : activeResultSet.getSize();
+    }
+
+    /**
+     * @return <code>true</code> if only traces accepted by a filter are shown
+     */
+    public boolean isFiltered() {
+        return filteredTraces != null;
+    }
+
+    /**
+     * Returns index of file with given results, it is used instead of loading the traces
+     * through the tracer node. Only files with a single trace log can be indexed.
+     *
+     * @return index or <code>null</code> if there is none
+     */
+    private TraceFileIndex getFileIndex(final TracingResultsNode results) {
+        if (fileIndex != null && results.getFileName().equals(fileIndexPath)) {
+            return fileIndex;
+        }
+        closeFileIndex();
+        final File indexDir = Activator.getDefault().getStateLocation()
+                .append(TraceBackend.INDEX_DIR).toFile();
+        final TraceFileIndex index = TraceFileIndex.open(results.getFileName(), indexDir);
+        if (index != null && index.size() != results.getSize()) {
+            // not what the tracer node reads from this file
+            index.close();
+            return null;
+        }
+        fileIndex = index;
+        fileIndexPath = results.getFileName();
+        return index;
+    }
+
+    private void closeFileIndex() {
+        if (fileIndex != null) {
+            fileIndex.close();
+            fileIndex = null;
+            fileIndexPath = null;
+        }
+        filteredTraces = null;
+    }
+
+    private void loadDataFromIndex(final TraceFileIndex index, final long theStartIndex,
+            final long endIndex) {
+        final TraceStore traces = TraceCollections.getTraces();
+        traces.clear();
+        try {
+            final int max = (int) (endIndex - theStartIndex + 1);
+            final List<OtpErlangObject> messages = filteredTraces != null
+                    ? index.read(filteredTraces, (int) theStartIndex - 1, max)
+                    : index.read(theStartIndex - 1, max);
+            for (final OtpErlangObject message : messages) {
+                traces.add(message);
+            }
+            finishLoading(traces.isEmpty() ? TracingStatus.EMPTY : TracingStatus.OK);
+        } catch (final IOException e) {
+            ErlLogger.error(e);
+            errorObject = e;
+            finishLoading(TracingStatus.EXCEPTION_THROWN);
+        }
+    }
+
     /**
      * Removes tracing results from list.
      */
     public synchronized void clearTraceLists() {
         activeResultSet = null;
+        closeFileIndex();
         TraceCollections.getFilesList().clear();
-        TraceCollections.getTracesList().clear();
+        TraceCollections.getTraces().clear();
         for (final ITraceNodeObserver listener : listeners) {
             try {
                 listener.removeFile();
@@ -391,8 +566,9 @@ public class TraceBackend {
      */
     public synchronized void removeTracingResult(final TracingResultsNode tracingResult) {
         activeResultSet = null;
+        closeFileIndex();
         TraceCollections.getFilesList().remove(tracingResult);
-        TraceCollections.getTracesList().clear();
+        TraceCollections.getTraces().clear();
         for (final ITraceNodeObserver listener : listeners) {
             try {
                 listener.removeFile();
@@ -438,7 +614,13 @@ public class TraceBackend {
         tracing = false;
     }
 
-    private OtpErlangObject[] createProcessFlagsArray(final Set<ProcessFlag> set) {
+    private OtpErlangObject[] createProcessFlagsArray(final Set<ProcessFlag> flags) {
+        Set<ProcessFlag> set = flags;
+        if (callStatisticsMode && !set.contains(ProcessFlag.CALL)) {
+            // call times are measured only in processes with call flag
+            set = new HashSet<>(flags);
+            set.add(ProcessFlag.CALL);
+        }
         final OtpErlangObject[] array = new OtpErlangObject[set.size()];
         final Iterator<ProcessFlag> iterator = set.iterator();
         int i = 0;
@@ -523,6 +705,20 @@ public class TraceBackend {
         processFlags.clear();
     }
 
+    /**
+     * Checks if only call statistics are gathered (see {@link CallStatistics}).
+     *
+     * @return <code>true</code> if only call statistics are gathered,
+     *         <code>false</code> if trace events are sent
+     */
+    public boolean isCallStatisticsMode() {
+        return callStatisticsMode;
+    }
+
+    public void setCallStatisticsMode(final boolean callStatisticsMode) {
+        this.callStatisticsMode = callStatisticsMode;
+    }
+
     public ProcessMode getProcessMode() {
         return processMode;
     }
@@ -564,6 +760,7 @@ public class TraceBackend {
      */
     public void setActiveResultSet(final TracingResultsNode results) {
         activeResultSet = results;
+        filteredTraces = null;
     }
 
     public TracingResultsNode getActiveResultSet() {
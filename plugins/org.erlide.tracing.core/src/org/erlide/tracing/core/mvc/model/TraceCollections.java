@@ -1,6 +1,5 @@
 package org.erlide.tracing.core.mvc.model;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.TreeSet;
@@ -20,8 +19,7 @@ public final class TraceCollections {
 
     private static final Collection<ITreeNode> filesList = Collections
             .synchronizedSortedSet(new TreeSet<ITreeNode>());
-    private static final Collection<ITreeNode> tracesList = Collections
-            .synchronizedList(new ArrayList<ITreeNode>());
+    private static final TraceStore traces = new TraceStore();
 
     /**
      * Returns collection of nodes that represents files with tracing results.
@@ -33,11 +31,11 @@ public final class TraceCollections {
     }
 
     /**
-     * Returns collection of nodes that represents trace events.
+     * Returns store of trace events.
      *
-     * @return list
+     * @return store
      */
-    public static Collection<ITreeNode> getTracesList() {
-        return TraceCollections.tracesList;
+    public static TraceStore getTraces() {
+        return TraceCollections.traces;
     }
 }
@@ -0,0 +1,309 @@
+package org.erlide.tracing.core.mvc.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.erlide.tracing.core.CallStatistics;
+import org.erlide.tracing.core.TraceType;
+import org.erlide.util.ErlLogger;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangRangeException;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpInputStream;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Compact store of the received trace events. Each event is kept as a row in a few
+ * columns (timestamp, process, type, function) plus its encoded term, tree nodes are
+ * only created for the rows that are displayed.
+ * <p>
+ * Processes and functions are kept once in tables and referred to by index.
+ * </p>
+ */
+public class TraceStore {
+
+    /** Type of rows that report dropped traces. */
+    public static final int TYPE_DROP = -1;
+    /** Type of rows that are not trace events (e.g. call statistics). */
+    public static final int TYPE_OTHER = -2;
+
+    private static final String ATOM_TRACE_TS = "trace_ts";
+    private static final String ATOM_DROP = "drop";
+    private static final int INDEX_PROCESS = 1;
+    private static final int INDEX_TRACE_TYPE = 2;
+    private static final int INDEX_FUNCTION = 3;
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int INITIAL_ROWS = 1024;
+
+    private int size;
+    private long[] timestamps = new long[TraceStore.INITIAL_ROWS];
+    private int[] processes = new int[TraceStore.INITIAL_ROWS];
+    private byte[] types = new byte[TraceStore.INITIAL_ROWS];
+    private int[] functions = new int[TraceStore.INITIAL_ROWS];
+    /** chunk index in the high int, position in the low int */
+    private long[] payloadOffsets = new long[TraceStore.INITIAL_ROWS];
+    private int[] payloadLengths = new int[TraceStore.INITIAL_ROWS];
+
+    private final List<byte[]> chunks = Lists.newArrayList();
+    private int chunkPos = TraceStore.CHUNK_SIZE;
+
+    private final List<OtpErlangObject> processTable = Lists.newArrayList();
+    private final Map<OtpErlangObject, Integer> processIndex = Maps.newHashMap();
+    private final List<OtpErlangObject> functionTable = Lists.newArrayList();
+    private final Map<OtpErlangObject, Integer> functionIndex = Maps.newHashMap();
+
+    /**
+     * Adds trace event (or drop information).
+     *
+     * @param message
+     *            message received from the tracer
+     * @return <code>true</code> if message was stored, <code>false</code> if it is not
+     *         a trace event
+     */
+    public synchronized boolean add(final OtpErlangObject message) {
+        if (!(message instanceof OtpErlangTuple)) {
+            return false;
+        }
+        ensureCapacity(size + 1);
+        timestamps[size] = 0;
+        processes[size] = -1;
+        types[size] = TraceStore.TYPE_OTHER;
+        functions[size] = -1;
+        if (!readColumns((OtpErlangTuple) message)) {
+            return false;
+        }
+        storePayload(message);
+        size++;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized void clear() {
+        size = 0;
+        chunks.clear();
+        chunkPos = TraceStore.CHUNK_SIZE;
+        processTable.clear();
+        processIndex.clear();
+        functionTable.clear();
+        functionIndex.clear();
+        final int n = TraceStore.INITIAL_ROWS;
+        timestamps = new long[n];
+        processes = new int[n];
+        types = new byte[n];
+        functions = new int[n];
+        payloadOffsets = new long[n];
+        payloadLengths = new int[n];
+    }
+
+    /**
+     * @return time of event (in milliseconds), 0 if unknown
+     */
+    public synchronized long getTimestamp(final int row) {
+        checkRow(row);
+        return timestamps[row];
+    }
+
+    /**
+     * @return ordinal of {@link TraceType}, {@link #TYPE_DROP} or {@link #TYPE_OTHER}
+     */
+    public synchronized int getType(final int row) {
+        checkRow(row);
+        return types[row];
+    }
+
+    /**
+     * @return process description (pid or tuple) or <code>null</code>
+     */
+    public synchronized OtpErlangObject getProcess(final int row) {
+        checkRow(row);
+        final int index = processes[row];
+        return index < 0 ? null : processTable.get(index);
+    }
+
+    /**
+     * @return <code>{Module, Function, Arity}</code> tuple or <code>null</code>
+     */
+    public synchronized OtpErlangObject getFunction(final int row) {
+        checkRow(row);
+        final int index = functions[row];
+        return index < 0 ? null : functionTable.get(index);
+    }
+
+    /**
+     * Decodes message stored in given row.
+     *
+     * @param row
+     *            row index
+     * @return message as it was received
+     */
+    public synchronized OtpErlangObject getMessage(final int row) {
+        checkRow(row);
+        final long offset = payloadOffsets[row];
+        final byte[] chunk = chunks.get((int) (offset >>> 32));
+        final int pos = (int) offset;
+        try {
+            return new OtpInputStream(
+                    Arrays.copyOfRange(chunk, pos, pos + payloadLengths[row]))
+                            .read_any();
+        } catch (final OtpErlangDecodeException e) {
+            ErlLogger.error(e);
+            return null;
+        }
+    }
+
+    private void checkRow(final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row + " / " + size);
+        }
+    }
+
+    private boolean readColumns(final OtpErlangTuple tuple) {
+        if (tuple.arity() == 0 || !(tuple.elementAt(0) instanceof OtpErlangAtom)) {
+            return false;
+        }
+        final String tag = ((OtpErlangAtom) tuple.elementAt(0)).atomValue();
+        if (TraceStore.ATOM_DROP.equals(tag)) {
+            types[size] = TraceStore.TYPE_DROP;
+            return true;
+        }
+        if (CallStatistics.ATOM_CALL_STATS.equals(tag) && tuple.arity() > 2) {
+            functions[size] = intern(tuple.elementAt(2), functionTable, functionIndex);
+            return true;
+        }
+        if (!TraceStore.ATOM_TRACE_TS.equals(tag) || tuple.arity() < 4) {
+            return false;
+        }
+        TraceType type = null;
+        try {
+            final String typeName = ((OtpErlangAtom) tuple
+                    .elementAt(TraceStore.INDEX_TRACE_TYPE)).atomValue();
+            type = TraceType.valueOf(typeName.toUpperCase());
+            types[size] = (byte) type.ordinal();
+        } catch (final RuntimeException e) {
+            // unknown trace type, keep TYPE_OTHER
+        }
+        processes[size] = intern(tuple.elementAt(TraceStore.INDEX_PROCESS), processTable,
+                processIndex);
+        final OtpErlangObject function = tuple.elementAt(TraceStore.INDEX_FUNCTION);
+        if (TraceStore.hasFunction(type) && function instanceof OtpErlangTuple
+                && ((OtpErlangTuple) function).arity() == 3) {
+            functions[size] = intern(toMfa((OtpErlangTuple) function), functionTable,
+                    functionIndex);
+        }
+        timestamps[size] = readTimestamp(tuple.elementAt(tuple.arity() - 1));
+        return true;
+    }
+
+    private static boolean hasFunction(final TraceType type) {
+        if (type == null) {
+            return false;
+        }
+        switch (type) {
+        case CALL:
+        case RETURN_FROM:
+        case RETURN_TO:
+        case EXCEPTION_FROM:
+        case IN:
+        case OUT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Function tuples can contain arguments instead of arity, only the arity is kept.
+     */
+    private OtpErlangObject toMfa(final OtpErlangTuple function) {
+        final OtpErlangObject args = function.elementAt(2);
+        if (args instanceof OtpErlangList) {
+            // first element of arguments list is not an argument (see TraceDataHandler)
+            return new OtpErlangTuple(new OtpErlangObject[] { function.elementAt(0),
+                    function.elementAt(1),
+                    new OtpErlangLong(((OtpErlangList) args).arity() - 1) });
+        }
+        return function;
+    }
+
+    private static int intern(final OtpErlangObject value,
+            final List<OtpErlangObject> table, final Map<OtpErlangObject, Integer> index) {
+        final Integer known = index.get(value);
+        if (known != null) {
+            return known;
+        }
+        final int result = table.size();
+        table.add(value);
+        index.put(value, result);
+        return result;
+    }
+
+    /**
+     * Reads <code>{date(), time()}</code> tuple.
+     */
+    private static long readTimestamp(final OtpErlangObject object) {
+        if (!(object instanceof OtpErlangTuple)) {
+            return 0;
+        }
+        try {
+            final OtpErlangTuple tuple = (OtpErlangTuple) object;
+            final OtpErlangTuple date = (OtpErlangTuple) tuple.elementAt(0);
+            final OtpErlangTuple time = (OtpErlangTuple) tuple.elementAt(1);
+            return LocalDateTime
+                    .of(((OtpErlangLong) date.elementAt(0)).intValue(),
+                            ((OtpErlangLong) date.elementAt(1)).intValue(),
+                            ((OtpErlangLong) date.elementAt(2)).intValue(),
+                            ((OtpErlangLong) time.elementAt(0)).intValue(),
+                            ((OtpErlangLong) time.elementAt(1)).intValue(),
+                            ((OtpErlangLong) time.elementAt(2)).intValue())
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (final OtpErlangRangeException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private void storePayload(final OtpErlangObject message) {
+        final OtpOutputStream out = new OtpOutputStream();
+        out.write_any(message);
+        final int length = out.size();
+        if (chunkPos + length > TraceStore.CHUNK_SIZE) {
+            chunks.add(new byte[Math.max(TraceStore.CHUNK_SIZE, length)]);
+            chunkPos = 0;
+        }
+        final byte[] chunk = chunks.get(chunks.size() - 1);
+        System.arraycopy(out.toByteArray(), 0, chunk, chunkPos, length);
+        payloadOffsets[size] = (long) (chunks.size() - 1) << 32 | chunkPos;
+        payloadLengths[size] = length;
+        chunkPos += length;
+    }
+
+    private void ensureCapacity(final int rows) {
+        if (rows <= timestamps.length) {
+            return;
+        }
+        final int n = Math.max(rows, timestamps.length * 2);
+        timestamps = Arrays.copyOf(timestamps, n);
+        processes = Arrays.copyOf(processes, n);
+        types = Arrays.copyOf(types, n);
+        functions = Arrays.copyOf(functions, n);
+        payloadOffsets = Arrays.copyOf(payloadOffsets, n);
+        payloadLengths = Arrays.copyOf(payloadLengths, n);
+    }
+
+}
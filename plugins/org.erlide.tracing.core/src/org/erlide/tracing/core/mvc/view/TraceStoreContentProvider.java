@@ -0,0 +1,92 @@
+package org.erlide.tracing.core.mvc.view;
+
+import java.util.List;
+
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.erlide.tracing.core.mvc.model.TraceStore;
+import org.erlide.tracing.core.mvc.model.treenodes.ITreeNode;
+import org.erlide.tracing.core.mvc.model.treenodes.TreeNode;
+import org.erlide.tracing.core.utils.TraceDataHandler;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+
+/**
+ * Lazy content provider for virtual tree displaying {@link TraceStore}. Tree nodes are
+ * created from stored trace events only when their rows become visible.
+ */
+public class TraceStoreContentProvider implements ILazyTreeContentProvider {
+
+    private final TreeViewer treeViewer;
+    private final TraceDataHandler dataHandler = new TraceDataHandler();
+    private TraceStore store;
+
+    /**
+     * Creates content provider.
+     *
+     * @param treeViewer
+     *            tree viewer (created with <code>SWT.VIRTUAL</code> style) that will be
+     *            using this content provider
+     */
+    public TraceStoreContentProvider(final TreeViewer treeViewer) {
+        this.treeViewer = treeViewer;
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    @Override
+    public void inputChanged(final Viewer viewer, final Object oldInput,
+            final Object newInput) {
+        store = (TraceStore) newInput;
+    }
+
+    @Override
+    public void updateElement(final Object parent, final int index) {
+        final ITreeNode node;
+        if (parent == store) {
+            if (index >= store.size()) {
+                return;
+            }
+            node = createNode(index);
+        } else {
+            final List<ITreeNode> children = ((ITreeNode) parent).getChildren();
+            if (index >= children.size()) {
+                return;
+            }
+            node = children.get(index);
+        }
+        treeViewer.replace(parent, index, node);
+        treeViewer.setChildCount(node, node.getChildren().size());
+    }
+
+    @Override
+    public void updateChildCount(final Object element, final int currentChildCount) {
+        final int count;
+        if (element == store) {
+            count = store.size();
+        } else {
+            count = ((ITreeNode) element).getChildren().size();
+        }
+        if (count != currentChildCount) {
+            treeViewer.setChildCount(element, count);
+        }
+    }
+
+    @Override
+    public Object getParent(final Object element) {
+        return null;
+    }
+
+    private ITreeNode createNode(final int index) {
+        final OtpErlangObject message = store.getMessage(index);
+        ITreeNode node = message == null ? null : dataHandler.getData(message);
+        if (node == null) {
+            node = new TreeNode(String.valueOf(message));
+        }
+        return node;
+    }
+
+}
@@ -5,6 +5,7 @@ import java.util.Calendar;
 import java.util.Date;
 
 import org.erlide.tracing.core.Activator;
+import org.erlide.tracing.core.CallStatistics;
 import org.erlide.tracing.core.Images;
 import org.erlide.tracing.core.TraceType;
 import org.erlide.tracing.core.mvc.model.treenodes.FunctionNode;
@@ -194,6 +195,8 @@ public class TraceDataHandler {
                 } else if (atomValue.equals(TraceDataHandler.ATOM_DROP)) {
                     // drop information: {drop, Long}
                     return processDropTrace(tuple);
+                } else if (atomValue.equals(CallStatistics.ATOM_CALL_STATS)) {
+                    return processCallStats(tuple);
                 }
             }
         } catch (final Exception e) {
@@ -246,6 +249,32 @@ public class TraceDataHandler {
         return node;
     }
 
+    private ITreeNode processCallStats(final OtpErlangTuple tuple) {
+        // {call_stats, Node, {M, F, A}, Count, Us, [{Pid, Count, Us}]}
+        final OtpErlangObject node = tuple.elementAt(1);
+        final long count = ((OtpErlangLong) tuple.elementAt(3)).longValue();
+        final long time = ((OtpErlangLong) tuple.elementAt(4)).longValue();
+
+        final ITreeNode functionNode = createFunctionNode("", tuple.elementAt(2));
+        functionNode.setImage(Activator.getImage(Images.FUNCTION_NODE));
+        final String label = lastFunctionDescription + " (" + node + "): " + count
+                + " calls, " + time + " us, " + time / count + " us/call";
+        final ITreeNode result = new TreeNode(label,
+                Activator.getImage(Images.CALL_NODE));
+        result.addChildren(functionNode);
+
+        for (final OtpErlangObject o : (OtpErlangList) tuple.elementAt(5)) {
+            final OtpErlangTuple process = (OtpErlangTuple) o;
+            final ITreeNode processNode = new TreeNode(
+                    "process " + pid2Str((OtpErlangPid) process.elementAt(0)) + ": "
+                            + process.elementAt(1) + " calls, " + process.elementAt(2)
+                            + " us",
+                    Activator.getImage(Images.PROCESS_NODE));
+            result.addChildren(processNode);
+        }
+        return result;
+    }
+
     private ITreeNode processFileInfo(final OtpErlangTuple tuple) {
         TracingResultsNode node = null;
         if (tuple.elementAt(
@@ -0,0 +1,495 @@
+package org.erlide.tracing.core.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import org.erlide.tracing.core.TraceType;
+import org.erlide.util.ErlLogger;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpInputStream;
+import com.google.common.collect.Lists;
+
+/**
+ * Random access to a binary trace log (as written by the <code>dbg</code> file trace
+ * port). The log is a sequence of records <code>&lt;&lt;Op:8, Size:32&gt;&gt;</code>
+ * where <code>Op</code> 0 is followed by <code>Size</code> bytes of an encoded trace
+ * message and <code>Op</code> 1 reports <code>Size</code> dropped messages.
+ * <p>
+ * The offset of every {@value #STEP}th record is kept in a sparse index, which is built
+ * once and stored in a directory of ours (with suffix {@value #SUFFIX}), not among the
+ * trace results. Reading a record needs at most {@value #STEP} header reads from the
+ * nearest indexed offset. The log is read through a {@link FileChannel}, a window of
+ * {@value #WINDOW} bytes at a time; closing the index closes the file.
+ * </p>
+ * <p>
+ * Messages are returned like the tracer node sends them, i.e. with
+ * <code>{date(), time()}</code> timestamps.
+ * </p>
+ */
+public class TraceFileIndex implements Closeable {
+
+    public static final String SUFFIX = ".idx";
+
+    private static final int STEP = 256;
+    private static final int MAGIC = 0x45545849;
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final byte OP_TRACE = 0;
+    private static final byte OP_DROP = 1;
+    private static final String TRACE_INFO_SUFFIX = ".ti";
+    private static final int WINDOW = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long length;
+    private final long[] offsets;
+    private final long count;
+
+    /**
+     * Opens index of trace log. If path is a directory it has to contain exactly one
+     * trace log.
+     *
+     * @param path
+     *            path of trace log or directory containing it
+     * @param indexDir
+     *            directory where the index is stored
+     * @return index or <code>null</code> if path doesn't point to a single valid trace
+     *         log
+     */
+    public static TraceFileIndex open(final String path, final File indexDir) {
+        final File file = TraceFileIndex.findLog(new File(path));
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new TraceFileIndex(file, indexDir);
+        } catch (final IOException e) {
+            ErlLogger.warn("Could not index trace log %s: %s", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static File findLog(final File path) {
+        if (path.isFile()) {
+            return path;
+        }
+        final File[] files = path.listFiles(f -> f.isFile() && !f.isHidden()
+                && !f.getName().endsWith(TraceFileIndex.TRACE_INFO_SUFFIX));
+        return files != null && files.length == 1 ? files[0] : null;
+    }
+
+    private TraceFileIndex(final File file, final File indexDir) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        length = channel.size();
+        final File indexFile = TraceFileIndex.getIndexFile(file, indexDir);
+        long[] loaded = load(indexFile, file.lastModified());
+        if (loaded == null) {
+            try {
+                loaded = build();
+            } catch (final IOException e) {
+                close();
+                throw e;
+            }
+            store(indexFile, file.lastModified(), loaded);
+        }
+        count = loaded[0];
+        offsets = Arrays.copyOfRange(loaded, 1, loaded.length);
+    }
+
+    static File getIndexFile(final File log, final File indexDir) {
+        return new File(indexDir,
+                String.format("%s_%08x%s", log.getName(),
+                        log.getAbsolutePath().hashCode(), TraceFileIndex.SUFFIX));
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (final IOException e) {
+            ErlLogger.warn(e);
+        }
+    }
+
+    /**
+     * @return number of records in log
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Reads consecutive records.
+     *
+     * @param first
+     *            index of first record (0-based)
+     * @param max
+     *            maximum number of records to read
+     * @return messages
+     */
+    public List<OtpErlangObject> read(final long first, final int max)
+            throws IOException {
+        final List<OtpErlangObject> result = Lists.newArrayList();
+        if (first < 0 || first >= count) {
+            return result;
+        }
+        final Window window = new Window();
+        long pos = seek(window, first);
+        for (long i = first; i < count && result.size() < max; i++) {
+            result.add(decode(window, pos));
+            pos = next(window, pos);
+        }
+        return result;
+    }
+
+    /**
+     * Reads records found by {@link #scan(Predicate)}.
+     *
+     * @param records
+     *            sorted indexes of records
+     * @param first
+     *            position in records of first record to read
+     * @param max
+     *            maximum number of records to read
+     * @return messages
+     */
+    public List<OtpErlangObject> read(final long[] records, final int first,
+            final int max) throws IOException {
+        final List<OtpErlangObject> result = Lists.newArrayList();
+        final Window window = new Window();
+        long record = -1;
+        long pos = 0;
+        for (int i = Math.max(first, 0); i < records.length && result.size() < max; i++) {
+            // records of the same block are reached from the previous one
+            if (record < 0 || records[i] / TraceFileIndex.STEP != record
+                    / TraceFileIndex.STEP) {
+                record = records[i];
+                pos = seek(window, record);
+            }
+            for (; record < records[i]; record++) {
+                pos = next(window, pos);
+            }
+            result.add(decode(window, pos));
+        }
+        return result;
+    }
+
+    /**
+     * Finds records matching filter. Parts of the log are read in parallel.
+     *
+     * @param filter
+     *            filter for messages (as returned by {@link #read(long, int)})
+     * @return sorted indexes of matching records
+     */
+    public long[] scan(final Predicate<OtpErlangObject> filter) throws IOException {
+        try {
+            return IntStream.range(0, offsets.length).parallel()
+                    .mapToObj(block -> scanBlock(block, filter))
+                    .flatMapToLong(Arrays::stream).toArray();
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long[] scanBlock(final int block, final Predicate<OtpErlangObject> filter) {
+        final long first = (long) block * TraceFileIndex.STEP;
+        final long last = Math.min(count, first + TraceFileIndex.STEP);
+        final long[] result = new long[(int) (last - first)];
+        int n = 0;
+        final Window window = new Window();
+        try {
+            long pos = offsets[block];
+            for (long i = first; i < last; i++) {
+                if (filter.test(decode(window, pos))) {
+                    result[n++] = i;
+                }
+                pos = next(window, pos);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * @return filter accepting trace messages of given process
+     */
+    public static Predicate<OtpErlangObject> byProcess(final OtpErlangPid pid) {
+        return message -> {
+            final OtpErlangTuple trace = TraceFileIndex.asTrace(message);
+            if (trace == null) {
+                return false;
+            }
+            final OtpErlangObject process = trace.elementAt(1);
+            return pid.equals(process) || process instanceof OtpErlangTuple
+                    && pid.equals(((OtpErlangTuple) process).elementAt(0));
+        };
+    }
+
+    /**
+     * @return filter accepting trace messages of calls and returns of functions from
+     *         given module
+     */
+    public static Predicate<OtpErlangObject> byModule(final String module) {
+        final OtpErlangAtom atom = new OtpErlangAtom(module);
+        return message -> {
+            final OtpErlangTuple trace = TraceFileIndex.asTrace(message);
+            if (trace == null || trace.arity() < 5) {
+                return false;
+            }
+            final OtpErlangObject function = trace.elementAt(3);
+            return function instanceof OtpErlangTuple
+                    && ((OtpErlangTuple) function).arity() == 3
+                    && atom.equals(((OtpErlangTuple) function).elementAt(0));
+        };
+    }
+
+    /**
+     * @return filter accepting trace messages of given type
+     */
+    public static Predicate<OtpErlangObject> byType(final TraceType type) {
+        final OtpErlangAtom atom = new OtpErlangAtom(type.name().toLowerCase());
+        return message -> {
+            final OtpErlangTuple trace = TraceFileIndex.asTrace(message);
+            return trace != null && atom.equals(trace.elementAt(2));
+        };
+    }
+
+    private static OtpErlangTuple asTrace(final OtpErlangObject message) {
+        if (message instanceof OtpErlangTuple) {
+            final OtpErlangTuple tuple = (OtpErlangTuple) message;
+            if (tuple.arity() >= 4 && tuple.elementAt(0) instanceof OtpErlangAtom
+                    && ((OtpErlangAtom) tuple.elementAt(0)).atomValue()
+                            .startsWith("trace")) {
+                return tuple;
+            }
+        }
+        return null;
+    }
+
+    private long seek(final Window window, final long record) throws IOException {
+        long pos = offsets[(int) (record / TraceFileIndex.STEP)];
+        for (long i = record % TraceFileIndex.STEP; i > 0; i--) {
+            pos = next(window, pos);
+        }
+        return pos;
+    }
+
+    private long next(final Window window, final long pos) throws IOException {
+        final ByteBuffer header = window.read(pos, TraceFileIndex.HEADER_SIZE);
+        final byte op = header.get();
+        final long size = header.getInt() & 0xffffffffL;
+        if (op == TraceFileIndex.OP_TRACE) {
+            return pos + TraceFileIndex.HEADER_SIZE + size;
+        } else if (op == TraceFileIndex.OP_DROP) {
+            return pos + TraceFileIndex.HEADER_SIZE;
+        }
+        throw new IOException("bad trace record at " + pos);
+    }
+
+    private OtpErlangObject decode(final Window window, final long pos)
+            throws IOException {
+        final ByteBuffer header = window.read(pos, TraceFileIndex.HEADER_SIZE);
+        final byte op = header.get();
+        final long size = header.getInt() & 0xffffffffL;
+        if (op == TraceFileIndex.OP_DROP) {
+            return new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangAtom("drop"),
+                    new OtpErlangLong(size) });
+        }
+        final ByteBuffer data = window.read(pos + TraceFileIndex.HEADER_SIZE, (int) size);
+        try {
+            return TraceFileIndex.convertTimestamp(new OtpInputStream(data.array(),
+                    data.position(), data.remaining(), 0).read_any());
+        } catch (final OtpErlangDecodeException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Part of the log read at once, records are small and mostly read in order. Each
+     * reader has its own, so scans can read in parallel.
+     */
+    private final class Window {
+        private final ByteBuffer buffer = ByteBuffer.allocate(TraceFileIndex.WINDOW);
+        private long start = -1;
+
+        /**
+         * @return buffer positioned on the bytes, backed by an array
+         */
+        ByteBuffer read(final long pos, final int size) throws IOException {
+            if (pos < 0 || pos + size > length) {
+                throw new IOException("bad trace record at " + pos);
+            }
+            if (!channel.isOpen()) {
+                throw new IOException("trace log is closed");
+            }
+            if (size > TraceFileIndex.WINDOW) {
+                final ByteBuffer result = ByteBuffer.allocate(size);
+                fill(result, pos);
+                result.flip();
+                return result;
+            }
+            if (start < 0 || pos < start || pos + size > start + buffer.limit()) {
+                buffer.clear();
+                buffer.limit((int) Math.min(TraceFileIndex.WINDOW, length - pos));
+                fill(buffer, pos);
+                buffer.flip();
+                start = pos;
+            }
+            final ByteBuffer result = buffer.duplicate();
+            result.position((int) (pos - start));
+            result.limit(result.position() + size);
+            return result;
+        }
+
+        private void fill(final ByteBuffer target, final long pos) throws IOException {
+            while (target.hasRemaining()) {
+                if (channel.read(target, pos + target.position()) < 0) {
+                    throw new IOException("unexpected end of trace log");
+                }
+            }
+        }
+    }
+
+    /**
+     * Trace logs contain <code>now()</code> timestamps, they are converted to local
+     * <code>{date(), time()}</code>.
+     */
+    private static OtpErlangObject convertTimestamp(final OtpErlangObject message) {
+        final OtpErlangTuple trace = TraceFileIndex.asTrace(message);
+        if (trace == null
+                || !"trace_ts".equals(((OtpErlangAtom) trace.elementAt(0)).atomValue())) {
+            return message;
+        }
+        final OtpErlangObject last = trace.elementAt(trace.arity() - 1);
+        if (!(last instanceof OtpErlangTuple) || ((OtpErlangTuple) last).arity() != 3) {
+            return message;
+        }
+        try {
+            final OtpErlangTuple now = (OtpErlangTuple) last;
+            final long seconds = ((OtpErlangLong) now.elementAt(0)).longValue() * 1000000
+                    + ((OtpErlangLong) now.elementAt(1)).longValue();
+            final LocalDateTime time = LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(seconds), ZoneId.systemDefault());
+            final OtpErlangTuple dateTime = new OtpErlangTuple(new OtpErlangObject[] {
+                    new OtpErlangTuple(new OtpErlangObject[] {
+                            new OtpErlangLong(time.getYear()),
+                            new OtpErlangLong(time.getMonthValue()),
+                            new OtpErlangLong(time.getDayOfMonth()) }),
+                    new OtpErlangTuple(new OtpErlangObject[] {
+                            new OtpErlangLong(time.getHour()),
+                            new OtpErlangLong(time.getMinute()),
+                            new OtpErlangLong(time.getSecond()) }) });
+            final OtpErlangObject[] elements = trace.elements();
+            elements[elements.length - 1] = dateTime;
+            return new OtpErlangTuple(elements);
+        } catch (final ClassCastException e) {
+            return message;
+        }
+    }
+
+    /**
+     * @return record count followed by offsets
+     */
+    private long[] build() throws IOException {
+        final Window window = new Window();
+        long[] result = new long[1025];
+        int n = 1;
+        long records = 0;
+        long pos = 0;
+        while (pos < length) {
+            if (records % TraceFileIndex.STEP == 0) {
+                if (n == result.length) {
+                    result = Arrays.copyOf(result, n * 2);
+                }
+                result[n++] = pos;
+            }
+            pos = next(window, pos);
+            records++;
+        }
+        if (pos != length) {
+            throw new IOException("truncated trace log");
+        }
+        result[0] = records;
+        return Arrays.copyOf(result, n);
+    }
+
+    private long[] load(final File indexFile, final long modified) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != TraceFileIndex.MAGIC
+                    || in.readInt() != TraceFileIndex.FORMAT || in.readLong() != length
+                    || in.readLong() != modified || in.readInt() != TraceFileIndex.STEP) {
+                return null;
+            }
+            final int n = in.readInt();
+            final long[] result = new long[n];
+            for (int i = 0; i < n; i++) {
+                result[i] = in.readLong();
+            }
+            return result;
+        } catch (final IOException e) {
+            ErlLogger.warn("Could not read trace index %s: %s", indexFile,
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(final File indexFile, final long modified, final long[] index) {
+        indexFile.getParentFile().mkdirs();
+        final File tmp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(TraceFileIndex.MAGIC);
+            out.writeInt(TraceFileIndex.FORMAT);
+            out.writeLong(length);
+            out.writeLong(modified);
+            out.writeInt(TraceFileIndex.STEP);
+            out.writeInt(index.length);
+            for (final long l : index) {
+                out.writeLong(l);
+            }
+        } catch (final IOException e) {
+            ErlLogger.warn("Could not write trace index %s: %s", indexFile,
+                    e.getMessage());
+            tmp.delete();
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            ErlLogger.warn("Could not write trace index %s: %s", indexFile,
+                    e.getMessage());
+        }
+    }
+
+}
@@ -387,9 +387,25 @@ public class ControlPanelView extends ViewPart implements ITraceNodeObserver {
 
         tabItem.setControl(container);
         createPatternButtonsPanel(container);
+        createCallStatisticsCheckBox(container);
         createFunctionsTable(container);
     }
 
+    private void createCallStatisticsCheckBox(final Composite parent) {
+        final Button button = new Button(parent, SWT.CHECK);
+        button.setText("Only count calls");
+        button.setToolTipText("Aggregate call counts and call times on traced nodes "
+                + "instead of sending every trace event");
+        button.setSelection(TraceBackend.getInstance().isCallStatisticsMode());
+        button.addSelectionListener(new SelectionAdapter() {
+
+            @Override
+            public void widgetSelected(final SelectionEvent e) {
+                TraceBackend.getInstance().setCallStatisticsMode(button.getSelection());
+            }
+        });
+    }
+
     private void createPatternButtonsPanel(final Composite parent) {
         final Composite container = new Composite(parent, SWT.NONE);
         container.setLayout(new RowLayout());
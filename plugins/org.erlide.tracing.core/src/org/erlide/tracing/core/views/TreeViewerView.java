@@ -1,8 +1,14 @@
 package org.erlide.tracing.core.views;
 
+import java.util.function.Predicate;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.debug.ui.DebugUITools;
 import org.eclipse.debug.ui.IDebugUIConstants;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IMenuManager;
+import org.eclipse.jface.action.MenuManager;
+import org.eclipse.jface.action.Separator;
 import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.jface.viewers.DoubleClickEvent;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -22,26 +28,36 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
 import org.eclipse.ui.ISharedImages;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.part.ViewPart;
 import org.erlide.tracing.core.Activator;
 import org.erlide.tracing.core.ITraceNodeObserver;
 import org.erlide.tracing.core.TraceBackend;
+import org.erlide.tracing.core.TraceType;
 import org.erlide.tracing.core.TracingStatus;
 import org.erlide.tracing.core.mvc.model.TraceCollections;
+import org.erlide.tracing.core.mvc.model.TraceStore;
 import org.erlide.tracing.core.mvc.model.treenodes.FunctionNode;
 import org.erlide.tracing.core.mvc.model.treenodes.ITreeNode;
 import org.erlide.tracing.core.mvc.model.treenodes.ModuleNode;
 import org.erlide.tracing.core.mvc.model.treenodes.TracingResultsNode;
-import org.erlide.tracing.core.mvc.view.TreeContentProvider;
+import org.erlide.tracing.core.mvc.view.TraceStoreContentProvider;
 import org.erlide.tracing.core.mvc.view.TreeLabelProvider;
 import org.erlide.tracing.core.preferences.PreferenceNames;
 import org.erlide.tracing.core.ui.dialogs.RunnableWithProgress;
+import org.erlide.tracing.core.utils.TraceFileIndex;
 import org.erlide.tracing.core.utils.TracingStatusHandler;
 import org.erlide.ui.util.ErlModelUtils;
 import org.erlide.util.ErlLogger;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
 public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
 
     private TreeViewer treeViewer;
@@ -87,19 +103,94 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
         container.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
         container.setLayout(new GridLayout());
 
-        // treeViewer = new TreeViewer(container, SWT.VIRTUAL);
-        treeViewer = new TreeViewer(container, SWT.SINGLE);
+        treeViewer = new TreeViewer(container, SWT.SINGLE | SWT.VIRTUAL);
         treeViewer.getTree().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+        treeViewer.setUseHashlookup(true);
 
         // providers
-        treeViewer.setContentProvider(new TreeContentProvider(treeViewer, true));
+        treeViewer.setContentProvider(new TraceStoreContentProvider(treeViewer));
         treeViewer.setLabelProvider(new TreeLabelProvider());
 
         // input
-        treeViewer.setInput(TraceCollections.getTracesList());
+        treeViewer.setInput(TraceCollections.getTraces());
 
         // listener
         treeViewer.addDoubleClickListener(this::doDoubleClick);
+
+        // context menu
+        final MenuManager menuManager = new MenuManager();
+        menuManager.setRemoveAllWhenShown(true);
+        menuManager.addMenuListener(this::fillContextMenu);
+        final Tree tree = treeViewer.getTree();
+        tree.setMenu(menuManager.createContextMenu(tree));
+    }
+
+    /**
+     * Adds actions showing only the traces of the process, module or type of the
+     * selected trace.
+     */
+    private void fillContextMenu(final IMenuManager manager) {
+        final TraceStore traces = TraceCollections.getTraces();
+        final int row = getSelectedRow();
+        OtpErlangObject process = row < 0 ? null : traces.getProcess(row);
+        if (process instanceof OtpErlangTuple) {
+            process = ((OtpErlangTuple) process).elementAt(0);
+        }
+        final OtpErlangObject function = row < 0 ? null : traces.getFunction(row);
+        final int type = row < 0 ? TraceStore.TYPE_OTHER : traces.getType(row);
+
+        manager.add(createFilterAction("Show Only This Process",
+                process instanceof OtpErlangPid
+                        ? TraceFileIndex.byProcess((OtpErlangPid) process)
+                        : null));
+        manager.add(createFilterAction("Show Only This Module",
+                function instanceof OtpErlangTuple ? TraceFileIndex.byModule(
+                        ((OtpErlangAtom) ((OtpErlangTuple) function).elementAt(0))
+                                .atomValue())
+                        : null));
+        manager.add(createFilterAction("Show Only This Trace Type",
+                type >= 0 ? TraceFileIndex.byType(TraceType.values()[type]) : null));
+        manager.add(new Separator());
+        final Action showAll = createFilterAction("Show All Traces", null);
+        showAll.setEnabled(TraceBackend.getInstance().isFiltered());
+        manager.add(showAll);
+    }
+
+    private Action createFilterAction(final String text,
+            final Predicate<OtpErlangObject> filter) {
+        final Action action = new Action(text) {
+            @Override
+            public void run() {
+                task = new RunnableWithProgress("Filtering trace results...") {
+                    @Override
+                    public void doAction() {
+                        final int limit = Activator.getDefault().getPreferenceStore()
+                                .getInt(PreferenceNames.TRACES_LOAD_LIMIT);
+                        TraceBackend.getInstance().filterDataFromFile(filter, limit);
+                    }
+                };
+                executeTask();
+            }
+        };
+        action.setEnabled(filter != null
+                && TraceBackend.getInstance().getActiveResultSet() != null);
+        return action;
+    }
+
+    /**
+     * @return row of stored traces that the selected tree item belongs to, -1 if none
+     */
+    private int getSelectedRow() {
+        final Tree tree = treeViewer.getTree();
+        if (tree.getSelectionCount() == 0) {
+            return -1;
+        }
+        TreeItem item = tree.getSelection()[0];
+        while (item.getParentItem() != null) {
+            item = item.getParentItem();
+        }
+        final int row = tree.indexOf(item);
+        return row < TraceCollections.getTraces().size() ? row : -1;
     }
 
     private void createButtonsPanel(final Composite parent) {
@@ -144,8 +235,8 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
                     public void doAction() {
                         final int limit = Activator.getDefault().getPreferenceStore()
                                 .getInt(PreferenceNames.TRACES_LOAD_LIMIT);
-                        final long endIndex = Math.min(index + limit * 2 - 1, TraceBackend
-                                .getInstance().getActiveResultSet().getSize());
+                        final long endIndex = Math.min(index + limit * 2 - 1,
+                                TraceBackend.getInstance().getTraceCount());
                         final long startIndex = endIndex - limit + 1;
                         TraceBackend.getInstance().loadDataFromFile(startIndex, endIndex);
                     }
@@ -175,8 +266,7 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
                 correctInput = false;
                 final Long value = new Long(traceIndexField.getText());
 
-                if (value >= 1 && value <= TraceBackend.getInstance().getActiveResultSet()
-                        .getSize()) {
+                if (value >= 1 && value <= TraceBackend.getInstance().getTraceCount()) {
                     index = value;
                     showButton.setEnabled(
                             nextButton.isEnabled() || previousButton.isEnabled());
@@ -204,7 +294,7 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
 
         // label
         label = new Label(buttonsPanel, SWT.NONE);
-        label.setLayoutData(new RowData(200, SWT.DEFAULT));
+        label.setLayoutData(new RowData(250, SWT.DEFAULT));
 
         updateButtonsPanel();
     }
@@ -239,9 +329,10 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
                 .getActiveResultSet();
         if (resultSet != null) {
             index = TraceBackend.getInstance().getStartIndex();
-            final int size = TraceCollections.getTracesList().size();
+            final int size = TraceCollections.getTraces().size();
             final boolean previousEnabled = index > 1;
-            final boolean nextEnabled = index + size - 1 < resultSet.getSize();
+            final long count = TraceBackend.getInstance().getTraceCount();
+            final boolean nextEnabled = index + size - 1 < count;
 
             previousButton.setEnabled(previousEnabled);
             nextButton.setEnabled(nextEnabled);
@@ -251,11 +342,14 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
             buttonsPanel.setEnabled(true);
 
             final StringBuilder stringBuilder = new StringBuilder(" (");
-            if (resultSet.getSize() == 0) {
-                stringBuilder.append("no traces)");
+            final String traces = TraceBackend.getInstance().isFiltered()
+                    ? " matching traces)"
+                    : " traces)";
+            if (count == 0) {
+                stringBuilder.append("no").append(traces);
             } else {
                 stringBuilder.append(index).append(" - ").append(index + size - 1)
-                        .append(" of ").append(resultSet.getSize()).append(" traces)");
+                        .append(" of ").append(count).append(traces);
             }
             label.setText(stringBuilder.toString());
         } else {
@@ -291,7 +385,7 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
     private void doAfterLoadingTraces() {
         if (TracingStatus.OK.equals(status)) {
             updateButtonsPanel();
-            treeViewer.refresh();
+            refreshTraces();
         }
         if (task != null) {
             // task was executed from this class so this class is responsible
@@ -300,6 +394,12 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
         }
     }
 
+    private void refreshTraces() {
+        final TraceStore traces = TraceCollections.getTraces();
+        treeViewer.setChildCount(traces, traces.size());
+        treeViewer.refresh();
+    }
+
     @Override
     public void setFocus() {
     }
@@ -313,7 +413,7 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
     public void finishLoadingFile(final TracingStatus theStatus) {
         Display.getDefault().asyncExec(() -> {
             if (TracingStatus.OK.equals(theStatus)) {
-                treeViewer.refresh();
+                refreshTraces();
             }
         });
     }
@@ -334,7 +434,7 @@ public class TreeViewerView extends ViewPart implements ITraceNodeObserver {
     public void removeFile() {
         Display.getDefault().asyncExec(() -> {
             updateButtonsPanel();
-            treeViewer.refresh();
+            refreshTraces();
         });
     }
 
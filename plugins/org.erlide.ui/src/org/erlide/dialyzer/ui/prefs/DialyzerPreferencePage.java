@@ -151,6 +151,7 @@ public class DialyzerPreferencePage extends PropertyPage
     private Button fUpdatePLTButton;
     private Button noCheckPLTCheckbox;
     private Button removeWarningsOnCleanCheckbox;
+    private Button incrementalCheckbox;
     private final List<String> shownPLTFiles;
 
     public DialyzerPreferencePage() {
@@ -175,6 +176,7 @@ public class DialyzerPreferencePage extends PropertyPage
         createFromSelection(group);
         createPltNoCheckbox(group);
         createRemoveWarningsOnCleanCheckbox(group);
+        createIncrementalCheckbox(group);
         enableButtons();
 
         if (isProjectPreferencePage()) {
@@ -196,6 +198,17 @@ public class DialyzerPreferencePage extends PropertyPage
         new Label(comp, SWT.NONE);
     }
 
+    private void createIncrementalCheckbox(final Composite group) {
+        new Label(prefsComposite, SWT.NONE);
+        final Composite comp = new Composite(group, SWT.NONE);
+        comp.setLayout(new GridLayout(2, false));
+        incrementalCheckbox = new Button(comp, SWT.CHECK);
+        incrementalCheckbox.setText("Only analyze changed modules and their callers");
+        incrementalCheckbox.setToolTipText(
+                "Warnings of other modules are kept from previous dialyzer runs");
+        new Label(comp, SWT.NONE);
+    }
+
     private void createPltNoCheckbox(final Composite group) {
         new Label(prefsComposite, SWT.NONE);
         final Composite comp = new Composite(group, SWT.NONE);
@@ -499,6 +512,7 @@ public class DialyzerPreferencePage extends PropertyPage
                 prefs.setNoCheckPLT(noCheckPLTCheckbox.getSelection());
                 prefs.setRemoveWarningsOnClean(
                         removeWarningsOnCleanCheckbox.getSelection());
+                prefs.setIncremental(incrementalCheckbox.getSelection());
                 prefs.store();
             }
         } catch (final BackingStoreException e) {
@@ -531,6 +545,9 @@ public class DialyzerPreferencePage extends PropertyPage
         if (removeWarningsOnCleanCheckbox != null) {
             removeWarningsOnCleanCheckbox.setSelection(prefs.getRemoveWarningsOnClean());
         }
+        if (incrementalCheckbox != null) {
+            incrementalCheckbox.setSelection(prefs.getIncremental());
+        }
         super.performDefaults();
     }
 
@@ -48,15 +48,30 @@ public class ErlDirtyRegion {
 
     /**
      * Modify the receiver so that it encompasses the region specified by the dirty
-     * region.
+     * region. The receiver and the argument are consecutive edits, the argument's offset
+     * is relative to the document after the receiver was applied. Only valid if
+     * {@link #isMergable(ErlDirtyRegion)} holds.
      *
      * @param dr
      *            the dirty region to merge with
      */
     public void mergeWith(final ErlDirtyRegion dr) {
-        fOffset = Math.min(fOffset, dr.fOffset);
-        fLength = fLength + dr.fLength;
-        fText = fText + dr.fText;
+        final int textLength = getTextLength();
+        final int end = Math.max(fOffset + textLength, dr.fOffset + dr.fLength);
+        final int start = Math.min(fOffset, dr.fOffset);
+        final String head = fText.substring(0, Math.max(0, dr.fOffset - fOffset));
+        final String tail = fText
+                .substring(Math.min(textLength, dr.fOffset + dr.fLength - fOffset));
+        fLength = end - textLength + fLength - start;
+        fOffset = start;
+        fText = head + dr.fText + tail;
+    }
+
+    /**
+     * @return true if applying the region doesn't change anything
+     */
+    public boolean isEmpty() {
+        return fLength == 0 && fText.isEmpty();
     }
 
     @Override
@@ -68,14 +83,14 @@ public class ErlDirtyRegion {
     }
 
     /**
-     * Check if the regions are adjacent and can be merged to one
+     * Check if the regions touch or overlap and can be merged to one, i.e. if the next
+     * region only replaces text that was inserted by this one or is adjacent to it.
      *
      * @param nextMerge
      * @return
      */
     public boolean isMergable(final ErlDirtyRegion nextMerge) {
-        return getOffset() - getLength() + getTextLength() == nextMerge.getOffset()
-                || getOffset() == nextMerge.getOffset() - nextMerge.getLength()
-                        + nextMerge.getTextLength();
+        return nextMerge.getOffset() <= getOffset() + getTextLength()
+                && nextMerge.getOffset() + nextMerge.getLength() >= getOffset();
     }
 }
@@ -34,11 +34,15 @@ public class ErlDirtyRegionQueue {
      *
      */
     public boolean addDirtyRegion(final ErlDirtyRegion dr) {
-        // If the dirty region being added is directly adjacent to the last
+        // If the dirty region being added touches or overlaps the last
         // dirty region on the queue then merge the two dirty regions together.
         final ErlDirtyRegion lastDR = fDirtyRegions.peekLast();
         if (lastDR != null && lastDR.isMergable(dr)) {
             lastDR.mergeWith(dr);
+            if (lastDR.isEmpty()) {
+                // the edits cancelled each other out
+                fDirtyRegions.removeLast();
+            }
             return false;
         }
         fDirtyRegions.addLast(dr);
@@ -1,6 +1,11 @@
 package org.erlide.ui.editors.internal.reconciling;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -10,7 +15,6 @@ import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.Region;
-import org.eclipse.jface.text.reconciler.AbstractReconciler;
 import org.eclipse.jface.text.reconciler.DirtyRegion;
 import org.eclipse.jface.text.reconciler.IReconciler;
 import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
@@ -20,15 +24,35 @@ import org.erlide.engine.ErlangEngine;
 import org.erlide.engine.model.root.IErlModule;
 import org.erlide.ui.editors.erl.ErlangEditor;
 import org.erlide.util.ErlLogger;
+import org.erlide.util.event_tracer.ErlideEventTracer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class ErlReconciler implements IReconciler {
 
+    private static final int RECONCILER_THREADS = 2;
+    private static final ScheduledExecutorService EXECUTOR = ErlReconciler
+            .createExecutor();
+
+    private static ScheduledExecutorService createExecutor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                ErlReconciler.RECONCILER_THREADS,
+                new ThreadFactoryBuilder().setDaemon(true)
+                        .setPriority(Thread.MIN_PRIORITY)
+                        .setNameFormat("erlide-reconciler-%d").build());
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
     private final IErlReconcilingStrategy fStrategy;
     private final String path;
     ErlDirtyRegionQueue fDirtyRegionQueue;
-    ReconcilerThread fThread;
+    ReconcilerTask fTask;
     private Listener fListener;
     int fDelay = 500;
+    final ReconcilerDelay fReconcilerDelay = new ReconcilerDelay(fDelay);
+    /** Marks the oldest edit not yet reconciled, guarded by fDirtyRegionQueue. */
+    private Object fPendingEdit;
     boolean fIsIncrementalReconciler = true;
     IProgressMonitor fProgressMonitor;
     boolean fIsAllowedToModifyDocument = true;
@@ -62,37 +86,63 @@ public class ErlReconciler implements IReconciler {
     }
 
     /**
-     * Background thread for the reconciling activity.
+     * Background activity of the reconciler. Instead of owning a thread, it schedules
+     * reconcile passes on the executor shared by all editors. Every document change
+     * postpones the pending pass (by the adaptive delay), so that a pass runs only when
+     * the user pauses typing.
      */
-    class ReconcilerThread extends Thread {
+    class ReconcilerTask implements Runnable {
 
         private static final int RECONCILER_SUSPEND_LOOP_MAX = 10;
-        private boolean fCanceled;
-        private boolean fReset;
-        private boolean fIsActive;
-
-        public ReconcilerThread(final String name) {
-            super(name);
-            setPriority(Thread.MIN_PRIORITY);
-            setDaemon(true);
-        }
+        private volatile boolean fCanceled;
+        private volatile boolean fStarted;
+        private volatile boolean fIsActive;
+        private volatile Thread fWorker;
+        /** Only touched by the pass, and passes never run concurrently. */
+        private boolean fInitialized;
+        // guarded by this
+        private ScheduledFuture<?> fScheduled;
+        private boolean fRunning;
+        private boolean fPending;
 
         public boolean isActive() {
             return fIsActive;
         }
 
+        public boolean isAlive() {
+            return fStarted && !fCanceled;
+        }
+
+        public boolean isWorkerThread() {
+            return Thread.currentThread() == fWorker;
+        }
+
         public boolean isDirty() {
             synchronized (fDirtyRegionQueue) {
                 return !fDirtyRegionQueue.isEmpty();
             }
         }
 
+        public synchronized void start() {
+            if (fStarted || fCanceled) {
+                return;
+            }
+            fStarted = true;
+            schedule(fReconcilerDelay.getDelay());
+        }
+
         public void cancel() {
             fCanceled = true;
             final IProgressMonitor pm = fProgressMonitor;
             if (pm != null) {
                 pm.setCanceled(true);
             }
+            synchronized (this) {
+                if (fScheduled != null) {
+                    fScheduled.cancel(false);
+                    fScheduled = null;
+                }
+            }
             synchronized (fDirtyRegionQueue) {
                 fDirtyRegionQueue.notifyAll();
             }
@@ -100,7 +150,7 @@ public class ErlReconciler implements IReconciler {
 
         public void suspendCallerWhileDirty() {
             boolean isDirty = true;
-            int i = ReconcilerThread.RECONCILER_SUSPEND_LOOP_MAX;
+            int i = ReconcilerTask.RECONCILER_SUSPEND_LOOP_MAX;
             while (i > 0 && isDirty) {
                 i--;
                 synchronized (fDirtyRegionQueue) {
@@ -118,91 +168,107 @@ public class ErlReconciler implements IReconciler {
             }
         }
 
-        public synchronized void reset() {
-            if (fDelay > 0) {
-                fReset = true;
-            } else {
-                synchronized (fDirtyRegionQueue) {
-                    fDirtyRegionQueue.notifyAll();
-                }
-            }
+        /**
+         * Postpones the next pass, the edits are still coming.
+         */
+        public void reset() {
+            schedule(fReconcilerDelay.getDelay());
             reconcilerReset();
         }
 
-        public synchronized void unreset() {
-            fReset = false;
+        /**
+         * Schedules a pass after the given delay, replacing the pending one. If a pass
+         * is running, another one is started as soon as it's done.
+         */
+        public synchronized void schedule(final long delay) {
+            if (!isAlive()) {
+                return;
+            }
+            if (fRunning) {
+                fPending = true;
+                return;
+            }
+            if (fScheduled != null) {
+                fScheduled.cancel(false);
+            }
+            fScheduled = EXECUTOR.schedule(this, delay, TimeUnit.MILLISECONDS);
         }
 
         /**
-         * The background activity. Waits until there is something in the queue managing
-         * the changes that have been applied to the text viewer. Removes the first change
-         * from the queue and process it. If fReconcileAllAtOnce is set, it removes all
-         * changes and processes them.
+         * One pass of the background activity. Removes the queued changes that have
+         * been applied to the text viewer and processes them (all of them if
+         * fChunkReconciler is set, otherwise only the first).
          * <p>
-         * Calls {@link AbstractReconciler#initialProcess()} on entrance.
+         * Calls {@link ErlReconciler#initialProcess()} on the first pass.
          * </p>
          */
         @Override
         public void run() {
-
-            synchronized (fDirtyRegionQueue) {
-                try {
-                    fDirtyRegionQueue.wait(fDelay);
-                } catch (final InterruptedException x) {
-                }
-            }
-
-            initialProcess();
-
-            while (!fCanceled) {
-                synchronized (fDirtyRegionQueue) {
-                    try {
-                        fDirtyRegionQueue.wait(fDelay);
-                    } catch (final InterruptedException x) {
-                    }
+            synchronized (this) {
+                if (fRunning) {
+                    fPending = true;
+                    return;
                 }
-
                 if (fCanceled) {
-                    break;
+                    return;
                 }
-                synchronized (fDirtyRegionQueue) {
-                    if (fDirtyRegionQueue.isEmpty()) {
-                        continue;
-                    }
+                fRunning = true;
+            }
+            fWorker = Thread.currentThread();
+            try {
+                if (!fInitialized) {
+                    fInitialized = true;
+                    initialProcess();
                 }
+                reconcileDirtyRegions();
+            } catch (final Exception e) {
+                ErlLogger.error(e);
+            } finally {
+                fWorker = null;
                 synchronized (this) {
-                    if (fReset) {
-                        fReset = false;
-                        continue;
-                    }
-                }
-
-                List<ErlDirtyRegion> rs = null;
-                ErlDirtyRegion r = null;
-                synchronized (fDirtyRegionQueue) {
-                    if (fChunkReconciler) {
-                        rs = fDirtyRegionQueue.extractAllDirtyRegions();
-                    } else {
-                        r = fDirtyRegionQueue.extractNextDirtyRegion();
+                    fRunning = false;
+                    if (fPending || isDirty()) {
+                        fPending = false;
+                        schedule(fReconcilerDelay.getDelay());
                     }
-                    fDirtyRegionQueue.notifyAll();
-                }
-                fIsActive = true;
-
-                if (fProgressMonitor != null) {
-                    fProgressMonitor.setCanceled(false);
                 }
+            }
+        }
 
+        private void reconcileDirtyRegions() {
+            final List<ErlDirtyRegion> rs;
+            synchronized (fDirtyRegionQueue) {
                 if (fChunkReconciler) {
-                    if (rs != null) {
-                        for (final ErlDirtyRegion dirtyRegion : rs) {
-                            process(dirtyRegion);
-                        }
-                    }
+                    rs = fDirtyRegionQueue.extractAllDirtyRegions();
                 } else {
-                    process(r);
+                    final ErlDirtyRegion r = fDirtyRegionQueue.extractNextDirtyRegion();
+                    rs = r == null ? Collections.emptyList()
+                            : Collections.singletonList(r);
+                }
+                fDirtyRegionQueue.notifyAll();
+            }
+            if (rs.isEmpty()) {
+                return;
+            }
+            fIsActive = true;
+            try {
+                final long start = System.currentTimeMillis();
+                final IProgressMonitor pm = fProgressMonitor;
+                if (pm != null) {
+                    pm.setCanceled(false);
+                }
+                for (final ErlDirtyRegion dirtyRegion : rs) {
+                    process(dirtyRegion);
+                }
+                if (pm != null && pm.isCanceled() && isDirty()) {
+                    // newer edits arrived meanwhile, the reparse is left to the next
+                    // pass, which will see them too
+                    return;
                 }
                 postProcess();
+                fReconcilerDelay.reconciled(System.currentTimeMillis() - start);
+                editsReconciled();
+            } finally {
                 fIsActive = false;
             }
         }
@@ -218,8 +284,8 @@ public class ErlReconciler implements IReconciler {
         public void documentChanged(final DocumentEvent e) {
             // ErlLogger.debug("documentChanged %d %d %d", e.getOffset(),
             // e.getLength(), e.getText().length());
-            if (!fThread.isDirty() && fThread.isAlive()) {
-                if (!fIsAllowedToModifyDocument && Thread.currentThread() == fThread) {
+            if (!fTask.isDirty() && fTask.isAlive()) {
+                if (!fIsAllowedToModifyDocument && fTask.isWorkerThread()) {
                     throw new UnsupportedOperationException(
                             "The reconciler thread is not allowed to modify the document"); //$NON-NLS-1$
                 }
@@ -231,7 +297,7 @@ public class ErlReconciler implements IReconciler {
              * while still inside initialProcess().
              */
             if (fProgressMonitor != null
-                    && (fThread.isActive() || fThread.isDirty() && fThread.isAlive())) {
+                    && (fTask.isActive() || fTask.isDirty() && fTask.isAlive())) {
                 fProgressMonitor.setCanceled(true);
             }
 
@@ -239,7 +305,8 @@ public class ErlReconciler implements IReconciler {
                 createDirtyRegion(e);
             }
 
-            fThread.reset();
+            fReconcilerDelay.edited(System.currentTimeMillis());
+            fTask.reset();
 
         }
 
@@ -262,8 +329,8 @@ public class ErlReconciler implements IReconciler {
                         // 0,
                         // fDocument.getLength(), ""); //$NON-NLS-1$
                         // createDirtyRegion(e);
-                        fThread.reset();
-                        fThread.suspendCallerWhileDirty();
+                        fTask.reset();
+                        fTask.suspendCallerWhileDirty();
                     }
                 }
 
@@ -284,7 +351,7 @@ public class ErlReconciler implements IReconciler {
 
             fDocument.addDocumentListener(this);
 
-            if (!fThread.isDirty()) {
+            if (!fTask.isDirty()) {
                 aboutToBeReconciled();
             }
 
@@ -300,13 +367,15 @@ public class ErlReconciler implements IReconciler {
 
     /**
      * Tells the reconciler how long it should wait for further text changes before
-     * activating the appropriate reconciling strategies.
+     * activating the appropriate reconciling strategies. The actual delay is adapted to
+     * the typing rate and the cost of reconciling, see {@link ReconcilerDelay}.
      *
      * @param delay
-     *            the duration in milliseconds of a change collection period.
+     *            the base duration in milliseconds of a change collection period.
      */
     public void setDelay(final int delay) {
         fDelay = delay;
+        fReconcilerDelay.setBaseDelay(delay);
     }
 
     /**
@@ -365,10 +434,10 @@ public class ErlReconciler implements IReconciler {
         fViewer = textViewer;
 
         synchronized (this) {
-            if (fThread != null) {
+            if (fTask != null) {
                 return;
             }
-            fThread = new ReconcilerThread(getClass().getName());
+            fTask = new ReconcilerTask();
         }
 
         fDirtyRegionQueue = new ErlDirtyRegionQueue();
@@ -403,8 +472,8 @@ public class ErlReconciler implements IReconciler {
 
             synchronized (this) {
                 // http://dev.eclipse.org/bugs/show_bug.cgi?id=19135
-                final ReconcilerThread bt = fThread;
-                fThread = null;
+                final ReconcilerTask bt = fTask;
+                fTask = null;
                 bt.cancel();
             }
         }
@@ -426,10 +495,33 @@ public class ErlReconciler implements IReconciler {
             final ErlDirtyRegion erlDirtyRegion = new ErlDirtyRegion(e.getOffset(),
                     e.getLength(), text);
             fDirtyRegionQueue.addDirtyRegion(erlDirtyRegion);
+            if (fPendingEdit == null) {
+                fPendingEdit = new Object();
+                ErlideEventTracer.getInstance().traceOperationStart("reconcile",
+                        fPendingEdit);
+            }
             fDirtyRegionQueue.notifyAll();
         }
     }
 
+    /**
+     * Reports the time from the oldest pending edit until its markers are updated, once
+     * there are no newer edits left to reconcile.
+     */
+    void editsReconciled() {
+        final Object edit;
+        synchronized (fDirtyRegionQueue) {
+            if (!fDirtyRegionQueue.isEmpty()) {
+                return;
+            }
+            edit = fPendingEdit;
+            fPendingEdit = null;
+        }
+        if (edit != null) {
+            ErlideEventTracer.getInstance().traceOperationEnd("reconcile", edit);
+        }
+    }
+
     /**
      * Hook for subclasses which want to perform some action as soon as reconciliation is
      * needed.
@@ -450,11 +542,11 @@ public class ErlReconciler implements IReconciler {
 
         if (fDocument != null) {
 
-            if (!fThread.isDirty() && fThread.isAlive()) {
+            if (!fTask.isDirty() && fTask.isAlive()) {
                 aboutToBeReconciled();
             }
 
-            if (fProgressMonitor != null && fThread.isActive()) {
+            if (fProgressMonitor != null && fTask.isActive()) {
                 fProgressMonitor.setCanceled(true);
             }
 
@@ -473,26 +565,20 @@ public class ErlReconciler implements IReconciler {
      * this method.
      */
     protected synchronized void startReconciling() {
-        if (fThread == null) {
+        if (fTask == null) {
             return;
         }
 
-        if (!fThread.isAlive()) {
-            try {
-                fThread.start();
-            } catch (final IllegalThreadStateException e) {
-                // see https://bugs.eclipse.org/bugs/show_bug.cgi?id=40549
-                // This is the only instance where the thread is started; since
-                // we checked that it is not alive, it must be dead already due
-                // to a run-time exception or error. Exit.
-            }
+        if (!fTask.isAlive()) {
+            // a cancelled task is not restarted
+            fTask.start();
         } else {
-            fThread.reset();
+            fTask.reset();
         }
     }
 
     /**
-     * Hook that is called after the reconciler thread has been reset.
+     * Hook that is called after the reconciler task has been reset.
      */
     protected void reconcilerReset() {
     }
@@ -544,11 +630,8 @@ public class ErlReconciler implements IReconciler {
     }
 
     public void reconcileNow() {
-        fThread.unreset();
-        synchronized (fDirtyRegionQueue) {
-            fDirtyRegionQueue.notifyAll();
-        }
-        fThread.suspendCallerWhileDirty();
+        fTask.schedule(0);
+        fTask.suspendCallerWhileDirty();
     }
 
     public void reset() {
@@ -557,7 +640,7 @@ public class ErlReconciler implements IReconciler {
                 fDirtyRegionQueue.purgeQueue();
                 fDirtyRegionQueue.notifyAll();
             }
-            fThread.reset();
+            fTask.reset();
             initialProcess();
         }
     }
@@ -0,0 +1,68 @@
+package org.erlide.ui.editors.internal.reconciling;
+
+/**
+ * Computes how long the reconciler waits after an edit before it starts a pass. The
+ * delay follows the observed typing rate and the measured cost of a reconcile, so that
+ * cheap modules get quick feedback and expensive ones aren't reparsed on every short
+ * pause.
+ */
+public class ReconcilerDelay {
+
+    /** Weight of the newest sample in the running averages. */
+    private static final double WEIGHT = 0.3;
+    /** Pauses longer than this (ms) are not counted as typing. */
+    private static final long MAX_TYPING_INTERVAL = 2000;
+
+    private int baseDelay;
+    private double typingInterval;
+    private double cost;
+    private long lastEdit;
+
+    public ReconcilerDelay(final int baseDelay) {
+        setBaseDelay(baseDelay);
+    }
+
+    public synchronized void setBaseDelay(final int baseDelay) {
+        this.baseDelay = baseDelay;
+        typingInterval = baseDelay / 2.0;
+        cost = 0;
+    }
+
+    /**
+     * Records a document change at the given time (ms).
+     */
+    public synchronized void edited(final long now) {
+        if (lastEdit > 0) {
+            final long interval = now - lastEdit;
+            if (interval >= 0 && interval < MAX_TYPING_INTERVAL) {
+                typingInterval = average(typingInterval, interval);
+            }
+        }
+        lastEdit = now;
+    }
+
+    /**
+     * Records how long (ms) a complete reconcile pass took.
+     */
+    public synchronized void reconciled(final long duration) {
+        cost = average(cost, duration);
+    }
+
+    /**
+     * @return the delay in ms, between a fifth and four times the base delay
+     */
+    public synchronized int getDelay() {
+        if (baseDelay <= 0) {
+            return 0;
+        }
+        final double wanted = Math.max(2 * typingInterval, cost);
+        final int min = baseDelay / 5;
+        final int max = baseDelay * 4;
+        return (int) Math.max(min, Math.min(max, wanted));
+    }
+
+    private static double average(final double current, final double sample) {
+        return (1 - WEIGHT) * current + WEIGHT * sample;
+    }
+
+}
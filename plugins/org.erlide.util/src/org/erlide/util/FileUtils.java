@@ -2,7 +2,13 @@ package org.erlide.util;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -23,4 +29,31 @@ public class FileUtils {
         res.create(new ByteArrayInputStream(content.getBytes(encoding)), false, null);
     }
 
+    /**
+     * Copies the files of a directory tree, creating the target directories as needed.
+     *
+     * @param replace
+     *            whether existing files are overwritten
+     */
+    public static void copyTree(final File from, final File to, final boolean replace)
+            throws IOException {
+        final Path source = from.toPath();
+        if (!Files.isDirectory(source)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(source)) {
+            for (final Path file : files.filter(Files::isRegularFile)
+                    .collect(Collectors.toList())) {
+                final Path target = to.toPath()
+                        .resolve(source.relativize(file).toString());
+                if (!replace && Files.exists(target)) {
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+    }
+
 }
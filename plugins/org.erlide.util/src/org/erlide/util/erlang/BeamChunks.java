@@ -0,0 +1,61 @@
+package org.erlide.util.erlang;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Splits a beam file (an IFF "FOR1" container of type "BEAM") in its chunks.
+ */
+public final class BeamChunks {
+
+    private static final int FOR1 = 0x464f5231;
+    private static final int BEAM = 0x4245414d;
+
+    private BeamChunks() {
+    }
+
+    /**
+     * @param beam
+     *            the content of a beam file, possibly gzipped
+     * @return chunk id -> chunk data without padding, in file order, or null if this
+     *         isn't a beam or it is truncated
+     */
+    public static Map<String, byte[]> read(final byte[] beam) {
+        byte[] bytes = beam;
+        if (bytes.length > 2 && bytes[0] == (byte) 0x1f && bytes[1] == (byte) 0x8b) {
+            try (GZIPInputStream in = new GZIPInputStream(
+                    new ByteArrayInputStream(bytes))) {
+                bytes = ByteStreams.toByteArray(in);
+            } catch (final IOException e) {
+                return null;
+            }
+        }
+        final ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (bytes.length < 12 || buf.getInt(0) != BeamChunks.FOR1
+                || buf.getInt(8) != BeamChunks.BEAM) {
+            return null;
+        }
+        final Map<String, byte[]> result = new LinkedHashMap<>();
+        int pos = 12;
+        while (pos + 8 <= bytes.length) {
+            final String id = new String(bytes, pos, 4, StandardCharsets.ISO_8859_1);
+            final int size = buf.getInt(pos + 4);
+            if (size < 0 || size > bytes.length - pos - 8) {
+                return null;
+            }
+            result.putIfAbsent(id, Arrays.copyOfRange(bytes, pos + 8, pos + 8 + size));
+            // chunks are aligned on 4 bytes
+            pos += 8 + (size + 3 & ~3);
+        }
+        return result;
+    }
+
+}
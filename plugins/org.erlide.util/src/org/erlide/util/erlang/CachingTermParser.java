@@ -13,7 +13,7 @@ public class CachingTermParser extends OtpParser {
 
     private final LoadingCache<String, OtpErlangObject> cache;
 
-    private CachingTermParser() {
+    public CachingTermParser() {
         cache = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.HOURS)
                 .maximumSize(250).build(new CacheLoader<String, OtpErlangObject>() {
                     @Override
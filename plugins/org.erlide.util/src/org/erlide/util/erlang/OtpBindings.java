@@ -29,7 +29,12 @@ import com.google.common.collect.Lists;
 
 public final class OtpBindings implements Map<String, OtpErlangObject> {
 
-    private final Map<String, OtpErlangObject> bindings;
+    // a compiled pattern's slots are used as they are until the bindings are changed
+    // or iterated, then they are copied to a map
+    private Map<String, OtpErlangObject> bindings;
+    private String[] names;
+    private OtpErlangObject[] values;
+    private OtpPattern pattern;
 
     public OtpBindings() {
         bindings = new HashMap<>();
@@ -40,8 +45,34 @@ public final class OtpBindings implements Map<String, OtpErlangObject> {
         merge(binds);
     }
 
+    OtpBindings(final OtpPattern pattern, final String[] names,
+            final OtpErlangObject[] values) {
+        this.pattern = pattern;
+        this.names = names;
+        this.values = values;
+    }
+
     public void merge(final OtpBindings binds) {
-        bindings.putAll(binds.getAll());
+        map().putAll(binds.getAll());
+    }
+
+    /**
+     * @return the pattern that was matched, if any
+     */
+    public OtpPattern getPattern() {
+        return pattern;
+    }
+
+    private Map<String, OtpErlangObject> map() {
+        if (bindings == null) {
+            bindings = new HashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                bindings.put(names[i], values[i]);
+            }
+            names = null;
+            values = null;
+        }
+        return bindings;
     }
 
     public int getInt(final String name) throws OtpErlangException {
@@ -117,12 +148,12 @@ public final class OtpBindings implements Map<String, OtpErlangObject> {
     }
 
     public Map<String, OtpErlangObject> getAll() {
-        return Collections.unmodifiableMap(bindings);
+        return Collections.unmodifiableMap(map());
     }
 
     @Override
     public String toString() {
-        return bindings.toString();
+        return map().toString();
     }
 
     public OtpErlangBinary getBinary(final String name) throws OtpErlangException {
@@ -140,62 +171,70 @@ public final class OtpBindings implements Map<String, OtpErlangObject> {
 
     @Override
     public int size() {
-        return bindings.size();
+        return bindings == null ? names.length : bindings.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return bindings.isEmpty();
+        return size() == 0;
     }
 
     @Override
     public boolean containsKey(final Object key) {
-        return bindings.containsKey(key);
+        return get(key) != null;
     }
 
     @Override
     public boolean containsValue(final Object value) {
-        return bindings.containsValue(value);
+        return map().containsValue(value);
     }
 
     @Override
     public OtpErlangObject get(final Object key) {
+        if (bindings == null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(key)) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
         return bindings.get(key);
     }
 
     @Override
     public OtpErlangObject put(final String key, final OtpErlangObject value) {
-        return bindings.put(key, value);
+        return map().put(key, value);
     }
 
     @Override
     public OtpErlangObject remove(final Object key) {
-        return bindings.remove(key);
+        return map().remove(key);
     }
 
     @Override
     public void putAll(final Map<? extends String, ? extends OtpErlangObject> m) {
-        bindings.putAll(m);
+        map().putAll(m);
     }
 
     @Override
     public void clear() {
-        bindings.clear();
+        map().clear();
     }
 
     @Override
     public Set<String> keySet() {
-        return bindings.keySet();
+        return map().keySet();
     }
 
     @Override
     public Collection<OtpErlangObject> values() {
-        return bindings.values();
+        return map().values();
     }
 
     @Override
     public Set<java.util.Map.Entry<String, OtpErlangObject>> entrySet() {
-        return bindings.entrySet();
+        return map().entrySet();
     }
 
 }
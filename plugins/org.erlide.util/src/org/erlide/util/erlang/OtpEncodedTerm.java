@@ -0,0 +1,93 @@
+package org.erlide.util.erlang;
+
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpInputStream;
+import com.ericsson.otp.erlang.OtpOutputStream;
+
+/**
+ * A term that is already in external format (without version tag). Encoding it just
+ * copies the bytes; it is decoded only if it has to be compared or printed.
+ * <p>
+ * It is only equal to other encoded terms, never to the decoded term: compare with
+ * {@link #decode()} for that, and don't mix both kinds in a collection.
+ */
+public class OtpEncodedTerm extends OtpErlangObject {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    private transient OtpErlangObject decoded;
+
+    /**
+     * @param bytes
+     *            buffer holding the encoded term, it must not be modified afterwards
+     * @param offset
+     *            start of the term
+     * @param length
+     *            size of the term
+     */
+    public OtpEncodedTerm(final byte[] bytes, final int offset, final int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public void encode(final OtpOutputStream buf) {
+        buf.write(bytes, offset, length);
+    }
+
+    /**
+     * @return the term as object
+     */
+    public synchronized OtpErlangObject decode() {
+        if (decoded == null) {
+            try {
+                decoded = new OtpInputStream(bytes, offset, length, 0).read_any();
+            } catch (final OtpErlangDecodeException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return decoded;
+    }
+
+    @Override
+    public String toString() {
+        return decode().toString();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof OtpEncodedTerm)) {
+            return false;
+        }
+        final OtpEncodedTerm other = (OtpEncodedTerm) o;
+        // the same term can have several encodings
+        return sameBytes(other) || decode().equals(other.decode());
+    }
+
+    private boolean sameBytes(final OtpEncodedTerm other) {
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != other.bytes[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected int doHashCode() {
+        return decode().hashCode();
+    }
+
+}
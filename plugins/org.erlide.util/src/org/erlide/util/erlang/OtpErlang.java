@@ -81,23 +81,22 @@ public class OtpErlang {
 
     public static OtpBindings match(final String pattern, final String term)
             throws OtpParserException {
-        return OtpErlang.match(OtpErlang.parse(pattern), OtpErlang.parse(term),
-                new OtpBindings());
+        return OtpPattern.compile(pattern).match(OtpErlang.parse(term));
     }
 
     public static OtpBindings match(final String pattern, final OtpErlangObject term)
             throws OtpParserException {
-        return OtpErlang.match(OtpErlang.parse(pattern), term, new OtpBindings());
+        return OtpPattern.compile(pattern).match(term);
     }
 
     public static OtpBindings match(final String pattern, final String term,
             final OtpBindings bindings) throws OtpParserException {
-        return OtpErlang.match(OtpErlang.parse(pattern), OtpErlang.parse(term), bindings);
+        return OtpPattern.compile(pattern).match(OtpErlang.parse(term), bindings);
     }
 
     public static OtpBindings match(final OtpErlangObject pattern,
             final OtpErlangObject term) {
-        return OtpErlang.match(pattern, term, new OtpBindings());
+        return new OtpPattern(pattern).match(term);
     }
 
     /**
@@ -112,79 +111,11 @@ public class OtpErlang {
      * <p>
      * The returned value is null if there was any mismatch, otherwise it is a map of
      * variable names to matched values. <br>
-     *
+     * Patterns used often should be compiled once, see {@link OtpPattern}.
      */
     public static OtpBindings match(final OtpErlangObject pattern,
             final OtpErlangObject term, final OtpBindings bindings) {
-        if (pattern == null && term == null) {
-            return bindings;
-        }
-        if (pattern == null || term == null) {
-            return null;
-        }
-        if (pattern instanceof OtpPatternVariable) {
-            final OtpPatternVariable var = (OtpPatternVariable) pattern;
-            if (!TypeConverter.doesMatchSignature(term, var.getSignature())) {
-                return null;
-            }
-            if ("_".equals(var.getName())) {
-                return bindings;
-            }
-            final OtpBindings result = new OtpBindings(bindings);
-            final OtpErlangObject old = bindings.get(var.getName());
-            if (old == null) {
-                // no previous binding
-                result.put(var.getName(), term);
-                return result;
-            }
-            return old.equals(term) ? result : null;
-        }
-        if (!pattern.getClass().equals(term.getClass())) {
-            return null;
-        }
-
-        if (pattern instanceof OtpErlangList) {
-            return OtpErlang.matchList(pattern, term, bindings);
-        } else if (pattern instanceof OtpErlangTuple) {
-            return OtpErlang.matchTuple(((OtpErlangTuple) pattern).elements(),
-                    ((OtpErlangTuple) term).elements(), bindings);
-        } else if (pattern.equals(term)) {
-            return bindings;
-        }
-        return null;
-    }
-
-    private static OtpBindings matchList(final OtpErlangObject pattern,
-            final OtpErlangObject term, final OtpBindings bindings) {
-        final OtpErlangList lpattern = (OtpErlangList) pattern;
-        final OtpErlangList lterm = (OtpErlangList) term;
-        final int patternArity = lpattern.arity();
-        final int termArity = lterm.arity();
-        if (patternArity > termArity) {
-            return null;
-        }
-        if (patternArity < termArity && lpattern.isProper()) {
-            return null;
-        }
-        if (patternArity == termArity && lpattern.isProper() != lterm.isProper()) {
-            return null;
-        }
-        OtpBindings rez = bindings;
-        for (int i = 0; i < patternArity; i++) {
-            rez = OtpErlang.match(lpattern.elementAt(i), lterm.elementAt(i), rez);
-            if (rez == null) {
-                return null;
-            }
-        }
-        if (patternArity == termArity) {
-            rez = OtpErlang.match(lpattern.getLastTail(), lterm.getLastTail(), rez);
-            return rez;
-        }
-        if (lpattern.getLastTail() instanceof OtpPatternVariable) {
-            return OtpErlang.match(lpattern.getLastTail(), lterm.getNthTail(patternArity),
-                    rez);
-        }
-        return OtpErlang.match(lpattern.getLastTail(), lterm.getLastTail(), rez);
+        return new OtpPattern(pattern).match(term, bindings);
     }
 
     private static OtpErlangObject fill(final OtpErlangObject template,
@@ -220,21 +151,6 @@ public class OtpErlang {
         }
     }
 
-    private static OtpBindings matchTuple(final OtpErlangObject[] patterns,
-            final OtpErlangObject[] terms, final OtpBindings bindings) {
-        if (patterns.length != terms.length) {
-            return null;
-        }
-        OtpBindings result = new OtpBindings(bindings);
-        for (int i = 0; i < patterns.length; i++) {
-            result = OtpErlang.match(patterns[i], terms[i], result);
-            if (result == null) {
-                return null;
-            }
-        }
-        return result;
-    }
-
     /**
      * This is useful if a value can be anything, but we need to see it as a string (but
      * without any quotes if it really is a string).
@@ -11,8 +11,8 @@ package org.erlide.util.erlang;
 import java.io.IOException;
 import java.io.StreamTokenizer;
 import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Stack;
 
 import org.erlide.util.ErlLogger;
@@ -40,13 +40,13 @@ public class OtpParser {
         return OtpParser.parse(OtpParser.scan(s));
     }
 
-    private static OtpErlangObject parse(final List<Token> tokens)
+    private static OtpErlangObject parse(final Deque<Token> tokens)
             throws OtpParserException {
         if (tokens.isEmpty()) {
             return null;
         }
         OtpErlangObject result = null;
-        final Token t = tokens.remove(0);
+        final Token t = tokens.poll();
         final String text = t.text;
         if (text == null) {
             throw new OtpParserException("null token" + t.toString());
@@ -88,15 +88,23 @@ public class OtpParser {
         return result;
     }
 
-    private static OtpErlangObject parseList(final List<Token> tokens,
+    private static Token peek(final Deque<Token> tokens) throws OtpParserException {
+        final Token t = tokens.peek();
+        if (t == null) {
+            throw new OtpParserException("unexpected end of term");
+        }
+        return t;
+    }
+
+    private static OtpErlangObject parseList(final Deque<Token> tokens,
             final Stack<OtpErlangObject> stack, final OtpErlangObject tail)
             throws OtpParserException {
         if (tokens.isEmpty()) {
             return null;
         }
-        final Token t = tokens.get(0);
+        final Token t = tokens.peek();
         if (t.kind == TokenKind.LISTEND) {
-            tokens.remove(0);
+            tokens.poll();
             try {
                 return new OtpErlangList(stack.toArray(new OtpErlangObject[stack.size()]),
                         tail);
@@ -108,50 +116,50 @@ public class OtpParser {
         }
         OtpErlangObject atail = tail;
         if (t.kind == TokenKind.CONS) {
-            tokens.remove(0);
+            tokens.poll();
             atail = OtpParser.parse(tokens);
         } else {
             stack.push(OtpParser.parse(tokens));
-            if (tokens.get(0).kind == TokenKind.COMMA) {
-                tokens.remove(0);
-            } else if (tokens.get(0).kind != TokenKind.LISTEND
-                    && tokens.get(0).kind != TokenKind.CONS) {
+            if (OtpParser.peek(tokens).kind == TokenKind.COMMA) {
+                tokens.poll();
+            } else if (OtpParser.peek(tokens).kind != TokenKind.LISTEND
+                    && OtpParser.peek(tokens).kind != TokenKind.CONS) {
                 throw new OtpParserException("missing comma in list");
             }
         }
         return OtpParser.parseList(tokens, stack, atail);
     }
 
-    private static OtpErlangObject parseTuple(final List<Token> tokens,
+    private static OtpErlangObject parseTuple(final Deque<Token> tokens,
             final Stack<OtpErlangObject> stack) throws OtpParserException {
         if (tokens.isEmpty()) {
             return null;
         }
-        final Token t = tokens.get(0);
+        final Token t = tokens.peek();
         if (t.kind == TokenKind.TUPLEEND) {
-            tokens.remove(0);
+            tokens.poll();
             return new OtpErlangTuple(stack.toArray(new OtpErlangObject[stack.size()]));
         }
         if (t.kind == TokenKind.CONS) {
             throw new OtpParserException("cons is invalid in tuple");
         }
         stack.push(OtpParser.parse(tokens));
-        if (tokens.get(0).kind == TokenKind.COMMA) {
-            tokens.remove(0);
-        } else if (tokens.get(0).kind != TokenKind.TUPLEEND) {
+        if (OtpParser.peek(tokens).kind == TokenKind.COMMA) {
+            tokens.poll();
+        } else if (OtpParser.peek(tokens).kind != TokenKind.TUPLEEND) {
             throw new OtpParserException("missing comma in tuple");
         }
         return OtpParser.parseTuple(tokens, stack);
     }
 
-    private static OtpErlangObject parseMap(final List<Token> tokens,
+    private static OtpErlangObject parseMap(final Deque<Token> tokens,
             final Stack<OtpErlangObject> stack) throws OtpParserException {
         if (tokens.isEmpty()) {
             return null;
         }
-        final Token t = tokens.get(0);
+        final Token t = tokens.peek();
         if (t.kind == TokenKind.TUPLEEND) {
-            tokens.remove(0);
+            tokens.poll();
             final int size = stack.size();
             final OtpErlangObject[] all = stack.toArray(new OtpErlangObject[size]);
             final OtpErlangObject[] keys = new OtpErlangObject[size / 2];
@@ -163,14 +171,14 @@ public class OtpParser {
             return new OtpErlangMap(keys, values);
         }
         stack.push(OtpParser.parse(tokens));
-        if (tokens.get(0).kind != TokenKind.ARROW) {
+        if (OtpParser.peek(tokens).kind != TokenKind.ARROW) {
             throw new OtpParserException("badly constructed map");
         }
-        tokens.remove(0);
+        tokens.poll();
         stack.push(OtpParser.parse(tokens));
-        if (tokens.get(0).kind == TokenKind.COMMA) {
-            tokens.remove(0);
-        } else if (tokens.get(0).kind != TokenKind.TUPLEEND) {
+        if (OtpParser.peek(tokens).kind == TokenKind.COMMA) {
+            tokens.poll();
+        } else if (OtpParser.peek(tokens).kind != TokenKind.TUPLEEND) {
             throw new OtpParserException("missing comma in map");
         }
 
@@ -193,13 +201,17 @@ public class OtpParser {
             return "<" + kind.toString() + ": !" + text + "!>";
         }
 
-        public static Token nextToken(final String s) {
-            if (s == null || s.isEmpty()) {
+        /**
+         * Scans the token starting at or after <code>from</code>; positions are
+         * relative to the whole string, so it doesn't need to be copied.
+         */
+        public static Token nextToken(final String s, final int from) {
+            if (s == null || from >= s.length()) {
                 return null;
             }
             final Token result = new Token();
             char c;
-            int i = 0;
+            int i = from;
             do {
                 c = s.charAt(i++);
                 if (i >= s.length()) {
@@ -331,14 +343,13 @@ public class OtpParser {
         }
     }
 
-    private static List<Token> scan(final String s) {
-        String ss = s + " ";
-        final List<Token> result = new ArrayList<>();
-        Token t = Token.nextToken(ss);
+    private static Deque<Token> scan(final String s) {
+        final String ss = s + " ";
+        final Deque<Token> result = new ArrayDeque<>();
+        Token t = Token.nextToken(ss, 0);
         while (t != null) {
             result.add(t);
-            ss = ss.substring(t.end);
-            t = Token.nextToken(ss);
+            t = Token.nextToken(ss, t.end);
         }
         return result;
     }
@@ -0,0 +1,332 @@
+package org.erlide.util.erlang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A compiled term pattern, see {@link OtpErlang#match(OtpErlangObject, OtpErlangObject)}
+ * for the syntax. The pattern is parsed once into a tree of matchers and every variable
+ * gets a slot, so matching a term doesn't parse anything and only allocates the
+ * bindings when it succeeds.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ * </p>
+ */
+public final class OtpPattern {
+
+    private static final LoadingCache<String, OtpPattern> CACHE = CacheBuilder
+            .newBuilder().expireAfterAccess(1, TimeUnit.HOURS).maximumSize(500)
+            .build(new CacheLoader<String, OtpPattern>() {
+                @Override
+                public OtpPattern load(final String key) throws OtpParserException {
+                    return new OtpPattern(OtpParser.doParse(key), key);
+                }
+            });
+
+    private final String source;
+    private final Matcher root;
+    private final String[] names;
+
+    /**
+     * Compiles a pattern. Recently compiled patterns are cached.
+     *
+     * @throws OtpParserException
+     *             if the pattern can't be parsed
+     */
+    public static OtpPattern compile(final String pattern) throws OtpParserException {
+        try {
+            return OtpPattern.CACHE.get(Strings.nullToEmpty(pattern));
+        } catch (final ExecutionException e) {
+            throw (OtpParserException) e.getCause();
+        } catch (final UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    /**
+     * Like {@link #compile(String)}, for patterns that are constants.
+     *
+     * @throws IllegalArgumentException
+     *             if the pattern can't be parsed
+     */
+    public static OtpPattern of(final String pattern) {
+        try {
+            return OtpPattern.compile(pattern);
+        } catch (final OtpParserException | RuntimeException e) {
+            throw new IllegalArgumentException("Bad pattern: " + pattern, e);
+        }
+    }
+
+    public OtpPattern(final OtpErlangObject pattern) {
+        this(pattern, String.valueOf(pattern));
+    }
+
+    private OtpPattern(final OtpErlangObject pattern, final String source) {
+        this.source = source;
+        final List<String> vars = new ArrayList<>();
+        root = OtpPattern.compile(pattern, vars);
+        names = vars.toArray(new String[vars.size()]);
+    }
+
+    /**
+     * @return number of slots needed to match with
+     *         {@link #match(OtpErlangObject, OtpErlangObject[])}
+     */
+    public int slotCount() {
+        return names.length;
+    }
+
+    /**
+     * @return the slot of a variable, or -1 if the pattern doesn't have it
+     */
+    public int slot(final String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Matches a term and stores the values of the variables in the given slots.
+     *
+     * @return false if the term doesn't match, the slots' content is then undefined
+     */
+    public boolean match(final OtpErlangObject term, final OtpErlangObject[] slots) {
+        return root.match(term, slots);
+    }
+
+    /**
+     * @return the bindings, or null if the term doesn't match
+     */
+    public OtpBindings match(final OtpErlangObject term) {
+        final OtpErlangObject[] slots = new OtpErlangObject[names.length];
+        if (!root.match(term, slots)) {
+            return null;
+        }
+        return new OtpBindings(this, names, slots);
+    }
+
+    /**
+     * Matches a term, variables that are already bound must have the same values.
+     *
+     * @return the given bindings extended with the new ones, or null if the term doesn't
+     *         match
+     */
+    public OtpBindings match(final OtpErlangObject term, final OtpBindings bindings) {
+        final OtpErlangObject[] slots = new OtpErlangObject[names.length];
+        if (!root.match(term, slots)) {
+            return null;
+        }
+        for (int i = 0; i < names.length; i++) {
+            final OtpErlangObject old = bindings.get(names[i]);
+            if (old != null && !old.equals(slots[i])) {
+                return null;
+            }
+        }
+        final OtpBindings result = new OtpBindings(bindings);
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], slots[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the tag of a tuple pattern starting with an atom, or null
+     */
+    String getTupleTag() {
+        return root instanceof TupleMatcher ? ((TupleMatcher) root).tag : null;
+    }
+
+    /**
+     * @return the arity of a tuple pattern, or -1
+     */
+    int getTupleArity() {
+        return root instanceof TupleMatcher ? ((TupleMatcher) root).elements.length : -1;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static Matcher compile(final OtpErlangObject pattern,
+            final List<String> vars) {
+        if (pattern == null) {
+            return new LiteralMatcher(null);
+        }
+        if (pattern instanceof OtpPatternVariable) {
+            final OtpPatternVariable var = (OtpPatternVariable) pattern;
+            if ("_".equals(var.getName())) {
+                return new VariableMatcher(var.getSignature(), -1, false);
+            }
+            int slot = vars.indexOf(var.getName());
+            final boolean bound = slot >= 0;
+            if (!bound) {
+                slot = vars.size();
+                vars.add(var.getName());
+            }
+            return new VariableMatcher(var.getSignature(), slot, bound);
+        }
+        if (pattern.getClass() == OtpErlangTuple.class) {
+            final OtpErlangObject[] elements = ((OtpErlangTuple) pattern).elements();
+            final Matcher[] matchers = new Matcher[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                matchers[i] = OtpPattern.compile(elements[i], vars);
+            }
+            return new TupleMatcher(matchers);
+        }
+        if (pattern.getClass() == OtpErlangList.class) {
+            final OtpErlangList list = (OtpErlangList) pattern;
+            final Matcher[] matchers = new Matcher[list.arity()];
+            for (int i = 0; i < matchers.length; i++) {
+                matchers[i] = OtpPattern.compile(list.elementAt(i), vars);
+            }
+            final OtpErlangObject tail = list.getLastTail();
+            return new ListMatcher(matchers,
+                    tail == null ? null : OtpPattern.compile(tail, vars),
+                    tail instanceof OtpPatternVariable);
+        }
+        return new LiteralMatcher(pattern);
+    }
+
+    private abstract static class Matcher {
+        abstract boolean match(OtpErlangObject term, OtpErlangObject[] slots);
+    }
+
+    private static final class LiteralMatcher extends Matcher {
+        private final OtpErlangObject value;
+
+        LiteralMatcher(final OtpErlangObject value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean match(final OtpErlangObject term, final OtpErlangObject[] slots) {
+            if (value == null || term == null) {
+                return value == term;
+            }
+            return value.getClass() == term.getClass() && value.equals(term);
+        }
+    }
+
+    private static final class VariableMatcher extends Matcher {
+        private final Signature signature;
+        private final int slot;
+        private final boolean bound;
+
+        VariableMatcher(final Signature signature, final int slot, final boolean bound) {
+            this.signature = signature;
+            this.slot = slot;
+            this.bound = bound;
+        }
+
+        @Override
+        boolean match(final OtpErlangObject term, final OtpErlangObject[] slots) {
+            if (term == null || !TypeConverter.doesMatchSignature(term, signature)) {
+                return false;
+            }
+            if (slot < 0) {
+                return true;
+            }
+            if (bound) {
+                return slots[slot].equals(term);
+            }
+            slots[slot] = term;
+            return true;
+        }
+    }
+
+    private static final class TupleMatcher extends Matcher {
+        private final Matcher[] elements;
+        private final String tag;
+
+        TupleMatcher(final Matcher[] elements) {
+            this.elements = elements;
+            final Matcher first = elements.length == 0 ? null : elements[0];
+            if (first instanceof LiteralMatcher
+                    && ((LiteralMatcher) first).value instanceof OtpErlangAtom) {
+                tag = ((OtpErlangAtom) ((LiteralMatcher) first).value).atomValue();
+            } else {
+                tag = null;
+            }
+        }
+
+        @Override
+        boolean match(final OtpErlangObject term, final OtpErlangObject[] slots) {
+            if (term == null || term.getClass() != OtpErlangTuple.class) {
+                return false;
+            }
+            final OtpErlangTuple tuple = (OtpErlangTuple) term;
+            if (tuple.arity() != elements.length) {
+                return false;
+            }
+            for (int i = 0; i < elements.length; i++) {
+                if (!elements[i].match(tuple.elementAt(i), slots)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class ListMatcher extends Matcher {
+        private final Matcher[] elements;
+        // null for proper lists
+        private final Matcher tail;
+        private final boolean tailIsVariable;
+
+        ListMatcher(final Matcher[] elements, final Matcher tail,
+                final boolean tailIsVariable) {
+            this.elements = elements;
+            this.tail = tail;
+            this.tailIsVariable = tailIsVariable;
+        }
+
+        @Override
+        boolean match(final OtpErlangObject term, final OtpErlangObject[] slots) {
+            if (term == null || term.getClass() != OtpErlangList.class) {
+                return false;
+            }
+            final OtpErlangList list = (OtpErlangList) term;
+            final int arity = list.arity();
+            if (elements.length > arity) {
+                return false;
+            }
+            if (elements.length < arity && tail == null) {
+                return false;
+            }
+            if (elements.length == arity && (tail == null) != list.isProper()) {
+                return false;
+            }
+            for (int i = 0; i < elements.length; i++) {
+                if (!elements[i].match(list.elementAt(i), slots)) {
+                    return false;
+                }
+            }
+            if (tail == null) {
+                return true;
+            }
+            if (elements.length < arity && tailIsVariable) {
+                return tail.match(list.getNthTail(elements.length), slots);
+            }
+            return tail.match(list.getLastTail(), slots);
+        }
+    }
+
+}
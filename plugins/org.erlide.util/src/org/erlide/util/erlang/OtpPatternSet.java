@@ -0,0 +1,139 @@
+package org.erlide.util.erlang;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+/**
+ * Patterns that are tried in order, like the clauses of a case expression. Tuple
+ * patterns starting with an atom are indexed by that atom and their arity, so a term is
+ * only matched against the clauses that can match it.
+ *
+ * <pre>
+ * static final OtpPattern PUT_CHARS = OtpPattern.of(&quot;{put_chars, Chars}&quot;);
+ * ...
+ * final OtpBindings b = REQUESTS.match(request);
+ * if (b != null &amp;&amp; b.getPattern() == PUT_CHARS) {
+ * </pre>
+ */
+public final class OtpPatternSet {
+
+    private static final OtpPattern[] NONE = new OtpPattern[0];
+
+    private final OtpPattern[] patterns;
+    // {Tag, Arity} -> the clauses that can match such tuples, in order
+    private final Map<Key, OtpPattern[]> index = new HashMap<>();
+    // the clauses that can match anything else
+    private final OtpPattern[] others;
+
+    public OtpPatternSet(final OtpPattern... patterns) {
+        this.patterns = patterns.clone();
+        final List<OtpPattern> generic = new ArrayList<>();
+        for (final OtpPattern p : patterns) {
+            if (p.getTupleTag() == null) {
+                generic.add(p);
+            }
+        }
+        others = generic.toArray(OtpPatternSet.NONE);
+        final Map<Key, List<OtpPattern>> clauses = new HashMap<>();
+        for (final OtpPattern p : patterns) {
+            if (p.getTupleTag() == null) {
+                continue;
+            }
+            final Key key = new Key(p.getTupleTag(), p.getTupleArity());
+            if (!clauses.containsKey(key)) {
+                final List<OtpPattern> list = new ArrayList<>();
+                for (final OtpPattern q : patterns) {
+                    if (q.getTupleTag() == null || key.matches(q)) {
+                        list.add(q);
+                    }
+                }
+                clauses.put(key, list);
+            }
+        }
+        for (final Map.Entry<Key, List<OtpPattern>> e : clauses.entrySet()) {
+            index.put(e.getKey(), e.getValue().toArray(OtpPatternSet.NONE));
+        }
+    }
+
+    public OtpPatternSet(final String... patterns) {
+        this(OtpPatternSet.compile(patterns));
+    }
+
+    public int size() {
+        return patterns.length;
+    }
+
+    public OtpPattern get(final int i) {
+        return patterns[i];
+    }
+
+    /**
+     * @return the bindings of the first pattern that matches the term, or null. The
+     *         pattern is given by {@link OtpBindings#getPattern()}.
+     */
+    public OtpBindings match(final OtpErlangObject term) {
+        for (final OtpPattern p : candidates(term)) {
+            final OtpBindings b = p.match(term);
+            if (b != null) {
+                return b;
+            }
+        }
+        return null;
+    }
+
+    private OtpPattern[] candidates(final OtpErlangObject term) {
+        if (index.isEmpty() || !(term instanceof OtpErlangTuple)) {
+            return others;
+        }
+        final OtpErlangTuple tuple = (OtpErlangTuple) term;
+        if (tuple.arity() == 0 || !(tuple.elementAt(0) instanceof OtpErlangAtom)) {
+            return others;
+        }
+        final String tag = ((OtpErlangAtom) tuple.elementAt(0)).atomValue();
+        final OtpPattern[] result = index.get(new Key(tag, tuple.arity()));
+        return result == null ? others : result;
+    }
+
+    private static OtpPattern[] compile(final String[] patterns) {
+        final OtpPattern[] result = new OtpPattern[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            result[i] = OtpPattern.of(patterns[i]);
+        }
+        return result;
+    }
+
+    private static final class Key {
+        private final String tag;
+        private final int arity;
+
+        Key(final String tag, final int arity) {
+            this.tag = tag;
+            this.arity = arity;
+        }
+
+        boolean matches(final OtpPattern p) {
+            return tag.equals(p.getTupleTag()) && arity == p.getTupleArity();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return tag.equals(other.tag) && arity == other.arity;
+        }
+
+        @Override
+        public int hashCode() {
+            return tag.hashCode() * 31 + arity;
+        }
+    }
+
+}
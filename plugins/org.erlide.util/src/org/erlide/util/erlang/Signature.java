@@ -9,16 +9,18 @@
 package org.erlide.util.erlang;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Signature {
-    private static final Map<String, Signature[]> CACHE = new HashMap<>();
-    private static boolean useCache = true;
+    private static final Map<String, Signature[]> CACHE = new ConcurrentHashMap<>();
+    private static volatile boolean useCache = true;
 
     public char kind = 'x';
     public Signature[] content;
+    // converters from Java classes, see TypeCodecs
+    volatile Map<Class<?>, TypeCodecs.Encoder> encoders;
 
     public Signature(final char str) {
         kind = str;
@@ -48,7 +50,7 @@ public class Signature {
         return kind + res.toString();
     }
 
-    public static synchronized Signature[] parse(final String signature)
+    public static Signature[] parse(final String signature)
             throws SignatureException {
         if (signature == null) {
             return null;
@@ -69,7 +71,11 @@ public class Signature {
         }
         result = type.toArray(new Signature[type.size()]);
         if (Signature.useCache) {
-            Signature.CACHE.put(signature, result);
+            // another thread may have parsed it meanwhile, all users share one result
+            final Signature[] known = Signature.CACHE.putIfAbsent(signature, result);
+            if (known != null) {
+                result = known;
+            }
         }
         return result;
     }
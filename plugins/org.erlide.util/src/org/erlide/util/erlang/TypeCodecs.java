@@ -0,0 +1,726 @@
+/*******************************************************************************
+ * Copyright (c) 2008 Vlad Dumitrescu and others. All rights reserved. This program and
+ * the accompanying materials are made available under the terms of the Eclipse Public
+ * License v1.0 which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Vlad Dumitrescu
+ *******************************************************************************/
+package org.erlide.util.erlang;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangByte;
+import com.ericsson.otp.erlang.OtpErlangChar;
+import com.ericsson.otp.erlang.OtpErlangDouble;
+import com.ericsson.otp.erlang.OtpErlangFloat;
+import com.ericsson.otp.erlang.OtpErlangInt;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangMap;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangRef;
+import com.ericsson.otp.erlang.OtpErlangShort;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import com.google.common.collect.Maps;
+
+/**
+ * Converters used by {@link TypeConverter}. The checks on the Java class and on the
+ * signature are done once, when the converter for a class (and signature) is first
+ * needed; the converters are cached and only do the conversion itself.
+ * <p>
+ * Decoders are cached per Java class. Encoders are cached per Java class on the
+ * {@link Signature} they are for (signatures are cached by {@link Signature#parse}),
+ * encoders for 'x' are cached per class only.
+ * </p>
+ */
+final class TypeCodecs {
+
+    private static final String CANT_CONVERT_TO = ", can't convert to ";
+    private static final String WRONG_ARG_TYPE = "wrong arg type ";
+
+    private static final OtpErlangAtom TRUE = new OtpErlangAtom("true");
+    private static final OtpErlangAtom FALSE = new OtpErlangAtom("false");
+
+    interface Decoder {
+        Object decode(OtpErlangObject obj) throws SignatureException;
+    }
+
+    interface Encoder {
+        OtpErlangObject encode(Object obj) throws SignatureException;
+    }
+
+    private static final ClassValue<Decoder> DECODERS = new ClassValue<Decoder>() {
+        @Override
+        protected Decoder computeValue(final Class<?> type) {
+            return TypeCodecs.compileDecoder(type);
+        }
+    };
+
+    private static final ClassValue<Encoder> ANY_ENCODERS = new ClassValue<Encoder>() {
+        @Override
+        protected Encoder computeValue(final Class<?> type) {
+            return TypeCodecs.compileAnyEncoder(type);
+        }
+    };
+
+    private TypeCodecs() {
+    }
+
+    static Decoder decoder(final Class<?> cls) {
+        return TypeCodecs.DECODERS.get(cls);
+    }
+
+    static OtpErlangObject encode(final Object obj, final Signature type)
+            throws SignatureException {
+        if (type.kind == 'x') {
+            return TypeCodecs.encodeAny(obj);
+        }
+        if (obj == null) {
+            throw new SignatureException("Bad conversion required: null - " + type);
+        }
+        Map<Class<?>, Encoder> encoders = type.encoders;
+        if (encoders == null) {
+            encoders = Maps.newConcurrentMap();
+            type.encoders = encoders;
+        }
+        final Class<?> cls = obj.getClass();
+        Encoder encoder = encoders.get(cls);
+        if (encoder == null) {
+            encoder = TypeCodecs.compileEncoder(cls, type);
+            encoders.put(cls, encoder);
+        }
+        return encoder.encode(obj);
+    }
+
+    /**
+     * Writes the converted value directly to a stream. Common cases (strings, atoms,
+     * integers, booleans, lists and tuples of those) are written without creating
+     * terms.
+     */
+    @SuppressWarnings("boxing")
+    static void write(final Object obj, final Signature type, final OtpOutputStream out)
+            throws SignatureException {
+        if (obj == null) {
+            throw new SignatureException("Bad conversion required: null - " + type);
+        }
+        if (obj instanceof OtpErlangObject) {
+            out.write_any(TypeCodecs.encode(obj, type));
+            return;
+        }
+        switch (type.kind) {
+        case 'x':
+            if (obj instanceof String) {
+                out.write_string((String) obj);
+                return;
+            }
+            if (TypeCodecs.isSmallInteger(obj)) {
+                out.write_long(((Number) obj).longValue());
+                return;
+            }
+            break;
+        case 's':
+            if (obj instanceof String) {
+                out.write_string((String) obj);
+                return;
+            }
+            break;
+        case 'a':
+            if (obj instanceof String) {
+                out.write_atom((String) obj);
+                return;
+            }
+            break;
+        case 'b':
+            if (obj instanceof String) {
+                out.write_binary(((String) obj).getBytes());
+                return;
+            }
+            break;
+        case 'i':
+            if (TypeCodecs.isSmallInteger(obj)) {
+                out.write_long(((Number) obj).longValue());
+                return;
+            }
+            break;
+        case 'o':
+            if (obj instanceof Boolean) {
+                out.write_atom((Boolean) obj ? "true" : "false");
+                return;
+            }
+            break;
+        case 'l':
+            if (obj instanceof Collection) {
+                final Collection<?> c = (Collection<?>) obj;
+                if (!c.isEmpty()) {
+                    out.write_list_head(c.size());
+                    for (final Object o : c) {
+                        TypeCodecs.write(o, type.content[0], out);
+                    }
+                }
+                out.write_nil();
+                return;
+            }
+            if (obj instanceof Object[]) {
+                final Object[] array = (Object[]) obj;
+                if (array.length > 0) {
+                    out.write_list_head(array.length);
+                    for (final Object o : array) {
+                        TypeCodecs.write(o, type.content[0], out);
+                    }
+                }
+                out.write_nil();
+                return;
+            }
+            break;
+        case 't':
+            if (obj instanceof Object[]
+                    && ((Object[]) obj).length == type.content.length) {
+                final Object[] array = (Object[]) obj;
+                out.write_tuple_head(array.length);
+                for (int i = 0; i < array.length; i++) {
+                    TypeCodecs.write(array[i], type.content[i], out);
+                }
+                return;
+            }
+            break;
+        default:
+            break;
+        }
+        final OtpErlangObject term = TypeCodecs.encode(obj, type);
+        if (term == null) {
+            throw new SignatureException(String.format(
+                    "Bad conversion required: %s - %s", obj.getClass().getName(), type));
+        }
+        out.write_any(term);
+    }
+
+    private static boolean isSmallInteger(final Object obj) {
+        return obj instanceof Integer || obj instanceof Long || obj instanceof Short
+                || obj instanceof Byte;
+    }
+
+    // ---- Erlang -> Java
+
+    @SuppressWarnings("boxing")
+    private static Decoder compileDecoder(final Class<?> cls) {
+        final Decoder custom = TypeCodecs.customDecoder(cls);
+        if (custom != null) {
+            return custom;
+        }
+        if (cls.isArray()) {
+            return TypeCodecs.arrayDecoder(cls.getComponentType());
+        }
+        if (cls == String.class) {
+            return TypeCodecs::decodeString;
+        }
+        if (cls == char.class || cls == Character.class) {
+            return obj -> (char) TypeCodecs.decodeLong(obj, cls);
+        }
+        if (cls == int.class || cls == Integer.class) {
+            return obj -> (int) TypeCodecs.decodeLong(obj, cls);
+        }
+        if (cls == byte.class || cls == Byte.class) {
+            return obj -> (byte) TypeCodecs.decodeLong(obj, cls);
+        }
+        if (cls == short.class || cls == Short.class) {
+            return obj -> (short) TypeCodecs.decodeLong(obj, cls);
+        }
+        if (cls == long.class || cls == Long.class) {
+            return obj -> TypeCodecs.decodeLong(obj, cls);
+        }
+        if (cls == boolean.class || cls == Boolean.class) {
+            return obj -> {
+                if (TypeCodecs.TRUE.equals(obj)) {
+                    return true;
+                }
+                if (TypeCodecs.FALSE.equals(obj)) {
+                    return false;
+                }
+                throw TypeCodecs.wrongType(obj, cls);
+            };
+        }
+        if (Map.class.isAssignableFrom(cls)) {
+            return obj -> {
+                if (!(obj instanceof OtpErlangMap)) {
+                    throw TypeCodecs.wrongType(obj, cls);
+                }
+                // keys and values are kept as terms
+                final OtpErlangMap map = (OtpErlangMap) obj;
+                final Map<Object, Object> result = Maps.newHashMap();
+                for (final Map.Entry<OtpErlangObject, OtpErlangObject> e : map
+                        .entrySet()) {
+                    result.put(e.getKey(), e.getValue());
+                }
+                return result;
+            };
+        }
+        if (Collection.class.isAssignableFrom(cls)) {
+            return obj -> {
+                if (!(obj instanceof OtpErlangList)) {
+                    throw TypeCodecs.wrongType(obj, cls);
+                }
+                // elements are kept as terms, elements() is already a copy
+                return Arrays.asList((Object[]) ((OtpErlangList) obj).elements());
+            };
+        }
+        return obj -> {
+            if (obj instanceof OtpErlangRef) {
+                throw TypeCodecs.wrongType(obj, cls);
+            }
+            return obj;
+        };
+    }
+
+    /**
+     * Uses the static <code>fromErlangObject(OtpErlangObject)</code> method of the class,
+     * if there is one.
+     */
+    private static Decoder customDecoder(final Class<?> cls) {
+        final MethodHandle handle;
+        try {
+            final Method method = cls.getMethod("fromErlangObject",
+                    OtpErlangObject.class);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                return null;
+            }
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method).asType(
+                    MethodType.methodType(Object.class, OtpErlangObject.class));
+        } catch (final NoSuchMethodException e) {
+            return null;
+        } catch (final IllegalAccessException | SecurityException e) {
+            return obj -> {
+                throw new SignatureException(e);
+            };
+        }
+        return obj -> {
+            try {
+                return (Object) handle.invokeExact(obj);
+            } catch (final SignatureException | Error e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new SignatureException(e);
+            } catch (final Throwable e) {
+                throw new SignatureException(new Exception(e));
+            }
+        };
+    }
+
+    private static Decoder arrayDecoder(final Class<?> component) {
+        if (component == byte.class) {
+            return obj -> {
+                if (obj instanceof OtpErlangString) {
+                    return ((OtpErlangString) obj).stringValue().getBytes();
+                }
+                final OtpErlangObject[] els = TypeCodecs.elements(obj);
+                final byte[] result = new byte[els == null ? 0 : els.length];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = (byte) TypeCodecs.decodeLong(els[i], byte.class);
+                }
+                return result;
+            };
+        }
+        if (component == int.class) {
+            return obj -> {
+                if (obj instanceof OtpErlangString) {
+                    final byte[] bytes = ((OtpErlangString) obj).stringValue().getBytes();
+                    final int[] result = new int[bytes.length];
+                    for (int i = 0; i < bytes.length; i++) {
+                        result[i] = bytes[i];
+                    }
+                    return result;
+                }
+                final OtpErlangObject[] els = TypeCodecs.elements(obj);
+                final int[] result = new int[els == null ? 0 : els.length];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = (int) TypeCodecs.decodeLong(els[i], int.class);
+                }
+                return result;
+            };
+        }
+        if (component == long.class) {
+            return obj -> {
+                if (obj instanceof OtpErlangString) {
+                    final byte[] bytes = ((OtpErlangString) obj).stringValue().getBytes();
+                    final long[] result = new long[bytes.length];
+                    for (int i = 0; i < bytes.length; i++) {
+                        result[i] = bytes[i];
+                    }
+                    return result;
+                }
+                final OtpErlangObject[] els = TypeCodecs.elements(obj);
+                final long[] result = new long[els == null ? 0 : els.length];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = TypeCodecs.decodeLong(els[i], long.class);
+                }
+                return result;
+            };
+        }
+        final Decoder element = TypeCodecs.decoder(component);
+        if (component.isPrimitive()) {
+            // other primitive arrays are rare, fill them reflectively
+            return obj -> {
+                if (obj instanceof OtpErlangString) {
+                    final byte[] s = ((OtpErlangString) obj).stringValue().getBytes();
+                    final Object result = Array.newInstance(component, s.length);
+                    for (int i = 0; i < s.length; i++) {
+                        Array.set(result, i, Byte.valueOf(s[i]));
+                    }
+                    return result;
+                }
+                final OtpErlangObject[] els = TypeCodecs.elements(obj);
+                final Object result = Array.newInstance(component,
+                        els == null ? 0 : els.length);
+                for (int i = 0; els != null && i < els.length; i++) {
+                    Array.set(result, i, TypeCodecs.decode(element, els[i], component));
+                }
+                return result;
+            };
+        }
+        return obj -> {
+            if (obj instanceof OtpErlangString) {
+                final byte[] s = ((OtpErlangString) obj).stringValue().getBytes();
+                final Object[] result = (Object[]) Array.newInstance(component, s.length);
+                for (int i = 0; i < s.length; i++) {
+                    result[i] = Byte.valueOf(s[i]);
+                }
+                return result;
+            }
+            final OtpErlangObject[] els = TypeCodecs.elements(obj);
+            if (els == null) {
+                return new Object[0];
+            }
+            final Object[] result = (Object[]) Array.newInstance(component, els.length);
+            for (int i = 0; i < els.length; i++) {
+                result[i] = TypeCodecs.decode(element, els[i], component);
+            }
+            return result;
+        };
+    }
+
+    private static Object decode(final Decoder decoder, final OtpErlangObject obj,
+            final Class<?> cls) throws SignatureException {
+        return cls == obj.getClass() ? obj : decoder.decode(obj);
+    }
+
+    private static OtpErlangObject[] elements(final OtpErlangObject obj) {
+        if (obj instanceof OtpErlangList) {
+            return ((OtpErlangList) obj).elements();
+        }
+        if (obj instanceof OtpErlangTuple) {
+            return ((OtpErlangTuple) obj).elements();
+        }
+        return null;
+    }
+
+    private static long decodeLong(final OtpErlangObject obj, final Class<?> cls)
+            throws SignatureException {
+        if (obj instanceof OtpErlangLong) {
+            return ((OtpErlangLong) obj).longValue();
+        }
+        throw TypeCodecs.wrongType(obj, cls);
+    }
+
+    static String decodeString(final OtpErlangObject obj) throws SignatureException {
+        if (obj instanceof OtpErlangString) {
+            return ((OtpErlangString) obj).stringValue();
+        }
+        if (obj instanceof OtpErlangAtom) {
+            return ((OtpErlangAtom) obj).atomValue();
+        }
+        if (obj instanceof OtpErlangBinary) {
+            return new String(((OtpErlangBinary) obj).binaryValue());
+        }
+        if (obj instanceof OtpErlangList) {
+            final StringBuilder res = new StringBuilder();
+            for (final OtpErlangObject el : (OtpErlangList) obj) {
+                if (el instanceof OtpErlangLong) {
+                    final long l = ((OtpErlangLong) el).longValue();
+                    res.append((char) (l & 0xFFFF));
+                } else {
+                    res.append(TypeCodecs.decodeString(el));
+                }
+            }
+            return res.toString();
+        }
+        throw new SignatureException(TypeCodecs.WRONG_ARG_TYPE + obj.getClass().getName()
+                + TypeCodecs.CANT_CONVERT_TO + "String");
+    }
+
+    private static SignatureException wrongType(final OtpErlangObject obj,
+            final Class<?> cls) {
+        return new SignatureException(TypeCodecs.WRONG_ARG_TYPE + obj.getClass().getName()
+                + TypeCodecs.CANT_CONVERT_TO + cls.getCanonicalName());
+    }
+
+    // ---- Java -> Erlang
+
+    @SuppressWarnings("boxing")
+    private static Encoder compileEncoder(final Class<?> cls, final Signature type) {
+        final char kind = type.kind;
+        if (cls == String.class) {
+            switch (kind) {
+            case 's':
+                return obj -> new OtpErlangString((String) obj);
+            case 'a':
+                return obj -> new OtpErlangAtom((String) obj);
+            case 'b':
+                return obj -> new OtpErlangBinary(((String) obj).getBytes());
+            default:
+                return TypeCodecs.failing(type);
+            }
+        }
+        if (cls == Character.class) {
+            return kind == 'i' ? obj -> new OtpErlangChar((Character) obj)
+                    : TypeCodecs.failing(type);
+        }
+        if (Number.class.isAssignableFrom(cls)) {
+            if (cls == Float.class) {
+                return kind == 'd' ? obj -> new OtpErlangFloat((Float) obj)
+                        : TypeCodecs.failing(type);
+            }
+            if (cls == Double.class) {
+                return kind == 'd' ? obj -> new OtpErlangDouble((Double) obj)
+                        : TypeCodecs.failing(type);
+            }
+            if (kind != 'i') {
+                return TypeCodecs.failing(type);
+            }
+            if (cls == BigInteger.class) {
+                return obj -> new OtpErlangLong((BigInteger) obj);
+            }
+            return obj -> new OtpErlangLong(((Number) obj).longValue());
+        }
+        if (cls == Boolean.class) {
+            return kind == 'o' ? obj -> (Boolean) obj ? TypeCodecs.TRUE : TypeCodecs.FALSE
+                    : TypeCodecs.failing(type);
+        }
+        if (Collection.class.isAssignableFrom(cls)) {
+            if (kind != 'l') {
+                return TypeCodecs.failing(type);
+            }
+            final Signature element = type.content[0];
+            return obj -> {
+                final Collection<?> c = (Collection<?>) obj;
+                final OtpErlangObject[] result = new OtpErlangObject[c.size()];
+                int i = 0;
+                for (final Object o : c) {
+                    result[i++] = TypeCodecs.encode(o, element);
+                }
+                return new OtpErlangList(
+                        i == result.length ? result : Arrays.copyOf(result, i));
+            };
+        }
+        if (Map.class.isAssignableFrom(cls)) {
+            if (kind != 'm') {
+                return TypeCodecs.failing(type);
+            }
+            return obj -> {
+                @SuppressWarnings("unchecked")
+                final Map<OtpErlangObject, OtpErlangObject> map = (Map<OtpErlangObject, OtpErlangObject>) obj;
+                final OtpErlangObject[] keys = new OtpErlangObject[map.size()];
+                final OtpErlangObject[] values = new OtpErlangObject[keys.length];
+                int i = 0;
+                for (final Map.Entry<OtpErlangObject, OtpErlangObject> e : map
+                        .entrySet()) {
+                    keys[i] = e.getKey();
+                    values[i] = e.getValue();
+                    i++;
+                }
+                return new OtpErlangMap(keys, values);
+            };
+        }
+        if (OtpErlangPid.class.isAssignableFrom(cls)
+                || OtpErlangRef.class.isAssignableFrom(cls)
+                || OtpErlangBinary.class.isAssignableFrom(cls)) {
+            return obj -> (OtpErlangObject) obj;
+        }
+        if (OtpErlangObject.class.isAssignableFrom(cls)) {
+            return obj -> {
+                TypeConverter.checkConversion(obj);
+                return (OtpErlangObject) obj;
+            };
+        }
+        if (IConvertible.class.isAssignableFrom(cls)) {
+            return obj -> ((IConvertible) obj).toErlangObject();
+        }
+        if (cls.isArray()) {
+            return TypeCodecs.arrayEncoder(cls.getComponentType(), type);
+        }
+        if (kind == 's') {
+            return obj -> new OtpErlangString(obj.toString());
+        }
+        if (kind == 'b') {
+            return obj -> new OtpErlangBinary(obj.toString().getBytes());
+        }
+        return TypeCodecs.failing(type);
+    }
+
+    private static Encoder arrayEncoder(final Class<?> component, final Signature type) {
+        switch (type.kind) {
+        case 'b':
+            return obj -> new OtpErlangBinary(obj);
+        case 'l':
+            final Signature element = type.content[0];
+            if (!component.isPrimitive()) {
+                return obj -> {
+                    final Object[] array = (Object[]) obj;
+                    final OtpErlangObject[] result = new OtpErlangObject[array.length];
+                    for (int i = 0; i < array.length; i++) {
+                        result[i] = TypeCodecs.encode(array[i], element);
+                    }
+                    return new OtpErlangList(result);
+                };
+            }
+            return obj -> {
+                final int length = Array.getLength(obj);
+                final OtpErlangObject[] result = new OtpErlangObject[length];
+                for (int i = 0; i < length; i++) {
+                    result[i] = TypeCodecs.encode(Array.get(obj, i), element);
+                }
+                return new OtpErlangList(result);
+            };
+        case 't':
+            final Signature[] elements = type.content;
+            return obj -> {
+                final int length = Array.getLength(obj);
+                final OtpErlangObject[] result = new OtpErlangObject[length];
+                for (int i = 0; i < length; i++) {
+                    result[i] = TypeCodecs.encode(Array.get(obj, i), elements[i]);
+                }
+                return new OtpErlangTuple(result);
+            };
+        default:
+            return TypeCodecs.failing(type);
+        }
+    }
+
+    /**
+     * Old style conversion, used when "x" is given as signature.
+     */
+    @SuppressWarnings("boxing")
+    private static Encoder compileAnyEncoder(final Class<?> cls) {
+        if (cls == String.class) {
+            return obj -> new OtpErlangString((String) obj);
+        }
+        if (cls == Character.class) {
+            return obj -> new OtpErlangChar((Character) obj);
+        }
+        if (cls == Byte.class) {
+            return obj -> new OtpErlangByte((Byte) obj);
+        }
+        if (cls == Short.class) {
+            return obj -> new OtpErlangShort((Short) obj);
+        }
+        if (cls == Integer.class) {
+            return obj -> new OtpErlangInt((Integer) obj);
+        }
+        if (cls == Long.class) {
+            return obj -> new OtpErlangLong((Long) obj);
+        }
+        if (cls == BigInteger.class) {
+            return obj -> new OtpErlangLong((BigInteger) obj);
+        }
+        if (cls == Float.class) {
+            return obj -> new OtpErlangFloat((Float) obj);
+        }
+        if (cls == Double.class) {
+            return obj -> new OtpErlangDouble((Double) obj);
+        }
+        if (cls == Boolean.class) {
+            return obj -> (Boolean) obj ? TypeCodecs.TRUE : TypeCodecs.FALSE;
+        }
+        if (Collection.class.isAssignableFrom(cls)) {
+            return obj -> {
+                final Collection<?> c = (Collection<?>) obj;
+                final OtpErlangObject[] result = new OtpErlangObject[c.size()];
+                int i = 0;
+                for (final Object o : c) {
+                    result[i++] = TypeCodecs.encodeAny(o);
+                }
+                return new OtpErlangList(
+                        i == result.length ? result : Arrays.copyOf(result, i));
+            };
+        }
+        if (Map.class.isAssignableFrom(cls)) {
+            return obj -> {
+                final Map<?, ?> map = (Map<?, ?>) obj;
+                final OtpErlangObject[] keys = new OtpErlangObject[map.size()];
+                final OtpErlangObject[] values = new OtpErlangObject[keys.length];
+                int i = 0;
+                for (final Map.Entry<?, ?> e : map.entrySet()) {
+                    keys[i] = TypeCodecs.encodeAny(e.getKey());
+                    values[i] = TypeCodecs.encodeAny(e.getValue());
+                    i++;
+                }
+                return new OtpErlangMap(keys, values);
+            };
+        }
+        if (OtpErlangPid.class.isAssignableFrom(cls)
+                || OtpErlangRef.class.isAssignableFrom(cls)
+                || OtpErlangTuple.class.isAssignableFrom(cls)
+                || OtpErlangAtom.class.isAssignableFrom(cls)
+                || OtpErlangBinary.class.isAssignableFrom(cls)
+                || OtpErlangString.class.isAssignableFrom(cls)) {
+            return obj -> (OtpErlangObject) obj;
+        }
+        if (OtpErlangObject.class.isAssignableFrom(cls)) {
+            return obj -> {
+                TypeConverter.checkConversion(obj);
+                return (OtpErlangObject) obj;
+            };
+        }
+        if (cls.isArray()) {
+            if (!cls.getComponentType().isPrimitive()) {
+                return obj -> {
+                    final Object[] array = (Object[]) obj;
+                    final OtpErlangObject[] result = new OtpErlangObject[array.length];
+                    for (int i = 0; i < array.length; i++) {
+                        result[i] = TypeCodecs.encodeAny(array[i]);
+                    }
+                    return new OtpErlangList(result);
+                };
+            }
+            return obj -> {
+                final int length = Array.getLength(obj);
+                final OtpErlangObject[] result = new OtpErlangObject[length];
+                for (int i = 0; i < length; i++) {
+                    result[i] = TypeCodecs.encodeAny(Array.get(obj, i));
+                }
+                return new OtpErlangList(result);
+            };
+        }
+        return obj -> null;
+    }
+
+    private static OtpErlangObject encodeAny(final Object obj) throws SignatureException {
+        if (obj == null) {
+            return null;
+        }
+        return TypeCodecs.ANY_ENCODERS.get(obj.getClass()).encode(obj);
+    }
+
+    private static Encoder failing(final Signature type) {
+        return obj -> {
+            throw new SignatureException(
+                    String.format("Bad conversion required: %s(%s) - %s",
+                            obj.getClass().getName(), obj.toString(), type.toString()));
+        };
+    }
+
+}
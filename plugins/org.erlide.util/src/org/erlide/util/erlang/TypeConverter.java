@@ -8,10 +8,6 @@
  *******************************************************************************/
 package org.erlide.util.erlang;
 
-import java.lang.reflect.Array;
-import java.lang.reflect.Method;
-import java.math.BigInteger;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -20,22 +16,16 @@ import java.util.Set;
 import org.erlide.util.ErlLogger;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
-import com.ericsson.otp.erlang.OtpErlangBinary;
-import com.ericsson.otp.erlang.OtpErlangByte;
-import com.ericsson.otp.erlang.OtpErlangChar;
 import com.ericsson.otp.erlang.OtpErlangDouble;
-import com.ericsson.otp.erlang.OtpErlangFloat;
-import com.ericsson.otp.erlang.OtpErlangInt;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangLong;
 import com.ericsson.otp.erlang.OtpErlangMap;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangPid;
 import com.ericsson.otp.erlang.OtpErlangRef;
-import com.ericsson.otp.erlang.OtpErlangShort;
 import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
-import com.google.common.collect.Maps;
+import com.ericsson.otp.erlang.OtpOutputStream;
 
 /**
  * Helps converting Java values to Erlang terms, and back. The type information is
@@ -75,9 +65,6 @@ import com.google.common.collect.Maps;
  */
 public final class TypeConverter {
 
-    private static final String CANT_CONVERT_TO = ", can't convert to ";
-    private static final String WRONG_ARG_TYPE = "wrong arg type ";
-
     public static Class<?> getClassByName(final String arg) {
         if ("char".equals(arg)) {
             return char.class;
@@ -152,102 +139,13 @@ public final class TypeConverter {
 
     }
 
-    @SuppressWarnings("boxing")
     public static Object erlang2java(final OtpErlangObject obj, final Class<?> cls)
             throws SignatureException {
-        try {
-            if (cls == obj.getClass()) {
-                return obj;
-            }
-            // if the conversion method exists, use it
-            try {
-                final Method method = cls.getMethod("fromErlangObject",
-                        OtpErlangObject.class);
-                method.setAccessible(true);
-                final Object o = method.invoke(null, obj);
-                return o;
-            } catch (final NoSuchMethodException e) {
-                // ignore, continue
-            }
-
-            if (cls.isArray()) {
-                return TypeConverter.cvtArray(obj, cls);
-            }
-
-            if (cls == String.class) {
-                return TypeConverter.cvtString(obj);
-            }
-            if (TypeConverter.isNumericClass(cls)) {
-                if (obj instanceof OtpErlangLong) {
-                    final long res = ((OtpErlangLong) obj).longValue();
-                    if (cls == char.class || cls == Character.class) {
-                        return (char) res;
-                    }
-                    if (cls == int.class || cls == Integer.class) {
-                        return (int) res;
-                    }
-                    if (cls == byte.class || cls == Byte.class) {
-                        return (byte) res;
-                    }
-                    if (cls == short.class || cls == Short.class) {
-                        return (short) res;
-                    }
-                    if (cls == long.class || cls == Long.class) {
-                        return res;
-                    }
-                }
-                throw new SignatureException(
-                        TypeConverter.WRONG_ARG_TYPE + obj.getClass().getName()
-                                + TypeConverter.CANT_CONVERT_TO + cls.getCanonicalName());
-            }
-            if (cls == boolean.class || cls == Boolean.class) {
-                if (obj instanceof OtpErlangAtom) {
-                    final String s = ((OtpErlangAtom) obj).atomValue();
-                    if ("true".equals(s)) {
-                        return true;
-                    }
-                    if ("false".equals(s)) {
-                        return false;
-                    }
-                }
-                throw new SignatureException(
-                        TypeConverter.WRONG_ARG_TYPE + obj.getClass().getName()
-                                + TypeConverter.CANT_CONVERT_TO + cls.getCanonicalName());
-            }
-            if (Map.class.isAssignableFrom(cls)) {
-                if (obj instanceof OtpErlangMap) {
-                    final Map<Object, Object> result = Maps.newHashMap();
-                    final OtpErlangMap map = (OtpErlangMap) obj;
-                    for (final OtpErlangObject key : map.keys()) {
-                        final OtpErlangObject value = map.get(key);
-                        result.put(TypeConverter.erlang2java(key, key.getClass()),
-                                TypeConverter.erlang2java(value, value.getClass()));
-                    }
-                    return result;
-                }
-                throw new SignatureException(
-                        TypeConverter.WRONG_ARG_TYPE + obj.getClass().getName()
-                                + TypeConverter.CANT_CONVERT_TO + cls.getCanonicalName());
-            }
-            if (Collection.class.isAssignableFrom(cls)) {
-                if (obj instanceof OtpErlangList) {
-                    final OtpErlangObject[] list = ((OtpErlangList) obj).elements();
-                    final Object[] olist = new Object[list.length];
-                    for (int i = 0; i < list.length; i++) {
-                        olist[i] = TypeConverter.erlang2java(list[i], list[i].getClass());
-                    }
-                    return Arrays.asList(olist);
-                }
-                throw new SignatureException(
-                        TypeConverter.WRONG_ARG_TYPE + obj.getClass().getName()
-                                + TypeConverter.CANT_CONVERT_TO + cls.getCanonicalName());
-            }
-            if (obj instanceof OtpErlangRef) {
-                throw new SignatureException(
-                        TypeConverter.WRONG_ARG_TYPE + obj.getClass().getName()
-                                + TypeConverter.CANT_CONVERT_TO + cls.getCanonicalName());
-            }
+        if (cls == obj.getClass()) {
             return obj;
+        }
+        try {
+            return TypeCodecs.decoder(cls).decode(obj);
         } catch (final SignatureException e) {
             throw e;
         } catch (final Exception e) {
@@ -255,68 +153,6 @@ public final class TypeConverter {
         }
     }
 
-    private static boolean isNumericClass(final Class<?> cls) {
-        return cls == char.class || cls == Character.class || cls == int.class
-                || cls == Integer.class || cls == byte.class || cls == Byte.class
-                || cls == short.class || cls == Short.class || cls == long.class
-                || cls == Long.class;
-    }
-
-    private static String cvtString(final OtpErlangObject obj) throws SignatureException {
-        if (obj instanceof OtpErlangString) {
-            return ((OtpErlangString) obj).stringValue();
-        }
-        if (obj instanceof OtpErlangAtom) {
-            return ((OtpErlangAtom) obj).atomValue();
-        }
-        if (obj instanceof OtpErlangBinary) {
-            return new String(((OtpErlangBinary) obj).binaryValue());
-        }
-        if (obj instanceof OtpErlangList) {
-            final StringBuilder res = new StringBuilder();
-            for (final OtpErlangObject el : (OtpErlangList) obj) {
-                if (el instanceof OtpErlangLong) {
-                    final long l = ((OtpErlangLong) el).longValue();
-                    res.append((char) (l & 0xFFFF));
-                } else {
-                    res.append(TypeConverter.erlang2java(el, String.class));
-                }
-            }
-            return res.toString();
-        }
-        throw new SignatureException(TypeConverter.WRONG_ARG_TYPE
-                + obj.getClass().getName() + TypeConverter.CANT_CONVERT_TO + "String");
-    }
-
-    private static Object cvtArray(final OtpErlangObject obj, final Class<?> cls)
-            throws SignatureException {
-        OtpErlangObject[] els = null;
-        if (obj instanceof OtpErlangList) {
-            els = ((OtpErlangList) obj).elements();
-        }
-        if (obj instanceof OtpErlangTuple) {
-            els = ((OtpErlangTuple) obj).elements();
-        }
-        if (els != null) {
-            final Object arr = Array.newInstance(cls.getComponentType(), els.length);
-            for (int i = 0; i < els.length; i++) {
-                Array.set(arr, i,
-                        TypeConverter.erlang2java(els[i], cls.getComponentType()));
-            }
-            return arr;
-        }
-        if (obj instanceof OtpErlangString) {
-            final byte[] s = ((OtpErlangString) obj).stringValue().getBytes();
-            final Object arr = Array.newInstance(cls.getComponentType(), s.length);
-
-            for (int i = 0; i < s.length; i++) {
-                Array.set(arr, i, s[i]);
-            }
-            return arr;
-        }
-        return new Object[0];
-    }
-
     /**
      * Converts Java objects to Erlang terms.<br/>
      *
@@ -332,109 +168,31 @@ public final class TypeConverter {
         return TypeConverter.java2erlang(obj, Signature.parse(type)[0]);
     }
 
-    @SuppressWarnings("boxing")
     public static OtpErlangObject java2erlang(final Object obj, final Signature type)
             throws SignatureException {
-        if (type.kind == 'x') {
-            return TypeConverter.java2erlang(obj);
-        }
-        if (obj instanceof String) {
-            return TypeConverter.cvtString(obj, type);
-        }
-        if (obj instanceof Character) {
-            if (type.kind == 'i') {
-                return new OtpErlangChar((Character) obj);
-            }
-            TypeConverter.failConversion(obj, type);
-        }
-        if (obj instanceof Number) {
-            return TypeConverter.cvtNumber(obj, type);
-        }
-        if (obj instanceof Boolean) {
-            if (type.kind == 'o') {
-                return new OtpErlangAtom((Boolean) obj ? "true" : "false");
-            }
-            TypeConverter.failConversion(obj, type);
-        }
-        if (obj instanceof Collection<?>) {
-            if (type.kind == 'l') {
-                final Object[] v = ((Collection<?>) obj).toArray(new Object[] {});
-                final OtpErlangObject[] vv = new OtpErlangObject[v.length];
-                for (int i = 0; i < v.length; i++) {
-                    vv[i] = TypeConverter.java2erlang(v[i], type.content[0]);
-                }
-                return new OtpErlangList(vv);
-            }
-            TypeConverter.failConversion(obj, type);
-        }
-        if (obj instanceof Map<?, ?>) {
-            if (type.kind == 'm') {
-                @SuppressWarnings("unchecked")
-                final Map<OtpErlangObject, OtpErlangObject> map = (Map<OtpErlangObject, OtpErlangObject>) obj;
-                final int size = map.size();
-                final OtpErlangObject[] keys = map.keySet()
-                        .toArray(new OtpErlangObject[size]);
-                final OtpErlangObject[] values = new OtpErlangObject[size];
-                for (int i = 0; i < size; i++) {
-                    values[i] = map.get(keys[i]);
-                }
-                return new OtpErlangMap(keys, values);
-            }
-            TypeConverter.failConversion(obj, type);
-        }
-
-        if (obj instanceof OtpErlangPid) {
-            return (OtpErlangPid) obj;
-        }
-        if (obj instanceof OtpErlangRef) {
-            return (OtpErlangObject) obj;
-        }
-        if (obj instanceof OtpErlangBinary) {
-            return (OtpErlangObject) obj;
-        }
-        if (obj instanceof OtpErlangObject) {
-            TypeConverter.checkConversion(obj);
-            return (OtpErlangObject) obj;
-        }
-        if (obj instanceof IConvertible) {
-            return ((IConvertible) obj).toErlangObject();
-        }
-
-        if (obj != null && obj.getClass().isArray()) {
-            final int len = Array.getLength(obj);
-            // Class<?> component = obj.getClass().getComponentType();
-            if (type.kind == 'b') {
-                // TODO we can convert more things to binaries
-                return new OtpErlangBinary(obj);
-            }
-            if (type.kind == 'l') {
-                final OtpErlangObject[] vv = new OtpErlangObject[len];
-                for (int i = 0; i < len; i++) {
-                    vv[i] = TypeConverter.java2erlang(Array.get(obj, i), type.content[0]);
-                }
-                return new OtpErlangList(vv);
-            } else if (type.kind == 't') {
-                final OtpErlangObject[] vv = new OtpErlangObject[len];
-                for (int i = 0; i < len; i++) {
-                    vv[i] = TypeConverter.java2erlang(Array.get(obj, i), type.content[i]);
-                }
-                return new OtpErlangTuple(vv);
-            } else {
-                TypeConverter.failConversion(obj, type);
-            }
-        }
+        return TypeCodecs.encode(obj, type);
+    }
 
-        if (type.kind == 's' && obj != null) {
-            return new OtpErlangString(obj.toString());
-        }
-        if (type.kind == 'b' && obj != null) {
-            return new OtpErlangBinary(obj.toString().getBytes());
-        }
-        TypeConverter.failConversion(obj, type);
-        return null;
+    /**
+     * Converts a Java object and writes it to a stream, in external format. This is the
+     * same as writing the result of {@link #java2erlang(Object, Signature)}, but
+     * strings, numbers, booleans and lists or tuples of those are written without
+     * creating terms first.
+     *
+     * @param obj
+     *            the object to be converted
+     * @param type
+     *            the desired result's type
+     * @param out
+     *            stream to write to
+     * @throws SignatureException
+     */
+    public static void java2erlang(final Object obj, final Signature type,
+            final OtpOutputStream out) throws SignatureException {
+        TypeCodecs.write(obj, type, out);
     }
 
-    private static void checkConversion(final Object obj) {
+    static void checkConversion(final Object obj) {
         if (TypeConverter.willCheckConversion()) {
             final StackTraceElement[] st = new Throwable().getStackTrace();
             final StackTraceElement el = TypeConverter.findRpcStacktraceElement(st);
@@ -474,142 +232,6 @@ public final class TypeConverter {
                 && ste.getClassName().endsWith("Backend");
     }
 
-    private static OtpErlangObject cvtNumber(final Object obj, final Signature type)
-            throws SignatureException {
-        if (obj instanceof Float) {
-            if (type.kind == 'd') {
-                return new OtpErlangFloat((Float) obj);
-            }
-            TypeConverter.failConversion(obj, type);
-        } else if (obj instanceof Double) {
-            if (type.kind == 'd') {
-                return new OtpErlangDouble((Double) obj);
-            }
-            TypeConverter.failConversion(obj, type);
-        } else if (type.kind == 'i') {
-            if (obj instanceof BigInteger) {
-                return new OtpErlangLong((BigInteger) obj);
-            }
-            return new OtpErlangLong(((Number) obj).longValue());
-        } else {
-            TypeConverter.failConversion(obj, type);
-        }
-        return null;
-    }
-
-    private static OtpErlangObject cvtString(final Object obj, final Signature type)
-            throws SignatureException {
-        if (type.kind == 's') {
-            return new OtpErlangString((String) obj);
-        } else if (type.kind == 'a') {
-            return new OtpErlangAtom((String) obj);
-        } else if (type.kind == 'b') {
-            return new OtpErlangBinary(((String) obj).getBytes());
-        } else {
-            TypeConverter.failConversion(obj, type);
-        }
-        return null;
-    }
-
-    /**
-     * Old style java->erlang conversion, used when "x" is given as an argument.
-     *
-     * @param obj
-     * @return
-     */
-    @SuppressWarnings("boxing")
-    private static OtpErlangObject java2erlang(final Object obj) {
-        if (obj instanceof String) {
-            return new OtpErlangString((String) obj);
-        }
-        if (obj instanceof Character) {
-            return new OtpErlangChar((Character) obj);
-        }
-        if (obj instanceof Byte) {
-            return new OtpErlangByte((Byte) obj);
-        }
-        if (obj instanceof Short) {
-            return new OtpErlangShort((Short) obj);
-        }
-        if (obj instanceof Integer) {
-            return new OtpErlangInt((Integer) obj);
-        }
-        if (obj instanceof Long) {
-            return new OtpErlangLong((Long) obj);
-        }
-        if (obj instanceof BigInteger) {
-            return new OtpErlangLong((BigInteger) obj);
-        }
-        if (obj instanceof Float) {
-            return new OtpErlangFloat((Float) obj);
-        }
-        if (obj instanceof Double) {
-            return new OtpErlangDouble((Double) obj);
-        }
-        if (obj instanceof Boolean) {
-            return new OtpErlangAtom((Boolean) obj ? "true" : "false");
-        }
-        if (obj instanceof Collection<?>) {
-            final Object[] v = ((Collection<?>) obj).toArray(new Object[] {});
-            final OtpErlangObject[] vv = new OtpErlangObject[v.length];
-            for (int i = 0; i < v.length; i++) {
-                vv[i] = TypeConverter.java2erlang(v[i]);
-            }
-            return new OtpErlangList(vv);
-        }
-        if (obj instanceof Map<?, ?>) {
-            @SuppressWarnings("unchecked")
-            final Map<Object, Object> map = (Map<Object, Object>) obj;
-            final Object[] k = map.keySet().toArray(new Object[map.size()]);
-            final OtpErlangObject[] kk = new OtpErlangObject[k.length];
-            final OtpErlangObject[] vv = new OtpErlangObject[k.length];
-            for (int i = 0; i < k.length; i++) {
-                kk[i] = TypeConverter.java2erlang(k[i]);
-                vv[i] = TypeConverter.java2erlang(map.get(k[i]));
-            }
-            return new OtpErlangMap(kk, vv);
-        }
-
-        if (obj instanceof OtpErlangPid) {
-            return (OtpErlangPid) obj;
-        }
-        if (obj instanceof OtpErlangRef) {
-            return (OtpErlangObject) obj;
-        }
-        if (obj instanceof OtpErlangTuple) {
-            return (OtpErlangObject) obj;
-        }
-        if (obj instanceof OtpErlangAtom) {
-            return (OtpErlangObject) obj;
-        }
-        if (obj instanceof OtpErlangBinary) {
-            return (OtpErlangObject) obj;
-        }
-        if (obj instanceof OtpErlangString) {
-            return (OtpErlangObject) obj;
-        }
-        if (obj instanceof OtpErlangObject) {
-            TypeConverter.checkConversion(obj);
-            return (OtpErlangObject) obj;
-        }
-
-        if (obj != null && obj.getClass().isArray()) {
-            final int len = Array.getLength(obj);
-            final OtpErlangObject[] vv = new OtpErlangObject[len];
-            for (int i = 0; i < len; i++) {
-                vv[i] = TypeConverter.java2erlang(Array.get(obj, i));
-            }
-            return new OtpErlangList(vv);
-        }
-        return null;
-    }
-
-    private static void failConversion(final Object obj, final Signature type)
-            throws SignatureException {
-        throw new SignatureException(String.format("Bad conversion required: %s(%s) - %s",
-                obj.getClass().getName(), obj.toString(), type.toString()));
-    }
-
     public static boolean willCheckConversion() {
         final String dev = System.getProperty("erlide.test_rpc");
         return Boolean.parseBoolean(dev);
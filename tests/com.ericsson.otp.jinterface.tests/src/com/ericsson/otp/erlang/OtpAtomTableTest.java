@@ -0,0 +1,202 @@
+package com.ericsson.otp.erlang;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OtpAtomTableTest {
+
+    private static final int THREADS = 8;
+
+    @Before
+    public void setUp() throws ReflectiveOperationException {
+        OtpAtomTableTest.clear();
+    }
+
+    @After
+    public void tearDown() throws ReflectiveOperationException {
+        // the table is global, don't leave it full for the other tests
+        OtpAtomTableTest.clear();
+    }
+
+    @Test
+    public void decodedAtomsAreCanonical() throws Exception {
+        final OtpErlangAtom first = OtpAtomTableTest.decode(OtpExternal.atomUtf8Tag,
+                OtpAtomTableTest.utf8("hello"));
+        final OtpErlangAtom second = OtpAtomTableTest.decode(OtpExternal.smallAtomUtf8Tag,
+                OtpAtomTableTest.utf8("hello"));
+        assertThat(first.atomValue()).isEqualTo("hello");
+        assertThat(second).isSameInstanceAs(first);
+        assertThat(OtpAtomTableTest.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void keyIsReadAtItsOffset() {
+        final byte[] buf = "xxokyy".getBytes(StandardCharsets.US_ASCII);
+        final OtpErlangAtom atom = OtpAtomTable.get(buf, 2, 2, true);
+        assertThat(atom.atomValue()).isEqualTo("ok");
+        assertThat(OtpAtomTable.get(OtpAtomTableTest.utf8("ok"), 0, 2, true))
+                .isSameInstanceAs(atom);
+    }
+
+    @Test
+    public void asciiAtomsAreSharedByBothEncodings() throws Exception {
+        final OtpErlangAtom latin1 = OtpAtomTableTest.decode(OtpExternal.atomTag,
+                OtpAtomTableTest.latin1("ok"));
+        final OtpErlangAtom utf8 = OtpAtomTableTest.decode(OtpExternal.atomUtf8Tag,
+                OtpAtomTableTest.utf8("ok"));
+        assertThat(utf8).isSameInstanceAs(latin1);
+    }
+
+    @Test
+    public void otherAtomsAreCanonicalPerEncoding() throws Exception {
+        final OtpErlangAtom latin1 = OtpAtomTableTest.decode(OtpExternal.atomTag,
+                OtpAtomTableTest.latin1("café"));
+        final OtpErlangAtom utf8 = OtpAtomTableTest.decode(OtpExternal.atomUtf8Tag,
+                OtpAtomTableTest.utf8("café"));
+        assertThat(latin1.atomValue()).isEqualTo("café");
+        assertThat(utf8.atomValue()).isEqualTo("café");
+        assertThat(utf8).isEqualTo(latin1);
+        assertThat(utf8).isNotSameInstanceAs(latin1);
+        assertThat(OtpAtomTableTest.decode(OtpExternal.atomTag,
+                OtpAtomTableTest.latin1("café"))).isSameInstanceAs(latin1);
+        assertThat(OtpAtomTableTest.decode(OtpExternal.smallAtomUtf8Tag,
+                OtpAtomTableTest.utf8("café"))).isSameInstanceAs(utf8);
+    }
+
+    @Test
+    public void sameBytesInOtherEncodingAreOtherAtoms() {
+        // 0xC3 0xA9 is "é" in UTF-8 and "Ã©" in ISO-8859-1
+        final byte[] bytes = OtpAtomTableTest.utf8("é");
+        final OtpErlangAtom utf8 = OtpAtomTable.get(bytes, 0, bytes.length, true);
+        final OtpErlangAtom latin1 = OtpAtomTable.get(bytes, 0, bytes.length, false);
+        assertThat(utf8.atomValue()).isEqualTo("é");
+        assertThat(latin1.atomValue()).isEqualTo("Ã©");
+    }
+
+    @Test
+    public void overLongAtomsAreNotAdded() throws Exception {
+        final char[] chars = new char[OtpExternal.maxAtomLength + 45];
+        Arrays.fill(chars, 'a');
+        final byte[] name = OtpAtomTableTest.utf8(new String(chars));
+        final OtpErlangAtom first = OtpAtomTableTest.decode(OtpExternal.atomUtf8Tag,
+                name);
+        final OtpErlangAtom second = OtpAtomTableTest.decode(OtpExternal.atomUtf8Tag,
+                name);
+        assertThat(first.atomValue()).hasLength(OtpExternal.maxAtomLength);
+        assertThat(second).isEqualTo(first);
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(OtpAtomTableTest.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void fullTableStillDecodes() throws ReflectiveOperationException {
+        for (int i = 0; i < OtpAtomTable.MAX_SIZE; i++) {
+            final byte[] name = OtpAtomTableTest.utf8("a" + i);
+            OtpAtomTable.get(name, 0, name.length, true);
+        }
+        assertThat(OtpAtomTableTest.size()).isEqualTo(OtpAtomTable.MAX_SIZE);
+
+        final byte[] known = OtpAtomTableTest.utf8("a42");
+        assertThat(OtpAtomTable.get(known, 0, known.length, true))
+                .isSameInstanceAs(OtpAtomTable.get(known, 0, known.length, true));
+
+        final byte[] name = OtpAtomTableTest.utf8("overflow");
+        final OtpErlangAtom first = OtpAtomTable.get(name, 0, name.length, true);
+        final OtpErlangAtom second = OtpAtomTable.get(name, 0, name.length, true);
+        assertThat(first.atomValue()).isEqualTo("overflow");
+        assertThat(second).isEqualTo(first);
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(OtpAtomTableTest.size()).isEqualTo(OtpAtomTable.MAX_SIZE);
+    }
+
+    @Test
+    public void concurrentInsertsAgree()
+            throws InterruptedException, ReflectiveOperationException {
+        final int atoms = 2000;
+        final OtpErlangAtom[][] results = new OtpErlangAtom[OtpAtomTableTest.THREADS][];
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < OtpAtomTableTest.THREADS; t++) {
+            final OtpErlangAtom[] result = new OtpErlangAtom[atoms];
+            results[t] = result;
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < atoms; i++) {
+                    final byte[] name = OtpAtomTableTest.utf8("atom" + i);
+                    result[i] = OtpAtomTable.get(name, 0, name.length, true);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < atoms; i++) {
+            assertThat(results[0][i].atomValue()).isEqualTo("atom" + i);
+            for (int t = 1; t < OtpAtomTableTest.THREADS; t++) {
+                assertThat(results[t][i]).isSameInstanceAs(results[0][i]);
+            }
+        }
+        assertThat(OtpAtomTableTest.size()).isEqualTo(atoms);
+    }
+
+    private static OtpErlangAtom decode(final int tag, final byte[] name)
+            throws OtpErlangDecodeException {
+        final OtpOutputStream out = new OtpOutputStream();
+        out.write1(OtpExternal.versionTag);
+        out.write1(tag);
+        if (tag == OtpExternal.smallAtomUtf8Tag) {
+            out.write1(name.length);
+        } else {
+            out.write2BE(name.length);
+        }
+        out.writeN(name);
+        return new OtpInputStream(out.toByteArray()).read_atom_object();
+    }
+
+    private static byte[] utf8(final String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] latin1(final String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static int size() throws ReflectiveOperationException {
+        return ((AtomicInteger) OtpAtomTableTest.field("size")).get();
+    }
+
+    private static void clear() throws ReflectiveOperationException {
+        final AtomicReferenceArray<?> table = (AtomicReferenceArray<?>) OtpAtomTableTest
+                .field("table");
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, null);
+        }
+        ((AtomicInteger) OtpAtomTableTest.field("size")).set(0);
+    }
+
+    private static Object field(final String name) throws ReflectiveOperationException {
+        final Field field = OtpAtomTable.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.erlide.backend.debug;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.List;
+
+import org.erlide.backend.debug.events.DebuggerEvent;
+import org.erlide.backend.debug.events.IntEvent;
+import org.erlide.backend.debug.events.NewStatusEvent;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.google.common.collect.Lists;
+
+public class DebugEventHandlerTest {
+
+    private final OtpErlangPid p1 = new OtpErlangPid("n@h", 1, 0, 0);
+    private final OtpErlangPid p2 = new OtpErlangPid("n@h", 2, 0, 0);
+
+    @Test
+    public void lastStatusOfEachProcessIsKept() {
+        final DebuggerEvent running1 = status(p1, "running");
+        final DebuggerEvent running2 = status(p2, "running");
+        final DebuggerEvent break1 = status(p1, "break");
+        final DebuggerEvent idle2 = status(p2, "idle");
+        final List<DebuggerEvent> result = DebugEventHandler
+                .coalesce(Lists.newArrayList(running1, running2, break1, idle2));
+        assertThat(result).containsExactly(break1, idle2).inOrder();
+    }
+
+    @Test
+    public void exitIsNeverDropped() {
+        final DebuggerEvent exit = status(p1, "exit");
+        final DebuggerEvent running = status(p1, "running");
+        final List<DebuggerEvent> result = DebugEventHandler
+                .coalesce(Lists.newArrayList(exit, running));
+        assertThat(result).containsExactly(exit, running).inOrder();
+    }
+
+    @Test
+    public void otherEventsAreKeptInOrder() {
+        final DebuggerEvent other = new IntEvent(new OtpErlangObject[0]);
+        final DebuggerEvent running = status(p1, "running");
+        final DebuggerEvent idle = status(p1, "idle");
+        final List<DebuggerEvent> result = DebugEventHandler
+                .coalesce(Lists.newArrayList(running, other, idle));
+        assertThat(result).containsExactly(other, idle).inOrder();
+    }
+
+    @Test
+    public void batchesAreSpacedOut() {
+        final long interval = DebuggerEventDaemon.MIN_BATCH_INTERVAL;
+        assertThat(DebuggerEventDaemon.getBatchDelay(0, 1000)).isEqualTo(0);
+        assertThat(DebuggerEventDaemon.getBatchDelay(1000, 1000)).isEqualTo(interval);
+        assertThat(DebuggerEventDaemon.getBatchDelay(1000, 1000 + interval / 2))
+                .isEqualTo(interval - interval / 2);
+        // clock set back
+        assertThat(DebuggerEventDaemon.getBatchDelay(5000, 1000)).isEqualTo(interval);
+    }
+
+    private static DebuggerEvent status(final OtpErlangPid pid, final String status) {
+        return new NewStatusEvent(new OtpErlangObject[] { new OtpErlangAtom("new_status"),
+                pid, new OtpErlangAtom(status) });
+    }
+
+}
@@ -0,0 +1,203 @@
+package org.erlide.backend.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.erlide.backend.api.BackendData;
+import org.erlide.backend.api.IBackend;
+import org.erlide.backend.api.IBackendFactory;
+import org.erlide.runtime.api.IOtpNodeProxy;
+import org.erlide.runtime.runtimeinfo.RuntimeInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BackendPoolTest {
+
+    private final RuntimeInfo info = new RuntimeInfo("test");
+    private FakeFactory factory;
+    private BackendPool pool;
+
+    @Before
+    public void setUp() {
+        factory = new FakeFactory();
+        pool = new BackendPool(factory, 1, TimeUnit.MINUTES.toMillis(30));
+    }
+
+    @After
+    public void tearDown() {
+        factory.release.countDown();
+        pool.dispose();
+    }
+
+    @Test
+    public void claimTakesReadySpare() throws InterruptedException {
+        factory.release.countDown();
+        pool.fill(info);
+        awaitReady(1);
+        final IBackend b = pool.claim(info);
+        assertThat(b).isSameInstanceAs(factory.created.get(0));
+        assertThat(FakeBackend.of(b).disposed).isFalse();
+    }
+
+    @Test
+    public void claimWaitsForStartingSpare() throws InterruptedException {
+        pool.fill(info);
+        final Thread releaser = new Thread(() -> {
+            sleep(100);
+            factory.release.countDown();
+        });
+        releaser.start();
+        final IBackend b = pool.claim(info);
+        releaser.join();
+        // the spare being started was handed over, not a second node
+        assertThat(b).isSameInstanceAs(factory.created.get(0));
+        awaitReady(1);
+        assertThat(factory.created).hasSize(2);
+    }
+
+    @Test
+    public void claimRefills() throws InterruptedException {
+        factory.release.countDown();
+        pool.fill(info);
+        awaitReady(1);
+        final IBackend first = pool.claim(info);
+        awaitReady(1);
+        final IBackend second = pool.claim(info);
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(second).isSameInstanceAs(factory.created.get(1));
+    }
+
+    @Test
+    public void deadSpareIsNotClaimed() throws InterruptedException {
+        factory.release.countDown();
+        pool.fill(info);
+        awaitReady(1);
+        final FakeBackend dead = FakeBackend.of(factory.created.get(0));
+        dead.running = false;
+        final IBackend b = pool.claim(info);
+        assertThat(b).isNotSameInstanceAs(factory.created.get(0));
+        assertThat(dead.disposed).isTrue();
+    }
+
+    @Test
+    public void nodeStoppedDropsSpare() throws InterruptedException {
+        factory.release.countDown();
+        pool.fill(info);
+        awaitReady(1);
+        pool.nodeStopped("other@host");
+        assertThat(pool.getReadyCount(info)).isEqualTo(1);
+        pool.nodeStopped("spare0@host");
+        assertThat(pool.getReadyCount(info)).isEqualTo(0);
+        assertThat(FakeBackend.of(factory.created.get(0)).disposed).isTrue();
+    }
+
+    @Test
+    public void disabledPoolStartsNothing() {
+        final BackendPool off = new BackendPool(factory, 0, 0);
+        try {
+            off.fill(info);
+            assertThat(off.claim(info)).isNull();
+            assertThat(factory.created).isEmpty();
+        } finally {
+            off.dispose();
+        }
+    }
+
+    private void awaitReady(final int n) throws InterruptedException {
+        final long end = System.currentTimeMillis() + 5000;
+        while (pool.getReadyCount(info) != n && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertThat(pool.getReadyCount(info)).isEqualTo(n);
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class FakeFactory implements IBackendFactory {
+        final List<IBackend> created = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public IBackend createIdeBackend() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IBackend createBuildBackend(final RuntimeInfo info) {
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                return null;
+            }
+            final IBackend b = new FakeBackend("spare" + created.size() + "@host")
+                    .proxy();
+            created.add(b);
+            return b;
+        }
+
+        @Override
+        public IBackend createBackend(final BackendData data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IOtpNodeProxy createNodeProxy(final BackendData data) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class FakeBackend implements InvocationHandler {
+        final String name;
+        volatile boolean running = true;
+        volatile boolean disposed;
+
+        FakeBackend(final String name) {
+            this.name = name;
+        }
+
+        static FakeBackend of(final IBackend b) {
+            return (FakeBackend) Proxy.getInvocationHandler(b);
+        }
+
+        IBackend proxy() {
+            return (IBackend) Proxy.newProxyInstance(IBackend.class.getClassLoader(),
+                    new Class<?>[] { IBackend.class }, this);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method,
+                final Object[] args) {
+            switch (method.getName()) {
+            case "getName":
+            case "toString":
+                return name;
+            case "isRunning":
+                return running && !disposed;
+            case "dispose":
+                disposed = true;
+                return null;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.erlide.backend.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.erlide.testing.utils.BeamFiles;
+import org.junit.Test;
+
+public class CodeManagerTest {
+
+    @Test
+    public void md5CoversTheCodeChunksInOrder() throws Exception {
+        final byte[] beam = BeamFiles.beam(BeamFiles.chunk("Code", "code"),
+                BeamFiles.chunk("AtU8", "atoms"), BeamFiles.chunk("Attr", "attributes"),
+                BeamFiles.chunk("LitT", "lits"));
+        assertThat(CodeManager.getModuleMd5(beam)).isEqualTo(md5("atomscodelits"));
+    }
+
+    @Test
+    public void oldUniqueOfFunsIsIgnored() throws Exception {
+        final byte[] fun1 = ByteBuffer.allocate(4 + 24).putInt(1).putInt(1).putInt(2)
+                .putInt(3).putInt(4).putInt(5).putInt(6).array();
+        final byte[] fun2 = ByteBuffer.allocate(4 + 24).putInt(1).putInt(1).putInt(2)
+                .putInt(3).putInt(4).putInt(5).putInt(7).array();
+        final byte[] md5 = CodeManager
+                .getModuleMd5(BeamFiles.beam(BeamFiles.chunk("FunT", fun1)));
+        assertThat(
+                CodeManager.getModuleMd5(BeamFiles.beam(BeamFiles.chunk("FunT", fun2))))
+                        .isEqualTo(md5);
+        assertThat(
+                CodeManager.getModuleMd5(BeamFiles.beam(BeamFiles.chunk("FunT", fun1))))
+                        .isEqualTo(md5);
+    }
+
+    @Test
+    public void otherFilesHaveNoMd5() {
+        assertThat(CodeManager.getModuleMd5(new byte[] { 0x1f, (byte) 0x8b, 8, 0 }))
+                .isNull();
+        assertThat(CodeManager.getModuleMd5("FOR1\0\0\0\0ELF0".getBytes())).isNull();
+    }
+
+    private static byte[] md5(final String data) throws Exception {
+        return MessageDigest.getInstance("MD5")
+                .digest(data.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+}
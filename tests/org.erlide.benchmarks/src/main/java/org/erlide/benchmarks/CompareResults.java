@@ -0,0 +1,115 @@
+package org.erlide.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Compares JMH results (CSV format) with a baseline and reports benchmarks that got
+ * slower than the tolerance. When the baseline doesn't exist, the results become the
+ * baseline.
+ * <p>
+ * Usage: <code>CompareResults results.csv baseline.csv [tolerance%]</code>. Exit code
+ * is 1 if any benchmark regressed.
+ * </p>
+ */
+public final class CompareResults {
+
+    private static final double DEFAULT_TOLERANCE = 10;
+
+    private CompareResults() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(
+                    "usage: CompareResults results.csv baseline.csv [tolerance%]");
+            System.exit(2);
+        }
+        final Path results = Paths.get(args[0]);
+        final Path baseline = Paths.get(args[1]);
+        final double tolerance = args.length > 2 ? Double.parseDouble(args[2])
+                : CompareResults.DEFAULT_TOLERANCE;
+        if (!Files.exists(baseline)) {
+            Files.copy(results, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline created: " + baseline);
+            return;
+        }
+        final Map<String, Double> old = CompareResults.read(baseline);
+        boolean regressed = false;
+        final Map<String, Double> current = CompareResults.read(results);
+        for (final Map.Entry<String, Double> e : current.entrySet()) {
+            final Double before = old.get(e.getKey());
+            if (before == null || before == 0) {
+                System.out.printf("%-70s %12.3f (new)%n", e.getKey(), e.getValue());
+                continue;
+            }
+            // all benchmarks measure average time, higher is worse
+            final double change = (e.getValue() - before) * 100 / before;
+            final boolean slower = change > tolerance;
+            regressed |= slower;
+            System.out.printf("%-70s %12.3f %+7.1f%%%s%n", e.getKey(), e.getValue(),
+                    change, slower ? "  REGRESSION" : "");
+        }
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return benchmark name with parameters to score
+     */
+    private static Map<String, Double> read(final Path file) throws IOException {
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        final Map<String, Double> result = Maps.newLinkedHashMap();
+        if (lines.isEmpty()) {
+            return result;
+        }
+        final List<String> header = CompareResults.split(lines.get(0));
+        final int score = header.indexOf("Score");
+        for (final String line : lines.subList(1, lines.size())) {
+            final List<String> fields = CompareResults.split(line);
+            if (fields.size() != header.size()) {
+                continue;
+            }
+            final StringBuilder name = new StringBuilder(fields.get(0));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ")) {
+                    name.append(' ').append(header.get(i).substring("Param: ".length()))
+                            .append('=').append(fields.get(i));
+                }
+            }
+            result.put(name.toString(),
+                    Double.valueOf(fields.get(score).replace(',', '.')));
+        }
+        return result;
+    }
+
+    // fields are quoted and can contain commas (locale dependent numbers)
+    private static List<String> split(final String line) {
+        final List<String> result = Lists.newArrayList();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (final char c : line.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                result.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        result.add(field.toString());
+        return result;
+    }
+
+}
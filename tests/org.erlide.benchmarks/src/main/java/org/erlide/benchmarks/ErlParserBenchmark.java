@@ -0,0 +1,101 @@
+package org.erlide.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.erlide.engine.ErlangEngine;
+import org.erlide.engine.IErlangEngine;
+import org.erlide.engine.internal.model.root.ErlModule;
+import org.erlide.engine.internal.services.parsing.ErlParser;
+import org.erlide.engine.model.root.IErlModel;
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.ReplayingOtpRpc;
+import org.erlide.runtime.rpc.RpcException;
+import org.erlide.runtime.rpc.RpcRecording;
+import org.erlide.runtime.rpc.RpcRecording.Entry;
+import org.erlide.runtime.rpc.RpcRecording.Kind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of the noparse server's reply into model elements, done when a module is
+ * opened or reparsed. The reply is replayed instead of being asked from a node, and the
+ * engine is a stand-in that only provides the model lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErlParserBenchmark {
+
+    private static final String SCANNER = "bench";
+
+    @Param({ "20", "400" })
+    private int functions;
+
+    private ErlParser parser;
+    private ErlModule module;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException, RpcException {
+        ErlParserBenchmark.setEngine(ErlParserBenchmark.proxy(IErlangEngine.class,
+                ErlParserBenchmark.proxy(IErlModel.class, new Object())));
+        final Entry reparse = new Entry(Kind.CALL, "erlide_noparse", "reparse",
+                RpcRecording.convertArgs("ao", ErlParserBenchmark.SCANNER, false),
+                Terms.parseReply(functions), 0);
+        final IOtpRpc backend = new ReplayingOtpRpc(Collections.singletonList(reparse));
+        parser = new ErlParser(backend);
+        module = new ErlModule(null, "bench.erl", "/bench/src/bench.erl",
+                StandardCharsets.UTF_8, "");
+        if (!reparse()) {
+            throw new IllegalStateException("the parse reply wasn't understood");
+        }
+    }
+
+    @Benchmark
+    public boolean reparse() {
+        return parser.parse(module, ErlParserBenchmark.SCANNER, false,
+                module.getFilePath(), "", false);
+    }
+
+    /**
+     * The model's elements get the engine from {@link ErlangEngine}, which would start
+     * it with OSGi.
+     */
+    private static void setEngine(final IErlangEngine engine)
+            throws ReflectiveOperationException {
+        final Field field = ErlangEngine.class.getDeclaredField("engine");
+        field.setAccessible(true);
+        field.set(null, engine);
+    }
+
+    /**
+     * @return an implementation whose methods return the given value if it has the
+     *         right type, null otherwise
+     */
+    private static <T> T proxy(final Class<T> type, final Object value) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[] { type }, (p, method, args) -> {
+                    final Class<?> result = method.getReturnType();
+                    if (result.isInstance(value)) {
+                        return value;
+                    }
+                    return result == boolean.class ? Boolean.FALSE : null;
+                }));
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.erlide.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.erlide.engine.services.parsing.ErlToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+/**
+ * Decoding of scanner replies into tokens, done on every keystroke in the editor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErlTokenBenchmark {
+
+    private static final int TOKENS = 2000;
+
+    private OtpErlangList tuples;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        tuples = Terms.tokenTuples(ErlTokenBenchmark.TOKENS);
+        binary = Terms.tokenBinary(ErlTokenBenchmark.TOKENS).binaryValue();
+    }
+
+    @Benchmark
+    public void decodeTuples(final Blackhole bh) {
+        for (final OtpErlangObject token : tuples) {
+            bh.consume(new ErlToken((OtpErlangTuple) token));
+        }
+    }
+
+    @Benchmark
+    public void decodeBinary(final Blackhole bh) {
+        for (int i = 0; i < binary.length; i += 10) {
+            bh.consume(new ErlToken(binary, i, 0));
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.erlide.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpInputStream;
+import com.ericsson.otp.erlang.OtpOutputStream;
+
+/**
+ * Encoding and decoding of terms in external format, as done for every rpc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OtpStreamBenchmark {
+
+    @Param({ "small", "module10", "module200" })
+    public String term;
+
+    private OtpErlangObject value;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        if ("small".equals(term)) {
+            value = Terms.small();
+        } else {
+            value = Terms.parseReply(Integer.parseInt(term.substring("module".length())));
+        }
+        encoded = new OtpOutputStream(value).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return new OtpOutputStream(value).toByteArray();
+    }
+
+    @Benchmark
+    public OtpErlangObject decode() throws OtpErlangDecodeException {
+        return new OtpInputStream(encoded).read_any();
+    }
+
+}
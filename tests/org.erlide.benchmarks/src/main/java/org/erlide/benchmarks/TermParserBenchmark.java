@@ -0,0 +1,87 @@
+package org.erlide.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.erlide.util.erlang.CachingTermParser;
+import org.erlide.util.erlang.OtpBindings;
+import org.erlide.util.erlang.OtpErlang;
+import org.erlide.util.erlang.OtpParser;
+import org.erlide.util.erlang.OtpParserException;
+import org.erlide.util.erlang.OtpPattern;
+import org.erlide.util.erlang.Signature;
+import org.erlide.util.erlang.SignatureException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+
+/**
+ * Signature parsing, term parsing and pattern matching, used when building rpc calls
+ * and decoding their results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TermParserBenchmark {
+
+    private static final String SIGNATURE = "slsla2ilxi";
+    private static final String PATTERN = "{ok, {Model, "
+            + "[{function, Pos, Name:a, Arity:i, _, _} | Forms], Comments}, Cached}";
+    private static final String TERM = "{ok, {model, "
+            + "[{function, {{1,0},10}, foo, 2, [], []}, "
+            + "{attribute, {{2,12},8}, module, bench}], []}, cached}";
+
+    private final OtpParser parser = new OtpParser();
+    private final OtpParser cachingParser = new CachingTermParser();
+    private OtpErlangObject pattern;
+    private OtpErlangObject term;
+    private final OtpPattern compiled = OtpPattern.of(TermParserBenchmark.PATTERN);
+
+    @Setup
+    public void setUp() throws OtpParserException {
+        pattern = OtpErlang.parse(TermParserBenchmark.PATTERN);
+        term = OtpErlang.parse(TermParserBenchmark.TERM);
+    }
+
+    @Benchmark
+    public Signature[] parseSignature() throws SignatureException {
+        return Signature.parse(TermParserBenchmark.SIGNATURE);
+    }
+
+    @Benchmark
+    public OtpErlangObject parseTerm() throws OtpParserException {
+        return parser.parse(TermParserBenchmark.PATTERN);
+    }
+
+    @Benchmark
+    public OtpErlangObject parseTermCached() throws OtpParserException {
+        return cachingParser.parse(TermParserBenchmark.PATTERN);
+    }
+
+    @Benchmark
+    public OtpBindings matchParsed() {
+        return OtpErlang.match(pattern, term);
+    }
+
+    @Benchmark
+    public OtpBindings matchString() throws OtpParserException {
+        return OtpErlang.match(TermParserBenchmark.PATTERN, term);
+    }
+
+    @Benchmark
+    public OtpBindings matchCompiled() {
+        return compiled.match(term);
+    }
+
+}
@@ -0,0 +1,139 @@
+package org.erlide.benchmarks;
+
+import java.util.List;
+
+import org.erlide.engine.internal.services.parsing.ErlParser;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.google.common.collect.Lists;
+
+/**
+ * Terms shaped like the replies erlide gets from its backends. They are built here
+ * instead of being read from a running node, so that the benchmarks don't depend on an
+ * Erlang installation.
+ */
+public final class Terms {
+
+    private Terms() {
+    }
+
+    /** <code>{ok, 42, "hello"}</code> */
+    public static OtpErlangObject small() {
+        return Terms.tuple(Terms.atom("ok"), new OtpErlangLong(42),
+                new OtpErlangString("hello"));
+    }
+
+    /**
+     * Reply of the noparse server: <code>{ok, {Model, Forms, Comments}, cached}</code>
+     * for a module with given number of functions, as {@link ErlParser} reads it.
+     */
+    public static OtpErlangObject parseReply(final int functions) {
+        final List<OtpErlangObject> forms = Lists.newArrayList();
+        forms.add(Terms.tuple(Terms.atom("attribute"), Terms.pos(1, 0, 12),
+                Terms.atom("module"), Terms.atom("bench"),
+                new OtpErlangString("bench")));
+        final OtpErlangList args = new OtpErlangList(new OtpErlangObject[] {
+                new OtpErlangString("X"), new OtpErlangString("[H | T]") });
+        int offset = 14;
+        for (int i = 0; i < functions; i++) {
+            final int start = offset;
+            // -record(clause, {pos, name, args, head, code, name_pos})
+            final List<OtpErlangObject> clauses = Lists.newArrayList();
+            for (int c = 0; c < 3; c++) {
+                final int line = i * 4 + c;
+                clauses.add(Terms.tuple(Terms.atom("clause"), Terms.pos(line, offset, 40),
+                        Terms.atom("f" + i), args, new OtpErlangString("(X, [H | T])"),
+                        Terms.pos(line, offset, 2)));
+                offset += 42;
+            }
+            // -record(function, {pos, name, arity, args, head, clauses, name_pos,
+            // comment, exported})
+            forms.add(Terms.tuple(Terms.atom("function"), Terms.pos(i * 4, start, 126),
+                    Terms.atom("f" + i), new OtpErlangLong(2), args,
+                    new OtpErlangString("(X, [H | T])"), Terms.list(clauses),
+                    Terms.pos(i * 4, start, 2), Terms.atom(i % 2 == 0 ? "true" : "false")));
+        }
+        // comments are #token{} records
+        final List<OtpErlangObject> comments = Lists.newArrayList();
+        for (int i = 0; i < functions / 4; i++) {
+            comments.add(Terms.tuple(Terms.atom("token"), Terms.atom("comment"),
+                    new OtpErlangLong(i * 16), new OtpErlangLong(i * 700),
+                    new OtpErlangLong(30), Terms.atom("u"),
+                    new OtpErlangString("%% comment number " + i),
+                    new OtpErlangLong(i * 16), new OtpErlangLong(1)));
+        }
+        return Terms.tuple(Terms.atom("ok"),
+                Terms.tuple(Terms.atom("model"), Terms.list(forms), Terms.list(comments)),
+                Terms.atom("cached"));
+    }
+
+    /**
+     * Scanner reply with tokens as <code>#token{}</code> records.
+     */
+    public static OtpErlangList tokenTuples(final int count) {
+        final String[] kinds = { "atom", "ws", "(", "var", ",", "integer", ")", "->",
+                "string", "comment" };
+        final OtpErlangObject[] tokens = new OtpErlangObject[count];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            final int length = 1 + i % 7;
+            tokens[i] = Terms.tuple(Terms.atom("token"),
+                    Terms.atom(kinds[i % kinds.length]), new OtpErlangLong(i / 10),
+                    new OtpErlangLong(offset), new OtpErlangLong(length),
+                    Terms.atom("u"), Terms.atom("u"), Terms.atom("u"), Terms.atom("u"));
+            offset += length;
+        }
+        return new OtpErlangList(tokens);
+    }
+
+    /**
+     * Scanner reply of the light scanner:
+     * <code>&lt;&lt;Kind:8, Line:24, Offset:24, Length:24&gt;&gt;</code> per token.
+     */
+    public static OtpErlangBinary tokenBinary(final int count) {
+        final byte[] bytes = new byte[count * 10];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            final int length = 1 + i % 7;
+            final int index = i * 10;
+            bytes[index] = (byte) (i % 12);
+            Terms.int24(bytes, index + 1, i / 10);
+            Terms.int24(bytes, index + 4, offset);
+            Terms.int24(bytes, index + 7, length);
+            offset += length;
+        }
+        return new OtpErlangBinary(bytes);
+    }
+
+    private static void int24(final byte[] bytes, final int index, final int value) {
+        bytes[index] = (byte) (value >> 16);
+        bytes[index + 1] = (byte) (value >> 8);
+        bytes[index + 2] = (byte) value;
+    }
+
+    private static OtpErlangTuple pos(final int line, final int offset,
+            final int length) {
+        return Terms.tuple(
+                Terms.tuple(new OtpErlangLong(line), new OtpErlangLong(offset)),
+                new OtpErlangLong(length));
+    }
+
+    private static OtpErlangAtom atom(final String name) {
+        return new OtpErlangAtom(name);
+    }
+
+    private static OtpErlangTuple tuple(final OtpErlangObject... elements) {
+        return new OtpErlangTuple(elements);
+    }
+
+    private static OtpErlangList list(final List<OtpErlangObject> elements) {
+        return new OtpErlangList(elements.toArray(new OtpErlangObject[0]));
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.erlide.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.erlide.util.erlang.SignatureException;
+import org.erlide.util.erlang.TypeConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.google.common.collect.Lists;
+
+/**
+ * Conversions done for the arguments and results of rpcs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeConverterBenchmark {
+
+    private List<String> paths;
+    private OtpErlangObject erlangPaths;
+    private OtpErlangObject erlangString;
+
+    @Setup
+    public void setUp() throws SignatureException {
+        paths = Lists.newArrayList();
+        for (int i = 0; i < 50; i++) {
+            paths.add("/home/user/workspace/project/src/module_" + i + ".erl");
+        }
+        erlangPaths = TypeConverter.java2erlang(paths, "ls");
+        erlangString = TypeConverter.java2erlang(paths.get(0), "s");
+    }
+
+    @Benchmark
+    public OtpErlangObject stringToErlang() throws SignatureException {
+        return TypeConverter.java2erlang(paths.get(0), "s");
+    }
+
+    @Benchmark
+    public OtpErlangObject intToErlang() throws SignatureException {
+        return TypeConverter.java2erlang(Integer.valueOf(4711), "i");
+    }
+
+    @Benchmark
+    public OtpErlangObject stringListToErlang() throws SignatureException {
+        return TypeConverter.java2erlang(paths, "ls");
+    }
+
+    @Benchmark
+    public OtpErlangObject objectToErlang() throws SignatureException {
+        return TypeConverter.java2erlang(paths, "x");
+    }
+
+    @Benchmark
+    public Object stringToJava() throws SignatureException {
+        return TypeConverter.erlang2java(erlangString, String.class);
+    }
+
+    @Benchmark
+    public Object listToJava() throws SignatureException {
+        return TypeConverter.erlang2java(erlangPaths, List.class);
+    }
+
+}
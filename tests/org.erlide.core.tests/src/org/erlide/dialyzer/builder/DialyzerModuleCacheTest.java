@@ -0,0 +1,130 @@
+package org.erlide.dialyzer.builder;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import org.erlide.testing.utils.BeamFiles;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+public class DialyzerModuleCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() {
+        dir = Files.createTempDir();
+    }
+
+    @After
+    public void tearDown() {
+        for (final File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void importsAreTheCalledModules() {
+        final byte[] beam = BeamFiles.beam(
+                atoms("AtU8", "me", "lists", "erlang", "foo"), imports(2, 3, 4, 2));
+        assertThat(DialyzerModuleCache.readImports(beam)).containsExactly("lists",
+                "foo");
+    }
+
+    @Test
+    public void chunksArePaddedAndSkipped() {
+        // "me" makes the atom chunk 7 bytes long, plus one byte of padding
+        final byte[] beam = BeamFiles.beam(BeamFiles.chunk("Code", new byte[5]),
+                imports(2), BeamFiles.chunk("Attr", new byte[3]),
+                atoms("Atom", "me", "x"));
+        assertThat(DialyzerModuleCache.readImports(beam)).containsExactly("x");
+    }
+
+    @Test
+    public void unknownFormatsHaveNoImports() {
+        assertThat(DialyzerModuleCache.readImports("FOR1\0\0\0\0ELF0".getBytes()))
+                .isNull();
+        // compact atom table of recent compilers
+        final byte[] compact = ByteBuffer.allocate(8 + 4).put("AtU8".getBytes())
+                .putInt(4).putInt(-1).array();
+        assertThat(DialyzerModuleCache.readImports(BeamFiles.beam(compact, imports(2))))
+                .isNull();
+        // no import table
+        assertThat(DialyzerModuleCache.readImports(BeamFiles.beam(atoms("AtU8", "me"))))
+                .isNull();
+        // more atoms than the chunk holds
+        final byte[] cut = BeamFiles.chunk("AtU8", new byte[] { 0, 0, 0, 2, 1, 'm' });
+        assertThat(DialyzerModuleCache.readImports(BeamFiles.beam(cut, imports(2))))
+                .isNull();
+    }
+
+    @Test
+    public void removeAcceptsPortablePaths() throws IOException {
+        final DialyzerModuleCache cache = new DialyzerModuleCache(
+                new File(dir, "cache"));
+        final Map<String, DialyzerModuleCache.Entry> entries = Maps.newHashMap();
+        entries.put("C:\\ws\\p\\ebin\\a.beam", new DialyzerModuleCache.Entry("1", null));
+        entries.put("C:\\ws\\p2\\ebin\\b.beam", new DialyzerModuleCache.Entry("2", null));
+        cache.update(entries, Collections.<String> emptyList());
+        cache.remove("C:/ws/p");
+        // the calls of b are unknown, so it is analyzed again with a
+        assertThat(cache.getChanged(entries, Collections.<String> emptyList()))
+                .containsExactly("C:\\ws\\p\\ebin\\a.beam", "C:\\ws\\p2\\ebin\\b.beam");
+        // b doesn't call a
+        entries.put("C:\\ws\\p2\\ebin\\b.beam",
+                new DialyzerModuleCache.Entry("2", Sets.<String> newHashSet()));
+        assertThat(cache.getChanged(entries, Collections.<String> emptyList()))
+                .containsExactly("C:\\ws\\p\\ebin\\a.beam");
+    }
+
+    @Test
+    public void entriesAreReadBack() throws IOException {
+        final File beam = new File(dir, "m.beam");
+        Files.write(BeamFiles.beam(atoms("AtU8", "m", "n"), imports(2)), beam);
+        final Map<String, DialyzerModuleCache.Entry> current = Maps.newHashMap();
+        current.put(beam.getPath(), DialyzerModuleCache.read(beam));
+        new DialyzerModuleCache(new File(dir, "cache")).update(current,
+                Collections.<String> emptyList());
+        final DialyzerModuleCache cache = new DialyzerModuleCache(new File(dir, "cache"));
+        assertThat(cache.getChanged(current, Collections.<String> emptyList()))
+                .isEmpty();
+    }
+
+    private static byte[] atoms(final String id, final String... names) {
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        data.write(0);
+        data.write(0);
+        data.write(0);
+        data.write(names.length);
+        for (final String name : names) {
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            data.write(bytes.length);
+            data.write(bytes, 0, bytes.length);
+        }
+        return BeamFiles.chunk(id, data.toByteArray());
+    }
+
+    private static byte[] imports(final int... modules) {
+        final ByteBuffer data = ByteBuffer.allocate(4 + 12 * modules.length);
+        data.putInt(modules.length);
+        for (final int module : modules) {
+            // module, function, arity
+            data.putInt(module).putInt(1).putInt(0);
+        }
+        return BeamFiles.chunk("ImpT", data.array());
+    }
+
+}
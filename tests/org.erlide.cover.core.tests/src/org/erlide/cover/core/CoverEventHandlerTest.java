@@ -0,0 +1,35 @@
+package org.erlide.cover.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class CoverEventHandlerTest {
+
+    private final CoverEventHandler handler = new CoverEventHandler(null);
+
+    @Test
+    public void finishesAfterLastAnalysis() {
+        handler.expectAnalyses(3);
+        assertThat(handler.analysisFinished()).isFalse();
+        assertThat(handler.analysisFinished()).isFalse();
+        assertThat(handler.analysisFinished()).isTrue();
+    }
+
+    @Test
+    public void finishesWhenNothingIsExpected() {
+        assertThat(handler.analysisFinished()).isTrue();
+        handler.expectAnalyses(1);
+        assertThat(handler.analysisFinished()).isTrue();
+        // a late one, after the analysis was aborted
+        assertThat(handler.analysisFinished()).isTrue();
+    }
+
+    @Test
+    public void abortedAnalysisIsFinished() {
+        handler.expectAnalyses(2);
+        handler.expectAnalyses(0);
+        assertThat(handler.analysisFinished()).isTrue();
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.erlide.cover.views.model;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Line results are compared by their string form, "line calls", since they are equal
+ * when their lines are.
+ */
+public class LineCoverageTest {
+
+    @Test
+    public void resultsAreSortedByLine() {
+        final LineCoverage coverage = new LineCoverage(1);
+        coverage.add(7, 5);
+        coverage.add(1, 0);
+        coverage.add(3, 2);
+        assertThat(coverage.size()).isEqualTo(3);
+        assertThat(coverage.getResults().toString()).isEqualTo("[1 0, 3 2, 7 5]");
+    }
+
+    @Test
+    public void coveredLines() {
+        final LineCoverage coverage = new LineCoverage(0);
+        coverage.add(1, 0);
+        coverage.add(2, 4);
+        coverage.add(3, 1);
+        assertThat(coverage.getCoveredCount()).isEqualTo(2);
+        assertThat(coverage.isCovered(1)).isFalse();
+        assertThat(coverage.isCovered(2)).isTrue();
+        assertThat(coverage.isCovered(10)).isFalse();
+    }
+
+    @Test
+    public void lineCalls() {
+        final LineCoverage coverage = new LineCoverage(4);
+        coverage.add(5, 3);
+        coverage.add(2, 1);
+        assertThat(coverage.getLineCalls(5)).isEqualTo(3);
+        assertThat(coverage.getLineCalls(2)).isEqualTo(1);
+        assertThat(coverage.getLineCalls(3)).isEqualTo(-1);
+    }
+
+    @Test
+    public void range() {
+        final LineCoverage coverage = new LineCoverage(2);
+        for (int line = 10; line > 0; line--) {
+            coverage.add(line, line);
+        }
+        // reported twice
+        coverage.add(4, 0);
+        assertThat(coverage.getResults(4, 5).toString()).isEqualTo("[4 0, 4 4, 5 5]");
+        assertThat(coverage.getResults(9, -1).toString()).isEqualTo("[9 9, 10 10]");
+        assertThat(coverage.getResults(11, -1)).isEmpty();
+    }
+
+}
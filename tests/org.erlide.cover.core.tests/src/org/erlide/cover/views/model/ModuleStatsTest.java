@@ -0,0 +1,81 @@
+package org.erlide.cover.views.model;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
+
+import org.junit.Test;
+
+public class ModuleStatsTest {
+
+    /**
+     * A module "m" with md5 "abc" and the results (3, 2), (1, 0), (7, 5), saved when
+     * the results were a list of LineResults.
+     */
+    private static final String OLD_MODULE = ""
+            + "rO0ABXNyAChvcmcuZXJsaWRlLmNvdmVyLnZpZXdzLm1vZGVsLk1vZHVsZVN0YXRz"
+            + "AAAAAAAAAAECAANaAA1jb3VsZEJlTWFya2VkTAALbGluZVJlc3VsdHN0ABBMamF2"
+            + "YS91dGlsL0xpc3Q7TAADbWQ1dAASTGphdmEvbGFuZy9TdHJpbmc7eHIALG9yZy5l"
+            + "cmxpZGUuY292ZXIudmlld3MubW9kZWwuU3RhdHNUcmVlT2JqZWN0AAAAAAAAAAEC"
+            + "AAhJAANhbGxJAAdjb3ZlcmVkTAAIY2hpbGRyZW50AA9MamF2YS91dGlsL01hcDtM"
+            + "AAhodG1sUGF0aHEAfgACTAAFbGFiZWxxAH4AAkwABnBhcmVudHQALkxvcmcvZXJs"
+            + "aWRlL2NvdmVyL3ZpZXdzL21vZGVsL0lDb3ZlcmFnZU9iamVjdDtMAAxyZWxhdGl2"
+            + "ZVBhdGhxAH4AAkwABHR5cGV0AClMb3JnL2VybGlkZS9jb3Zlci92aWV3cy9tb2Rl"
+            + "bC9PYmplY3RUeXBlO3hwAAAAAAAAAABzcgARamF2YS51dGlsLkhhc2hNYXAFB9rB"
+            + "wxZg0QMAAkYACmxvYWRGYWN0b3JJAAl0aHJlc2hvbGR4cD9AAAAAAAAAdwgAAAAQ"
+            + "AAAAAHhwdAABbXBwfnIAJ29yZy5lcmxpZGUuY292ZXIudmlld3MubW9kZWwuT2Jq"
+            + "ZWN0VHlwZQAAAAAAAAAAEgAAeHIADmphdmEubGFuZy5FbnVtAAAAAAAAAAASAAB4"
+            + "cHQABk1PRFVMRQFzcgAUamF2YS51dGlsLkxpbmtlZExpc3QMKVNdSmCIIgMAAHhw"
+            + "dwQAAAADc3IAJ29yZy5lcmxpZGUuY292ZXIudmlld3MubW9kZWwuTGluZVJlc3Vs"
+            + "dAAAAAAAAAABAgACSQAJbGluZUNhbGxzSQAHbGluZU51bXhwAAAAAgAAAANzcQB+"
+            + "ABEAAAAAAAAAAXNxAH4AEQAAAAUAAAAHeHQAA2FiYw==";
+
+    @Test
+    public void roundTrip() throws Exception {
+        final ModuleStats stats = new ModuleStats();
+        stats.setLabel("m");
+        stats.setMd5("abc");
+        final LineCoverage coverage = new LineCoverage(2);
+        coverage.add(2, 1);
+        coverage.add(1, 0);
+        stats.setLineCoverage(coverage);
+
+        final ModuleStats read = ModuleStatsTest.read(ModuleStatsTest.write(stats));
+        assertThat(read.getLabel()).isEqualTo("m");
+        assertThat(read.getMd5()).isEqualTo("abc");
+        assertThat(read.getLineResults().toString()).isEqualTo("[1 0, 2 1]");
+    }
+
+    @Test
+    public void oldResultsAreConverted() throws Exception {
+        final ModuleStats read = ModuleStatsTest
+                .read(Base64.getDecoder().decode(ModuleStatsTest.OLD_MODULE));
+        assertThat(read.getLabel()).isEqualTo("m");
+        assertThat(read.getMd5()).isEqualTo("abc");
+        assertThat(read.couldBeMarked).isTrue();
+        assertThat(read.getLineResults().toString()).isEqualTo("[1 0, 3 2, 7 5]");
+        assertThat(read.getLineCoverage().getCoveredCount()).isEqualTo(2);
+    }
+
+    private static byte[] write(final ModuleStats stats) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(stats);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ModuleStats read(final byte[] bytes)
+            throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes))) {
+            return (ModuleStats) in.readObject();
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.erlide.engine.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Collections;
+
+import org.erlide.runtime.events.RuntimeDownEvent;
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.ReplayingOtpRpc;
+import org.erlide.util.IDisposable;
+import org.junit.Test;
+
+public class ServiceRegistryTest {
+
+    private final ServiceRegistry registry = new ServiceRegistry();
+    private final IOtpRpc backend1 = new ReplayingOtpRpc(Collections.emptyList());
+    private final IOtpRpc backend2 = new ReplayingOtpRpc(Collections.emptyList());
+
+    @Test
+    public void servicesAreSharedPerBackend() {
+        final Service s1 = registry.get(backend1, Service.class, Service::new);
+        assertThat(registry.get(backend1, Service.class, Service::new))
+                .isSameInstanceAs(s1);
+        assertThat(registry.get(backend2, Service.class, Service::new))
+                .isNotSameInstanceAs(s1);
+        assertThat(s1.backend).isSameInstanceAs(backend1);
+    }
+
+    @Test
+    public void noBackendNoSharing() {
+        final Service s1 = registry.get(null, Service.class, Service::new);
+        assertThat(registry.get(null, Service.class, Service::new))
+                .isNotSameInstanceAs(s1);
+    }
+
+    @Test
+    public void servicesAreDisposedWhenTheBackendGoesDown() {
+        final Service s1 = registry.get(backend1, Service.class, Service::new);
+        final Service s2 = registry.get(backend2, Service.class, Service::new);
+        registry.runtimeDown(new RuntimeDownEvent("node", backend1));
+        assertThat(s1.disposed).isTrue();
+        assertThat(s2.disposed).isFalse();
+        assertThat(registry.get(backend1, Service.class, Service::new))
+                .isNotSameInstanceAs(s1);
+        assertThat(registry.get(backend2, Service.class, Service::new))
+                .isSameInstanceAs(s2);
+    }
+
+    @Test
+    public void removedBackendIsNotRegisteredAgain() {
+        registry.remove(backend1);
+        final Service s1 = registry.get(backend1, Service.class, Service::new);
+        assertThat(s1.backend).isSameInstanceAs(backend1);
+        assertThat(registry.get(backend1, Service.class, Service::new))
+                .isNotSameInstanceAs(s1);
+        // nothing was kept for it
+        registry.clear();
+        assertThat(s1.disposed).isFalse();
+    }
+
+    @Test
+    public void clearDisposesAll() {
+        final Service s1 = registry.get(backend1, Service.class, Service::new);
+        final Service s2 = registry.get(backend2, Service.class, Service::new);
+        registry.clear();
+        assertThat(s1.disposed).isTrue();
+        assertThat(s2.disposed).isTrue();
+    }
+
+    private static class Service implements IDisposable {
+        final IOtpRpc backend;
+        boolean disposed;
+
+        Service(final IOtpRpc backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+    }
+
+}
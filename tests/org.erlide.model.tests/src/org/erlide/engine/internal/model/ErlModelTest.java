@@ -0,0 +1,66 @@
+package org.erlide.engine.internal.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.erlide.engine.ErlangEngine;
+import org.erlide.engine.model.root.IErlProject;
+import org.erlide.engine.util.ErlideTestUtils;
+import org.erlide.runtime.api.StartupMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ErlModelTest {
+
+    private ErlModel model;
+    private IErlProject project1;
+    private IErlProject project2;
+
+    @Before
+    public void setUp() throws Exception {
+        ErlideTestUtils.initProjects();
+        ErlideTestUtils.initModulesAndIncludes();
+        project1 = ErlideTestUtils.createErlProject("testproject1");
+        project2 = ErlideTestUtils.createErlProject("testproject2");
+        ErlideTestUtils.createModule(project1, "m1.erl", "-module(m1).\n");
+        model = (ErlModel) ErlangEngine.getInstance().getModel();
+        project1.close();
+        project2.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ErlideTestUtils.deleteModules();
+        ErlideTestUtils.deleteProjects();
+    }
+
+    @Test
+    public void openProjectsOpensAllProjects() throws Exception {
+        final StartupMetrics metrics = model.openProjects(new NullProgressMonitor());
+        assertThat(project1.isOpen()).isTrue();
+        assertThat(project2.isOpen()).isTrue();
+        assertThat(project1.getModules()).hasSize(1);
+        assertThat(metrics.getPhases().keySet())
+                .containsExactly("model", "projects", "externals and modules")
+                .inOrder();
+    }
+
+    @Test
+    public void canceledOpenStops() throws Exception {
+        final IProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+        try {
+            model.openProjects(monitor);
+            fail("expected OperationCanceledException");
+        } catch (final OperationCanceledException e) {
+            // expected
+        }
+        assertThat(project1.isOpen()).isFalse();
+        assertThat(project2.isOpen()).isFalse();
+    }
+
+}
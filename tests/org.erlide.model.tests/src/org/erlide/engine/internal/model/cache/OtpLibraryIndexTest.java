@@ -0,0 +1,118 @@
+package org.erlide.engine.internal.model.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.ReplayingOtpRpc;
+import org.erlide.runtime.runtimeinfo.RuntimeInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+public class OtpLibraryIndexTest {
+
+    private static final OtpErlangList STRUCTURE = new OtpErlangList(
+            new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangString("/otp/lib/a"),
+                    new OtpErlangList(), new OtpErlangString("group") }));
+
+    private final IOtpRpc backend = new ReplayingOtpRpc(new ArrayList<>());
+    private final AtomicInteger fetches = new AtomicInteger();
+    private File dir;
+    private RuntimeInfo runtime;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("otp").toFile();
+        final File otpHome = new File(dir, "otp");
+        new File(otpHome, "lib").mkdirs();
+        runtime = new RuntimeInfo("test", otpHome.getPath(), "", new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() {
+        OtpLibraryIndexTest.delete(dir);
+    }
+
+    @Test
+    public void structureIsFetchedInTheBackground() throws InterruptedException {
+        final OtpLibraryIndex index = newIndex(STRUCTURE);
+        final CountDownLatch fetched = new CountDownLatch(1);
+        assertThat(index.getOtpLibStructure(runtime, backend, fetched::countDown))
+                .isNull();
+        assertThat(fetched.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(index.getOtpLibStructure(runtime, backend, () -> {
+        })).isEqualTo(STRUCTURE);
+        assertThat(fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void storedStructureIsUsedLater() throws InterruptedException {
+        fetchWith(newIndex(STRUCTURE));
+        final OtpLibraryIndex later = newIndex(null);
+        assertThat(later.getOtpLibStructure(runtime, backend, () -> {
+        })).isEqualTo(STRUCTURE);
+        assertThat(fetches.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void changedInstallationIsFetchedAgain() throws InterruptedException {
+        fetchWith(newIndex(STRUCTURE));
+        final File lib = new File(runtime.getOtpHome(), "lib");
+        lib.setLastModified(lib.lastModified() - 10000);
+        final OtpLibraryIndex later = newIndex(STRUCTURE);
+        final CountDownLatch fetched = new CountDownLatch(1);
+        assertThat(later.getOtpLibStructure(runtime, backend, fetched::countDown))
+                .isNull();
+        assertThat(fetched.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fetches.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void structureWithoutRuntimeIsNotKept() {
+        final OtpLibraryIndex index = newIndex(STRUCTURE);
+        final Runnable never = () -> {
+            throw new AssertionError("fetched in the background");
+        };
+        assertThat(index.getOtpLibStructure(null, backend, never)).isEqualTo(STRUCTURE);
+        assertThat(index.getOtpLibStructure(null, backend, never)).isEqualTo(STRUCTURE);
+        assertThat(fetches.get()).isEqualTo(2);
+        assertThat(new File(dir, "index").exists()).isFalse();
+    }
+
+    private OtpLibraryIndex newIndex(final OtpErlangList structure) {
+        return new OtpLibraryIndex(new File(dir, "index"), b -> {
+            fetches.incrementAndGet();
+            return structure;
+        });
+    }
+
+    private void fetchWith(final OtpLibraryIndex index) throws InterruptedException {
+        final CountDownLatch fetched = new CountDownLatch(1);
+        index.getOtpLibStructure(runtime, backend, fetched::countDown);
+        assertThat(fetched.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                OtpLibraryIndexTest.delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}
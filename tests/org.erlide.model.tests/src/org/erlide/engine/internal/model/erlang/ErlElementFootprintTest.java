@@ -0,0 +1,149 @@
+package org.erlide.engine.internal.model.erlang;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Model elements are the bulk of the heap in large workspaces; this checks how many
+ * objects each of them keeps alive.
+ */
+public class ErlElementFootprintTest {
+
+    private static final int N = 1000;
+    private static final String[] NAMES = { "init", "handle_call", "handle_cast",
+            "handle_info", "terminate", "code_change", "start_link", "stop", "loop",
+            "get" };
+
+    @Test
+    public void functions() {
+        final List<ErlFunction> functions = Lists.newArrayList();
+        for (int i = 0; i < ErlElementFootprintTest.N; i++) {
+            // the parser creates new strings for everything
+            final String name = new String(ErlElementFootprintTest.NAMES[i % 10]);
+            final String head = name + "(Req, State)";
+            final ErlFunction f = new ErlFunction(null, name, 2, head, true,
+                    ErlElementFootprintTest.parameters());
+            f.setChildren(Arrays.asList(new ErlFunctionClause(f, new String(name),
+                    new String(head), ErlElementFootprintTest.parameters())));
+            functions.add(f);
+        }
+        assertThat(functions.get(0).getName())
+                .isSameInstanceAs(functions.get(10).getName());
+        assertThat(functions.get(0).getParameters().get(1))
+                .isSameInstanceAs(functions.get(1).getParameters().get(1));
+        // a function, its head and parameters, its clauses list, a clause with its own
+        // head and parameters; the names and parameters are shared
+        final int perFunction = ErlElementFootprintTest.countObjects(functions)
+                / ErlElementFootprintTest.N;
+        assertThat(perFunction).isAtMost(14);
+    }
+
+    @Test
+    public void comments() {
+        final StringBuilder b = new StringBuilder();
+        for (int i = 0; i < ErlElementFootprintTest.N; i++) {
+            b.append("% comment ").append(i).append('\n');
+            b.append('f').append(i).append("() -> ok.\n");
+        }
+        final String source = b.toString();
+        final List<ErlComment> comments = Lists.newArrayList();
+        int offset = 0;
+        for (int i = 0; i < ErlElementFootprintTest.N; i++) {
+            final int length = source.indexOf('\n', offset) - offset;
+            comments.add(new ErlComment(null, source, offset, length, false));
+            offset = source.indexOf('\n', offset + length + 1) + 1;
+        }
+        assertThat(comments.get(7).getName()).isEqualTo("% comment 7");
+        assertThat(comments.get(7).getSource()).isEqualTo("% comment 7");
+        // only the comments themselves, the text is in the module's source
+        assertThat(ErlElementFootprintTest.countObjects(comments))
+                .isAtMost(ErlElementFootprintTest.N + 10);
+    }
+
+    private static OtpErlangList parameters() {
+        return new OtpErlangList(new OtpErlangObject[] {
+                new OtpErlangString(new String("Req")),
+                new OtpErlangString(new String("State")) });
+    }
+
+    /**
+     * Counts the distinct objects reachable from the elements, without following the
+     * parent links. Strings and collections aren't looked into, as their representation
+     * depends on the JDK: they count as one object, plus one for their content if they
+     * have any.
+     */
+    private static int countObjects(final Collection<?> roots) {
+        final Set<Object> seen = Sets.newIdentityHashSet();
+        final Deque<Object> todo = new ArrayDeque<>(roots);
+        int count = 0;
+        while (!todo.isEmpty()) {
+            final Object o = todo.pop();
+            if (o instanceof Class || o instanceof Enum || !seen.add(o)) {
+                continue;
+            }
+            if (o instanceof String) {
+                count += 2;
+            } else if (o instanceof Collection) {
+                final Collection<?> c = (Collection<?>) o;
+                count += c.isEmpty() ? 1 : 2;
+                ErlElementFootprintTest.pushAll(todo, c);
+            } else if (o.getClass().isArray()) {
+                count++;
+                if (!o.getClass().getComponentType().isPrimitive()) {
+                    ErlElementFootprintTest.pushAll(todo, Arrays.asList((Object[]) o));
+                }
+            } else {
+                count++;
+                if (!o.getClass().getName().startsWith("java.")) {
+                    ErlElementFootprintTest.pushFields(todo, o);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void pushFields(final Deque<Object> todo, final Object o) {
+        for (Class<?> c = o.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for (final Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive()
+                        || "fParent".equals(f.getName())) {
+                    continue;
+                }
+                try {
+                    f.setAccessible(true);
+                    final Object value = f.get(o);
+                    if (value != null) {
+                        todo.push(value);
+                    }
+                } catch (final ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    private static void pushAll(final Deque<Object> todo, final Collection<?> values) {
+        for (final Object value : values) {
+            if (value != null) {
+                todo.push(value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package org.erlide.engine.internal.model.news;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.erlide.engine.internal.model.news.Node.Kind;
+import org.erlide.engine.model.news.IErlangApplication;
+import org.erlide.engine.model.news.IErlangFunction;
+import org.erlide.engine.model.news.IErlangModule;
+import org.erlide.engine.model.news.IErlangProject;
+import org.erlide.engine.model.news.IErlangSourceFolder;
+import org.erlide.engine.model.news.TextRange;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Iterables;
+
+public class ErlangModelSnapshotTest {
+
+    private ErlangModel model;
+
+    @Before
+    public void setUp() {
+        final Node a = Node.container(Kind.MODULE, "a.erl",
+                Arrays.asList(function("f", 0, 20), function("g", 30, 40)));
+        final Node b = Node.container(Kind.MODULE, "b.erl",
+                Arrays.asList(function("h", 0, 20)));
+        final Node src = Node.container(Kind.SOURCE_FOLDER, "src", Arrays.asList(a, b));
+        final Node beam = Node.container(Kind.BEAM, "a.beam", Arrays.asList());
+        final Node stdlib = Node.application("stdlib", "3.10", Arrays.asList(),
+                Arrays.asList(), Arrays.asList());
+        final Node p = Node.project("p", "22", "1.0", Arrays.asList(src),
+                Arrays.asList(beam), Arrays.asList(), Arrays.asList(stdlib));
+        model = ErlangModel.create(Arrays.asList(p));
+    }
+
+    @Test
+    public void navigate() {
+        final IErlangModule a = module(model, "a.erl");
+        assertThat(a.getFileExtension()).isEqualTo("erl");
+        final IErlangFunction g = function(a, 1);
+        assertThat(g.getName()).isEqualTo("g");
+        assertThat(g.getFullRange()).isEqualTo(new TextRange(30, 40));
+        assertThat(g.getIdentifyingRange()).isEqualTo(new TextRange(30, 1));
+        assertThat(g.getClauses().iterator().next().getFullRange())
+                .isEqualTo(new TextRange(32, 5));
+        assertThat(g.getParent()).isEqualTo(a);
+        assertThat(model.getProject("p").getOtpVersion()).isEqualTo("22");
+    }
+
+    @Test
+    public void applicationParts() {
+        final IErlangProject p = model.getProject("p");
+        assertThat(p.getProperties().getVersion()).isEqualTo("1.0");
+        assertThat(p.getBinaryFolder().getBeam("a.beam").getFileExtension())
+                .isEqualTo("beam");
+        assertThat(p.getDependencies().getApplications()).isEmpty();
+        final IErlangApplication stdlib = Iterables
+                .getOnlyElement(p.getOtpLibrary().getApplications());
+        assertThat(stdlib.getProperties().getVersion()).isEqualTo("3.10");
+        assertThat(stdlib.getBinaryFolder().getBeams()).isEmpty();
+        assertThat(stdlib.getDependencies()).isNotNull();
+        // the sources come first
+        assertThat(Iterables.getFirst(p.getChildren(), null))
+                .isEqualTo(p.getSourceFolder("src"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void projectsHaveTheirParts() {
+        Node.container(Kind.PROJECT, "p", Arrays.asList());
+    }
+
+    @Test
+    public void updateSharesUnchangedNodes() {
+        final IErlangModule a = module(model, "a.erl");
+        // f changes and g moves by 5
+        final List<Node> forms = Arrays.asList(function("f", 0, 25),
+                function("g", 35, 40));
+        final ErlangModel next = model.update(a, forms);
+
+        final IErlangModule a2 = module(next, "a.erl");
+        assertThat(function(a2, 0).getFullRange()).isEqualTo(new TextRange(0, 25));
+        assertThat(function(a2, 1).getFullRange()).isEqualTo(new TextRange(35, 40));
+        // the moved function's clauses are the old ones
+        final Node moved = ((ErlangElement) function(a2, 1)).getNode();
+        final Node old = ((ErlangElement) function(a, 1)).getNode();
+        assertThat(moved.getChildren()).isSameInstanceAs(old.getChildren());
+        // the other module isn't copied
+        assertThat(((ErlangElement) module(next, "b.erl")).getNode())
+                .isSameInstanceAs(((ErlangElement) module(model, "b.erl")).getNode());
+        // and the old snapshot didn't change
+        assertThat(function(module(model, "a.erl"), 1).getFullRange())
+                .isEqualTo(new TextRange(30, 40));
+    }
+
+    @Test
+    public void unchangedUpdateKeepsNodes() {
+        final IErlangModule a = module(model, "a.erl");
+        final ErlangModel next = model.update(a,
+                Arrays.asList(function("f", 0, 20), function("g", 30, 40)));
+        assertThat(((ErlangElement) module(next, "a.erl")).getNode().getChildren()
+                .get(0)).isSameInstanceAs(((ErlangElement) a).getNode().getChildren()
+                        .get(0));
+    }
+
+    @Test
+    public void locate() {
+        final IErlangFunction g = function(module(model, "a.erl"), 1);
+        final ErlangModel next = model.replace(g, function("k", 30, 40));
+        assertThat(next.locate(g).getName()).isEqualTo("k");
+        assertThat(model.locate(g)).isEqualTo(g);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void elementsOfOtherSnapshotsAreRejected() {
+        final IErlangModule a = module(model, "a.erl");
+        final ErlangModel next = model.update(a, Arrays.asList());
+        next.update(a, Arrays.asList());
+    }
+
+    private static Node function(final String name, final int offset, final int length) {
+        final Node clause = Node.construct(Kind.CLAUSE, "", null, 0, 2, 5, 0, 1,
+                Arrays.asList(Node.expression(Kind.PARAMETER, "X", 1, 1)));
+        return Node.construct(Kind.FUNCTION, name, null, 1, offset, length, 0,
+                name.length(), Arrays.asList(clause));
+    }
+
+    private static IErlangModule module(final ErlangModel m, final String name) {
+        final IErlangSourceFolder src = m.getProject("p").getSourceFolder("src");
+        return (IErlangModule) src.getSource(name);
+    }
+
+    private static IErlangFunction function(final IErlangModule module, final int i) {
+        return (IErlangFunction) Iterables.get(module.getForms(), i);
+    }
+
+}
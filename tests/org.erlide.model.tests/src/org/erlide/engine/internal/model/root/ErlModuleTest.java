@@ -0,0 +1,33 @@
+package org.erlide.engine.internal.model.root;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class ErlModuleTest {
+
+    @Test
+    public void libraryRelativePathDropsTheLocation() {
+        assertThat(ErlModule.getLibraryRelativePath(
+                "/usr/lib/erlang/lib/stdlib-3.4/src/lists.erl"))
+                        .isEqualTo("stdlib-3.4/src/lists.erl");
+        assertThat(ErlModule
+                .getLibraryRelativePath("/opt/otp/lib/stdlib-3.4/src/lists.erl"))
+                        .isEqualTo("stdlib-3.4/src/lists.erl");
+    }
+
+    @Test
+    public void libraryRelativePathOfWindowsPath() {
+        assertThat(ErlModule.getLibraryRelativePath(
+                "C:\\Program Files\\erl\\lib\\kernel-5.1\\include\\file.hrl"))
+                        .isEqualTo("kernel-5.1/include/file.hrl");
+    }
+
+    @Test
+    public void libraryRelativePathOfShortPath() {
+        assertThat(ErlModule.getLibraryRelativePath("/src/a.erl"))
+                .isEqualTo("src/a.erl");
+        assertThat(ErlModule.getLibraryRelativePath("a.erl")).isEqualTo("a.erl");
+    }
+
+}
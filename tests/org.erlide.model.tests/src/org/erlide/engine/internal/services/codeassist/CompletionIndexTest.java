@@ -0,0 +1,140 @@
+package org.erlide.engine.internal.services.codeassist;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.erlide.engine.services.search.OtpDocService;
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.ReplayingOtpRpc;
+import org.erlide.util.ErlangFunctionCall;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.google.common.collect.Lists;
+
+public class CompletionIndexTest {
+
+    private final IOtpRpc backend = new ReplayingOtpRpc(Collections.emptyList());
+    private final FakeDocService docs = new FakeDocService();
+    private final CompletionIndex index = new CompletionIndex(docs);
+
+    @Test
+    public void otpModulesAreFetchedOnce() {
+        final OtpErlangList first = (OtpErlangList) index.getProposalsWithDoc(backend,
+                "lists", "");
+        assertThat(first.arity()).isEqualTo(3);
+        final OtpErlangList second = (OtpErlangList) index
+                .getProposalsWithDoc(backend, "lists", "map");
+        assertThat(names(second)).containsExactly("map/2", "mapfoldl/3").inOrder();
+        assertThat(docs.fetched).containsExactly("lists:");
+    }
+
+    @Test
+    public void offsetsAreRelativeToThePrefix() {
+        final OtpErlangList result = (OtpErlangList) index.getProposalsWithDoc(backend,
+                "lists", "ma");
+        final OtpErlangTuple map = (OtpErlangTuple) result.elementAt(0);
+        final OtpErlangTuple offset = (OtpErlangTuple) ((OtpErlangList) map
+                .elementAt(2)).elementAt(0);
+        assertThat(((OtpErlangLong) offset.elementAt(0)).longValue()).isEqualTo(2);
+    }
+
+    @Test
+    public void otherModulesAreNotCached() {
+        index.getProposalsWithDoc(backend, "my_mod", "f");
+        index.getProposalsWithDoc(backend, "my_mod", "f");
+        assertThat(docs.fetched).containsExactly("my_mod:f", "my_mod:f");
+    }
+
+    @Test
+    public void autoImportedAreCached() {
+        index.getProposalsWithDoc(backend, CompletionIndex.AUTO_IMPORTED, "");
+        index.getProposalsWithDoc(backend, CompletionIndex.AUTO_IMPORTED, "a");
+        assertThat(docs.fetched).containsExactly(CompletionIndex.AUTO_IMPORTED + ":");
+    }
+
+    @Test
+    public void modulesMergeProjectAndOtp() {
+        final List<String> result = index.getModules(backend, "li",
+                Lists.newArrayList("li_mine"));
+        assertThat(result).containsExactly("li_mine", "lists").inOrder();
+    }
+
+    @Test
+    public void clearRefetches() {
+        index.getProposalsWithDoc(backend, "lists", "");
+        index.clear();
+        index.getProposalsWithDoc(backend, "lists", "");
+        assertThat(docs.fetched).containsExactly("lists:", "lists:");
+    }
+
+    private static List<String> names(final OtpErlangList list) {
+        final List<String> result = Lists.newArrayList();
+        for (final OtpErlangObject o : list) {
+            result.add(((OtpErlangString) ((OtpErlangTuple) o).elementAt(0))
+                    .stringValue());
+        }
+        return result;
+    }
+
+    private static OtpErlangTuple proposal(final String name, final String prefix) {
+        // the parameter offset is relative to the end of the prefix
+        final OtpErlangTuple offset = new OtpErlangTuple(new OtpErlangObject[] {
+                new OtpErlangLong(name.indexOf('/') + 1 - prefix.length()),
+                new OtpErlangLong(1) });
+        return new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangString(name),
+                new OtpErlangString(name), new OtpErlangList(offset),
+                new OtpErlangString("doc") });
+    }
+
+    private static class FakeDocService implements OtpDocService {
+        final List<String> fetched = Lists.newArrayList();
+
+        @Override
+        public OtpErlangObject getProposalsWithDoc(final IOtpRpc b, final String mod,
+                final String prefix) {
+            fetched.add(mod + ":" + prefix);
+            final List<OtpErlangObject> result = Lists.newArrayList();
+            for (final String name : new String[] { "foldl/3", "map/2",
+                    "mapfoldl/3" }) {
+                if (name.startsWith(prefix)) {
+                    result.add(CompletionIndexTest.proposal(name, prefix));
+                }
+            }
+            return new OtpErlangList(result.toArray(new OtpErlangObject[0]));
+        }
+
+        @Override
+        public OtpErlangObject getModules(final IOtpRpc b, final String prefix,
+                final List<String> projectModules, final boolean includes) {
+            return new OtpErlangList(new OtpErlangObject[] {
+                    new OtpErlangString("kernel"), new OtpErlangString("lists") });
+        }
+
+        @Override
+        public OtpErlangObject getOtpDoc(final IOtpRpc b,
+                final ErlangFunctionCall functionCall) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public OtpErlangObject getOtpDoc(final IOtpRpc b, final int offset,
+                final String module, final Collection<OtpErlangObject> imports,
+                final String externalModules, final OtpErlangList pathVars) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getOtpDocLocation(final IOtpRpc b) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+package org.erlide.engine.internal.services.codeassist;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.erlide.engine.model.ErlElementKind;
+import org.erlide.engine.model.IErlElement;
+import org.erlide.engine.model.erlang.ErlangFunction;
+import org.erlide.engine.model.erlang.IErlFunction;
+import org.erlide.engine.model.erlang.IErlPreprocessorDef;
+import org.erlide.engine.model.erlang.IErlRecordDef;
+import org.erlide.engine.model.erlang.IErlRecordField;
+import org.erlide.engine.model.root.IErlModule;
+import org.erlide.engine.model.root.IErlProject;
+import org.erlide.engine.services.search.ModelFindService;
+import org.erlide.engine.services.search.ModelUtilService;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class ProjectCompletionIndexTest {
+
+    private final IErlProject project = ProjectCompletionIndexTest
+            .fake(IErlProject.class, "project", Maps.newHashMap());
+    private final List<String> moduleNames = Lists.newArrayList("m", "'M2'", "other");
+    private final List<String> fetched = Lists.newArrayList();
+    private final Map<IErlModule, List<IErlModule>> includes = Maps.newHashMap();
+    private final ProjectCompletionIndex index = new ProjectCompletionIndex(
+            ProjectCompletionIndexTest.fake(ModelFindService.class, "find",
+                    ProjectCompletionIndexTest.answers("findAllIncludedFiles",
+                            (Answer) args -> includes.getOrDefault(args[0],
+                                    Lists.newArrayList()),
+                            "resolveMacroValue", (Answer) args -> args[0])),
+            ProjectCompletionIndexTest.fake(ModelUtilService.class, "util",
+                    ProjectCompletionIndexTest.answers("findUnitsWithPrefix",
+                            (Answer) args -> {
+                                fetched.add(args[0] + "@" + args[1]);
+                                return Lists.newArrayList(moduleNames);
+                            }, "getProject", (Answer) args -> project)));
+
+    @Test
+    public void functionsAreFoundByPrefix() throws Exception {
+        final IErlFunction map2 = ProjectCompletionIndexTest.function("map", 2);
+        final IErlFunction filter = ProjectCompletionIndexTest.function("filter", 1);
+        final IErlFunction map3 = ProjectCompletionIndexTest.function("map", 3);
+        final IErlModule m = ProjectCompletionIndexTest.module("m", map2, filter, map3);
+        assertThat(index.getFunctions(m, "ma")).containsExactly(map2, map3).inOrder();
+        assertThat(index.getFunctions(m, "")).containsExactly(filter, map2, map3)
+                .inOrder();
+        assertThat(index.getFunctions(m, "x")).isEmpty();
+    }
+
+    @Test
+    public void definitionsOfIncludesAreMerged() throws Exception {
+        final IErlModule hrl = ProjectCompletionIndexTest.module("i.hrl",
+                ProjectCompletionIndexTest.macro("DEBUG"),
+                ProjectCompletionIndexTest.record("state", "a", "b"));
+        final IErlModule m = ProjectCompletionIndexTest.module("m",
+                ProjectCompletionIndexTest.macro("debug_level"),
+                ProjectCompletionIndexTest.macro("DEBUG"),
+                ProjectCompletionIndexTest.record("req", "url"));
+        includes.put(m, Lists.newArrayList(hrl));
+        assertThat(index.getPreprocessorDefs(m, ErlElementKind.MACRO_DEF, "de"))
+                .containsExactly("DEBUG", "debug_level").inOrder();
+        assertThat(index.getPreprocessorDefs(m, ErlElementKind.RECORD_DEF, ""))
+                .containsExactly("req", "state").inOrder();
+        assertThat(index.getRecordFields(m, "state")).containsExactly("a", "b")
+                .inOrder();
+        assertThat(index.getRecordFields(m, "'req'")).containsExactly("url");
+        assertThat(index.getRecordFields(m, "none")).isNull();
+    }
+
+    @Test
+    public void changedIncludesAreReread() throws Exception {
+        final List<IErlElement> hrlChildren = Lists
+                .newArrayList(ProjectCompletionIndexTest.macro("A"));
+        final IErlModule hrl = ProjectCompletionIndexTest.fake(IErlModule.class,
+                "i.hrl", ProjectCompletionIndexTest.answers("getChildren",
+                        (Answer) args -> Lists.newArrayList(hrlChildren), "getName",
+                        "i.hrl"));
+        final IErlModule m = ProjectCompletionIndexTest.module("m");
+        final IErlModule other = ProjectCompletionIndexTest.module("other");
+        includes.put(m, Lists.newArrayList(hrl));
+        assertThat(index.getPreprocessorDefs(m, ErlElementKind.MACRO_DEF, ""))
+                .containsExactly("A");
+        index.getPreprocessorDefs(other, ErlElementKind.MACRO_DEF, "");
+
+        hrlChildren.add(ProjectCompletionIndexTest.macro("B"));
+        assertThat(index.getPreprocessorDefs(m, ErlElementKind.MACRO_DEF, ""))
+                .containsExactly("A");
+        index.elementChanged(hrl);
+        assertThat(index.getPreprocessorDefs(m, ErlElementKind.MACRO_DEF, ""))
+                .containsExactly("A", "B").inOrder();
+    }
+
+    @Test
+    public void moduleNamesAreKeptUntilTheProjectChanges() throws Exception {
+        assertThat(index.getModules(project, "")).containsExactly("'M2'", "m", "other")
+                .inOrder();
+        assertThat(index.getModules(project, "o")).containsExactly("other");
+        assertThat(index.getModules(project, "'M")).containsExactly("'M2'");
+        assertThat(fetched).containsExactly("@project");
+
+        // a known module was rebuilt
+        index.elementChanged(ProjectCompletionIndexTest.module("m"));
+        index.getModules(project, "");
+        assertThat(fetched).hasSize(1);
+
+        moduleNames.add("new");
+        index.elementChanged(ProjectCompletionIndexTest.module("new"));
+        assertThat(index.getModules(project, "n")).containsExactly("new");
+        assertThat(fetched).hasSize(2);
+
+        moduleNames.add("gone");
+        index.elementChanged(project);
+        assertThat(index.getModules(project, "g")).containsExactly("gone");
+        assertThat(fetched).hasSize(3);
+    }
+
+    @Test
+    public void clearForgetsEverything() throws Exception {
+        final List<IErlElement> children = Lists
+                .newArrayList(ProjectCompletionIndexTest.function("f", 0));
+        final IErlModule m = ProjectCompletionIndexTest.fake(IErlModule.class, "m",
+                ProjectCompletionIndexTest.answers("getChildren",
+                        (Answer) args -> Lists.newArrayList(children), "getModuleName",
+                        "m", "getName", "m.erl"));
+        index.getFunctions(m, "");
+        index.getModules(project, "");
+        children.add(ProjectCompletionIndexTest.function("g", 0));
+        index.clear();
+        assertThat(index.getFunctions(m, "")).hasSize(2);
+        index.getModules(project, "");
+        assertThat(fetched).hasSize(2);
+    }
+
+    private interface Answer {
+        Object answer(Object[] args);
+    }
+
+    private static Map<String, Object> answers(final Object... pairs) {
+        final Map<String, Object> result = Maps.newHashMap();
+        for (int i = 0; i < pairs.length; i += 2) {
+            result.put((String) pairs[i], pairs[i + 1]);
+        }
+        return result;
+    }
+
+    private static IErlModule module(final String name, final IErlElement... children) {
+        return ProjectCompletionIndexTest.fake(IErlModule.class, name,
+                ProjectCompletionIndexTest.answers("getChildren",
+                        (Supplier<?>) () -> Arrays.asList(children), "getModuleName",
+                        name, "getName", name.contains(".") ? name : name + ".erl"));
+    }
+
+    private static IErlFunction function(final String name, final int arity) {
+        return ProjectCompletionIndexTest.fake(IErlFunction.class, name + "/" + arity,
+                ProjectCompletionIndexTest.answers("getFunction",
+                        new ErlangFunction(name, arity)));
+    }
+
+    private static IErlPreprocessorDef macro(final String name) {
+        return ProjectCompletionIndexTest.fake(IErlPreprocessorDef.class, name,
+                ProjectCompletionIndexTest.answers("getDefinedName", name, "getKind",
+                        ErlElementKind.MACRO_DEF));
+    }
+
+    private static IErlRecordDef record(final String name, final String... fields) {
+        final List<IErlElement> children = Lists.newArrayList();
+        for (final String field : fields) {
+            children.add(ProjectCompletionIndexTest.fake(IErlRecordField.class, field,
+                    ProjectCompletionIndexTest.answers("getFieldName", field)));
+        }
+        return ProjectCompletionIndexTest.fake(IErlRecordDef.class, name,
+                ProjectCompletionIndexTest.answers("getDefinedName", name, "getKind",
+                        ErlElementKind.RECORD_DEF, "getChildren", children));
+    }
+
+    /**
+     * @return an implementation that answers the methods named in the map, with the
+     *         value or what the {@link Answer} or {@link Supplier} returns
+     */
+    private static <T> T fake(final Class<T> type, final String name,
+            final Map<String, Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[] { type }, (p, method, args) -> {
+                    switch (method.getName()) {
+                    case "equals":
+                        return p == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(p);
+                    case "toString":
+                        return name;
+                    default:
+                        break;
+                    }
+                    final Object answer = answers.get(method.getName());
+                    if (answer instanceof Answer) {
+                        return ((Answer) answer).answer(args);
+                    }
+                    if (answer instanceof Supplier) {
+                        return ((Supplier<?>) answer).get();
+                    }
+                    if (answer != null) {
+                        return answer;
+                    }
+                    return method.getReturnType() == boolean.class ? Boolean.FALSE
+                            : null;
+                }));
+    }
+
+}
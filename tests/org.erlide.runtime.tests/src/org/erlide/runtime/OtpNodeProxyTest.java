@@ -80,6 +80,13 @@ public class OtpNodeProxyTest {
         expect(runtime, process, 0, State.TERMINATED);
     }
 
+    @Test
+    public void runtimeAnnouncesItself() {
+        // without the announcement we would have connected to it ourselves
+        assertThat(runtime.getStartupMetrics().getPhases().keySet())
+                .containsExactly("local node", "spawn", "ready").inOrder();
+    }
+
     @Test
     public void shutdownIsDetected() {
         final IOtpRpc site = runtime.getOtpRpc();
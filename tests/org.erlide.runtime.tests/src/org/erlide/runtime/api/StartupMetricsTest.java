@@ -0,0 +1,50 @@
+package org.erlide.runtime.api;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class StartupMetricsTest {
+
+    private final StartupMetrics metrics = new StartupMetrics("test");
+
+    @Test
+    public void phasesAreKeptInOrder() {
+        metrics.done("spawn");
+        metrics.done("ready");
+        metrics.done("code");
+        assertThat(metrics.getPhases().keySet()).containsExactly("spawn", "ready", "code")
+                .inOrder();
+    }
+
+    @Test
+    public void phaseLastsSinceThePreviousOne() throws InterruptedException {
+        Thread.sleep(50);
+        final long first = metrics.done("first");
+        final long second = metrics.done("second");
+        assertThat(first).isAtLeast(50L);
+        assertThat(second).isLessThan(first);
+        assertThat(metrics.getPhases().get("first")).isEqualTo(first);
+    }
+
+    @Test
+    public void totalIsTheSumOfThePhases() throws InterruptedException {
+        metrics.done("first");
+        Thread.sleep(20);
+        metrics.done("second");
+        final long sum = metrics.getPhases().values().stream().mapToLong(Long::longValue)
+                .sum();
+        // each phase is rounded down
+        assertThat(metrics.getTotal()).isAtLeast(sum);
+        assertThat(metrics.getTotal()).isAtMost(sum + 2);
+    }
+
+    @Test
+    public void startForgetsPhases() {
+        metrics.done("spawn");
+        metrics.start();
+        assertThat(metrics.getPhases()).isEmpty();
+        assertThat(metrics.getTotal()).isEqualTo(0L);
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.erlide.runtime.rpc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.erlide.runtime.rpc.RpcRecording.Entry;
+import org.erlide.runtime.rpc.RpcRecording.Kind;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.google.common.collect.Lists;
+
+public class RecordedRpcTest {
+
+    private File file;
+    private File copy;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("recording", ".rpc");
+        copy = File.createTempFile("recording", ".rpc");
+        try (RpcRecording.Writer writer = RpcRecording.create(file)) {
+            writer.write(new Entry(Kind.CALL, "lists", "reverse",
+                    RpcRecording.convertArgs("ls", Lists.newArrayList("a", "b")),
+                    RpcRecording.convertArgs("ss", "b", "a"), 1000));
+            writer.write(new Entry(Kind.CALL, "erlang", "now",
+                    RpcRecording.convertArgs(null), new OtpErlangLong(1), 0));
+            writer.write(new Entry(Kind.CALL, "erlang", "now",
+                    RpcRecording.convertArgs(null), new OtpErlangLong(2), 0));
+            writer.write(new Entry(Kind.ERROR, "m", "crash",
+                    RpcRecording.convertArgs("i", 1), new OtpErlangString("boom"), 0));
+            writer.write(new Entry(Kind.CAST, "m", "f", RpcRecording.convertArgs(null),
+                    null, 0));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        copy.delete();
+    }
+
+    @Test
+    public void readsRecording() throws IOException {
+        final List<Entry> entries = RpcRecording.read(file);
+        assertThat(entries).hasSize(5);
+        assertThat(entries.get(0).getMicros()).isEqualTo(1000);
+        assertThat(entries.get(4).getKind()).isEqualTo(Kind.CAST);
+        assertThat(entries.get(4).getResult()).isNull();
+    }
+
+    @Test
+    public void replaysResults() throws Exception {
+        final IOtpRpc rpc = new ReplayingOtpRpc(file);
+        assertThat(rpc.call("lists", "reverse", "ls", Lists.newArrayList("a", "b")))
+                .isEqualTo(RpcRecording.convertArgs("ss", "b", "a"));
+        assertThat(rpc.call("erlang", "now", null)).isEqualTo(new OtpErlangLong(1));
+        assertThat(rpc.call("erlang", "now", null)).isEqualTo(new OtpErlangLong(2));
+        assertThat(rpc.call("erlang", "now", null)).isEqualTo(new OtpErlangLong(2));
+        assertThat(rpc.async_call("erlang", "now", null).checkedGet())
+                .isEqualTo(new OtpErlangLong(2));
+    }
+
+    @Test
+    public void replaysFailures() throws Exception {
+        final IOtpRpc rpc = new ReplayingOtpRpc(file);
+        assertThat(rpc.call_noexception("m", "crash", "i", 1).isOk()).isFalse();
+        assertThat(rpc.call_noexception("m", "crash", "i", 2).isOk()).isFalse();
+        try {
+            rpc.call("m", "crash", "i", 1);
+        } catch (final RpcException e) {
+            assertThat(e.getMessage()).isEqualTo("boom");
+            return;
+        }
+        throw new AssertionError("expected RpcException");
+    }
+
+    @Test
+    public void timesOutWhenLatencyIsTooHigh() throws Exception {
+        final ReplayingOtpRpc rpc = new ReplayingOtpRpc(file);
+        rpc.setRecordedLatency(100);
+        try {
+            rpc.call(10, "lists", "reverse", "ls", Lists.newArrayList("a", "b"));
+        } catch (final RpcTimeoutException e) {
+            return;
+        }
+        throw new AssertionError("expected RpcTimeoutException");
+    }
+
+    @Test
+    public void recordsReplayedCalls() throws Exception {
+        try (RecordingOtpRpc rpc = new RecordingOtpRpc(new ReplayingOtpRpc(file), copy)) {
+            rpc.call("erlang", "now", null);
+            rpc.call_noexception("m", "crash", "i", 1);
+            rpc.cast("m", "f", "a", "x");
+        }
+        final List<Entry> entries = RpcRecording.read(copy);
+        assertThat(entries).hasSize(3);
+        assertThat(entries.get(0).getResult()).isEqualTo(new OtpErlangLong(1));
+        final OtpErlangObject failure = entries.get(1).getResult();
+        assertThat(failure.toString()).startsWith("{badrpc,");
+        assertThat(entries.get(2).getArgs())
+                .isEqualTo(new OtpErlangList(new OtpErlangAtom("x")));
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.erlide.runtime.rpc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+
+import org.erlide.util.erlang.OtpEncodedTerm;
+import org.erlide.util.erlang.Signature;
+import org.erlide.util.erlang.TypeConverter;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpOutputStream;
+
+public class RpcStubTest {
+
+    @Test
+    public void encodesLikeTerms() throws Exception {
+        final Object[][] cases = { { "aiis", "m", 3, 4L, "text" },
+                { "xso", "x", "", true }, { "lsb", Arrays.asList("a", "bc"), "bin" },
+                { "li", new Object[0] }, { "2aa", (Object) new Object[] { "a", "b" } },
+                { "xd", 12345678901L, 1.5 }, { "x", new OtpErlangAtom("ok") },
+                { "lx", Arrays.asList(1, "s", new OtpErlangLong(7)) },
+                { "s", "\u0101\u0102" }, { "i", 100000000000000L } };
+        for (final Object[] c : cases) {
+            final String signature = (String) c[0];
+            final Object[] args = Arrays.copyOfRange(c, 1, c.length);
+            final OtpEncodedTerm[] encoded = new RpcStub("m", "f", signature)
+                    .encode(args);
+            final Signature[] types = Signature.parse(signature);
+            for (int i = 0; i < args.length; i++) {
+                final OtpErlangObject term = TypeConverter.java2erlang(args[i],
+                        types[i]);
+                assertThat(bytes(encoded[i])).isEqualTo(bytes(term));
+            }
+        }
+    }
+
+    @Test(expected = RpcException.class)
+    public void checksArity() throws Exception {
+        new RpcStub("m", "f", "ai").encode("a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checksSignature() {
+        new RpcStub("m", "f", "q");
+    }
+
+    private static byte[] bytes(final OtpErlangObject term) {
+        final OtpOutputStream out = new OtpOutputStream();
+        term.encode(out);
+        return out.toByteArray();
+    }
+
+}
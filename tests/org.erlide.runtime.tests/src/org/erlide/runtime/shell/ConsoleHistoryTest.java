@@ -0,0 +1,81 @@
+package org.erlide.runtime.shell;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.erlide.runtime.shell.IoRequest.IoRequestKind;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangPid;
+
+public class ConsoleHistoryTest {
+
+    private ConsoleHistory history;
+
+    @Before
+    public void setUp() {
+        history = new ConsoleHistory(4, 2);
+    }
+
+    @Test
+    public void addKeepsPositions() {
+        assertThat(history.add(request("ab"))).isEqualTo(0);
+        assertThat(history.add(request("cde"))).isEqualTo(0);
+        assertThat(history.getLength()).isEqualTo(5);
+        assertThat(history.size()).isEqualTo(2);
+        assertThat(history.get(1).getStart()).isEqualTo(2);
+    }
+
+    @Test
+    public void findAtPos() {
+        history.add(request("ab"));
+        history.add(request(""));
+        history.add(request("cde"));
+        assertThat(history.findAtPos(0).getMessage()).isEqualTo("ab");
+        assertThat(history.findAtPos(1).getMessage()).isEqualTo("ab");
+        assertThat(history.findAtPos(2).getMessage()).isEqualTo("cde");
+        assertThat(history.findAtPos(4).getMessage()).isEqualTo("cde");
+        assertThat(history.findAtPos(5)).isNull();
+        assertThat(history.findAtPos(-1)).isNull();
+    }
+
+    @Test
+    public void fullHistoryDropsOldest() {
+        history.add(request("a"));
+        history.add(request("bb"));
+        history.add(request("ccc"));
+        history.add(request("dddd"));
+        assertThat(history.add(request("eeeee"))).isEqualTo(3);
+        assertThat(history.size()).isEqualTo(3);
+        assertThat(history.getLength()).isEqualTo(12);
+        assertThat(history.get(0).getMessage()).isEqualTo("ccc");
+        assertThat(history.get(0).getStart()).isEqualTo(0);
+        final IoRequest last = history.findAtPos(11);
+        assertThat(last.getMessage()).isEqualTo("eeeee");
+        assertThat(last.getStart()).isEqualTo(7);
+    }
+
+    @Test
+    public void getAllFromFollowsDrops() {
+        final OtpErlangPid pid = new OtpErlangPid("s", 0, 0, 0);
+        for (int i = 0; i < 9; i++) {
+            history.add(request("x" + i));
+        }
+        assertThat(history.getAllFrom(pid)).hasSize(history.size());
+        assertThat(history.getAllFrom(pid).get(0).getStart()).isEqualTo(0);
+        assertThat(history.getAllFrom(new OtpErlangPid("t", 1, 0, 0))).isEmpty();
+    }
+
+    @Test
+    public void unicodeText() {
+        final String text = "åäö 中文";
+        history.add(request(text));
+        assertThat(history.get(0).getMessage()).isEqualTo(text);
+        assertThat(history.getLength()).isEqualTo(text.length());
+    }
+
+    private static IoRequest request(final String text) {
+        return new IoRequest(text, IoRequestKind.OUTPUT);
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.erlide.runtime.shell;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.erlide.runtime.shell.IoRequest.IoRequestKind;
+import org.junit.Test;
+
+public class IoRequestTest {
+
+    @Test
+    public void textIsKeptAsUtf8() {
+        final IoRequest request = new IoRequest("héllo → wörld", IoRequestKind.OUTPUT);
+        assertThat(request.getMessage()).isEqualTo("héllo → wörld");
+        // the length is in characters, as in the console document
+        assertThat(request.getLength()).isEqualTo("héllo → wörld".length());
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.erlide.testing.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds the content of beam files from hand-made chunks.
+ */
+public final class BeamFiles {
+
+    private BeamFiles() {
+    }
+
+    public static byte[] chunk(final String id, final String data) {
+        return BeamFiles.chunk(id, data.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @return the chunk header, the data and the padding to 4 bytes
+     */
+    public static byte[] chunk(final String id, final byte[] data) {
+        final ByteBuffer buf = ByteBuffer.allocate(8 + (data.length + 3 & ~3));
+        buf.put(id.getBytes(StandardCharsets.ISO_8859_1)).putInt(data.length).put(data);
+        return buf.array();
+    }
+
+    public static byte[] beam(final byte[]... chunks) {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (final byte[] chunk : chunks) {
+            body.write(chunk, 0, chunk.length);
+        }
+        return ByteBuffer.allocate(12 + body.size()).put("FOR1".getBytes())
+                .putInt(4 + body.size()).put("BEAM".getBytes()).put(body.toByteArray())
+                .array();
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.erlide.tracing.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import org.erlide.runtime.rpc.IOtpRpc;
+import org.erlide.runtime.rpc.RpcFuture;
+import org.erlide.tracing.core.mvc.model.TracePattern;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class CallStatisticsTest {
+
+    private final FakeNodes nodes = new FakeNodes();
+    private final IOtpRpc rpc = (IOtpRpc) Proxy.newProxyInstance(
+            IOtpRpc.class.getClassLoader(), new Class<?>[] { IOtpRpc.class }, nodes);
+
+    @Test
+    public void startSetsPatternsOnAllNodesAtOnce() {
+        newStatistics("n1", "n2").start();
+        assertThat(nodes.log).containsExactly("send n1 erlang:trace_pattern",
+                "send n2 erlang:trace_pattern", "receive", "receive").inOrder();
+    }
+
+    @Test
+    public void stopReadsTotalsOfMatchingFunctions() {
+        nodes.functions = CallStatisticsTest.list(CallStatisticsTest.fa("f", 1),
+                CallStatisticsTest.fa("g", 0));
+        nodes.calls.put("f", 3L);
+        nodes.calls.put("g", 0L);
+        final List<OtpErlangObject> stats = newStatistics("n1").stop();
+        // g was not called
+        assertThat(stats).hasSize(1);
+        final OtpErlangTuple f = (OtpErlangTuple) stats.get(0);
+        assertThat(f.elementAt(0)).isEqualTo(new OtpErlangAtom("call_stats"));
+        assertThat(f.elementAt(1)).isEqualTo(new OtpErlangAtom("n1"));
+        assertThat(f.elementAt(3)).isEqualTo(new OtpErlangLong(3));
+        // 1 s and 500 us in each of the two processes
+        assertThat(f.elementAt(4)).isEqualTo(new OtpErlangLong(2000000 + 2 * 500));
+        assertThat(((OtpErlangList) f.elementAt(5)).arity()).isEqualTo(2);
+    }
+
+    @Test
+    public void stopAsksAllNodesBeforeWaiting() {
+        nodes.functions = CallStatisticsTest.list(CallStatisticsTest.fa("f", 1));
+        nodes.calls.put("f", 1L);
+        assertThat(newStatistics("n1", "n2").stop()).hasSize(2);
+        assertThat(nodes.log.subList(0, 4)).containsExactly("send n1 m:module_info",
+                "send n2 m:module_info", "receive", "receive").inOrder();
+        // count and time of f on both nodes
+        assertThat(nodes.log.subList(4, 8)).containsExactly(
+                "send n1 erlang:trace_info", "send n1 erlang:trace_info",
+                "send n2 erlang:trace_info", "send n2 erlang:trace_info").inOrder();
+    }
+
+    @Test
+    public void failedNodeIsSkipped() {
+        nodes.functions = CallStatisticsTest.list(CallStatisticsTest.fa("f", 1));
+        nodes.calls.put("f", 1L);
+        nodes.down = "n1";
+        final List<OtpErlangObject> stats = newStatistics("n1", "n2").stop();
+        assertThat(stats).hasSize(1);
+        assertThat(((OtpErlangTuple) stats.get(0)).elementAt(1))
+                .isEqualTo(new OtpErlangAtom("n2"));
+    }
+
+    private CallStatistics newStatistics(final String... names) {
+        final TracePattern pattern = new TracePattern();
+        pattern.setModuleName("m");
+        pattern.setArity(-1);
+        pattern.setEnabled(true);
+        final TracePattern disabled = new TracePattern();
+        disabled.setModuleName("other");
+        return new CallStatistics(rpc, Lists.newArrayList(names),
+                Lists.newArrayList(pattern, disabled));
+    }
+
+    private static OtpErlangTuple fa(final String name, final int arity) {
+        return new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangAtom(name),
+                new OtpErlangLong(arity) });
+    }
+
+    private static OtpErlangList list(final OtpErlangObject... elements) {
+        return new OtpErlangList(elements);
+    }
+
+    /**
+     * Answers <code>rpc:call</code> as the traced nodes would.
+     */
+    private static class FakeNodes implements InvocationHandler {
+        final List<String> log = Lists.newArrayList();
+        final Map<String, OtpErlangObject> results = Maps.newHashMap();
+        final Map<String, Long> calls = Maps.newHashMap();
+        OtpErlangList functions = new OtpErlangList();
+        String down;
+
+        @Override
+        public Object invoke(final Object proxy, final Method method,
+                final Object[] args) {
+            switch (method.getName()) {
+            case "async_call":
+                // "rpc", "call", "aaax", [Node, M, F, Args]
+                final Object[] call = (Object[]) args[3];
+                final String node = (String) call[0];
+                log.add("send " + node + " " + call[1] + ":" + call[2]);
+                final String key = Integer.toString(results.size());
+                results.put(key, answer(node, (String) call[2], (OtpErlangList) call[3]));
+                return new RpcFuture(null, null, key, false, (IOtpRpc) proxy);
+            case "getRpcResult":
+                log.add("receive");
+                return results.get(args[2]);
+            default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private OtpErlangObject answer(final String node, final String function,
+                final OtpErlangList args) {
+            if (node.equals(down)) {
+                return new OtpErlangTuple(new OtpErlangObject[] {
+                        new OtpErlangAtom("badrpc"), new OtpErlangAtom("nodedown") });
+            }
+            switch (function) {
+            case "module_info":
+                return functions;
+            case "trace_info":
+                final OtpErlangTuple mfa = (OtpErlangTuple) args.elementAt(0);
+                final Long n = calls.get(((OtpErlangAtom) mfa.elementAt(1)).atomValue());
+                if (new OtpErlangAtom("call_count").equals(args.elementAt(1))) {
+                    return new OtpErlangTuple(new OtpErlangObject[] { args.elementAt(1),
+                            new OtpErlangLong(n) });
+                }
+                final OtpErlangObject[] perProcess = new OtpErlangObject[2];
+                for (int i = 0; i < perProcess.length; i++) {
+                    perProcess[i] = new OtpErlangTuple(new OtpErlangObject[] {
+                            new OtpErlangAtom("pid" + i), new OtpErlangLong(n),
+                            new OtpErlangLong(1), new OtpErlangLong(500) });
+                }
+                return new OtpErlangTuple(new OtpErlangObject[] { args.elementAt(1),
+                        new OtpErlangList(perProcess) });
+            default:
+                return new OtpErlangAtom("true");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package org.erlide.tracing.core.mvc.model;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.erlide.tracing.core.CallStatistics;
+import org.erlide.tracing.core.TraceType;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+public class TraceStoreTest {
+
+    private static final OtpErlangPid PID1 = new OtpErlangPid("n@h", 1, 0, 0);
+    private static final OtpErlangPid PID2 = new OtpErlangPid("n@h", 2, 0, 0);
+
+    private final TraceStore store = new TraceStore();
+
+    @Test
+    public void callEventsAreSplitInColumns() {
+        final OtpErlangTuple event = TraceStoreTest.trace(TraceStoreTest.PID1, "call",
+                TraceStoreTest.tuple(TraceStoreTest.atom("m"), TraceStoreTest.atom("f"),
+                        new OtpErlangList(new OtpErlangObject[] {
+                                TraceStoreTest.atom("extra"), new OtpErlangLong(1),
+                                new OtpErlangLong(2) })));
+        assertThat(store.add(event)).isTrue();
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.getType(0)).isEqualTo(TraceType.CALL.ordinal());
+        assertThat(store.getProcess(0)).isEqualTo(TraceStoreTest.PID1);
+        // the arguments are replaced by the arity
+        assertThat(store.getFunction(0)).isEqualTo(TraceStoreTest.mfa("m", "f", 2));
+        assertThat(store.getTimestamp(0)).isEqualTo(LocalDateTime.of(2020, 1, 2, 3, 4, 5)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        assertThat(store.getMessage(0)).isEqualTo(event);
+    }
+
+    @Test
+    public void processesAndFunctionsAreShared() {
+        final OtpErlangTuple mfa = TraceStoreTest.mfa("m", "f", 0);
+        store.add(TraceStoreTest.trace(TraceStoreTest.PID1, "call", mfa));
+        store.add(TraceStoreTest.trace(TraceStoreTest.PID2, "call", mfa));
+        store.add(TraceStoreTest.trace(TraceStoreTest.PID1, "return_to",
+                TraceStoreTest.mfa("m", "f", 0)));
+        assertThat(store.getProcess(2)).isSameInstanceAs(store.getProcess(0));
+        assertThat(store.getProcess(1)).isEqualTo(TraceStoreTest.PID2);
+        assertThat(store.getFunction(1)).isSameInstanceAs(store.getFunction(0));
+        assertThat(store.getFunction(2)).isSameInstanceAs(store.getFunction(0));
+    }
+
+    @Test
+    public void onlySomeTypesHaveAFunction() {
+        store.add(TraceStoreTest.trace(TraceStoreTest.PID1, "send",
+                TraceStoreTest.mfa("m", "f", 0)));
+        assertThat(store.getType(0)).isEqualTo(TraceType.SEND.ordinal());
+        assertThat(store.getFunction(0)).isNull();
+    }
+
+    @Test
+    public void unknownTraceTypesAreKept() {
+        assertThat(store.add(TraceStoreTest.trace(TraceStoreTest.PID1, "new_type",
+                TraceStoreTest.atom("x")))).isTrue();
+        assertThat(store.getType(0)).isEqualTo(TraceStore.TYPE_OTHER);
+        assertThat(store.getProcess(0)).isEqualTo(TraceStoreTest.PID1);
+        assertThat(store.getFunction(0)).isNull();
+    }
+
+    @Test
+    public void dropsAndStatisticsAreKept() {
+        final OtpErlangTuple drop = TraceStoreTest.tuple(TraceStoreTest.atom("drop"),
+                new OtpErlangLong(7));
+        final OtpErlangTuple stats = TraceStoreTest.tuple(
+                TraceStoreTest.atom(CallStatistics.ATOM_CALL_STATS),
+                TraceStoreTest.atom("n@h"), TraceStoreTest.mfa("m", "f", 1),
+                new OtpErlangLong(3));
+        assertThat(store.add(drop)).isTrue();
+        assertThat(store.add(stats)).isTrue();
+        assertThat(store.getType(0)).isEqualTo(TraceStore.TYPE_DROP);
+        assertThat(store.getTimestamp(0)).isEqualTo(0);
+        assertThat(store.getProcess(0)).isNull();
+        assertThat(store.getType(1)).isEqualTo(TraceStore.TYPE_OTHER);
+        assertThat(store.getFunction(1)).isEqualTo(TraceStoreTest.mfa("m", "f", 1));
+        assertThat(store.getMessage(1)).isEqualTo(stats);
+    }
+
+    @Test
+    public void otherMessagesAreRejected() {
+        assertThat(store.add(TraceStoreTest.atom("trace_ts"))).isFalse();
+        assertThat(store.add(new OtpErlangTuple(new OtpErlangObject[0]))).isFalse();
+        assertThat(store.add(TraceStoreTest.tuple(TraceStoreTest.atom("other"),
+                TraceStoreTest.PID1))).isFalse();
+        assertThat(store.add(TraceStoreTest.tuple(TraceStoreTest.atom("trace_ts"),
+                TraceStoreTest.PID1))).isFalse();
+        assertThat(store.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void badTimestampIsZero() {
+        store.add(TraceStoreTest.tuple(TraceStoreTest.atom("trace_ts"),
+                TraceStoreTest.PID1, TraceStoreTest.atom("call"),
+                TraceStoreTest.mfa("m", "f", 0), TraceStoreTest.atom("now")));
+        assertThat(store.getTimestamp(0)).isEqualTo(0);
+    }
+
+    @Test
+    public void storeGrows() {
+        for (int i = 0; i < 3000; i++) {
+            store.add(TraceStoreTest.trace(TraceStoreTest.PID1, "call",
+                    TraceStoreTest.mfa("m", "f" + i, 0)));
+        }
+        assertThat(store.size()).isEqualTo(3000);
+        assertThat(store.getFunction(2999))
+                .isEqualTo(TraceStoreTest.mfa("m", "f2999", 0));
+        assertThat(store.getMessage(2999)).isEqualTo(TraceStoreTest.trace(
+                TraceStoreTest.PID1, "call", TraceStoreTest.mfa("m", "f2999", 0)));
+    }
+
+    @Test
+    public void largeMessagesGetTheirOwnChunk() {
+        final OtpErlangTuple small = TraceStoreTest.trace(TraceStoreTest.PID1, "send",
+                TraceStoreTest.atom("x"));
+        final OtpErlangTuple large = TraceStoreTest.trace(TraceStoreTest.PID1, "send",
+                new OtpErlangBinary(new byte[3 << 20]));
+        store.add(small);
+        store.add(large);
+        store.add(small);
+        assertThat(store.getMessage(0)).isEqualTo(small);
+        assertThat(store.getMessage(1)).isEqualTo(large);
+        assertThat(store.getMessage(2)).isEqualTo(small);
+    }
+
+    @Test
+    public void clearEmptiesTheStore() {
+        store.add(TraceStoreTest.trace(TraceStoreTest.PID1, "call",
+                TraceStoreTest.mfa("m", "f", 0)));
+        store.clear();
+        assertThat(store.isEmpty()).isTrue();
+        store.add(TraceStoreTest.trace(TraceStoreTest.PID2, "call",
+                TraceStoreTest.mfa("m", "g", 0)));
+        assertThat(store.getProcess(0)).isEqualTo(TraceStoreTest.PID2);
+        assertThat(store.getFunction(0)).isEqualTo(TraceStoreTest.mfa("m", "g", 0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rowsAreChecked() {
+        store.add(TraceStoreTest.trace(TraceStoreTest.PID1, "call",
+                TraceStoreTest.mfa("m", "f", 0)));
+        store.getTimestamp(1);
+    }
+
+    private static OtpErlangTuple trace(final OtpErlangPid pid, final String type,
+            final OtpErlangObject info) {
+        final OtpErlangTuple timestamp = TraceStoreTest.tuple(
+                TraceStoreTest.tuple(new OtpErlangLong(2020), new OtpErlangLong(1),
+                        new OtpErlangLong(2)),
+                TraceStoreTest.tuple(new OtpErlangLong(3), new OtpErlangLong(4),
+                        new OtpErlangLong(5)));
+        return TraceStoreTest.tuple(TraceStoreTest.atom("trace_ts"), pid,
+                TraceStoreTest.atom(type), info, timestamp);
+    }
+
+    private static OtpErlangTuple mfa(final String m, final String f, final int arity) {
+        return TraceStoreTest.tuple(TraceStoreTest.atom(m), TraceStoreTest.atom(f),
+                new OtpErlangLong(arity));
+    }
+
+    private static OtpErlangAtom atom(final String name) {
+        return new OtpErlangAtom(name);
+    }
+
+    private static OtpErlangTuple tuple(final OtpErlangObject... elements) {
+        return new OtpErlangTuple(elements);
+    }
+
+}
@@ -0,0 +1,251 @@
+package org.erlide.tracing.core.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.erlide.tracing.core.TraceType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpOutputStream;
+
+public class TraceFileIndexTest {
+
+    private File dir;
+    private File log;
+    private File indexDir;
+    private TraceFileIndex index;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("traces").toFile();
+        log = new File(dir, "node.log");
+        indexDir = new File(dir, "index");
+    }
+
+    @After
+    public void tearDown() {
+        if (index != null) {
+            index.close();
+        }
+        TraceFileIndexTest.delete(dir);
+    }
+
+    @Test
+    public void readsRecordsAcrossIndexSteps() throws IOException {
+        writeNumbers(600, false);
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        assertThat(index.size()).isEqualTo(600L);
+        final List<OtpErlangObject> read = index.read(298, 4);
+        assertThat(read).containsExactly(new OtpErlangLong(298), new OtpErlangLong(299),
+                new OtpErlangLong(300), new OtpErlangLong(301)).inOrder();
+    }
+
+    @Test
+    public void readStopsAtTheEnd() throws IOException {
+        writeNumbers(10, false);
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        assertThat(index.read(8, 5)).hasSize(2);
+        assertThat(index.read(10, 5)).isEmpty();
+        assertThat(index.read(-1, 5)).isEmpty();
+    }
+
+    @Test
+    public void dropRecordsAreReported() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(log))) {
+            TraceFileIndexTest.writeTerm(out, new OtpErlangAtom("first"));
+            out.writeByte(1);
+            out.writeInt(7);
+            TraceFileIndexTest.writeTerm(out, new OtpErlangAtom("last"));
+        }
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        assertThat(index.read(0, 3)).containsExactly(new OtpErlangAtom("first"),
+                new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangAtom("drop"),
+                        new OtpErlangLong(7) }),
+                new OtpErlangAtom("last")).inOrder();
+    }
+
+    @Test
+    public void timestampsAreConvertedToLocalTime() throws IOException {
+        final OtpErlangTuple trace = new OtpErlangTuple(new OtpErlangObject[] {
+                new OtpErlangAtom("trace_ts"), new OtpErlangAtom("pid"),
+                new OtpErlangAtom("call"), new OtpErlangAtom("mfa"),
+                new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangLong(1500),
+                        new OtpErlangLong(123456), new OtpErlangLong(0) }) });
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(log))) {
+            TraceFileIndexTest.writeTerm(out, trace);
+        }
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        final OtpErlangTuple read = (OtpErlangTuple) index.read(0, 1).get(0);
+        final LocalDateTime time = LocalDateTime
+                .ofInstant(Instant.ofEpochSecond(1500123456L), ZoneId.systemDefault());
+        final OtpErlangTuple date = (OtpErlangTuple) ((OtpErlangTuple) read.elementAt(4))
+                .elementAt(0);
+        assertThat(read.elementAt(3)).isEqualTo(new OtpErlangAtom("mfa"));
+        assertThat(date.elementAt(0)).isEqualTo(new OtpErlangLong(time.getYear()));
+        assertThat(date.elementAt(2)).isEqualTo(new OtpErlangLong(time.getDayOfMonth()));
+    }
+
+    @Test
+    public void indexIsNotStoredWithTheLog() throws IOException {
+        writeNumbers(3, false);
+        index = TraceFileIndex.open(dir.getPath(), indexDir);
+        assertThat(index).isNotNull();
+        assertThat(dir.list()).asList().containsExactly("node.log", "index");
+        assertThat(indexDir.list()).asList()
+                .containsExactly(TraceFileIndex.getIndexFile(log, indexDir).getName());
+    }
+
+    @Test
+    public void changedLogIsIndexedAgain() throws IOException {
+        writeNumbers(300, false);
+        TraceFileIndex.open(log.getPath(), indexDir).close();
+        writeNumbers(2, true);
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        assertThat(index.size()).isEqualTo(302L);
+        assertThat(index.read(300, 2)).containsExactly(new OtpErlangLong(0),
+                new OtpErlangLong(1));
+    }
+
+    @Test
+    public void truncatedLogIsNotIndexed() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(log))) {
+            out.writeByte(0);
+            out.writeInt(100);
+            out.write(new byte[10]);
+        }
+        assertThat(TraceFileIndex.open(log.getPath(), indexDir)).isNull();
+    }
+
+    @Test
+    public void scanFindsMatchesInAllBlocks() throws IOException {
+        writeNumbers(1000, false);
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        final long[] found = index
+                .scan(message -> ((OtpErlangLong) message).longValue() % 300 == 7);
+        assertThat(found).asList().containsExactly(7L, 307L, 607L, 907L).inOrder();
+        assertThat(index.read(found, 1, 2)).containsExactly(new OtpErlangLong(307),
+                new OtpErlangLong(607)).inOrder();
+    }
+
+    @Test
+    public void readsFoundRecordsOfOneBlock() throws IOException {
+        writeNumbers(600, false);
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        final long[] records = { 3, 4, 200, 256, 257, 599 };
+        assertThat(index.read(records, 0, 10)).containsExactly(new OtpErlangLong(3),
+                new OtpErlangLong(4), new OtpErlangLong(200), new OtpErlangLong(256),
+                new OtpErlangLong(257), new OtpErlangLong(599)).inOrder();
+        assertThat(index.read(records, 6, 10)).isEmpty();
+    }
+
+    @Test
+    public void tracesAreFilteredByProcessModuleAndType() throws IOException {
+        final OtpErlangPid pid1 = new OtpErlangPid("n@h", 1, 0, 0);
+        final OtpErlangPid pid2 = new OtpErlangPid("n@h", 2, 0, 0);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(log))) {
+            TraceFileIndexTest.writeTerm(out,
+                    TraceFileIndexTest.trace(pid1, "call", "m"));
+            TraceFileIndexTest.writeTerm(out,
+                    TraceFileIndexTest.trace(pid2, "call", "n"));
+            TraceFileIndexTest.writeTerm(out,
+                    TraceFileIndexTest.trace(new OtpErlangTuple(new OtpErlangObject[] {
+                            pid1, new OtpErlangAtom("name"), new OtpErlangAtom("n@h") }),
+                            "return_from", "n"));
+            out.writeByte(1);
+            out.writeInt(7);
+        }
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        assertThat(index.scan(TraceFileIndex.byProcess(pid1))).asList()
+                .containsExactly(0L, 2L).inOrder();
+        assertThat(index.scan(TraceFileIndex.byModule("n"))).asList()
+                .containsExactly(1L, 2L).inOrder();
+        assertThat(index.scan(TraceFileIndex.byType(TraceType.RETURN_FROM))).asList()
+                .containsExactly(2L);
+    }
+
+    @Test
+    public void largeRecordsAreRead() throws IOException {
+        final OtpErlangObject large = new OtpErlangBinary(new byte[100000]);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(log))) {
+            TraceFileIndexTest.writeTerm(out, new OtpErlangLong(1));
+            TraceFileIndexTest.writeTerm(out, large);
+            TraceFileIndexTest.writeTerm(out, new OtpErlangLong(2));
+        }
+        index = TraceFileIndex.open(log.getPath(), indexDir);
+        assertThat(index.read(0, 3)).containsExactly(new OtpErlangLong(1), large,
+                new OtpErlangLong(2)).inOrder();
+    }
+
+    @Test
+    public void otherFilesMakeDirectoryAmbiguous() throws IOException {
+        writeNumbers(3, false);
+        new File(dir, "node.log" + TraceFileIndex.SUFFIX).createNewFile();
+        assertThat(TraceFileIndex.open(dir.getPath(), indexDir)).isNull();
+    }
+
+    @Test(expected = IOException.class)
+    public void closedIndexCantBeRead() throws IOException {
+        writeNumbers(3, false);
+        final TraceFileIndex closed = TraceFileIndex.open(log.getPath(), indexDir);
+        closed.close();
+        closed.read(0, 1);
+    }
+
+    private void writeNumbers(final int n, final boolean append) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new FileOutputStream(log, append))) {
+            for (int i = 0; i < n; i++) {
+                TraceFileIndexTest.writeTerm(out, new OtpErlangLong(i));
+            }
+        }
+        // the index is only checked against the length and the modification time
+        log.setLastModified(log.lastModified() + 1000);
+    }
+
+    private static void writeTerm(final DataOutputStream out, final OtpErlangObject term)
+            throws IOException {
+        final byte[] bytes = new OtpOutputStream(term).toByteArray();
+        out.writeByte(0);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static OtpErlangTuple trace(final OtpErlangObject process, final String type,
+            final String module) {
+        return new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangAtom("trace_ts"),
+                process, new OtpErlangAtom(type),
+                new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangAtom(module),
+                        new OtpErlangAtom("f"), new OtpErlangLong(0) }),
+                new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangLong(1500),
+                        new OtpErlangLong(0), new OtpErlangLong(0) }) });
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                TraceFileIndexTest.delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}
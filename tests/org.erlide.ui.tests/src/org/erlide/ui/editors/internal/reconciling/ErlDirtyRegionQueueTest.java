@@ -0,0 +1,83 @@
+package org.erlide.ui.editors.internal.reconciling;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class ErlDirtyRegionQueueTest {
+
+    private static String apply(final String text, final ErlDirtyRegion r) {
+        return text.substring(0, r.getOffset()) + r.getText()
+                + text.substring(r.getOffset() + r.getLength());
+    }
+
+    private static String applyAll(final String text,
+            final List<ErlDirtyRegion> regions) {
+        String result = text;
+        for (final ErlDirtyRegion r : regions) {
+            result = apply(result, r);
+        }
+        return result;
+    }
+
+    @Test
+    public void typingIsMerged() {
+        final ErlDirtyRegionQueue queue = new ErlDirtyRegionQueue();
+        queue.addDirtyRegion(new ErlDirtyRegion(3, 0, "a"));
+        queue.addDirtyRegion(new ErlDirtyRegion(4, 0, "b"));
+        queue.addDirtyRegion(new ErlDirtyRegion(5, 0, "c"));
+        final List<ErlDirtyRegion> regions = queue.extractAllDirtyRegions();
+        assertThat(regions).hasSize(1);
+        assertThat(regions.get(0).getOffset()).isEqualTo(3);
+        assertThat(regions.get(0).getLength()).isEqualTo(0);
+        assertThat(regions.get(0).getText()).isEqualTo("abc");
+    }
+
+    @Test
+    public void backspacingIsMerged() {
+        final ErlDirtyRegionQueue queue = new ErlDirtyRegionQueue();
+        queue.addDirtyRegion(new ErlDirtyRegion(5, 1, ""));
+        queue.addDirtyRegion(new ErlDirtyRegion(4, 1, ""));
+        final List<ErlDirtyRegion> regions = queue.extractAllDirtyRegions();
+        assertThat(regions).hasSize(1);
+        assertThat(regions.get(0).getOffset()).isEqualTo(4);
+        assertThat(regions.get(0).getLength()).isEqualTo(2);
+        assertThat(applyAll("0123456789", regions)).isEqualTo("01236789");
+    }
+
+    @Test
+    public void overlappingEditsAreMerged() {
+        final String text = "foo(X) -> X.";
+        final ErlDirtyRegion first = new ErlDirtyRegion(4, 1, "Abc");
+        final ErlDirtyRegion second = new ErlDirtyRegion(3, 3, "[");
+        final String expected = apply(apply(text, first), second);
+
+        final ErlDirtyRegionQueue queue = new ErlDirtyRegionQueue();
+        queue.addDirtyRegion(first);
+        queue.addDirtyRegion(second);
+        final List<ErlDirtyRegion> regions = queue.extractAllDirtyRegions();
+        assertThat(regions).hasSize(1);
+        assertThat(applyAll(text, regions)).isEqualTo(expected);
+    }
+
+    @Test
+    public void editsCancellingOutAreDropped() {
+        final ErlDirtyRegionQueue queue = new ErlDirtyRegionQueue();
+        queue.addDirtyRegion(new ErlDirtyRegion(3, 0, "a"));
+        queue.addDirtyRegion(new ErlDirtyRegion(3, 1, ""));
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void distantEditsAreKept() {
+        final ErlDirtyRegionQueue queue = new ErlDirtyRegionQueue();
+        queue.addDirtyRegion(new ErlDirtyRegion(3, 0, "a"));
+        queue.addDirtyRegion(new ErlDirtyRegion(8, 0, "b"));
+        final List<ErlDirtyRegion> regions = queue.extractAllDirtyRegions();
+        assertThat(regions).hasSize(2);
+        assertThat(applyAll("0123456789", regions)).isEqualTo("012a3456b789");
+    }
+
+}
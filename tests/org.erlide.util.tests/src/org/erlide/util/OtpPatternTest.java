@@ -0,0 +1,70 @@
+package org.erlide.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.erlide.util.erlang.OtpBindings;
+import org.erlide.util.erlang.OtpErlang;
+import org.erlide.util.erlang.OtpParserException;
+import org.erlide.util.erlang.OtpPattern;
+import org.erlide.util.erlang.OtpPatternSet;
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+
+public class OtpPatternTest {
+
+    @Test
+    public void bindsSlots() throws Exception {
+        final OtpPattern p = OtpPattern.compile("{put_chars, Enc:a, [M | T], M}");
+        assertThat(p.slotCount()).isEqualTo(3);
+        final OtpErlangObject[] slots = new OtpErlangObject[p.slotCount()];
+        assertThat(p.match(OtpErlang.parse("{put_chars, unicode, [a, b, c], a}"), slots))
+                .isTrue();
+        assertThat(slots[p.slot("Enc")]).isEqualTo(new OtpErlangAtom("unicode"));
+        assertThat(slots[p.slot("T")]).isEqualTo(OtpErlang.parse("[b, c]"));
+        assertThat(p.slot("X")).isEqualTo(-1);
+        assertThat(p.match(OtpErlang.parse("{put_chars, unicode, [a, b], b}"))).isNull();
+    }
+
+    @Test
+    public void compiledOnce() throws Exception {
+        final OtpPattern p = OtpPattern.compile("{a, X}");
+        assertThat(OtpPattern.of("{a, X}")).isSameInstanceAs(p);
+    }
+
+    @Test
+    public void bindingsAreAMap() throws Exception {
+        final OtpBindings b = OtpPattern.of("{X, Y:i}").match(OtpErlang.parse("{a, 1}"));
+        assertThat(b).hasSize(2);
+        assertThat(b.getLong("Y")).isEqualTo(1);
+        b.put("Z", new OtpErlangLong(2));
+        assertThat(b.keySet()).containsExactly("X", "Y", "Z");
+        assertThat(b.get("X")).isEqualTo(new OtpErlangAtom("a"));
+    }
+
+    @Test(expected = OtpParserException.class)
+    public void badPattern() throws Exception {
+        OtpPattern.compile("{a, b");
+    }
+
+    @Test
+    public void firstMatchingClauseWins() throws Exception {
+        final OtpPattern any = OtpPattern.of("{X, 1}");
+        final OtpPattern tagged = OtpPattern.of("{a, N:i}");
+        final OtpPattern other = OtpPattern.of("{b, N}");
+        final OtpPatternSet set = new OtpPatternSet(any, tagged, other);
+        assertThat(set.match(OtpErlang.parse("{a, 1}")).getPattern())
+                .isSameInstanceAs(any);
+        assertThat(set.match(OtpErlang.parse("{a, 2}")).getPattern())
+                .isSameInstanceAs(tagged);
+        assertThat(set.match(OtpErlang.parse("{b, x}")).getPattern())
+                .isSameInstanceAs(other);
+        assertThat(set.match(OtpErlang.parse("{c, 1}")).getPattern())
+                .isSameInstanceAs(any);
+        assertThat(set.match(OtpErlang.parse("{a, x}"))).isNull();
+        assertThat(set.match(OtpErlang.parse("[a, 1]"))).isNull();
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.erlide.util.erlang;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.erlide.testing.utils.BeamFiles;
+import org.junit.Test;
+
+public class BeamChunksTest {
+
+    @Test
+    public void chunksAreReadInOrder() {
+        final Map<String, byte[]> chunks = BeamChunks.read(BeamFiles
+                .beam(BeamFiles.chunk("Code", "code"), BeamFiles.chunk("AtU8", "atoms")));
+        assertThat(chunks.keySet()).containsExactly("Code", "AtU8").inOrder();
+        assertThat(BeamChunksTest.text(chunks.get("AtU8"))).isEqualTo("atoms");
+    }
+
+    @Test
+    public void paddingIsSkipped() {
+        // "Code" is 5 bytes long, followed by 3 bytes of padding
+        final Map<String, byte[]> chunks = BeamChunks.read(BeamFiles
+                .beam(BeamFiles.chunk("Code", "code1"), BeamFiles.chunk("StrT", "s")));
+        assertThat(BeamChunksTest.text(chunks.get("Code"))).isEqualTo("code1");
+        assertThat(BeamChunksTest.text(chunks.get("StrT"))).isEqualTo("s");
+    }
+
+    @Test
+    public void compressedBeamsAreRead() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(BeamFiles.beam(BeamFiles.chunk("Code", "code")));
+        }
+        assertThat(BeamChunks.read(out.toByteArray())).containsKey("Code");
+    }
+
+    @Test
+    public void otherFilesAreNotRead() {
+        assertThat(BeamChunks.read(new byte[] { 0x1f, (byte) 0x8b, 8, 0 })).isNull();
+        assertThat(BeamChunks.read("FOR1\0\0\0\0ELF0".getBytes())).isNull();
+        assertThat(BeamChunks.read(new byte[0])).isNull();
+    }
+
+    @Test
+    public void truncatedBeamIsNotRead() {
+        final byte[] beam = BeamFiles.beam(BeamFiles.chunk("Code", "code"));
+        assertThat(BeamChunks.read(Arrays.copyOf(beam, beam.length - 2))).isNull();
+    }
+
+    private static String text(final byte[] data) {
+        return new String(data, StandardCharsets.ISO_8859_1);
+    }
+
+}
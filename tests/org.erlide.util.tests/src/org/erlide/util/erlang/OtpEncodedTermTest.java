@@ -0,0 +1,67 @@
+package org.erlide.util.erlang;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import com.google.common.collect.Sets;
+
+public class OtpEncodedTermTest {
+
+    @Test
+    public void isNotEqualToTheDecodedTerm() {
+        final OtpErlangAtom atom = new OtpErlangAtom("ok");
+        final OtpEncodedTerm encoded = OtpEncodedTermTest.encode(atom);
+        assertThat(encoded.decode()).isEqualTo(atom);
+        assertThat(encoded.equals(atom)).isFalse();
+        assertThat(atom.equals(encoded)).isFalse();
+    }
+
+    @Test
+    public void encodedTermsAreComparedAsTerms() {
+        final OtpEncodedTerm ok = OtpEncodedTermTest.encode(new OtpErlangAtom("ok"));
+        assertThat(ok).isEqualTo(OtpEncodedTermTest.encode(new OtpErlangAtom("ok")));
+        assertThat(ok).isNotEqualTo(OtpEncodedTermTest.encode(new OtpErlangAtom("no")));
+        // ok as ATOM_EXT and as SMALL_ATOM_UTF8_EXT
+        final OtpEncodedTerm latin1 = new OtpEncodedTerm(
+                new byte[] { 100, 0, 2, 'o', 'k' }, 0, 5);
+        final OtpEncodedTerm utf8 = new OtpEncodedTerm(new byte[] { 119, 2, 'o', 'k' },
+                0, 4);
+        assertThat(latin1).isEqualTo(utf8);
+        assertThat(utf8).isEqualTo(latin1);
+        assertThat(latin1.hashCode()).isEqualTo(utf8.hashCode());
+    }
+
+    @Test
+    public void termAtAnOffsetIsCompared() {
+        final OtpOutputStream out = new OtpOutputStream();
+        new OtpErlangAtom("a").encode(out);
+        final int start = out.size();
+        new OtpErlangAtom("ok").encode(out);
+        final OtpEncodedTerm inside = new OtpEncodedTerm(out.toByteArray(), start,
+                out.size() - start);
+        assertThat(inside).isEqualTo(OtpEncodedTermTest.encode(new OtpErlangAtom("ok")));
+    }
+
+    @Test
+    public void setsDontDependOnInsertionOrder() {
+        final OtpErlangAtom atom = new OtpErlangAtom("ok");
+        final OtpEncodedTerm encoded = OtpEncodedTermTest.encode(atom);
+        final Set<OtpErlangObject> first = Sets.newHashSet(atom, encoded);
+        final Set<OtpErlangObject> second = Sets.newHashSet(encoded, atom);
+        assertThat(first).hasSize(2);
+        assertThat(second).hasSize(2);
+    }
+
+    private static OtpEncodedTerm encode(final OtpErlangObject term) {
+        final OtpOutputStream out = new OtpOutputStream();
+        term.encode(out);
+        return new OtpEncodedTerm(out.toByteArray(), 0, out.size());
+    }
+
+}
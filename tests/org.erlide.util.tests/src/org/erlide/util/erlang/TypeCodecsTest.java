@@ -0,0 +1,238 @@
+package org.erlide.util.erlang;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Array;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangDouble;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangMap;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangRef;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import com.google.common.collect.Lists;
+
+/**
+ * Checks that {@link TypeConverter} converts as {@link OldTypeConverter} did, for every
+ * signature letter.
+ */
+public class TypeCodecsTest {
+
+    private static final String[] SIGNATURES = { "x", "i", "s", "a", "d", "b", "p",
+            "r", "j", "f", "o", "m", "ls", "li", "lx", "la", "lls", "l2si", "2sx", "3xxx",
+            "0" };
+
+    private static final OtpErlangPid PID = new OtpErlangPid("n@h", 1, 0, 0);
+    private static final OtpErlangRef REF = new OtpErlangRef("n@h", new int[] { 1 }, 0);
+
+    @Test
+    public void encodingIsUnchanged() throws SignatureException {
+        for (final Object value : TypeCodecsTest.values()) {
+            for (final String signature : TypeCodecsTest.SIGNATURES) {
+                TypeCodecsTest.checkEncode(value, signature);
+            }
+        }
+    }
+
+    @Test
+    public void nullIsOnlyConvertedByX() throws SignatureException {
+        assertThat(TypeConverter.java2erlang(null, "x")).isNull();
+        assertThat(OldTypeConverter.java2erlang(null, "x")).isNull();
+        final OtpErlangList list = (OtpErlangList) TypeConverter
+                .java2erlang(Arrays.asList("a", null), "lx");
+        assertThat(list.elementAt(0)).isEqualTo(new OtpErlangString("a"));
+        assertThat(list.elementAt(1)).isNull();
+        for (final String signature : TypeCodecsTest.SIGNATURES) {
+            if ("x".equals(signature)) {
+                continue;
+            }
+            try {
+                TypeConverter.java2erlang(null, signature);
+                fail("null converted to " + signature);
+            } catch (final SignatureException e) {
+                // the old converter failed with a NullPointerException
+            }
+        }
+    }
+
+    @Test
+    public void decodingIsUnchanged() throws SignatureException {
+        final List<Class<?>> classes = Arrays.asList(String.class, char.class,
+                Character.class, int.class, Integer.class, byte.class, Byte.class,
+                short.class, Short.class, long.class, Long.class, boolean.class,
+                Boolean.class, Map.class, List.class, Collection.class, Object.class,
+                OtpErlangObject.class, OtpErlangAtom.class, OtpErlangList.class,
+                byte[].class, int[].class, long[].class, short[].class, char[].class,
+                double[].class, Object[].class, String[].class, Long[].class,
+                OtpErlangObject[].class, Custom.class);
+        for (final OtpErlangObject term : TypeCodecsTest.terms()) {
+            for (final Class<?> cls : classes) {
+                TypeCodecsTest.checkDecode(term, cls);
+            }
+        }
+    }
+
+    private static void checkEncode(final Object value, final String signature)
+            throws SignatureException {
+        final String what = TypeCodecsTest.describe(value) + " as " + signature;
+        OtpErlangObject expected = null;
+        Exception expectedFailure = null;
+        try {
+            expected = OldTypeConverter.java2erlang(value, signature);
+        } catch (final Exception e) {
+            expectedFailure = e;
+        }
+        OtpErlangObject actual = null;
+        Exception failure = null;
+        try {
+            actual = TypeConverter.java2erlang(value, signature);
+        } catch (final Exception e) {
+            failure = e;
+        }
+        if (expectedFailure != null) {
+            assertWithMessage(what).that(failure).isNotNull();
+        } else {
+            assertWithMessage(what).that(failure).isNull();
+            assertWithMessage(what).that(actual).isEqualTo(expected);
+        }
+
+        // the stream path must write what the term path encodes
+        final OtpOutputStream out = new OtpOutputStream();
+        try {
+            TypeConverter.java2erlang(value, Signature.parse(signature)[0], out);
+            assertWithMessage(what).that(actual).isNotNull();
+        } catch (final SignatureException | RuntimeException e) {
+            assertWithMessage(what).that(actual).isNull();
+            return;
+        }
+        final OtpOutputStream reference = new OtpOutputStream();
+        reference.write_any(actual);
+        assertWithMessage(what).that(out.toByteArray())
+                .isEqualTo(reference.toByteArray());
+    }
+
+    private static void checkDecode(final OtpErlangObject term, final Class<?> cls) {
+        final String what = term + " to " + cls.getSimpleName();
+        Object expected = null;
+        Exception expectedFailure = null;
+        try {
+            expected = OldTypeConverter.erlang2java(term, cls);
+        } catch (final Exception e) {
+            expectedFailure = e;
+        }
+        Object actual = null;
+        Exception failure = null;
+        try {
+            actual = TypeConverter.erlang2java(term, cls);
+        } catch (final Exception e) {
+            failure = e;
+        }
+        if (expectedFailure != null) {
+            assertWithMessage(what).that(failure).isInstanceOf(SignatureException.class);
+            return;
+        }
+        assertWithMessage(what).that(failure).isNull();
+        if (cls.isArray() && cls.getComponentType().isPrimitive()
+                && expected.getClass() != cls) {
+            // terms that aren't lists gave an Object[0] even for primitive arrays
+            assertWithMessage(what).that(expected).isEqualTo(new Object[0]);
+            assertWithMessage(what).that(actual.getClass()).isEqualTo(cls);
+            assertWithMessage(what).that(Array.getLength(actual)).isEqualTo(0);
+            return;
+        }
+        // deepEquals also compares the element types, boxed or primitive
+        assertWithMessage(what + ": " + TypeCodecsTest.describe(actual) + " vs "
+                + TypeCodecsTest.describe(expected))
+                        .that(Arrays.deepEquals(new Object[] { actual },
+                                new Object[] { expected }))
+                        .isTrue();
+        if (expected != null) {
+            assertWithMessage(what).that(actual.getClass())
+                    .isEqualTo(expected.getClass());
+        }
+    }
+
+    @SuppressWarnings("boxing")
+    private static List<Object> values() {
+        final Map<OtpErlangObject, OtpErlangObject> terms = new LinkedHashMap<>();
+        terms.put(new OtpErlangAtom("k"), new OtpErlangLong(1));
+        terms.put(new OtpErlangString("s"), new OtpErlangAtom("v"));
+        final Map<Object, Object> objects = new LinkedHashMap<>();
+        objects.put("k", 1);
+        objects.put(2L, Arrays.asList("v"));
+        final IConvertible convertible = () -> new OtpErlangAtom("converted");
+        return Lists.newArrayList("", "abc", "héllo", 'c', (byte) 7, (short) -3, 42,
+                1L << 40, new BigInteger("39799999999999999999999"), 3.5f, 2.25d, true,
+                false, Arrays.asList("a", "b"), Arrays.asList(1, 2L),
+                Lists.newArrayList(),
+                new LinkedHashSet<>(Arrays.asList("x", "y")),
+                Arrays.asList(Arrays.asList("a"), Arrays.asList()),
+                Arrays.asList(new Object[] { "a", 1 }), terms, objects,
+                new LinkedHashMap<>(), TypeCodecsTest.PID, TypeCodecsTest.REF,
+                new OtpErlangBinary(new byte[] { 1, 2 }), new OtpErlangAtom("ok"),
+                new OtpErlangString("str"), new OtpErlangLong(5),
+                new OtpErlangDouble(1.5),
+                new OtpErlangList(new OtpErlangObject[] { new OtpErlangAtom("e") }),
+                new OtpErlangTuple(new OtpErlangObject[] { new OtpErlangAtom("t") }),
+                new OtpErlangMap(new OtpErlangObject[0], new OtpErlangObject[0]),
+                convertible, new Object[0], new Object[] { "a", 1 },
+                new Object[] { "a", 1, true },
+                new String[] { "p", "q" }, new Integer[] { 1, 2 }, new int[] { 1, 2 },
+                new long[] { 3L }, new byte[] { 1, 2, 3 }, new char[] { 'a' },
+                new boolean[] { true }, new double[] { 1.5 },
+                new Object[] { new Object[] { "n" } }, new StringBuilder("sb"));
+    }
+
+    @SuppressWarnings("boxing")
+    private static List<OtpErlangObject> terms() {
+        final OtpErlangObject[] ints = { new OtpErlangLong(1), new OtpErlangLong(300) };
+        return Lists.newArrayList(new OtpErlangAtom("true"), new OtpErlangAtom("false"),
+                new OtpErlangAtom("other"), new OtpErlangString("abc"),
+                new OtpErlangString(""), new OtpErlangBinary("bin".getBytes()),
+                new OtpErlangLong(65), new OtpErlangLong(1L << 40),
+                new OtpErlangLong(new BigInteger("39799999999999999999999")),
+                new OtpErlangDouble(1.5), new OtpErlangList(),
+                new OtpErlangList(ints), new OtpErlangTuple(ints),
+                new OtpErlangList(new OtpErlangObject[] { new OtpErlangString("ab"),
+                        new OtpErlangLong(99), new OtpErlangAtom("cd") }),
+                new OtpErlangList(new OtpErlangObject[] { new OtpErlangAtom("a"),
+                        new OtpErlangList(ints) }),
+                new OtpErlangMap(new OtpErlangObject[] { new OtpErlangAtom("k") },
+                        new OtpErlangObject[] { new OtpErlangString("v") }),
+                TypeCodecsTest.PID, TypeCodecsTest.REF);
+    }
+
+    private static String describe(final Object value) {
+        if (value == null) {
+            return "null";
+        }
+        final String s = value.getClass().isArray()
+                ? Arrays.deepToString(new Object[] { value })
+                : value.toString();
+        return value.getClass().getSimpleName() + " " + s;
+    }
+
+    public static class Custom {
+        public static Object fromErlangObject(final OtpErlangObject obj) {
+            return "custom " + obj;
+        }
+    }
+
+}